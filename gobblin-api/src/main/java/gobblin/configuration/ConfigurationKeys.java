@@ -64,6 +64,16 @@ public class ConfigurationKeys {
   // Note this only applies to jobs scheduled by the built-in Quartz-based job scheduler.
   public static final String SCHEDULER_WAIT_FOR_JOB_COMPLETION_KEY = "scheduler.wait.for.job.completion";
   public static final String DEFAULT_SCHEDULER_WAIT_FOR_JOB_COMPLETION = Boolean.TRUE.toString();
+  // Whether jobs launched locally by the scheduler share one task executor owned by the scheduler
+  public static final String SCHEDULER_SHARED_TASK_EXECUTOR_ENABLED_KEY = "scheduler.shared.taskexecutor.enabled";
+  public static final String DEFAULT_SCHEDULER_SHARED_TASK_EXECUTOR_ENABLED = Boolean.FALSE.toString();
+  // Class of the controller of the admission of job runs by the scheduler, no admission control if absent
+  public static final String SCHEDULER_JOB_ADMISSION_CONTROLLER_CLASS_KEY = "scheduler.job.admission.controller.class";
+  // Maximum number of job runs admitted at the same time by the concurrency-limiting admission controller
+  public static final String SCHEDULER_MAX_CONCURRENT_JOBS_KEY = "scheduler.max.concurrent.jobs";
+  public static final int DEFAULT_SCHEDULER_MAX_CONCURRENT_JOBS = Integer.MAX_VALUE;
+  // Prefix of the maximum number of job runs with a given tag admitted at the same time, followed by the tag
+  public static final String SCHEDULER_TAG_MAX_CONCURRENT_JOBS_KEY_PREFIX = "scheduler.tag.max.concurrent.jobs.";
 
   /**
    * Task executor and state tracker configuration properties.
@@ -74,6 +84,9 @@ public class ConfigurationKeys {
   public static final int DEFAULT_TASK_EXECUTOR_THREADPOOL_SIZE = 2;
   public static final int DEFAULT_TASK_STATE_TRACKER_THREAD_POOL_CORE_SIZE = 1;
   public static final int DEFAULT_TASK_RETRY_THREAD_POOL_CORE_SIZE = 1;
+  // Weight of a job in the fair share of task executor threads among jobs whose tasks run on the same executor
+  public static final String TASK_EXECUTOR_JOB_WEIGHT_KEY = "taskexecutor.job.weight";
+  public static final int DEFAULT_TASK_EXECUTOR_JOB_WEIGHT = 1;
 
   /**
    * Common job configuration properties.
@@ -102,6 +115,11 @@ public class ConfigurationKeys {
   public static final String JOB_LOCAL_FILES_KEY = "job.local.files";
   public static final String JOB_HDFS_FILES_KEY = "job.hdfs.files";
   public static final String JOB_LOCK_ENABLED_KEY = "job.lock.enabled";
+  // Comma-separated tags of a job, whose concurrent runs can be limited per tag by the scheduler
+  public static final String JOB_ADMISSION_TAGS_KEY = "job.admission.tags";
+  // Priority of a job among the runs waiting for admission by the scheduler, higher priority first
+  public static final String JOB_ADMISSION_PRIORITY_KEY = "job.admission.priority";
+  public static final int DEFAULT_JOB_ADMISSION_PRIORITY = 0;
   public static final String JOB_MAX_FAILURES_KEY = "job.max.failures";
   public static final int DEFAULT_JOB_MAX_FAILURES = 1;
   public static final String MAX_TASK_RETRIES_KEY = "task.maxretries";
@@ -224,12 +242,16 @@ public class ConfigurationKeys {
   public static final String WRITER_PRESERVE_FILE_NAME = WRITER_PREFIX + ".preserve.file.name";
   public static final String WRITER_DEFLATE_LEVEL = WRITER_PREFIX + ".deflate.level";
   public static final String WRITER_CODEC_TYPE = WRITER_PREFIX + ".codec.type";
+  public static final String WRITER_COMPRESSION_THREADS = WRITER_PREFIX + ".compression.threads";
+  public static final String WRITER_MAX_PENDING_BLOCKS = WRITER_PREFIX + ".max.pending.blocks";
   public static final String WRITER_EAGER_INITIALIZATION_KEY = WRITER_PREFIX + ".eager.initialization";
   public static final String WRITER_PARTITIONER_CLASS = WRITER_PREFIX + ".partitioner.class";
   public static final boolean DEFAULT_WRITER_EAGER_INITIALIZATION = false;
   public static final String WRITER_GROUP_NAME = WRITER_PREFIX + ".group.name";
   public static final String DEFAULT_WRITER_FILE_BASE_NAME = "part";
   public static final int DEFAULT_DEFLATE_LEVEL = 9;
+  public static final int DEFAULT_WRITER_COMPRESSION_THREADS = 0;
+  public static final int DEFAULT_WRITER_MAX_PENDING_BLOCKS = 8;
   public static final int DEFAULT_BUFFER_SIZE = 4096;
   public static final String DEFAULT_WRITER_FILE_PATH_TYPE = "default";
   public static final String SIMPLE_WRITER_DELIMITER = "simple.writer.delimiter";
@@ -330,8 +352,21 @@ public class ConfigurationKeys {
   public static final String SOURCE_FILEBASED_DATA_DIRECTORY = "source.filebased.data.directory";
   public static final String SOURCE_FILEBASED_FILES_TO_PULL = "source.filebased.files.to.pull";
   public static final String SOURCE_FILEBASED_FS_SNAPSHOT = "source.filebased.fs.snapshot";
+  public static final String SOURCE_FILEBASED_FS_SNAPSHOT_DIR = "source.filebased.fs.snapshot.dir";
+  public static final String SOURCE_FILEBASED_FS_SNAPSHOT_FILE = "source.filebased.fs.snapshot.file";
   public static final String SOURCE_FILEBASED_FS_URI = "source.filebased.fs.uri";
   public static final String SOURCE_FILEBASED_PRESERVE_FILE_NAME = "source.filebased.preserve.file.name";
+  public static final String SOURCE_FILEBASED_PARTITION_BY_SIZE = "source.filebased.partition.by.size";
+  public static final boolean DEFAULT_SOURCE_FILEBASED_PARTITION_BY_SIZE = false;
+  public static final String SOURCE_FILEBASED_READ_BINARY_CHUNKS = "source.filebased.read.binary.chunks";
+  public static final String SOURCE_FILEBASED_BINARY_CHUNK_SIZE = "source.filebased.binary.chunk.size";
+  public static final int DEFAULT_SOURCE_FILEBASED_BINARY_CHUNK_SIZE = 64 * 1024;
+  public static final String SOURCE_FILEBASED_PREFETCH_DEPTH = "source.filebased.prefetch.depth";
+  public static final int DEFAULT_SOURCE_FILEBASED_PREFETCH_DEPTH = 0;
+  public static final String SOURCE_FILEBASED_PREFETCH_LOCAL_BUFFER_DIR = "source.filebased.prefetch.local.buffer.dir";
+  public static final String SOURCE_FILEBASED_PREFETCH_MAX_BYTES_IN_FLIGHT =
+      "source.filebased.prefetch.max.bytes.in.flight";
+  public static final long DEFAULT_SOURCE_FILEBASED_PREFETCH_MAX_BYTES_IN_FLIGHT = 256 * 1024 * 1024;
 
   /**
    * Configuration properties used internally by the KafkaSource.
@@ -397,6 +432,13 @@ public class ConfigurationKeys {
   public static final boolean DEFAULT_MR_REPORT_METRICS_AS_COUNTERS = false;
   public static final int DEFAULT_MR_JOB_MAX_MAPPERS = 100;
 
+  /**
+   * Configuration properties used by the local job launcher.
+   */
+  // Directory on the local file system where output task states are written to be collected, a temporary
+  // directory by default
+  public static final String LOCAL_JOB_OUTPUT_TASK_STATE_DIR_KEY = "local.job.output.task.state.dir";
+
   /**
    * Configuration properties used by the distributed job launcher.
    */
@@ -461,6 +503,11 @@ public class ConfigurationKeys {
   public static final String DEFAULT_REST_SERVER_HOST = "localhost";
   public static final String REST_SERVER_PORT_KEY = "rest.server.port";
   public static final String DEFAULT_REST_SERVER_PORT = "8080";
+  // Query results are not cached by default, since cached results hide updates of running jobs
+  public static final String REST_SERVER_QUERY_CACHE_MAX_SIZE_KEY = "rest.server.query.cache.max.size";
+  public static final String DEFAULT_REST_SERVER_QUERY_CACHE_MAX_SIZE = "0";
+  public static final String REST_SERVER_QUERY_CACHE_TTL_SECONDS_KEY = "rest.server.query.cache.ttl.seconds";
+  public static final String DEFAULT_REST_SERVER_QUERY_CACHE_TTL_SECONDS = "60";
 
   /**
    * Kafka job configurations.
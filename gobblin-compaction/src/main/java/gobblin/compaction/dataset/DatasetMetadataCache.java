@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.dataset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.GlobFilter;
+import org.apache.hadoop.fs.Path;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gobblin.compaction.mapreduce.MRCompactor;
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.util.HadoopUtils;
+
+
+/**
+ * A cache of the file system metadata the compactor needs before it starts MR jobs: the listings of the input and
+ * output directories of {@link Dataset}s, and the compaction timestamps in their output directories.
+ *
+ * <p>
+ *   The listing of a directory without subdirectories is reused as long as the modification time of the directory,
+ *   taken from the listing of its parent, is unchanged, so it takes no {@link FileSystem#listStatus(Path)} call. Since
+ *   the modification time of a directory only changes when entries are added to or removed from it, changes to the
+ *   content of existing files are not picked up, which is fine for the immutable files the compactor works on. For
+ *   the same reason, directories with subdirectories are always listed again, which also provides the current
+ *   modification times of the subdirectories. Directories modified less than {@value #MIN_CACHEABLE_AGE_SECONDS}
+ *   seconds ago are not cached, to guard against coarse modification times and clock skew.
+ * </p>
+ *
+ * <p>
+ *   The cache is enabled by setting {@link MRCompactor#COMPACTION_METADATA_CACHE_DIR}, in which case it is loaded
+ *   from a file named after the job in that directory, and persisted by {@link #save()} at the end of the compaction.
+ *   Only the entries that were used since the cache was loaded or last saved are persisted and kept, so entries of
+ *   partitions that are no longer compacted age out. The instance of a job is shared until it is closed by
+ *   {@link #close()}. If the cache is not enabled, all calls go to the {@link FileSystem}.
+ * </p>
+ */
+@Slf4j
+public class DatasetMetadataCache implements Closeable {
+
+  // Version 1 also cached listings of directories with subdirectories
+  private static final int VERSION = 2;
+  private static final long MIN_CACHEABLE_AGE_SECONDS = 60;
+  private static final String CACHE_FILE_EXTENSION = ".metadata.gz";
+
+  private static final Map<Path, DatasetMetadataCache> INSTANCES = Maps.newHashMap();
+
+  private final FileSystem fs;
+  private final Optional<Path> cacheFile;
+  private final Map<Path, CachedListing> listings = Maps.newConcurrentMap();
+  private final Map<Path, CachedTimestamp> compactionTimestamps = Maps.newConcurrentMap();
+  // Keys of the entries that were used since the cache was loaded or last saved
+  private final Map<Path, Boolean> usedListings = Maps.newConcurrentMap();
+  private final Map<Path, Boolean> usedCompactionTimestamps = Maps.newConcurrentMap();
+
+  private DatasetMetadataCache(FileSystem fs, Optional<Path> cacheFile) {
+    this.fs = fs;
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * Get the {@link DatasetMetadataCache} configured in the given {@link State}. All callers with the same
+   * configuration share the same instance until it is closed, so the cache is loaded once per job run.
+   */
+  public static DatasetMetadataCache getInstance(State state, FileSystem fs) throws IOException {
+    if (!state.contains(MRCompactor.COMPACTION_METADATA_CACHE_DIR)) {
+      return new DatasetMetadataCache(fs, Optional.<Path> absent());
+    }
+    Path cacheFile = fs.makeQualified(new Path(state.getProp(MRCompactor.COMPACTION_METADATA_CACHE_DIR),
+        state.getProp(ConfigurationKeys.JOB_NAME_KEY) + CACHE_FILE_EXTENSION));
+    synchronized (INSTANCES) {
+      if (!INSTANCES.containsKey(cacheFile)) {
+        INSTANCES.put(cacheFile, create(fs, cacheFile));
+      }
+      return INSTANCES.get(cacheFile);
+    }
+  }
+
+  /**
+   * Create a {@link DatasetMetadataCache} that is loaded from the given cache file, without sharing it.
+   */
+  @VisibleForTesting
+  static DatasetMetadataCache create(FileSystem fs, Path cacheFile) throws IOException {
+    DatasetMetadataCache cache = new DatasetMetadataCache(fs, Optional.of(cacheFile));
+    cache.load();
+    return cache;
+  }
+
+  /**
+   * Get the {@link FileStatus} of a path, or {@link Optional#absent()} if it does not exist.
+   */
+  public Optional<FileStatus> getFileStatus(Path path) throws IOException {
+    try {
+      return Optional.of(this.fs.getFileStatus(path));
+    } catch (FileNotFoundException fnfe) {
+      return Optional.absent();
+    }
+  }
+
+  /**
+   * List the entries of a directory, or return an empty list if it does not exist.
+   */
+  public List<FileStatus> listStatus(Path dir) throws IOException {
+    Optional<FileStatus> dirStatus = getFileStatus(dir);
+    if (!dirStatus.isPresent()) {
+      return Lists.newArrayList();
+    }
+    return Lists.newArrayList(listStatus(dirStatus.get()));
+  }
+
+  /**
+   * List all files under a directory recursively, or return an empty list if it does not exist.
+   */
+  public List<FileStatus> listFilesRecursively(Path dir) throws IOException {
+    List<FileStatus> files = Lists.newArrayList();
+    Optional<FileStatus> dirStatus = getFileStatus(dir);
+    if (dirStatus.isPresent()) {
+      listFilesRecursively(dirStatus.get(), files);
+    }
+    return files;
+  }
+
+  /**
+   * Get the entries that match a glob pattern relative to a directory, like {@link FileSystem#globStatus(Path)}.
+   * Each component of the pattern is matched against the entries of one level of the directory tree.
+   */
+  @SuppressWarnings("deprecation")
+  public List<FileStatus> globStatus(Path dir, String pattern) throws IOException {
+    if (!this.cacheFile.isPresent()) {
+      FileStatus[] statuses = this.fs.globStatus(new Path(dir, pattern));
+      return statuses == null ? Lists.<FileStatus> newArrayList() : Lists.newArrayList(statuses);
+    }
+    List<FileStatus> matches = Lists.newArrayList(getFileStatus(dir).asSet());
+    for (String component : Splitter.on(Path.SEPARATOR_CHAR).omitEmptyStrings().split(pattern)) {
+      GlobFilter filter = new GlobFilter(component);
+      List<FileStatus> nextMatches = Lists.newArrayList();
+      for (FileStatus match : matches) {
+        if (match.isDir()) {
+          for (FileStatus status : listStatus(match)) {
+            if (filter.accept(status.getPath())) {
+              nextMatches.add(status);
+            }
+          }
+        }
+      }
+      matches = nextMatches;
+    }
+    return matches;
+  }
+
+  /**
+   * Get the total length of the files under a directory.
+   */
+  public long getLength(Path dir) throws IOException {
+    if (!this.cacheFile.isPresent()) {
+      return this.fs.getContentSummary(dir).getLength();
+    }
+    long length = 0;
+    for (FileStatus file : listFilesRecursively(dir)) {
+      length += file.getLen();
+    }
+    return length;
+  }
+
+  /**
+   * Whether the given output directory contains a {@link MRCompactor#COMPACTION_COMPLETE_FILE_NAME} file.
+   */
+  public boolean isCompacted(Path outputDir) throws IOException {
+    if (!this.cacheFile.isPresent()) {
+      return this.fs.exists(new Path(outputDir, MRCompactor.COMPACTION_COMPLETE_FILE_NAME));
+    }
+    return getCompactionCompleteFileStatus(outputDir).isPresent();
+  }
+
+  /**
+   * Get the compaction timestamp stored in the given output directory.
+   *
+   * @see MRCompactor#readCompactionTimestamp(FileSystem, Path)
+   */
+  public long getCompactionTimestamp(Path outputDir) throws IOException {
+    if (!this.cacheFile.isPresent()) {
+      return MRCompactor.readCompactionTimestamp(this.fs, outputDir);
+    }
+    Optional<FileStatus> completeFile = getCompactionCompleteFileStatus(outputDir);
+    if (!completeFile.isPresent()) {
+      return MRCompactor.readCompactionTimestamp(this.fs, outputDir);
+    }
+
+    Path key = this.fs.makeQualified(outputDir);
+    this.usedCompactionTimestamps.put(key, Boolean.TRUE);
+    CachedTimestamp cached = this.compactionTimestamps.get(key);
+    if (cached != null && cached.fileModificationTime == completeFile.get().getModificationTime()) {
+      return cached.timestamp;
+    }
+    long timestamp = MRCompactor.readCompactionTimestamp(this.fs, outputDir);
+    this.compactionTimestamps.put(key, new CachedTimestamp(completeFile.get().getModificationTime(), timestamp));
+    return timestamp;
+  }
+
+  private Optional<FileStatus> getCompactionCompleteFileStatus(Path outputDir) throws IOException {
+    for (FileStatus status : listStatus(outputDir)) {
+      if (status.getPath().getName().equals(MRCompactor.COMPACTION_COMPLETE_FILE_NAME)) {
+        return Optional.of(status);
+      }
+    }
+    return Optional.absent();
+  }
+
+  @SuppressWarnings("deprecation")
+  private void listFilesRecursively(FileStatus fileStatus, List<FileStatus> files) throws IOException {
+    if (!fileStatus.isDir()) {
+      files.add(fileStatus);
+      return;
+    }
+    for (FileStatus status : listStatus(fileStatus)) {
+      listFilesRecursively(status, files);
+    }
+  }
+
+  /**
+   * List the entries of a directory, whose status must be up to date. Only listings of directories without
+   * subdirectories are cached, since the statuses of subdirectories in a listing would otherwise be out of date.
+   */
+  @SuppressWarnings("deprecation")
+  private FileStatus[] listStatus(FileStatus dir) throws IOException {
+    if (!this.cacheFile.isPresent()) {
+      return this.fs.listStatus(dir.getPath());
+    }
+
+    Path key = this.fs.makeQualified(dir.getPath());
+    this.usedListings.put(key, Boolean.TRUE);
+    CachedListing cached = this.listings.get(key);
+    if (cached != null && cached.modificationTime == dir.getModificationTime()) {
+      return cached.statuses;
+    }
+
+    FileStatus[] statuses = this.fs.listStatus(dir.getPath());
+    long age = System.currentTimeMillis() - dir.getModificationTime();
+    if (age >= TimeUnit.SECONDS.toMillis(MIN_CACHEABLE_AGE_SECONDS) && !hasDirectories(statuses)) {
+      this.listings.put(key, new CachedListing(dir.getModificationTime(), statuses));
+    } else {
+      this.listings.remove(key);
+    }
+    return statuses;
+  }
+
+  @SuppressWarnings("deprecation")
+  private static boolean hasDirectories(FileStatus[] statuses) {
+    for (FileStatus status : statuses) {
+      if (status.isDir()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void load() throws IOException {
+    if (!this.fs.exists(this.cacheFile.get())) {
+      return;
+    }
+    Closer closer = Closer.create();
+    try {
+      FSDataInputStream fileIn = closer.register(this.fs.open(this.cacheFile.get()));
+      DataInputStream in = closer.register(new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn))));
+      if (in.readInt() != VERSION) {
+        log.warn("Ignoring metadata cache of unsupported version in " + this.cacheFile.get());
+        return;
+      }
+      int numListings = in.readInt();
+      for (int i = 0; i < numListings; i++) {
+        Path dir = new Path(in.readUTF());
+        long modificationTime = in.readLong();
+        FileStatus[] statuses = new FileStatus[in.readInt()];
+        for (int j = 0; j < statuses.length; j++) {
+          long length = in.readLong();
+          boolean isDir = in.readBoolean();
+          long fileModificationTime = in.readLong();
+          statuses[j] = new FileStatus(length, isDir, 0, 0, fileModificationTime, new Path(dir, in.readUTF()));
+        }
+        this.listings.put(dir, new CachedListing(modificationTime, statuses));
+      }
+      int numTimestamps = in.readInt();
+      for (int i = 0; i < numTimestamps; i++) {
+        this.compactionTimestamps.put(new Path(in.readUTF()), new CachedTimestamp(in.readLong(), in.readLong()));
+      }
+      log.info(String.format("Loaded %d directory listings and %d compaction timestamps from %s", numListings,
+          numTimestamps, this.cacheFile.get()));
+    } catch (IOException ioe) {
+      // The cache only saves file system calls, so an unreadable cache is dropped rather than failing the compaction
+      log.warn("Failed to load metadata cache from " + this.cacheFile.get(), ioe);
+      this.listings.clear();
+      this.compactionTimestamps.clear();
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * Persist the entries of the cache that were used since it was loaded or last saved, and drop the other entries.
+   * Does nothing if the cache is not enabled.
+   */
+  @SuppressWarnings("deprecation")
+  public void save() throws IOException {
+    if (!this.cacheFile.isPresent()) {
+      return;
+    }
+    this.listings.keySet().retainAll(this.usedListings.keySet());
+    this.usedListings.clear();
+    this.compactionTimestamps.keySet().retainAll(this.usedCompactionTimestamps.keySet());
+    this.usedCompactionTimestamps.clear();
+    Map<Path, CachedListing> listingsToSave = ImmutableMap.copyOf(this.listings);
+    Map<Path, CachedTimestamp> timestampsToSave = ImmutableMap.copyOf(this.compactionTimestamps);
+
+    Path tmpFile = new Path(this.cacheFile.get().getParent(), "_tmp_" + this.cacheFile.get().getName());
+    Closer closer = Closer.create();
+    try {
+      DataOutputStream out = closer.register(new DataOutputStream(
+          new BufferedOutputStream(new GZIPOutputStream(this.fs.create(tmpFile, true)))));
+      out.writeInt(VERSION);
+      out.writeInt(listingsToSave.size());
+      for (Map.Entry<Path, CachedListing> entry : listingsToSave.entrySet()) {
+        out.writeUTF(entry.getKey().toString());
+        out.writeLong(entry.getValue().modificationTime);
+        out.writeInt(entry.getValue().statuses.length);
+        for (FileStatus status : entry.getValue().statuses) {
+          out.writeLong(status.getLen());
+          out.writeBoolean(status.isDir());
+          out.writeLong(status.getModificationTime());
+          out.writeUTF(status.getPath().getName());
+        }
+      }
+      out.writeInt(timestampsToSave.size());
+      for (Map.Entry<Path, CachedTimestamp> entry : timestampsToSave.entrySet()) {
+        out.writeUTF(entry.getKey().toString());
+        out.writeLong(entry.getValue().fileModificationTime);
+        out.writeLong(entry.getValue().timestamp);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    this.fs.delete(this.cacheFile.get(), false);
+    HadoopUtils.renamePath(this.fs, tmpFile, this.cacheFile.get());
+    log.info(String.format("Saved %d directory listings and %d compaction timestamps to %s", listingsToSave.size(),
+        timestampsToSave.size(), this.cacheFile.get()));
+  }
+
+  /**
+   * Stop sharing this instance, so the next call to {@link #getInstance(State, FileSystem)} for the same job loads the
+   * cache again. This does not save the cache.
+   */
+  @Override
+  public void close() {
+    if (!this.cacheFile.isPresent()) {
+      return;
+    }
+    synchronized (INSTANCES) {
+      if (INSTANCES.get(this.cacheFile.get()) == this) {
+        INSTANCES.remove(this.cacheFile.get());
+      }
+    }
+  }
+
+  private static class CachedListing {
+
+    private final long modificationTime;
+    private final FileStatus[] statuses;
+
+    private CachedListing(long modificationTime, FileStatus[] statuses) {
+      this.modificationTime = modificationTime;
+      this.statuses = statuses;
+    }
+  }
+
+  private static class CachedTimestamp {
+
+    private final long fileModificationTime;
+    private final long timestamp;
+
+    private CachedTimestamp(long fileModificationTime, long timestamp) {
+      this.fileModificationTime = fileModificationTime;
+      this.timestamp = timestamp;
+    }
+  }
+}
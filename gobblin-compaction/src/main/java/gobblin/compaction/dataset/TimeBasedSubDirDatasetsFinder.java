@@ -94,7 +94,8 @@ public class TimeBasedSubDirDatasetsFinder extends DatasetsFinder {
   @Override
   public Set<Dataset> findDistinctDatasets() throws IOException {
     Set<Dataset> datasets = Sets.newHashSet();
-    for (FileStatus datasetsFileStatus : this.fs.listStatus(new Path(this.inputDir))) {
+    DatasetMetadataCache metadataCache = DatasetMetadataCache.getInstance(this.state, this.fs);
+    for (FileStatus datasetsFileStatus : metadataCache.listStatus(new Path(this.inputDir))) {
       if (datasetsFileStatus.isDir()) {
         String datasetName = datasetsFileStatus.getPath().getName();
         if (DatasetFilterUtils.survived(datasetName, this.blacklist, this.whitelist)) {
@@ -108,7 +109,7 @@ public class TimeBasedSubDirDatasetsFinder extends DatasetsFinder {
           double lateDataThresholdForRecompact = this.getDatasetRecompactThreshold(datasetName);
 
           String folderStructure = getFolderStructure();
-          for (FileStatus status : this.fs.globStatus(new Path(inputPath, folderStructure))) {
+          for (FileStatus status : metadataCache.globStatus(inputPath, folderStructure)) {
             Path jobInputPath = status.getPath();
             DateTime folderTime = null;
             try {
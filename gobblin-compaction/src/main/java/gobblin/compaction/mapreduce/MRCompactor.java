@@ -59,6 +59,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import gobblin.compaction.Compactor;
 import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.dataset.DatasetMetadataCache;
 import gobblin.compaction.dataset.DatasetsFinder;
 import gobblin.compaction.dataset.TimeBasedSubDirDatasetsFinder;
 import gobblin.compaction.event.CompactionSlaEventHelper;
@@ -125,6 +126,8 @@ public class MRCompactor implements Compactor {
   public static final String COMPACTION_TIMEZONE = COMPACTION_PREFIX + "timezone";
   public static final String DEFAULT_COMPACTION_TIMEZONE = ConfigurationKeys.PST_TIMEZONE_NAME;
   public static final String COMPACTION_FILE_SYSTEM_URI = COMPACTION_PREFIX + "file.system.uri";
+  // Directory in which file system metadata is cached between runs, see DatasetMetadataCache. Disabled if not set.
+  public static final String COMPACTION_METADATA_CACHE_DIR = COMPACTION_PREFIX + "metadata.cache.dir";
   public static final String COMPACTION_MR_JOB_TIMEOUT_MINUTES = COMPACTION_PREFIX + "mr.job.timeout.minutes";
   public static final long DEFAULT_COMPACTION_MR_JOB_TIMEOUT_MINUTES = Long.MAX_VALUE;
 
@@ -217,6 +220,7 @@ public class MRCompactor implements Compactor {
   private final Configuration conf;
   private final String tmpOutputDir;
   private final FileSystem fs;
+  private final DatasetMetadataCache metadataCache;
   private final JobRunnerExecutor jobExecutor;
   private final Set<Dataset> datasets;
   private final Map<Dataset, MRCompactorJobRunner> jobRunnables;
@@ -238,6 +242,7 @@ public class MRCompactor implements Compactor {
     this.conf = HadoopUtils.getConfFromState(state);
     this.tmpOutputDir = getTmpOutputDir();
     this.fs = getFileSystem();
+    this.metadataCache = DatasetMetadataCache.getInstance(this.state, this.fs);
     this.datasets = getDatasetsFinder().findDistinctDatasets();
     this.jobExecutor = createJobExecutor();
     this.jobRunnables = Maps.newConcurrentMap();
@@ -316,6 +321,7 @@ public class MRCompactor implements Compactor {
       try {
         shutdownExecutors();
         this.closer.close();
+        saveMetadataCache();
       } finally {
         deleteDependencyJars();
         gobblinMetrics.stopMetricsReporting();
@@ -323,6 +329,16 @@ public class MRCompactor implements Compactor {
     }
   }
 
+  private void saveMetadataCache() {
+    try {
+      this.metadataCache.save();
+    } catch (IOException e) {
+      LOG.warn("Failed to save metadata cache", e);
+    } finally {
+      this.metadataCache.close();
+    }
+  }
+
   /**
    * Copy dependency jars from local fs to HDFS.
    */
@@ -403,7 +419,7 @@ public class MRCompactor implements Compactor {
   MRCompactorJobPropCreator getJobPropCreator(Dataset dataset) {
     try {
       return new MRCompactorJobPropCreator.Builder().withDataset(dataset).withFileSystem(this.fs).withState(this.state)
-          .build();
+          .withMetadataCache(this.metadataCache).build();
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -456,7 +472,7 @@ public class MRCompactor implements Compactor {
    */
   private boolean shouldVerifyCompletenessForDataset(Dataset dataset, List<Pattern> blacklist,
       List<Pattern> whitelist) {
-    return !datasetAlreadyCompacted(this.fs, dataset)
+    return !datasetAlreadyCompacted(this.metadataCache, dataset)
         && DatasetFilterUtils.survived(dataset.getName(), blacklist, whitelist);
   }
 
@@ -474,6 +490,19 @@ public class MRCompactor implements Compactor {
     }
   }
 
+  /**
+   * Same as {@link #datasetAlreadyCompacted(FileSystem, Dataset)}, but uses the given {@link DatasetMetadataCache}.
+   */
+  public static boolean datasetAlreadyCompacted(DatasetMetadataCache metadataCache, Dataset dataset) {
+    try {
+      return metadataCache.isCompacted(dataset.outputPath());
+    } catch (IOException e) {
+      LOG.error("Failed to verify the existence of file " + MRCompactor.COMPACTION_COMPLETE_FILE_NAME + " in "
+          + dataset.outputPath(), e);
+      return false;
+    }
+  }
+
   public static long readCompactionTimestamp(FileSystem fs, Path compactionOutputPath) throws IOException {
     Closer closer = Closer.create();
     Path completionFilePath = new Path(compactionOutputPath, COMPACTION_COMPLETE_FILE_NAME);
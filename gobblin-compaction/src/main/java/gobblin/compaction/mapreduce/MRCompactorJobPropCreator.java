@@ -30,9 +30,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.dataset.DatasetMetadataCache;
 import gobblin.compaction.event.CompactionSlaEventHelper;
 import gobblin.configuration.State;
-import gobblin.util.FileListUtils;
 
 
 /**
@@ -50,6 +50,7 @@ public class MRCompactorJobPropCreator {
     FileSystem fs;
     State state;
     double lateDataThresholdForRecompact;
+    DatasetMetadataCache metadataCache;
 
     Builder withDataset(Dataset dataset) {
       this.dataset = dataset;
@@ -72,13 +73,19 @@ public class MRCompactorJobPropCreator {
       return this;
     }
 
-    MRCompactorJobPropCreator build() {
+    Builder withMetadataCache(DatasetMetadataCache metadataCache) {
+      this.metadataCache = metadataCache;
+      return this;
+    }
+
+    MRCompactorJobPropCreator build() throws IOException {
       return new MRCompactorJobPropCreator(this);
     }
   }
 
   protected final Dataset dataset;
   protected final FileSystem fs;
+  protected final DatasetMetadataCache metadataCache;
   protected final State state;
   protected final boolean inputDeduplicated;
   protected final boolean outputDeduplicated;
@@ -92,10 +99,12 @@ public class MRCompactorJobPropCreator {
   // output '_late' folders will be used as input to compaction jobs.
   protected final boolean recompactFromOutputPaths;
 
-  private MRCompactorJobPropCreator(Builder builder) {
+  private MRCompactorJobPropCreator(Builder builder) throws IOException {
     this.dataset = builder.dataset;
     this.fs = builder.fs;
     this.state = builder.state;
+    this.metadataCache = builder.metadataCache != null ? builder.metadataCache
+        : DatasetMetadataCache.getInstance(this.state, this.fs);
     this.lateDataThresholdForRecompact = builder.lateDataThresholdForRecompact;
     this.inputDeduplicated = this.state.getPropAsBoolean(MRCompactor.COMPACTION_INPUT_DEDUPLICATED,
         MRCompactor.DEFAULT_COMPACTION_INPUT_DEDUPLICATED);
@@ -124,7 +133,7 @@ public class MRCompactorJobPropCreator {
 
   private void setCompactionSLATimestamp(Dataset dataset) {
     // Set up SLA timestamp only if this dataset will be compacted and MRCompactor.COMPACTION_INPUT_PATH_TIME is present.
-    if ((this.recompactFromOutputPaths || !MRCompactor.datasetAlreadyCompacted(this.fs, dataset))
+    if ((this.recompactFromOutputPaths || !MRCompactor.datasetAlreadyCompacted(this.metadataCache, dataset))
         && dataset.jobProps().contains(MRCompactor.COMPACTION_INPUT_PATH_TIME)) {
       long timeInMills = dataset.jobProps().getPropAsLong(MRCompactor.COMPACTION_INPUT_PATH_TIME);
       // Set the upstream time to partition + 1 day. E.g. for 2015/10/13 the upstream time is midnight of 2015/10/14
@@ -138,7 +147,7 @@ public class MRCompactorJobPropCreator {
    */
   protected Optional<Dataset> createJobProps(Dataset dataset) throws IOException {
     if (this.recompactFromOutputPaths
-        && (!this.fs.exists(dataset.inputLatePath()) || this.fs.listStatus(dataset.inputLatePath()).length == 0)) {
+        && this.metadataCache.listStatus(dataset.inputLatePath()).isEmpty()) {
       LOG.info(String.format("Skipping recompaction for %s since there is no late data in %s", dataset.inputPath(),
           dataset.inputLatePath()));
       return Optional.<Dataset> absent();
@@ -151,7 +160,7 @@ public class MRCompactorJobPropCreator {
     jobProps.setProp(MRCompactor.COMPACTION_OUTPUT_DEDUPLICATED, this.outputDeduplicated);
     jobProps.setProp(MRCompactor.COMPACTION_SHOULD_DEDUPLICATE, !this.inputDeduplicated && this.outputDeduplicated);
 
-    if (this.recompactFromOutputPaths || !MRCompactor.datasetAlreadyCompacted(this.fs, dataset)) {
+    if (this.recompactFromOutputPaths || !MRCompactor.datasetAlreadyCompacted(this.metadataCache, dataset)) {
       addInputLateFilesForFirstTimeCompaction(jobProps, dataset);
     } else {
       List<Path> newDataFiles = getNewDataInFolder(dataset.inputPath(), dataset.outputPath());
@@ -169,7 +178,7 @@ public class MRCompactorJobPropCreator {
   }
 
   private void addInputLateFilesForFirstTimeCompaction(State jobProps, Dataset dataset) throws IOException {
-    if (this.fs.exists(dataset.inputLatePath()) && this.fs.listStatus(dataset.inputLatePath()).length > 0) {
+    if (!this.metadataCache.listStatus(dataset.inputLatePath()).isEmpty()) {
       dataset.addAdditionalInputPath(dataset.inputLatePath());
       if (this.outputDeduplicated) {
 
@@ -207,12 +216,13 @@ public class MRCompactorJobPropCreator {
   private List<Path> getNewDataInFolder(Path inputFolder, Path outputFolder) throws IOException {
     List<Path> newFiles = Lists.newArrayList();
 
-    if (!this.fs.exists(inputFolder) || !this.fs.exists(outputFolder)) {
+    if (!this.metadataCache.getFileStatus(inputFolder).isPresent()
+        || !this.metadataCache.getFileStatus(outputFolder).isPresent()) {
       return newFiles;
     }
 
-    DateTime lastCompactionTime = new DateTime(MRCompactor.readCompactionTimestamp(this.fs, outputFolder));
-    for (FileStatus fstat : FileListUtils.listFilesRecursively(this.fs, inputFolder)) {
+    DateTime lastCompactionTime = new DateTime(this.metadataCache.getCompactionTimestamp(outputFolder));
+    for (FileStatus fstat : this.metadataCache.listFilesRecursively(inputFolder)) {
       DateTime fileModificationTime = new DateTime(fstat.getModificationTime());
       if (fileModificationTime.isAfter(lastCompactionTime)) {
         newFiles.add(fstat.getPath());
@@ -34,6 +34,7 @@ import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -42,6 +43,7 @@ import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
 
 import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.dataset.DatasetMetadataCache;
 import gobblin.compaction.event.CompactionRecordCountEvent;
 import gobblin.compaction.event.CompactionSlaEventHelper;
 import gobblin.configuration.ConfigurationKeys;
@@ -51,6 +53,7 @@ import gobblin.metrics.event.sla.SlaEventSubmitter;
 import gobblin.util.FileListUtils;
 import gobblin.util.HadoopUtils;
 import gobblin.util.RecordCountProvider;
+import gobblin.util.recordcount.CompactionRecordCountProvider;
 import gobblin.util.recordcount.LateFileRecordCountProvider;
 
 
@@ -65,7 +68,14 @@ import gobblin.util.recordcount.LateFileRecordCountProvider;
  * If {@value MRCompactor#COMPACTION_JOB_LATE_DATA_MOVEMENT_TASK} is set to true, does not
  * launch an MR job. Instead, just copies the files present in
  * {@value MRCompactor#COMPACTION_JOB_LATE_DATA_FILES} to a 'late' subdirectory within
- * the output directory.
+ * the output directory. If compaction.job.late.data.incremental.dedup is also set to true and the output is
+ * deduplicated, the late records are instead deduplicated against the output directory and written to a single new
+ * file in the 'late' subdirectory, see {@link #dedupLateDataFiles(Path, List)}.
+ *
+ * If the total input size of a dataset is at most compaction.job.local.mode.max.input.size, the MR job is run
+ * in-process by Hadoop's local job runner with a single reducer, instead of being submitted to the cluster. This
+ * avoids paying the job submission and container startup latency for small datasets, while producing the same
+ * output, since the same mapper, reducer and output format are used.
  *
  * @author ziliu
  */
@@ -91,6 +101,16 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
   private static final String COMPACTION_JOB_ABORT_UPON_NEW_DATA = COMPACTION_JOB_PREFIX + "abort.upon.new.data";
   private static final boolean DEFAULT_COMPACTION_JOB_ABORT_UPON_NEW_DATA = false;
 
+  // Datasets whose input is at most this many bytes are compacted by an in-process MR job. Disabled if negative.
+  private static final String COMPACTION_JOB_LOCAL_MODE_MAX_INPUT_SIZE =
+      COMPACTION_JOB_PREFIX + "local.mode.max.input.size";
+  private static final long DEFAULT_COMPACTION_JOB_LOCAL_MODE_MAX_INPUT_SIZE = -1;
+
+  // If true, late data is deduplicated against the compacted output instead of being copied as is.
+  private static final String COMPACTION_JOB_LATE_DATA_INCREMENTAL_DEDUP =
+      COMPACTION_JOB_PREFIX + "late.data.incremental.dedup";
+  private static final boolean DEFAULT_COMPACTION_JOB_LATE_DATA_INCREMENTAL_DEDUP = false;
+
   // If true, the MR job will use either 1 reducer or a prime number of reducers.
   private static final String COMPACTION_JOB_USE_PRIME_REDUCERS = COMPACTION_JOB_PREFIX + "use.prime.reducers";
   private static final boolean DEFAULT_COMPACTION_JOB_USE_PRIME_REDUCERS = true;
@@ -131,6 +151,7 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
 
   private volatile Policy policy = Policy.DO_NOT_PUBLISH_DATA;
   private volatile Status status = Status.RUNNING;
+  private boolean runInLocalMode = false;
 
   protected MRCompactorJobRunner(Dataset dataset, FileSystem fs, Double priority) {
     this.dataset = dataset;
@@ -196,7 +217,10 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
         }
 
         Path lateDataOutputPath = this.outputDeduplicated ? this.dataset.outputLatePath() : this.dataset.outputPath();
-        LOG.info(String.format("Copying %d late data files to %s", newLateFilePaths.size(), lateDataOutputPath));
+        boolean incrementalDedup = this.outputDeduplicated && this.dataset.jobProps().getPropAsBoolean(
+            COMPACTION_JOB_LATE_DATA_INCREMENTAL_DEDUP, DEFAULT_COMPACTION_JOB_LATE_DATA_INCREMENTAL_DEDUP);
+        LOG.info(String.format("%s %d late data files to %s", incrementalDedup ? "Deduplicating" : "Copying",
+            newLateFilePaths.size(), lateDataOutputPath));
         if (this.outputDeduplicated) {
           if (!fs.exists(lateDataOutputPath)) {
             if (!fs.mkdirs(lateDataOutputPath)) {
@@ -205,7 +229,11 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
             }
           }
         }
-        this.copyDataFiles(lateDataOutputPath, newLateFilePaths);
+        if (incrementalDedup) {
+          this.dedupLateDataFiles(lateDataOutputPath, newLateFilePaths);
+        } else {
+          this.copyDataFiles(lateDataOutputPath, newLateFilePaths);
+        }
         if (this.outputDeduplicated) {
           LOG.info("Getting late record count from: " + this.dataset.outputLatePath());
           this.dataset.checkIfNeedToRecompact(this.lateOutputRecordCountProvider.getRecordCount(this
@@ -221,6 +249,9 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
           return;
         }
         addJars(conf);
+        if (shouldRunInLocalMode()) {
+          configureLocalMode(conf);
+        }
         Job job = Job.getInstance(conf);
         this.configureJob(job);
         this.submitAndWait(job);
@@ -281,6 +312,30 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
     }
   }
 
+  /**
+   * Deduplicate the records in the given late data files against the records in the output directory and against
+   * each other, and write the remaining records to a new file in outputDirectory, whose path is obtained from
+   * {@link #getLateDataFilePath(Path, long)}. Subclasses that support this should override this method. By default,
+   * the files are copied as is.
+   */
+  protected void dedupLateDataFiles(Path outputDirectory, List<Path> lateFilePaths) throws IOException {
+    LOG.warn(String.format("%s does not support deduplicating late data. Copying late data files instead.",
+        this.getClass().getSimpleName()));
+    copyDataFiles(outputDirectory, lateFilePaths);
+  }
+
+  /**
+   * Get the path of a new late data file in outputDirectory that contains the given number of records.
+   */
+  protected Path getLateDataFilePath(Path outputDirectory, long recordCount) throws IOException {
+    CompactionRecordCountProvider compactionRecordCountProvider = new CompactionRecordCountProvider();
+    Path convertedFilePath = this.outputRecordCountProvider.convertPath(new Path(compactionRecordCountProvider
+        .constructFileName(CompactionRecordCountProvider.M_OUTPUT_FILE_PREFIX, recordCount)),
+        compactionRecordCountProvider);
+    return this.lateOutputRecordCountProvider.constructLateFilePath(convertedFilePath.getName(), this.fs,
+        outputDirectory);
+  }
+
   private boolean canOverwriteOutputDir() {
     return this.dataset.jobProps().getPropAsBoolean(COMPACTION_JOB_OVERWRITE_OUTPUT_DIR,
         DEFAULT_COMPACTION_JOB_OVERWRITE_OUTPUT_DIR)
@@ -297,6 +352,24 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
     }
   }
 
+  @VisibleForTesting
+  boolean shouldRunInLocalMode() throws IOException {
+    long maxInputSize = this.dataset.jobProps().getPropAsLong(COMPACTION_JOB_LOCAL_MODE_MAX_INPUT_SIZE,
+        DEFAULT_COMPACTION_JOB_LOCAL_MODE_MAX_INPUT_SIZE);
+    return maxInputSize >= 0 && getInputSize() <= maxInputSize;
+  }
+
+  /**
+   * Configure the MR job to be run in-process by Hadoop's local job runner.
+   */
+  @VisibleForTesting
+  void configureLocalMode(Configuration conf) {
+    LOG.info(String.format("Running MR job for dataset %s in local mode", this.dataset));
+    this.runInLocalMode = true;
+    conf.set("mapreduce.framework.name", "local");
+    conf.set("mapred.job.tracker", "local");
+  }
+
   protected void configureJob(Job job) throws IOException {
     job.setJobName(HADOOP_JOB_NAME);
     configureInputAndOutputPaths(job);
@@ -361,6 +434,12 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
   protected abstract Collection<String> getApplicableFileExtensions();
 
   protected void setNumberOfReducers(Job job) throws IOException {
+    if (this.runInLocalMode) {
+      // The local job runner of older Hadoop versions supports at most one reducer
+      job.setNumReduceTasks(1);
+      return;
+    }
+
     long inputSize = getInputSize();
     long targetFileSize = getTargetFileSize();
     int numReducers = Math.min(Ints.checkedCast(inputSize / targetFileSize) + 1, getMaxNumReducers());
@@ -372,8 +451,9 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
 
   private long getInputSize() throws IOException {
     long inputSize = 0;
+    DatasetMetadataCache metadataCache = DatasetMetadataCache.getInstance(this.dataset.jobProps(), this.fs);
     for (Path inputPath : this.getInputPaths()) {
-      inputSize += this.fs.getContentSummary(inputPath).getLength();
+      inputSize += metadataCache.getLength(inputPath);
     }
     return inputSize;
   }
@@ -503,7 +583,7 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
    * Get the list of file {@link Path}s in the given dataDir, which satisfy the extension requirements
    *  of {@link #getApplicableFileExtensions()}.
    */
-  private List<Path> getApplicableFilePaths(Path dataDir) throws IOException {
+  protected List<Path> getApplicableFilePaths(Path dataDir) throws IOException {
     if (!this.fs.exists(dataDir)) {
       return Lists.newArrayList();
     }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.mapred.AvroValue;
+import org.apache.hadoop.mapreduce.Reducer;
+
+
+/**
+ * Combiner class for compaction MR job for Avro data.
+ *
+ * Like {@link AvroKeyDedupReducer}, it keeps the last value read of each key, so that duplicates emitted by the same
+ * mapper are dropped before the shuffle. The dropped duplicates are counted in
+ * {@link AvroKeyDedupReducer.EVENT_COUNTER#DEDUPED}, but the keys they belong to are not counted in
+ * {@link AvroKeyDedupReducer.EVENT_COUNTER#MORE_THAN_1}, since a combiner may run any number of times for a key.
+ */
+public class AvroKeyDedupCombiner extends Reducer<Object, AvroValue<GenericRecord>, Object, AvroValue<GenericRecord>> {
+
+  @Override
+  protected void reduce(Object key, Iterable<AvroValue<GenericRecord>> values, Context context)
+      throws IOException, InterruptedException {
+    int numVals = 0;
+    AvroValue<GenericRecord> lastValue = null;
+
+    for (AvroValue<GenericRecord> value : values) {
+      lastValue = value;
+      numVals++;
+    }
+
+    if (numVals > 1) {
+      context.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.DEDUPED).increment(numVals - 1);
+    }
+
+    context.write(key, lastValue);
+  }
+}
@@ -24,15 +24,24 @@ import org.apache.hadoop.mapreduce.Reducer;
 /**
  * Reducer class for compaction MR job for Avro data.
  *
- * If there are multiple values of the same key, it keeps the last value read.
+ * If there are multiple values of the same key, it keeps the last value read. The key is either the projection of the
+ * records emitted by {@link AvroKeyMapper}, or its fingerprint.
  *
  * @author ziliu
  */
 public class AvroKeyDedupReducer extends
-    Reducer<AvroKey<GenericRecord>, AvroValue<GenericRecord>, AvroKey<GenericRecord>, NullWritable> {
+    Reducer<Object, AvroValue<GenericRecord>, AvroKey<GenericRecord>, NullWritable> {
 
   public enum EVENT_COUNTER {
+    /**
+     * Number of keys of which the reducer received more than one value. If an {@link AvroKeyDedupCombiner} is used,
+     * keys whose duplicates were all emitted by the same mapper reach the reducer with a single value and are not
+     * counted, so this is a lower bound on the number of duplicated keys.
+     */
     MORE_THAN_1,
+    /**
+     * Number of duplicate values dropped, by the reducer or by an {@link AvroKeyDedupCombiner}.
+     */
     DEDUPED,
     RECORD_COUNT
   }
@@ -45,7 +54,7 @@ public class AvroKeyDedupReducer extends
   }
 
   @Override
-  protected void reduce(AvroKey<GenericRecord> key, Iterable<AvroValue<GenericRecord>> values, Context context)
+  protected void reduce(Object key, Iterable<AvroValue<GenericRecord>> values, Context context)
       throws IOException, InterruptedException {
     int numVals = 0;
 
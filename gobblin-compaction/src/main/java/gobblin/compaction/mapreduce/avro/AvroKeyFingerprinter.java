@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * Computes 128-bit fingerprints of the dedup keys of Avro records, that is, hashes of the binary encoding of the
+ * projection of the records on a key schema. This class is not thread-safe, since it reuses its buffers.
+ */
+public class AvroKeyFingerprinter {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final GenericRecord keyRecord;
+  private final GenericDatumWriter<GenericRecord> keyWriter;
+  private final ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+  private BinaryEncoder keyEncoder;
+
+  public AvroKeyFingerprinter(Schema keySchema) {
+    this.keyRecord = new GenericData.Record(keySchema);
+    this.keyWriter = new GenericDatumWriter<GenericRecord>(keySchema);
+  }
+
+  /**
+   * Get the fingerprint of the projection of the given record on the key schema.
+   */
+  public HashCode fingerprint(GenericRecord record) throws IOException {
+    AvroKeyMapper.populateComparableKeyRecord(record, this.keyRecord);
+    return fingerprintKey(this.keyRecord);
+  }
+
+  /**
+   * Get the fingerprint of a record that is already projected on the key schema.
+   */
+  public HashCode fingerprintKey(GenericRecord keyRecord) throws IOException {
+    this.keyBytes.reset();
+    this.keyEncoder = EncoderFactory.get().binaryEncoder(this.keyBytes, this.keyEncoder);
+    this.keyWriter.write(keyRecord, this.keyEncoder);
+    this.keyEncoder.flush();
+    return HASH_FUNCTION.hashBytes(this.keyBytes.toByteArray());
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.SortedSet;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.io.Closer;
+
+import gobblin.util.HadoopUtils;
+
+
+/**
+ * An index of the dedup keys of all records in the output directory of a dataset, which is used to deduplicate
+ * late data against the compacted output without recompacting it.
+ *
+ * <p>
+ *   The index is a file named {@value #INDEX_FILE_NAME} in the output directory, which contains the sorted
+ *   fingerprints (see {@link AvroKeyFingerprinter}) of the dedup keys, along with the names of the data files it
+ *   covers and the fingerprint of the key schema. The covered data files include the deduplicated late data files,
+ *   which are written to a separate directory, so the names are chosen by the caller to be unique across
+ *   directories. Lookups and additions stream through the file, so they only need memory for the fingerprints being
+ *   looked up or added. The index is only valid if it covers exactly the given data files, see
+ *   {@link #isUpToDate(Set)}. Since a recompaction replaces the whole output directory, it also removes the index,
+ *   which is rebuilt the next time late data is deduplicated.
+ * </p>
+ */
+public class AvroKeyIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AvroKeyIndex.class);
+
+  public static final String INDEX_FILE_NAME = "_KEY_INDEX";
+
+  private static final int VERSION = 1;
+  private static final String TMP_FILE_PREFIX = "_tmp";
+
+  private final FileSystem fs;
+  private final Path indexFile;
+  private final long keySchemaFingerprint;
+
+  public AvroKeyIndex(FileSystem fs, Path outputDir, Schema keySchema) {
+    this.fs = fs;
+    this.indexFile = new Path(outputDir, INDEX_FILE_NAME);
+    this.keySchemaFingerprint = SchemaNormalization.parsingFingerprint64(keySchema);
+  }
+
+  /**
+   * Whether the index exists, was built with the same key schema, and covers exactly the given data files.
+   */
+  public boolean isUpToDate(Set<String> dataFileNames) throws IOException {
+    if (!this.fs.exists(this.indexFile)) {
+      return false;
+    }
+    Closer closer = Closer.create();
+    try {
+      Header header = Header.read(closer.register(open(this.indexFile)));
+      return header.keySchemaFingerprint == this.keySchemaFingerprint && header.dataFileNames.equals(dataFileNames);
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * Replace the index with one that covers the given data files, whose fingerprints are given.
+   */
+  public void write(Set<String> dataFileNames, Fingerprints fingerprints) throws IOException {
+    fingerprints.sort();
+    Path tmpFile = getTmpFile();
+    Closer closer = Closer.create();
+    try {
+      DataOutputStream out = closer.register(create(tmpFile));
+      new Header(this.keySchemaFingerprint, dataFileNames, fingerprints.size()).write(out);
+      for (int i = 0; i < fingerprints.size(); i++) {
+        out.writeLong(fingerprints.high(i));
+        out.writeLong(fingerprints.low(i));
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    replaceWith(tmpFile);
+    LOG.info(String.format("Wrote %d fingerprints of %d data files to %s", fingerprints.size(), dataFileNames.size(),
+        this.indexFile));
+  }
+
+  /**
+   * Get the given fingerprints that are in the index.
+   */
+  public Set<HashCode> lookup(Fingerprints fingerprints) throws IOException {
+    fingerprints.sort();
+    Set<HashCode> found = Sets.newHashSet();
+    Closer closer = Closer.create();
+    try {
+      DataInputStream in = closer.register(open(this.indexFile));
+      long numKeys = Header.read(in).numKeys;
+      int i = 0;
+      for (long k = 0; k < numKeys && i < fingerprints.size(); k++) {
+        long high = in.readLong();
+        long low = in.readLong();
+        while (i < fingerprints.size() && fingerprints.compare(i, high, low) < 0) {
+          i++;
+        }
+        if (i < fingerprints.size() && fingerprints.compare(i, high, low) == 0) {
+          found.add(Fingerprints.toHashCode(high, low));
+          i++;
+        }
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    return found;
+  }
+
+  /**
+   * Add a new data file to the index. None of the given fingerprints of its records may be in the index already.
+   */
+  public void add(String dataFileName, Fingerprints fingerprints) throws IOException {
+    fingerprints.sort();
+    Path tmpFile = getTmpFile();
+    Closer closer = Closer.create();
+    try {
+      DataInputStream in = closer.register(open(this.indexFile));
+      Header header = Header.read(in);
+      SortedSet<String> dataFileNames = Sets.newTreeSet(header.dataFileNames);
+      dataFileNames.add(dataFileName);
+
+      DataOutputStream out = closer.register(create(tmpFile));
+      new Header(this.keySchemaFingerprint, dataFileNames, header.numKeys + fingerprints.size()).write(out);
+      int i = 0;
+      for (long k = 0; k < header.numKeys; k++) {
+        long high = in.readLong();
+        long low = in.readLong();
+        while (i < fingerprints.size() && fingerprints.compare(i, high, low) < 0) {
+          out.writeLong(fingerprints.high(i));
+          out.writeLong(fingerprints.low(i));
+          i++;
+        }
+        Preconditions.checkState(i == fingerprints.size() || fingerprints.compare(i, high, low) != 0,
+            "Fingerprint %s of %s is already in the index", Fingerprints.toHashCode(high, low), dataFileName);
+        out.writeLong(high);
+        out.writeLong(low);
+      }
+      for (; i < fingerprints.size(); i++) {
+        out.writeLong(fingerprints.high(i));
+        out.writeLong(fingerprints.low(i));
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    replaceWith(tmpFile);
+    LOG.info(String.format("Added %d fingerprints of %s to %s", fingerprints.size(), dataFileName, this.indexFile));
+  }
+
+  private Path getTmpFile() {
+    return new Path(this.indexFile.getParent(), TMP_FILE_PREFIX + this.indexFile.getName());
+  }
+
+  private void replaceWith(Path tmpFile) throws IOException {
+    // If the rename fails after the delete, the index is rebuilt the next time it is used
+    this.fs.delete(this.indexFile, false);
+    HadoopUtils.renamePath(this.fs, tmpFile, this.indexFile);
+  }
+
+  private DataInputStream open(Path file) throws IOException {
+    return new DataInputStream(new BufferedInputStream(this.fs.open(file)));
+  }
+
+  private DataOutputStream create(Path file) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(this.fs.create(file, true)));
+  }
+
+  /**
+   * The header of the index file.
+   */
+  private static class Header {
+
+    private final long keySchemaFingerprint;
+    private final Set<String> dataFileNames;
+    private final long numKeys;
+
+    private Header(long keySchemaFingerprint, Set<String> dataFileNames, long numKeys) {
+      this.keySchemaFingerprint = keySchemaFingerprint;
+      this.dataFileNames = dataFileNames;
+      this.numKeys = numKeys;
+    }
+
+    private static Header read(DataInputStream in) throws IOException {
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unsupported key index version %d", version));
+      }
+      long keySchemaFingerprint = in.readLong();
+      int numDataFiles = in.readInt();
+      Set<String> dataFileNames = Sets.newTreeSet();
+      for (int i = 0; i < numDataFiles; i++) {
+        dataFileNames.add(in.readUTF());
+      }
+      return new Header(keySchemaFingerprint, dataFileNames, in.readLong());
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeInt(VERSION);
+      out.writeLong(this.keySchemaFingerprint);
+      out.writeInt(this.dataFileNames.size());
+      for (String dataFileName : this.dataFileNames) {
+        out.writeUTF(dataFileName);
+      }
+      out.writeLong(this.numKeys);
+    }
+  }
+
+  /**
+   * A compact list of 128-bit fingerprints, which takes 16 bytes per fingerprint. Fingerprints are stored as pairs
+   * of longs in a single array, rather than as {@link HashCode}s, so that the fingerprints of all records in the
+   * output directory of a dataset can be held in memory when the index is built.
+   */
+  public static class Fingerprints {
+
+    private long[] values = new long[32];
+    private int size = 0;
+    private boolean sorted = true;
+
+    public void add(HashCode fingerprint) {
+      ByteBuffer bytes = ByteBuffer.wrap(fingerprint.asBytes());
+      if (this.values.length < 2 * (this.size + 1)) {
+        this.values = Arrays.copyOf(this.values, 2 * this.values.length);
+      }
+      this.values[2 * this.size] = bytes.getLong();
+      this.values[2 * this.size + 1] = bytes.getLong();
+      this.size++;
+      this.sorted = false;
+    }
+
+    public int size() {
+      return this.size;
+    }
+
+    private long high(int i) {
+      return this.values[2 * i];
+    }
+
+    private long low(int i) {
+      return this.values[2 * i + 1];
+    }
+
+    /**
+     * Sort the fingerprints with heapsort, which sorts in place, and remove duplicates.
+     */
+    private void sort() {
+      if (this.sorted) {
+        return;
+      }
+      for (int i = this.size / 2 - 1; i >= 0; i--) {
+        siftDown(i, this.size);
+      }
+      for (int end = this.size - 1; end > 0; end--) {
+        swap(0, end);
+        siftDown(0, end);
+      }
+
+      int distinct = 0;
+      for (int i = 0; i < this.size; i++) {
+        if (distinct == 0 || compare(i, distinct - 1) != 0) {
+          this.values[2 * distinct] = high(i);
+          this.values[2 * distinct + 1] = low(i);
+          distinct++;
+        }
+      }
+      this.size = distinct;
+      this.sorted = true;
+    }
+
+    private void siftDown(int root, int end) {
+      while (2 * root + 1 < end) {
+        int child = 2 * root + 1;
+        if (child + 1 < end && compare(child, child + 1) < 0) {
+          child++;
+        }
+        if (compare(root, child) >= 0) {
+          return;
+        }
+        swap(root, child);
+        root = child;
+      }
+    }
+
+    private int compare(int i, int j) {
+      return compare(high(i), low(i), high(j), low(j));
+    }
+
+    private int compare(int i, long high, long low) {
+      return compare(high(i), low(i), high, low);
+    }
+
+    private void swap(int i, int j) {
+      long high = high(i);
+      long low = low(i);
+      this.values[2 * i] = high(j);
+      this.values[2 * i + 1] = low(j);
+      this.values[2 * j] = high;
+      this.values[2 * j + 1] = low;
+    }
+
+    private static int compare(long high1, long low1, long high2, long low2) {
+      int result = Long.compare(high1, high2);
+      return result != 0 ? result : Long.compare(low1, low2);
+    }
+
+    private static HashCode toHashCode(long high, long low) {
+      return HashCode.fromBytes(ByteBuffer.allocate(16).putLong(high).putLong(low).array());
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.apache.avro.mapred.AvroValue;
 import org.apache.avro.mapreduce.AvroJob;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
@@ -35,11 +36,22 @@ import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
  * For each input Avro record, it emits a key-value pair, where key is the projection of the input record
  * on the attributes on which we de-duplicate, and value is the original record.
  *
+ * If {@link #FINGERPRINT_KEY} is set, the key is a {@link BytesWritable} holding a 128-bit hash of the binary
+ * encoding of the projection instead (see {@link AvroKeyFingerprinter}), which is much smaller than the projection
+ * and is compared as raw bytes during the shuffle. Two records whose projections differ are considered duplicates
+ * if their hashes collide, which is extremely unlikely for a 128-bit hash.
+ *
  * If the number of reducers is set to 0, then it is an identity mapper.
  *
  * @author ziliu
  */
-public class AvroKeyMapper extends Mapper<AvroKey<GenericRecord>, NullWritable, AvroKey<GenericRecord>, Object> {
+public class AvroKeyMapper extends Mapper<AvroKey<GenericRecord>, NullWritable, Object, Object> {
+
+  /**
+   * Whether to emit a fingerprint of the projection as the key instead of the projection itself.
+   */
+  public static final String FINGERPRINT_KEY = "compaction.job.dedup.fingerprint";
+  public static final boolean DEFAULT_FINGERPRINT = false;
 
   public enum EVENT_COUNTER {
     RECORD_COUNT
@@ -48,13 +60,22 @@ public class AvroKeyMapper extends Mapper<AvroKey<GenericRecord>, NullWritable,
   private AvroKey<GenericRecord> outKey;
   private AvroValue<GenericRecord> outValue;
   private Schema keySchema;
+  private boolean fingerprint;
+  private BytesWritable outFingerprint;
+  private AvroKeyFingerprinter fingerprinter;
 
   @Override
   protected void setup(Context context) throws IOException, InterruptedException {
+    fingerprint = context.getConfiguration().getBoolean(FINGERPRINT_KEY, DEFAULT_FINGERPRINT);
+    // In fingerprint mode the map output key schema is not used by the shuffle, it only defines the projection
     keySchema = AvroJob.getMapOutputKeySchema(context.getConfiguration());
     outKey = new AvroKey<GenericRecord>();
     outKey.datum(new GenericData.Record(keySchema));
     outValue = new AvroValue<GenericRecord>();
+    if (fingerprint) {
+      outFingerprint = new BytesWritable();
+      fingerprinter = new AvroKeyFingerprinter(keySchema);
+    }
   }
 
   @Override
@@ -66,7 +87,11 @@ public class AvroKeyMapper extends Mapper<AvroKey<GenericRecord>, NullWritable,
       populateComparableKeyRecord(key.datum(), outKey.datum());
       outValue.datum(key.datum());
       try {
-        context.write(outKey, outValue);
+        if (fingerprint) {
+          context.write(fingerprint(outKey.datum()), outValue);
+        } else {
+          context.write(outKey, outValue);
+        }
       } catch (AvroRuntimeException e) {
         final Path[] paths = ((CombineFileSplit) context.getInputSplit()).getPaths();
         throw new IOException("Unable to process paths " + StringUtils.join(paths, ','), e);
@@ -75,13 +100,22 @@ public class AvroKeyMapper extends Mapper<AvroKey<GenericRecord>, NullWritable,
     context.getCounter(EVENT_COUNTER.RECORD_COUNT).increment(1);
   }
 
+  /**
+   * Hash the binary encoding of the given key record into {@link #outFingerprint}.
+   */
+  private BytesWritable fingerprint(GenericRecord keyRecord) throws IOException {
+    byte[] hash = fingerprinter.fingerprintKey(keyRecord).asBytes();
+    outFingerprint.set(hash, 0, hash.length);
+    return outFingerprint;
+  }
+
   /**
    * Populate the target record, based on the field values in the source record.
    * Target record's schema should be a subset of source record's schema.
    * Target record's schema cannot have MAP, ARRAY or ENUM fields, or UNION fields that
    * contain these fields.
    */
-  private static void populateComparableKeyRecord(GenericRecord source, GenericRecord target) {
+  static void populateComparableKeyRecord(GenericRecord source, GenericRecord target) {
     for (Field field : target.getSchema().getFields()) {
       if (field.schema().getType() == Schema.Type.UNION) {
 
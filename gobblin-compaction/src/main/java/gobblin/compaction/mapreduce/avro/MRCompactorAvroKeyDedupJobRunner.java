@@ -20,11 +20,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.SchemaCompatibility;
 import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.avro.mapreduce.AvroJob;
@@ -32,6 +39,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -42,10 +50,14 @@ import com.google.common.base.Enums;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.io.Closer;
 
 import gobblin.compaction.dataset.Dataset;
 import gobblin.compaction.mapreduce.MRCompactorJobRunner;
 import gobblin.util.AvroUtils;
+import gobblin.util.HadoopUtils;
 
 
 /**
@@ -55,6 +67,14 @@ import gobblin.util.AvroUtils;
  * To dedup using entire records set compaction.use.all.attributes=true. Otherwise, a schema needs
  * to be provided by compaction.avro.key.schema.loc, based on which the dedup is performed.
  *
+ * To shuffle a fixed-width fingerprint of the dedup key instead of the key itself, set
+ * compaction.job.dedup.fingerprint=true, see {@link AvroKeyMapper}. To drop duplicates emitted by the same mapper
+ * before the shuffle, set compaction.job.dedup.combiner=true. The combiner is always used in fingerprint mode, and
+ * when it is used, {@link AvroKeyDedupReducer.EVENT_COUNTER#MORE_THAN_1} only counts keys duplicated across mappers.
+ *
+ * Late data is deduplicated against the output directory using an {@link AvroKeyIndex} if
+ * compaction.job.late.data.incremental.dedup=true, see {@link #dedupLateDataFiles(Path, List)}.
+ *
  * @author ziliu
  */
 public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
@@ -74,9 +94,11 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
    */
   private static final String COMPACTION_JOB_AVRO_KEY_SCHEMA_LOC = COMPACTION_JOB_PREFIX + "avro.key.schema.loc";
   private static final String COMPACTION_JOB_DEDUP_KEY = COMPACTION_JOB_PREFIX + "dedup.key";
+  private static final String COMPACTION_JOB_DEDUP_COMBINER = COMPACTION_JOB_PREFIX + "dedup.combiner";
 
   private static final String AVRO = "avro";
   private static final String SCHEMA_DEDUP_FIELD_ANNOTATOR = "primarykey";
+  private static final String LATE_DATA_TMP_FILE_NAME = "_tmp_late_data";
 
   private enum DedupKeyOption {
 
@@ -94,16 +116,33 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
   private static final DedupKeyOption DEFAULT_DEDUP_KEY_OPTION = DedupKeyOption.KEY;
 
   private final boolean useSingleInputSchema;
+  private final boolean useFingerprint;
+  private final boolean useCombiner;
 
   public MRCompactorAvroKeyDedupJobRunner(Dataset dataset, FileSystem fs, Double priority) {
     super(dataset, fs, priority);
     this.useSingleInputSchema = this.dataset.jobProps().getPropAsBoolean(COMPACTION_JOB_AVRO_SINGLE_INPUT_SCHEMA, false);
+    this.useFingerprint = this.shouldDeduplicate
+        && this.dataset.jobProps().getPropAsBoolean(AvroKeyMapper.FINGERPRINT_KEY, AvroKeyMapper.DEFAULT_FINGERPRINT);
+    this.useCombiner = this.shouldDeduplicate
+        && (this.useFingerprint || this.dataset.jobProps().getPropAsBoolean(COMPACTION_JOB_DEDUP_COMBINER, false));
   }
 
   @Override
   protected void configureJob(Job job) throws IOException {
     super.configureJob(job);
     configureSchema(job);
+    job.getConfiguration().setBoolean(AvroKeyMapper.FINGERPRINT_KEY, this.useFingerprint);
+    if (this.useFingerprint) {
+      // The map output key schema set by configureSchema is only used by the mapper to project the records.
+      // Override the key class and comparators set along with it, so fingerprints are compared as raw bytes.
+      job.setMapOutputKeyClass(BytesWritable.class);
+      job.setSortComparatorClass(BytesWritable.Comparator.class);
+      job.setGroupingComparatorClass(BytesWritable.Comparator.class);
+    }
+    if (this.useCombiner) {
+      job.setCombinerClass(AvroKeyDedupCombiner.class);
+    }
   }
 
   private void configureSchema(Job job) throws IOException {
@@ -111,7 +150,7 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
     if (useSingleInputSchema) {
       AvroJob.setInputKeySchema(job, newestSchema);
     }
-    AvroJob.setMapOutputKeySchema(job, this.shouldDeduplicate ? getKeySchema(job, newestSchema) : newestSchema);
+    AvroJob.setMapOutputKeySchema(job, this.shouldDeduplicate ? getDedupKeySchema(newestSchema) : newestSchema);
     AvroJob.setMapOutputValueSchema(job, newestSchema);
     AvroJob.setOutputKeySchema(job, newestSchema);
   }
@@ -123,7 +162,7 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
    * If compaction.dedup.key=custom, it reads the schema from compaction.avro.key.schema.loc.
    * If the read fails, or if the custom key schema is incompatible with topicSchema, option "key" will be used.
    */
-  private Schema getKeySchema(Job job, Schema topicSchema) throws IOException {
+  private Schema getDedupKeySchema(Schema topicSchema) throws IOException {
     Schema keySchema = null;
     DedupKeyOption dedupKeyOption = getDedupKeyOption();
     if (dedupKeyOption == DedupKeyOption.ALL) {
@@ -249,6 +288,122 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
     return null;
   }
 
+  /**
+   * Deduplicate late data files without an MR job. The records in the late data files are dropped if their key is
+   * in the {@link AvroKeyIndex} of the output directory, or if an earlier record in the late data files has the same
+   * key. The remaining records are written to a single new file in outputDirectory, and their keys are added to the
+   * index. The index covers the data files in both the output directory and outputDirectory, so that late data is
+   * also deduplicated against earlier late data. It is rebuilt from these data files if it is missing or out of date.
+   *
+   * Unlike the reducer, which keeps the last record of each key, this keeps the record that is already in the
+   * output directory, so that the output directory is only ever appended to.
+   */
+  @Override
+  protected void dedupLateDataFiles(Path outputDirectory, List<Path> lateFilePaths) throws IOException {
+    if (lateFilePaths.isEmpty()) {
+      return;
+    }
+    List<FileStatus> lateFiles = Lists.newArrayList();
+    for (Path lateFilePath : lateFilePaths) {
+      lateFiles.add(this.fs.getFileStatus(lateFilePath));
+    }
+    Collections.sort(lateFiles, new LastModifiedDescComparator());
+    Schema schema = AvroUtils.getSchemaFromDataFile(lateFiles.get(0).getPath(), this.fs);
+    Schema keySchema = getDedupKeySchema(schema);
+    AvroKeyFingerprinter fingerprinter = new AvroKeyFingerprinter(keySchema);
+
+    // The index covers the late data files deduplicated earlier as well as the compacted data files
+    List<Path> dataFilePaths = getApplicableFilePaths(this.dataset.outputPath());
+    if (!outputDirectory.equals(this.dataset.outputPath())) {
+      dataFilePaths.addAll(getApplicableFilePaths(outputDirectory));
+    }
+    Set<String> dataFileNames = Sets.newTreeSet();
+    for (Path dataFilePath : dataFilePaths) {
+      dataFileNames.add(getIndexedFileName(dataFilePath));
+    }
+    AvroKeyIndex index = new AvroKeyIndex(this.fs, this.dataset.outputPath(), keySchema);
+    if (!index.isUpToDate(dataFileNames)) {
+      LOG.info(String.format("Building key index of %d data files in %s and %s", dataFilePaths.size(),
+          this.dataset.outputPath(), outputDirectory));
+      index.write(dataFileNames, getFingerprints(dataFilePaths, schema, fingerprinter));
+    }
+    Set<HashCode> existingKeys = index.lookup(getFingerprints(lateFilePaths, schema, fingerprinter));
+
+    Path tmpFilePath = new Path(outputDirectory, LATE_DATA_TMP_FILE_NAME);
+    AvroKeyIndex.Fingerprints newKeys = new AvroKeyIndex.Fingerprints();
+    Set<HashCode> seenKeys = Sets.newHashSet();
+    long recordCount = 0;
+    long dedupedCount = 0;
+    Closer closer = Closer.create();
+    try {
+      DataFileWriter<GenericRecord> writer =
+          closer.register(new DataFileWriter<GenericRecord>(new GenericDatumWriter<GenericRecord>(schema)));
+      writer.setCodec(CodecFactory.deflateCodec(CodecFactory.DEFAULT_DEFLATE_LEVEL));
+      writer.create(schema, this.fs.create(tmpFilePath, true));
+      for (Path lateFilePath : lateFilePaths) {
+        DataFileStream<GenericRecord> reader = closer.register(openDataFile(lateFilePath, schema));
+        for (GenericRecord record : reader) {
+          HashCode key = fingerprinter.fingerprint(record);
+          if (existingKeys.contains(key) || !seenKeys.add(key)) {
+            dedupedCount++;
+            continue;
+          }
+          writer.append(record);
+          newKeys.add(key);
+          recordCount++;
+        }
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    if (recordCount == 0) {
+      LOG.info(String.format("All %d records in late data files are duplicates", dedupedCount));
+      this.fs.delete(tmpFilePath, false);
+      return;
+    }
+    Path lateDataFilePath = getLateDataFilePath(outputDirectory, recordCount);
+    HadoopUtils.renamePath(this.fs, tmpFilePath, lateDataFilePath);
+    index.add(getIndexedFileName(lateDataFilePath), newKeys);
+    LOG.info(String.format("Wrote %d late records to %s, dropped %d duplicates", recordCount, lateDataFilePath,
+        dedupedCount));
+  }
+
+  /**
+   * Get the name of a data file in the {@link AvroKeyIndex}, which is its path without scheme and authority, since
+   * the index covers data files in both the output directory and the late output directory.
+   */
+  private String getIndexedFileName(Path dataFilePath) {
+    return this.fs.makeQualified(dataFilePath).toUri().getPath();
+  }
+
+  private AvroKeyIndex.Fingerprints getFingerprints(List<Path> dataFilePaths, Schema schema,
+      AvroKeyFingerprinter fingerprinter) throws IOException {
+    AvroKeyIndex.Fingerprints fingerprints = new AvroKeyIndex.Fingerprints();
+    for (Path dataFilePath : dataFilePaths) {
+      Closer closer = Closer.create();
+      try {
+        for (GenericRecord record : closer.register(openDataFile(dataFilePath, schema))) {
+          fingerprints.add(fingerprinter.fingerprint(record));
+        }
+      } catch (Throwable t) {
+        throw closer.rethrow(t);
+      } finally {
+        closer.close();
+      }
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Open an Avro data file, whose records are resolved against the given schema.
+   */
+  private DataFileStream<GenericRecord> openDataFile(Path dataFilePath, Schema schema) throws IOException {
+    return new DataFileStream<GenericRecord>(this.fs.open(dataFilePath), new GenericDatumReader<GenericRecord>(schema));
+  }
+
   private DedupKeyOption getDedupKeyOption() {
     if (!this.dataset.jobProps().contains(COMPACTION_JOB_DEDUP_KEY)) {
       return DEFAULT_DEDUP_KEY_OPTION;
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.dataset;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import gobblin.compaction.mapreduce.MRCompactor;
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+
+
+/**
+ * Tests for {@link DatasetMetadataCache}.
+ *
+ * <p>
+ *   Since the modification time of a directory is what tells the cache whether a listing is still valid, the tests
+ *   change directories and then set their modification time back, so that only a cached listing can miss the
+ *   change. The modification times are set well in the past, since recently modified directories are not cached.
+ * </p>
+ */
+@Test(groups = { "gobblin.compaction.dataset" })
+public class DatasetMetadataCacheTest {
+
+  private static final long FIRST_MODIFICATION_TIME = getModificationTime(TimeUnit.HOURS.toMillis(3));
+  private static final long SECOND_MODIFICATION_TIME = getModificationTime(TimeUnit.HOURS.toMillis(2));
+  private static final long THIRD_MODIFICATION_TIME = getModificationTime(TimeUnit.HOURS.toMillis(1));
+  private static final int FILE_LENGTH = 10;
+
+  private FileSystem fs;
+  private Path testDir;
+  private Path cacheFile;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDir = new Path("gobblin-compaction/src/test/resources/datasetMetadataCacheTest");
+    this.cacheFile = new Path(this.testDir, "cache/test.metadata.gz");
+    this.fs.delete(this.testDir, true);
+  }
+
+  @Test
+  public void testListingReusedUntilModificationTimeChanges() throws IOException {
+    Path dir = new Path(this.testDir, "dir");
+    createFile(new Path(dir, "file1"));
+    setModificationTime(dir, FIRST_MODIFICATION_TIME);
+    DatasetMetadataCache cache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(getNames(cache.listStatus(dir)), ImmutableSet.of("file1"));
+
+    createFile(new Path(dir, "file2"));
+    setModificationTime(dir, FIRST_MODIFICATION_TIME);
+    Assert.assertEquals(getNames(cache.listStatus(dir)), ImmutableSet.of("file1"));
+
+    setModificationTime(dir, SECOND_MODIFICATION_TIME);
+    Assert.assertEquals(getNames(cache.listStatus(dir)), ImmutableSet.of("file1", "file2"));
+  }
+
+  @Test
+  public void testRecentlyModifiedDirectoryNotCached() throws IOException {
+    Path dir = new Path(this.testDir, "dir");
+    createFile(new Path(dir, "file1"));
+    long modificationTime = this.fs.getFileStatus(dir).getModificationTime();
+    DatasetMetadataCache cache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(getNames(cache.listStatus(dir)), ImmutableSet.of("file1"));
+
+    createFile(new Path(dir, "file2"));
+    setModificationTime(dir, modificationTime);
+    Assert.assertEquals(getNames(cache.listStatus(dir)), ImmutableSet.of("file1", "file2"));
+  }
+
+  @Test
+  public void testChangesInNestedDirectories() throws IOException {
+    Path dir = new Path(this.testDir, "dir");
+    Path subDir = new Path(dir, "a/b");
+    createFile(new Path(subDir, "file1"));
+    setModificationTime(subDir, FIRST_MODIFICATION_TIME);
+    setModificationTime(subDir.getParent(), FIRST_MODIFICATION_TIME);
+    setModificationTime(dir, FIRST_MODIFICATION_TIME);
+    DatasetMetadataCache cache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(getNames(cache.listFilesRecursively(dir)), ImmutableSet.of("file1"));
+    Assert.assertEquals(cache.getLength(dir), FILE_LENGTH);
+
+    // Only the modification time of the innermost directory changes
+    createFile(new Path(subDir, "file2"));
+    setModificationTime(subDir, SECOND_MODIFICATION_TIME);
+    Assert.assertEquals(getNames(cache.listFilesRecursively(dir)), ImmutableSet.of("file1", "file2"));
+    Assert.assertEquals(cache.getLength(dir), 2 * FILE_LENGTH);
+    Assert.assertEquals(getNames(cache.globStatus(dir, "a/*/file*")), ImmutableSet.of("file1", "file2"));
+
+    // The statuses of the subdirectories in a loaded listing are out of date as well
+    cache.save();
+    createFile(new Path(subDir, "file3"));
+    setModificationTime(subDir, THIRD_MODIFICATION_TIME);
+    DatasetMetadataCache loadedCache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(getNames(loadedCache.listFilesRecursively(dir)), ImmutableSet.of("file1", "file2", "file3"));
+  }
+
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    Path outputDir = new Path(this.testDir, "output");
+    Path completeFile = new Path(outputDir, MRCompactor.COMPACTION_COMPLETE_FILE_NAME);
+    createFile(new Path(outputDir, "part1"));
+    writeCompactionTimestamp(completeFile, 123L);
+    setModificationTime(completeFile, FIRST_MODIFICATION_TIME);
+    setModificationTime(outputDir, FIRST_MODIFICATION_TIME);
+    DatasetMetadataCache cache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertTrue(cache.isCompacted(outputDir));
+    Assert.assertEquals(cache.getCompactionTimestamp(outputDir), 123L);
+    Assert.assertEquals(getNames(cache.listStatus(outputDir)),
+        ImmutableSet.of(MRCompactor.COMPACTION_COMPLETE_FILE_NAME, "part1"));
+    cache.save();
+    Assert.assertTrue(this.fs.exists(this.cacheFile));
+
+    createFile(new Path(outputDir, "part2"));
+    writeCompactionTimestamp(completeFile, 456L);
+    setModificationTime(completeFile, FIRST_MODIFICATION_TIME);
+    setModificationTime(outputDir, FIRST_MODIFICATION_TIME);
+    DatasetMetadataCache loadedCache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(loadedCache.getCompactionTimestamp(outputDir), 123L);
+    Assert.assertEquals(getNames(loadedCache.listStatus(outputDir)),
+        ImmutableSet.of(MRCompactor.COMPACTION_COMPLETE_FILE_NAME, "part1"));
+
+    // Entries that are not used after the cache is loaded are not saved again
+    DatasetMetadataCache.create(this.fs, this.cacheFile).save();
+    DatasetMetadataCache emptyCache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(emptyCache.getCompactionTimestamp(outputDir), 456L);
+    Assert.assertEquals(getNames(emptyCache.listStatus(outputDir)),
+        ImmutableSet.of(MRCompactor.COMPACTION_COMPLETE_FILE_NAME, "part1", "part2"));
+  }
+
+  @Test
+  public void testSaveDropsEntriesNotUsedSinceLastSave() throws IOException {
+    Path dir1 = new Path(this.testDir, "dir1");
+    Path dir2 = new Path(this.testDir, "dir2");
+    createFile(new Path(dir1, "file1"));
+    createFile(new Path(dir2, "file1"));
+    setModificationTime(dir1, FIRST_MODIFICATION_TIME);
+    setModificationTime(dir2, FIRST_MODIFICATION_TIME);
+    DatasetMetadataCache cache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    cache.listStatus(dir1);
+    cache.save();
+    cache.listStatus(dir2);
+    cache.save();
+
+    createFile(new Path(dir1, "file2"));
+    createFile(new Path(dir2, "file2"));
+    setModificationTime(dir1, FIRST_MODIFICATION_TIME);
+    setModificationTime(dir2, FIRST_MODIFICATION_TIME);
+    Assert.assertEquals(getNames(cache.listStatus(dir1)), ImmutableSet.of("file1", "file2"));
+    Assert.assertEquals(getNames(cache.listStatus(dir2)), ImmutableSet.of("file1"));
+    DatasetMetadataCache loadedCache = DatasetMetadataCache.create(this.fs, this.cacheFile);
+    Assert.assertEquals(getNames(loadedCache.listStatus(dir2)), ImmutableSet.of("file1"));
+  }
+
+  @Test
+  public void testUnreadableCacheFileIgnored() throws IOException {
+    createFile(this.cacheFile);
+    Path dir = new Path(this.testDir, "dir");
+    createFile(new Path(dir, "file1"));
+    Assert.assertEquals(getNames(DatasetMetadataCache.create(this.fs, this.cacheFile).listStatus(dir)),
+        ImmutableSet.of("file1"));
+  }
+
+  @Test
+  public void testInstancePerJob() throws IOException {
+    Path cacheDir = new Path(this.testDir, "cache");
+    State state = new State();
+    state.setProp(MRCompactor.COMPACTION_METADATA_CACHE_DIR, cacheDir.toString());
+    state.setProp(ConfigurationKeys.JOB_NAME_KEY, DatasetMetadataCacheTest.class.getSimpleName() + "1");
+    State otherJobState = new State();
+    otherJobState.addAll(state);
+    otherJobState.setProp(ConfigurationKeys.JOB_NAME_KEY, DatasetMetadataCacheTest.class.getSimpleName() + "2");
+
+    DatasetMetadataCache cache = DatasetMetadataCache.getInstance(state, this.fs);
+    DatasetMetadataCache otherJobCache = DatasetMetadataCache.getInstance(otherJobState, this.fs);
+    Assert.assertSame(DatasetMetadataCache.getInstance(state, this.fs), cache);
+    Assert.assertNotSame(otherJobCache, cache);
+
+    cache.save();
+    otherJobCache.save();
+    Assert.assertTrue(this.fs.exists(new Path(cacheDir, DatasetMetadataCacheTest.class.getSimpleName()
+        + "1.metadata.gz")));
+    Assert.assertTrue(this.fs.exists(new Path(cacheDir, DatasetMetadataCacheTest.class.getSimpleName()
+        + "2.metadata.gz")));
+
+    // A closed instance is no longer shared
+    cache.close();
+    DatasetMetadataCache reloadedCache = DatasetMetadataCache.getInstance(state, this.fs);
+    Assert.assertNotSame(reloadedCache, cache);
+    Assert.assertSame(DatasetMetadataCache.getInstance(state, this.fs), reloadedCache);
+    reloadedCache.close();
+    otherJobCache.close();
+
+    // Without a cache directory, nothing is cached or shared
+    Assert.assertNotSame(DatasetMetadataCache.getInstance(new State(), this.fs),
+        DatasetMetadataCache.getInstance(new State(), this.fs));
+  }
+
+  private void createFile(Path file) throws IOException {
+    FSDataOutputStream out = this.fs.create(file, true);
+    try {
+      out.write(new byte[FILE_LENGTH]);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeCompactionTimestamp(Path completeFile, long timestamp) throws IOException {
+    FSDataOutputStream out = this.fs.create(completeFile, true);
+    try {
+      out.writeLong(timestamp);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void setModificationTime(Path path, long modificationTime) throws IOException {
+    this.fs.setTimes(path, modificationTime, -1);
+  }
+
+  private static long getModificationTime(long ageMillis) {
+    // Whole seconds, which all local file systems can store
+    return TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - ageMillis));
+  }
+
+  private static Set<String> getNames(List<FileStatus> statuses) {
+    Set<String> names = Sets.newHashSet();
+    for (FileStatus status : statuses) {
+      names.add(status.getPath().getName());
+    }
+    return names;
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    this.fs.delete(this.testDir, true);
+  }
+}
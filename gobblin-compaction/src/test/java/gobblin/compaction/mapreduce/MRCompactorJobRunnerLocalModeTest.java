@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.mapreduce.avro.MRCompactorAvroKeyDedupJobRunner;
+import gobblin.configuration.ConfigurationKeys;
+
+
+/**
+ * Tests for running the MR job of a {@link MRCompactorJobRunner} in local mode.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce" })
+public class MRCompactorJobRunnerLocalModeTest {
+
+  private static final String LOCAL_MODE_MAX_INPUT_SIZE = "compaction.job.local.mode.max.input.size";
+  private static final int INPUT_SIZE = 100;
+
+  private LocalFileSystem fs;
+  private Path testDir;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDir = new Path("gobblin-compaction/src/test/resources/mrCompactorJobRunnerLocalModeTest");
+    this.fs.delete(this.testDir, true);
+
+    // Write the input without checksum files, which would count towards the input size
+    FileSystem rawFs = this.fs.getRaw();
+    FSDataOutputStream out = rawFs.create(new Path(this.testDir, "input/part1.avro"));
+    try {
+      out.write(new byte[INPUT_SIZE / 2]);
+    } finally {
+      out.close();
+    }
+    out = rawFs.create(new Path(this.testDir, "input/nested/part2.avro"));
+    try {
+      out.write(new byte[INPUT_SIZE / 2]);
+    } finally {
+      out.close();
+    }
+  }
+
+  @Test
+  public void testNotLocalModeByDefault() throws IOException {
+    Assert.assertFalse(createRunner(createDataset()).shouldRunInLocalMode());
+  }
+
+  @Test
+  public void testLocalModeBelowMaxInputSize() throws IOException {
+    Dataset dataset = createDataset();
+    dataset.setJobProp(LOCAL_MODE_MAX_INPUT_SIZE, INPUT_SIZE);
+    Assert.assertTrue(createRunner(dataset).shouldRunInLocalMode());
+
+    dataset.setJobProp(LOCAL_MODE_MAX_INPUT_SIZE, INPUT_SIZE * 10);
+    Assert.assertTrue(createRunner(dataset).shouldRunInLocalMode());
+  }
+
+  @Test
+  public void testNotLocalModeAboveMaxInputSize() throws IOException {
+    Dataset dataset = createDataset();
+    dataset.setJobProp(LOCAL_MODE_MAX_INPUT_SIZE, INPUT_SIZE - 1);
+    Assert.assertFalse(createRunner(dataset).shouldRunInLocalMode());
+
+    dataset.setJobProp(LOCAL_MODE_MAX_INPUT_SIZE, 0);
+    Assert.assertFalse(createRunner(dataset).shouldRunInLocalMode());
+  }
+
+  @Test
+  public void testConfigureLocalMode() throws IOException {
+    Configuration conf = new Configuration();
+    conf.set("mapreduce.framework.name", "yarn");
+    conf.set("fs.defaultFS", "hdfs://namenode:8020");
+
+    MRCompactorJobRunner runner = createRunner(createDataset());
+    runner.configureLocalMode(conf);
+
+    Assert.assertEquals(conf.get("mapreduce.framework.name"), "local");
+    Assert.assertEquals(conf.get("mapred.job.tracker"), "local");
+    // Only the MR job runs in-process, the data is still read from and written to the configured file system
+    Assert.assertEquals(conf.get("fs.defaultFS"), "hdfs://namenode:8020");
+
+    Job job = Job.getInstance(conf);
+    runner.setNumberOfReducers(job);
+    Assert.assertEquals(job.getNumReduceTasks(), 1);
+  }
+
+  private Dataset createDataset() {
+    Dataset dataset = new Dataset.Builder().withInputPath(new Path(this.testDir, "input"))
+        .withOutputPath(new Path(this.testDir, "output")).withOutputLatePath(new Path(this.testDir, "output_late"))
+        .withOutputTmpPath(new Path(this.testDir, "output_tmp")).build();
+    dataset.setJobProp(ConfigurationKeys.JOB_NAME_KEY, MRCompactorJobRunnerLocalModeTest.class.getSimpleName());
+    dataset.setJobProp(MRCompactor.COMPACTION_SHOULD_DEDUPLICATE, true);
+    return dataset;
+  }
+
+  private MRCompactorJobRunner createRunner(Dataset dataset) {
+    return new MRCompactorAvroKeyDedupJobRunner(dataset, this.fs, Dataset.DEFAULT_PRIORITY);
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    this.fs.delete(this.testDir, true);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for {@link AvroKeyFingerprinter}.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce.avro" })
+public class AvroKeyFingerprinterTest {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"TestRecord\", "
+      + "\"fields\": [{\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"name\", \"type\": \"string\"}]}");
+  private static final Schema KEY_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": "
+      + "\"TestRecord\", \"fields\": [{\"name\": \"id\", \"type\": \"long\"}]}");
+
+  @Test
+  public void testSameKeySameFingerprint() throws IOException {
+    AvroKeyFingerprinter fingerprinter = new AvroKeyFingerprinter(KEY_SCHEMA);
+    Assert.assertEquals(fingerprinter.fingerprint(createRecord(1, "a")),
+        fingerprinter.fingerprint(createRecord(1, "a")));
+    // Fields that are not in the key schema are ignored
+    Assert.assertEquals(fingerprinter.fingerprint(createRecord(1, "a")),
+        fingerprinter.fingerprint(createRecord(1, "b")));
+  }
+
+  @Test
+  public void testDifferentKeyDifferentFingerprint() throws IOException {
+    AvroKeyFingerprinter fingerprinter = new AvroKeyFingerprinter(KEY_SCHEMA);
+    Assert.assertNotEquals(fingerprinter.fingerprint(createRecord(1, "a")),
+        fingerprinter.fingerprint(createRecord(2, "a")));
+
+    AvroKeyFingerprinter allFieldsFingerprinter = new AvroKeyFingerprinter(SCHEMA);
+    Assert.assertNotEquals(allFieldsFingerprinter.fingerprint(createRecord(1, "a")),
+        allFieldsFingerprinter.fingerprint(createRecord(1, "b")));
+  }
+
+  @Test
+  public void testFingerprintKey() throws IOException {
+    AvroKeyFingerprinter fingerprinter = new AvroKeyFingerprinter(KEY_SCHEMA);
+    GenericRecord keyRecord = new GenericData.Record(KEY_SCHEMA);
+    keyRecord.put("id", 1L);
+    Assert.assertEquals(fingerprinter.fingerprintKey(keyRecord), fingerprinter.fingerprint(createRecord(1, "a")));
+    Assert.assertEquals(fingerprinter.fingerprintKey(keyRecord).bits(), 128);
+  }
+
+  private GenericRecord createRecord(long id, String name) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    record.put("name", name);
+    return record;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * Tests for {@link AvroKeyIndex}.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce.avro" })
+public class AvroKeyIndexTest {
+
+  private static final Schema KEY_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": "
+      + "\"TestRecord\", \"fields\": [{\"name\": \"id\", \"type\": \"long\"}]}");
+  private static final Schema OTHER_KEY_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": "
+      + "\"TestRecord\", \"fields\": [{\"name\": \"name\", \"type\": \"string\"}]}");
+
+  private FileSystem fs;
+  private Path outputDir;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.outputDir = new Path("gobblin-compaction/src/test/resources/avroKeyIndexTest");
+    this.fs.delete(this.outputDir, true);
+    this.fs.mkdirs(this.outputDir);
+  }
+
+  @Test
+  public void testIsUpToDate() throws IOException {
+    AvroKeyIndex index = new AvroKeyIndex(this.fs, this.outputDir, KEY_SCHEMA);
+    Set<String> dataFiles = ImmutableSet.of("/output/part-r-1.avro", "/output_late/part-m-1.avro");
+    Assert.assertFalse(index.isUpToDate(dataFiles));
+
+    index.write(dataFiles, fingerprints(1, 2));
+    Assert.assertTrue(this.fs.exists(new Path(this.outputDir, AvroKeyIndex.INDEX_FILE_NAME)));
+    Assert.assertTrue(index.isUpToDate(dataFiles));
+    Assert.assertFalse(index.isUpToDate(ImmutableSet.of("/output/part-r-1.avro")));
+    Assert.assertFalse(index.isUpToDate(ImmutableSet.of("/output/part-r-1.avro", "/output_late/part-m-1.avro",
+        "/output_late/part-m-2.avro")));
+    Assert.assertFalse(new AvroKeyIndex(this.fs, this.outputDir, OTHER_KEY_SCHEMA).isUpToDate(dataFiles));
+  }
+
+  @Test
+  public void testLookup() throws IOException {
+    AvroKeyIndex index = new AvroKeyIndex(this.fs, this.outputDir, KEY_SCHEMA);
+    index.write(ImmutableSet.of("/output/part-r-1.avro"), fingerprints(1, 2, 3, 2));
+
+    Assert.assertEquals(index.lookup(fingerprints(2, 4, 3, 5)), ImmutableSet.of(hash(2), hash(3)));
+    Assert.assertTrue(index.lookup(fingerprints(4, 5)).isEmpty());
+    Assert.assertTrue(index.lookup(fingerprints()).isEmpty());
+  }
+
+  @Test
+  public void testAdd() throws IOException {
+    AvroKeyIndex index = new AvroKeyIndex(this.fs, this.outputDir, KEY_SCHEMA);
+    index.write(ImmutableSet.of("/output/part-r-1.avro"), fingerprints(1, 3));
+
+    index.add("/output_late/part-m-1.avro", fingerprints(2, 4));
+    Assert.assertTrue(index.isUpToDate(ImmutableSet.of("/output/part-r-1.avro", "/output_late/part-m-1.avro")));
+    Assert.assertEquals(index.lookup(fingerprints(1, 2, 3, 4, 5)), ImmutableSet.of(hash(1), hash(2), hash(3),
+        hash(4)));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testAddExistingFingerprint() throws IOException {
+    AvroKeyIndex index = new AvroKeyIndex(this.fs, this.outputDir, KEY_SCHEMA);
+    index.write(ImmutableSet.of("/output/part-r-1.avro"), fingerprints(1, 3));
+    index.add("/output_late/part-m-1.avro", fingerprints(2, 3));
+  }
+
+  private static AvroKeyIndex.Fingerprints fingerprints(long... keys) {
+    AvroKeyIndex.Fingerprints fingerprints = new AvroKeyIndex.Fingerprints();
+    for (long key : keys) {
+      fingerprints.add(hash(key));
+    }
+    return fingerprints;
+  }
+
+  private static HashCode hash(long key) {
+    return Hashing.murmur3_128().hashLong(key);
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    this.fs.delete(this.outputDir, true);
+  }
+}
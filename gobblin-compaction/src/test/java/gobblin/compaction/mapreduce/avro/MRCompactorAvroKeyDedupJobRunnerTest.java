@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.io.Closer;
+
+import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.mapreduce.MRCompactor;
+import gobblin.compaction.mapreduce.MRCompactorJobRunner;
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.util.FileListUtils;
+
+
+/**
+ * Tests for {@link MRCompactorAvroKeyDedupJobRunner}, which run the compaction MR job with the local job runner.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce.avro" })
+public class MRCompactorAvroKeyDedupJobRunnerTest {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"TestRecord\", "
+      + "\"fields\": [{\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"name\", \"type\": \"string\"}]}");
+
+  private FileSystem fs;
+  private Path testDir;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    // Resolved from the classpath, so that the test does not depend on the working directory
+    this.testDir = new Path(MRCompactorAvroKeyDedupJobRunnerTest.class.getResource("/").getPath(),
+        "mrCompactorAvroKeyDedupJobRunnerTest");
+    this.fs.delete(this.testDir, true);
+  }
+
+  @Test
+  public void testDedupWithFingerprintAndCombiner() throws IOException {
+    Path datasetDir = new Path(this.testDir, "fingerprint");
+    Dataset dataset = createDataset(datasetDir);
+    dataset.setJobProp(AvroKeyMapper.FINGERPRINT_KEY, true);
+    dataset.setJobProp("compaction.job.dedup.combiner", true);
+
+    // Duplicates in the same file are dropped by the combiner, the one in the other file by the reducer
+    writeRecords(new Path(dataset.inputPath(), "part1.avro"), createRecord(1, "a"), createRecord(1, "a"),
+        createRecord(2, "b"), createRecord(2, "c"));
+    writeRecords(new Path(dataset.inputPath(), "part2.avro"), createRecord(1, "a"), createRecord(3, "a"));
+
+    MRCompactorJobRunner runner = new MRCompactorAvroKeyDedupJobRunner(dataset, this.fs, Dataset.DEFAULT_PRIORITY);
+    runner.proceed();
+    runner.run();
+
+    Assert.assertEquals(runner.status(), MRCompactorJobRunner.Status.COMMITTED);
+    Multiset<GenericRecord> expected = HashMultiset.create();
+    expected.add(createRecord(1, "a"));
+    expected.add(createRecord(2, "b"));
+    expected.add(createRecord(2, "c"));
+    expected.add(createRecord(3, "a"));
+    Assert.assertEquals(readRecords(dataset.outputPath()), expected);
+  }
+
+  @Test
+  public void testIncrementalLateDataDedup() throws IOException {
+    Path datasetDir = new Path(this.testDir, "late");
+    Dataset dataset = createDataset(datasetDir);
+    dataset.setJobProp(MRCompactor.COMPACTION_JOB_LATE_DATA_MOVEMENT_TASK, true);
+    dataset.setJobProp("compaction.job.late.data.incremental.dedup", true);
+    writeRecords(new Path(dataset.outputPath(), "part-r-2.1444437036.12345.avro"), createRecord(1, "a"),
+        createRecord(2, "b"));
+
+    Path firstLateFile = new Path(datasetDir, "input_late/first.avro");
+    writeRecords(firstLateFile, createRecord(1, "a"), createRecord(3, "a"), createRecord(3, "a"));
+    runLateDataMovementTask(dataset, firstLateFile);
+    Assert.assertEquals(readRecords(dataset.outputLatePath()),
+        HashMultiset.create(Arrays.asList(createRecord(3, "a"))));
+
+    // Records of the first batch of late data must be deduplicated against as well
+    Path secondLateFile = new Path(datasetDir, "input_late/second.avro");
+    writeRecords(secondLateFile, createRecord(3, "a"), createRecord(4, "a"), createRecord(2, "b"));
+    runLateDataMovementTask(dataset, secondLateFile);
+    Assert.assertEquals(readRecords(dataset.outputLatePath()),
+        HashMultiset.create(Arrays.asList(createRecord(3, "a"), createRecord(4, "a"))));
+    Assert.assertEquals(readRecords(dataset.outputPath()),
+        HashMultiset.create(Arrays.asList(createRecord(1, "a"), createRecord(2, "b"))));
+  }
+
+  private void runLateDataMovementTask(Dataset dataset, Path lateFile) {
+    dataset.setJobProp(MRCompactor.COMPACTION_JOB_LATE_DATA_FILES, lateFile.toString());
+    MRCompactorJobRunner runner = new MRCompactorAvroKeyDedupJobRunner(dataset, this.fs, Dataset.DEFAULT_PRIORITY);
+    runner.run();
+    Assert.assertEquals(runner.status(), MRCompactorJobRunner.Status.COMMITTED);
+  }
+
+  private Dataset createDataset(Path datasetDir) {
+    Dataset dataset = new Dataset.Builder().withInputPath(new Path(datasetDir, "input"))
+        .withOutputPath(new Path(datasetDir, "output")).withOutputLatePath(new Path(datasetDir, "output_late"))
+        .withOutputTmpPath(new Path(datasetDir, "output_tmp")).build();
+    dataset.setJobProp(ConfigurationKeys.JOB_NAME_KEY, MRCompactorAvroKeyDedupJobRunnerTest.class.getSimpleName());
+    dataset.setJobProp("mapreduce.framework.name", "local");
+    dataset.setJobProp(MRCompactor.COMPACTION_SHOULD_DEDUPLICATE, true);
+    dataset.setJobProp("compaction.job.dedup.key", "all");
+    return dataset;
+  }
+
+  private GenericRecord createRecord(long id, String name) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    record.put("name", name);
+    return record;
+  }
+
+  private void writeRecords(Path file, GenericRecord... records) throws IOException {
+    Closer closer = Closer.create();
+    try {
+      DataFileWriter<GenericRecord> writer =
+          closer.register(new DataFileWriter<GenericRecord>(new GenericDatumWriter<GenericRecord>(SCHEMA)));
+      writer.create(SCHEMA, this.fs.create(file));
+      for (GenericRecord record : records) {
+        writer.append(record);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
+  private Multiset<GenericRecord> readRecords(Path dir) throws IOException {
+    Multiset<GenericRecord> records = HashMultiset.create();
+    List<FileStatus> files = FileListUtils.listFilesRecursively(this.fs, dir);
+    for (FileStatus file : files) {
+      if (!file.getPath().getName().endsWith(".avro")) {
+        continue;
+      }
+      Closer closer = Closer.create();
+      try {
+        for (GenericRecord record : closer.register(new DataFileStream<GenericRecord>(this.fs.open(file.getPath()),
+            new GenericDatumReader<GenericRecord>(SCHEMA)))) {
+          records.add(createRecord((Long) record.get("id"), record.get("name").toString()));
+        }
+      } catch (Throwable t) {
+        throw closer.rethrow(t);
+      } finally {
+        closer.close();
+      }
+    }
+    return records;
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    this.fs.delete(this.testDir, true);
+  }
+}
@@ -13,13 +13,25 @@
 package gobblin.converter.serde;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.serde2.SerDe;
 import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
 import org.apache.hadoop.io.Writable;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 
 import gobblin.configuration.WorkUnitState;
 import gobblin.converter.DataConversionException;
@@ -38,6 +50,19 @@ import lombok.extern.slf4j.Slf4j;
  * The serializer and deserializer are specified using {@link HiveSerDeWrapper#SERDE_SERIALIZER_TYPE}
  * and {@link HiveSerDeWrapper#SERDE_DESERIALIZER_TYPE}.
  *
+ * <p>
+ *   If the serializer and deserializer are the same {@link SerDe}, their {@link ObjectInspector}s describe identical
+ *   column names and types, and the record is an instance of the serializer's {@link SerDe#getSerializedClass()},
+ *   records are passed through unchanged. This is not the case for instance for ORC, whose writer expects the rows
+ *   produced by its serializer rather than the structs read by its input format. Otherwise, if the serializer's
+ *   {@link ObjectInspector} describes any columns and all its fields are settable, the deserialized objects, which
+ *   may be lazy, are converted with an {@link ObjectInspectorConverters} converter that is created once, and
+ *   serialized with the serializer's {@link ObjectInspector}. Since the converter maps struct fields by position,
+ *   the struct fields of the serializer, including nested ones, must have the same names in the same order as those
+ *   of the deserializer, otherwise initialization fails. Else, the deserialized objects are serialized with the
+ *   deserializer's {@link ObjectInspector}.
+ * </p>
+ *
  * @author ziliu
  */
 @SuppressWarnings("deprecation")
@@ -46,6 +71,9 @@ public class HiveSerDeConverter extends InstrumentedConverter<Object, Object, Wr
 
   private SerDe serializer;
   private SerDe deserializer;
+  private boolean passThrough;
+  private Optional<Converter> converter;
+  private ObjectInspector serializationInspector;
 
   public HiveSerDeConverter init(WorkUnitState state) {
     super.init(state);
@@ -56,6 +84,7 @@ public class HiveSerDeConverter extends InstrumentedConverter<Object, Object, Wr
       this.deserializer = HiveSerDeWrapper.getDeserializer(state).getSerDe();
       serializer.initialize(conf, state.getProperties());
       deserializer.initialize(conf, state.getProperties());
+      initConversion();
     } catch (IOException e) {
       log.error("Failed to instantiate serializer and deserializer", e);
       throw Throwables.propagate(e);
@@ -71,15 +100,98 @@ public class HiveSerDeConverter extends InstrumentedConverter<Object, Object, Wr
   public Iterable<Writable> convertRecordImpl(Object outputSchema, Writable inputRecord, WorkUnitState workUnit)
       throws DataConversionException {
 
+    if (this.passThrough && this.serializer.getSerializedClass().isAssignableFrom(inputRecord.getClass())) {
+      return new SingleRecordIterable<Writable>(inputRecord);
+    }
+
     try {
       Object deserialized = this.deserializer.deserialize(inputRecord);
-      Writable convertedRecord = this.serializer.serialize(deserialized, this.deserializer.getObjectInspector());
+      if (this.converter.isPresent()) {
+        deserialized = this.converter.get().convert(deserialized);
+      }
+      Writable convertedRecord = this.serializer.serialize(deserialized, this.serializationInspector);
       return new SingleRecordIterable<Writable>(convertedRecord);
     } catch (SerDeException e) {
       throw new DataConversionException(e);
     }
   }
 
+  private void initConversion() throws SerDeException {
+    ObjectInspector deserializerInspector = this.deserializer.getObjectInspector();
+    ObjectInspector serializerInspector = this.serializer.getObjectInspector();
+
+    this.passThrough = this.serializer.getClass().equals(this.deserializer.getClass())
+        && TypeInfoUtils.getTypeInfoFromObjectInspector(deserializerInspector)
+            .equals(TypeInfoUtils.getTypeInfoFromObjectInspector(serializerInspector));
+    if (!this.passThrough && hasFields(serializerInspector)
+        && ObjectInspectorUtils.hasAllFieldsSettable(serializerInspector)) {
+      checkFieldNames(deserializerInspector, serializerInspector, "record");
+      this.converter = Optional.of(ObjectInspectorConverters.getConverter(deserializerInspector, serializerInspector));
+      this.serializationInspector = serializerInspector;
+    } else {
+      this.converter = Optional.absent();
+      this.serializationInspector = deserializerInspector;
+    }
+    log.info(String.format("Converting records from %s to %s with %s", this.deserializer.getClass().getSimpleName(),
+        this.serializer.getClass().getSimpleName(),
+        this.passThrough ? "pass-through" : this.converter.isPresent() ? "an object inspector converter"
+            : "the deserializer's object inspector"));
+  }
+
+  /**
+   * A serializer that was not given the table columns, such as ORC without the columns properties, has an
+   * {@link ObjectInspector} with no fields, which cannot be used to serialize the deserialized records.
+   */
+  private static boolean hasFields(ObjectInspector inspector) {
+    return inspector instanceof StructObjectInspector
+        && !((StructObjectInspector) inspector).getAllStructFieldRefs().isEmpty();
+  }
+
+  /**
+   * Check that the struct fields of the given {@link ObjectInspector}s, and of the types nested in them, have the
+   * same names in the same order, since {@link ObjectInspectorConverters} converts struct fields by position.
+   */
+  private static void checkFieldNames(ObjectInspector from, ObjectInspector to, String path) throws SerDeException {
+    if (from.getCategory() != to.getCategory()) {
+      return;
+    }
+    switch (from.getCategory()) {
+      case STRUCT:
+        List<? extends StructField> fromFields = ((StructObjectInspector) from).getAllStructFieldRefs();
+        List<? extends StructField> toFields = ((StructObjectInspector) to).getAllStructFieldRefs();
+        if (!getFieldNames(fromFields).equals(getFieldNames(toFields))) {
+          throw new SerDeException(String.format("Fields %s of %s in the deserializer do not match fields %s in the "
+              + "serializer", getFieldNames(fromFields), path, getFieldNames(toFields)));
+        }
+        for (int i = 0; i < fromFields.size(); i++) {
+          checkFieldNames(fromFields.get(i).getFieldObjectInspector(), toFields.get(i).getFieldObjectInspector(),
+              path + "." + fromFields.get(i).getFieldName());
+        }
+        return;
+      case LIST:
+        checkFieldNames(((ListObjectInspector) from).getListElementObjectInspector(),
+            ((ListObjectInspector) to).getListElementObjectInspector(), path + "[]");
+        return;
+      case MAP:
+        checkFieldNames(((MapObjectInspector) from).getMapKeyObjectInspector(),
+            ((MapObjectInspector) to).getMapKeyObjectInspector(), path + "{key}");
+        checkFieldNames(((MapObjectInspector) from).getMapValueObjectInspector(),
+            ((MapObjectInspector) to).getMapValueObjectInspector(), path + "{value}");
+        return;
+      default:
+        return;
+    }
+  }
+
+  private static List<String> getFieldNames(List<? extends StructField> fields) {
+    List<String> names = Lists.newArrayListWithCapacity(fields.size());
+    for (StructField field : fields) {
+      // Hive column names are case-insensitive
+      names.add(field.getFieldName().toLowerCase());
+    }
+    return names;
+  }
+
   @Override
   public Object convertSchema(Object inputSchema, WorkUnitState workUnit) throws SchemaConversionException {
     return inputSchema;
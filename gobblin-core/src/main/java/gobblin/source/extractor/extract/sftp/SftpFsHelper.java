@@ -13,6 +13,8 @@
 package gobblin.source.extractor.extract.sftp;
 
 import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
@@ -191,7 +193,8 @@ public class SftpFsHelper implements SizeAwareFileBasedHelper {
   }
 
   /**
-   * Executes a get SftpCommand and returns an input stream to the file
+   * Executes a get SftpCommand and returns an input stream to the file. The channel used for the download is
+   * disconnected when the returned stream is closed, so that files can be opened concurrently without leaking channels.
    * @param cmd is the command to execute
    * @param sftp is the channel to execute the command on
    * @throws SftpException
@@ -200,7 +203,17 @@ public class SftpFsHelper implements SizeAwareFileBasedHelper {
       throws FileBasedHelperException {
     SftpGetMonitor monitor = new SftpGetMonitor();
     try {
-      return getSftpChannel().get(file, monitor);
+      final ChannelSftp channel = getSftpChannel();
+      return new FilterInputStream(channel.get(file, monitor)) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            channel.disconnect();
+          }
+        }
+      };
     } catch (SftpException e) {
       throw new FileBasedHelperException("Cannot download file " + file + " due to " + e.getMessage(), e);
     }
@@ -12,6 +12,7 @@
 
 package gobblin.source.extractor.filebased;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
@@ -22,6 +23,7 @@ import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 import com.google.common.io.Closer;
 
@@ -61,6 +63,9 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
   private String currentFile;
   private boolean hasNext = false;
   private final boolean shouldSkipFirstRecord;
+  private final boolean readBinaryChunks;
+  private final int binaryChunkSize;
+  private final Optional<FilePrefetcher> prefetcher;
 
   protected enum CounterNames {
     FileBytesRead;
@@ -78,6 +83,10 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
         this.workUnit.getPropAsInt(ConfigurationKeys.FILEBASED_REPORT_STATUS_ON_COUNT,
             ConfigurationKeys.DEFAULT_FILEBASED_REPORT_STATUS_ON_COUNT);
     this.shouldSkipFirstRecord = this.workUnitState.getPropAsBoolean(ConfigurationKeys.SOURCE_SKIP_FIRST_RECORD, false);
+    this.readBinaryChunks =
+        this.workUnitState.getPropAsBoolean(ConfigurationKeys.SOURCE_FILEBASED_READ_BINARY_CHUNKS, false);
+    this.binaryChunkSize = this.workUnitState.getPropAsInt(ConfigurationKeys.SOURCE_FILEBASED_BINARY_CHUNK_SIZE,
+        ConfigurationKeys.DEFAULT_SOURCE_FILEBASED_BINARY_CHUNK_SIZE);
 
     if (fsHelper instanceof SizeAwareFileBasedHelper) {
       this.fsHelper = (SizeAwareFileBasedHelper) fsHelper;
@@ -91,6 +100,21 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
       throw new RuntimeException(e);
     }
 
+    int prefetchDepth = this.workUnitState.getPropAsInt(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_DEPTH,
+        ConfigurationKeys.DEFAULT_SOURCE_FILEBASED_PREFETCH_DEPTH);
+    if (prefetchDepth > 0 && !isPrefetchSupported()) {
+      LOG.warn(getClass().getSimpleName() + " does not support prefetching files, will not prefetch");
+    }
+    if (prefetchDepth > 0 && isPrefetchSupported()) {
+      String localBufferDir = this.workUnitState.getProp(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_LOCAL_BUFFER_DIR);
+      this.prefetcher = Optional.of(new FilePrefetcher(this.fsHelper, prefetchDepth,
+          localBufferDir == null ? Optional.<File> absent() : Optional.of(new File(localBufferDir)),
+          this.workUnitState.getPropAsLong(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_MAX_BYTES_IN_FLIGHT,
+              ConfigurationKeys.DEFAULT_SOURCE_FILEBASED_PREFETCH_MAX_BYTES_IN_FLIGHT)));
+    } else {
+      this.prefetcher = Optional.absent();
+    }
+
     this.counters.initialize(getMetricContext(), CounterNames.class, this.getClass());
   }
 
@@ -131,7 +155,7 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
 
   /**
    * If a previous file has been read, first close that file. Then search through {@link #filesToPull} to find the first
-   * non-empty file.
+   * non-empty file, closing every empty file on the way so that its stream and prefetch buffer are released.
    */
   private void getNextFileToRead() throws IOException {
     if (this.currentFile != null && this.currentFileItr != null) {
@@ -141,9 +165,16 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
 
     while (!this.hasNext && !this.filesToPull.isEmpty()) {
       this.currentFile = this.filesToPull.remove(0);
+      if (this.prefetcher.isPresent()) {
+        this.prefetcher.get().prefetch(this.filesToPull);
+      }
       this.currentFileItr = downloadFile(this.currentFile);
       this.hasNext = this.currentFileItr == null ? false : this.currentFileItr.hasNext();
       LOG.info("Will start downloading file: " + this.currentFile);
+      if (!this.hasNext) {
+        closeCurrentFile();
+        this.currentFileItr = null;
+      }
     }
   }
 
@@ -179,17 +210,27 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
   /**
    * Downloads a file from the source
    *
+   * <p>
+   *   By default the file is read as text and each line is a record. If
+   *   {@link ConfigurationKeys#SOURCE_FILEBASED_READ_BINARY_CHUNKS} is set, the file is read as raw bytes and each
+   *   record is a <code>byte[]</code> chunk of at most {@link ConfigurationKeys#SOURCE_FILEBASED_BINARY_CHUNK_SIZE}
+   *   bytes.
+   * </p>
+   *
    * @param file
    *            is the file to download
    * @return an iterator over the file
-   * TODO Add support for different file formats besides text e.g. avro iterator, byte iterator, json iterator.
+   * TODO Add support for different file formats besides text e.g. avro iterator, json iterator.
    */
   @SuppressWarnings("unchecked")
   public Iterator<D> downloadFile(String file) throws IOException {
     LOG.info("Beginning to download file: " + file);
 
     try {
-      InputStream inputStream = this.closer.register(this.fsHelper.getFileStream(file));
+      InputStream inputStream = this.closer.register(getFileStream(file));
+      if (this.readBinaryChunks) {
+        return (Iterator<D>) new FileByteChunkIterator(inputStream, this.binaryChunkSize);
+      }
       Iterator<D> fileItr = (Iterator<D>) IOUtils.lineIterator(inputStream, ConfigurationKeys.DEFAULT_CHARSET_ENCODING);
       if (this.shouldSkipFirstRecord && fileItr.hasNext()) {
         fileItr.next();
@@ -200,6 +241,30 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
     }
   }
 
+  /**
+   * Whether files are opened through {@link #getFileStream(String)}, so that they can be prefetched if
+   * {@link ConfigurationKeys#SOURCE_FILEBASED_PREFETCH_DEPTH} is set. Subclasses that override
+   * {@link #downloadFile(String)} to open files some other way must return <code>false</code>.
+   *
+   * <p>
+   *   This method is called from the constructor, so it must not depend on the state of the subclass.
+   * </p>
+   */
+  protected boolean isPrefetchSupported() {
+    return true;
+  }
+
+  /**
+   * Get an {@link InputStream} for a file, which was possibly opened ahead of time if
+   * {@link ConfigurationKeys#SOURCE_FILEBASED_PREFETCH_DEPTH} is set.
+   */
+  protected InputStream getFileStream(String file) throws FileBasedHelperException {
+    if (this.prefetcher.isPresent()) {
+      return this.prefetcher.get().getFileStream(file);
+    }
+    return this.fsHelper.getFileStream(file);
+  }
+
   /**
    * Closes the current file being read.
    */
@@ -215,6 +280,14 @@ public abstract class FileBasedExtractor<S, D> extends InstrumentedExtractor<S,
 
   @Override
   public void close() {
+    if (this.prefetcher.isPresent()) {
+      try {
+        this.prefetcher.get().close();
+      } catch (IOException e) {
+        LOG.error("Could not close file prefetcher due to error: " + e.getMessage(), e);
+      }
+    }
+
     try {
       this.fsHelper.close();
     } catch (FileBasedHelperException e) {
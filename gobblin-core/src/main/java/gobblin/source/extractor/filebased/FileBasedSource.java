@@ -12,20 +12,31 @@
 
 package gobblin.source.extractor.filebased;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import gobblin.source.extractor.extract.AbstractSource;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.SourceState;
 import gobblin.configuration.State;
@@ -38,7 +49,15 @@ import gobblin.source.workunit.Extract.TableType;
 /**
  * This class is a base class for file based sources, it provides default
  * functionality for keeping track of which files have already been pulled
- * by the framework and for determining which files need to be pulled in this run
+ * by the framework and for determining which files need to be pulled in this run.
+ *
+ * <p>
+ *   By default the listing of the previous run is stored in every work unit under
+ *   {@link ConfigurationKeys#SOURCE_FILEBASED_FS_SNAPSHOT}. If
+ *   {@link ConfigurationKeys#SOURCE_FILEBASED_FS_SNAPSHOT_DIR} is set, the listing is instead written once to a file
+ *   in that directory by {@link FsSnapshotStore}, and only the path of that file is kept in the job state under
+ *   {@link ConfigurationKeys#SOURCE_FILEBASED_FS_SNAPSHOT_FILE}.
+ * </p>
  * @author stakiar
  */
 public abstract class FileBasedSource<S, D> extends AbstractSource<S, D> {
@@ -90,19 +109,33 @@ public abstract class FileBasedSource<S, D> extends AbstractSource<S, D> {
 
     TableType tableType = TableType.valueOf(state.getProp(ConfigurationKeys.EXTRACT_TABLE_TYPE_KEY).toUpperCase());
     List<WorkUnitState> previousWorkunits = Lists.newArrayList(state.getPreviousWorkUnitStates());
-    List<String> prevFsSnapshot = Lists.newArrayList();
 
     // Get list of files seen in the previous run
-    if (!previousWorkunits.isEmpty() && previousWorkunits.get(0).getWorkunit()
-        .contains(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT)) {
-      prevFsSnapshot =
-          previousWorkunits.get(0).getWorkunit().getPropAsList(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT);
+    Optional<String> prevFsSnapshotFile = getPreviousFsSnapshotFile(state, previousWorkunits);
+    Set<String> prevFsSnapshot;
+    try {
+      prevFsSnapshot = getPreviousFsSnapshot(prevFsSnapshotFile, previousWorkunits);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
     }
 
     // Get list of files that need to be pulled
     List<String> currentFsSnapshot = this.getcurrentFsSnapshot(state);
-    List<String> filesToPull = Lists.newArrayList(currentFsSnapshot);
-    filesToPull.removeAll(prevFsSnapshot);
+    List<String> filesToPull = Lists.newArrayList();
+    for (String file : currentFsSnapshot) {
+      if (!prevFsSnapshot.contains(file)) {
+        filesToPull.add(file);
+      }
+    }
+
+    boolean persistSnapshot = state.contains(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_DIR);
+    if (persistSnapshot) {
+      try {
+        persistFsSnapshot(state, currentFsSnapshot, prevFsSnapshotFile);
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      }
+    }
 
     List<WorkUnit> workUnits = Lists.newArrayList();
     if (!filesToPull.isEmpty()) {
@@ -115,21 +148,19 @@ public abstract class FileBasedSource<S, D> extends AbstractSource<S, D> {
         throw new IllegalArgumentException("The number of partitions should be positive");
       }
 
-      int filesPerPartition = filesToPull.size() % numPartitions == 0 ?
-          filesToPull.size() / numPartitions : filesToPull.size() / numPartitions + 1;
-
       int workUnitCount = 0;
 
       // Distribute the files across the workunits
-      for (int fileOffset = 0; fileOffset < filesToPull.size(); fileOffset += filesPerPartition) {
+      for (List<String> partitionFilesToPull : partitionFilesToPull(state, filesToPull, numPartitions)) {
         SourceState partitionState = new SourceState();
         partitionState.addAll(state);
 
         // Eventually these setters should be integrated with framework support for generalized watermark handling
-        partitionState.setProp(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT, StringUtils.join(currentFsSnapshot, ","));
+        if (!persistSnapshot) {
+          partitionState.setProp(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT,
+              StringUtils.join(currentFsSnapshot, ","));
+        }
 
-        List<String> partitionFilesToPull = filesToPull.subList(fileOffset,
-            fileOffset + filesPerPartition > filesToPull.size() ? filesToPull.size() : fileOffset + filesPerPartition);
         partitionState
             .setProp(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL, StringUtils.join(partitionFilesToPull, ","));
         if (state.getPropAsBoolean(ConfigurationKeys.SOURCE_FILEBASED_PRESERVE_FILE_NAME, false)) {
@@ -139,6 +170,12 @@ public abstract class FileBasedSource<S, D> extends AbstractSource<S, D> {
           partitionState.setProp(ConfigurationKeys.DATA_PUBLISHER_FINAL_DIR,
               partitionState.getProp(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL));
         }
+        // Binary chunks are consecutive slices of the files, so unless configured otherwise, they are written back to
+        // back to produce plain copies of the files
+        if (state.getPropAsBoolean(ConfigurationKeys.SOURCE_FILEBASED_READ_BINARY_CHUNKS, false)
+            && !state.contains(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE)) {
+          partitionState.setProp(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE, false);
+        }
 
         // Use extract table name to create extract
         Extract extract = partitionState.createExtract(tableType, nameSpaceName, extractTableName);
@@ -156,6 +193,104 @@ public abstract class FileBasedSource<S, D> extends AbstractSource<S, D> {
     return workUnits;
   }
 
+  /**
+   * Split the files to pull into at most {@code numPartitions} partitions, one per work unit.
+   *
+   * <p>
+   *   If {@link ConfigurationKeys#SOURCE_FILEBASED_PARTITION_BY_SIZE} is enabled and {@link #fsHelper} can tell the
+   *   size of the files, the files are packed by {@link SizeBalancedFilePacker} so that every work unit pulls about the
+   *   same number of bytes. This is off by default as it looks up the size of every file to pull, one at a time.
+   *   Otherwise every partition gets the same number of consecutive files.
+   * </p>
+   */
+  protected List<List<String>> partitionFilesToPull(State state, List<String> filesToPull, int numPartitions) {
+    if (state.getPropAsBoolean(ConfigurationKeys.SOURCE_FILEBASED_PARTITION_BY_SIZE,
+        ConfigurationKeys.DEFAULT_SOURCE_FILEBASED_PARTITION_BY_SIZE)
+        && this.fsHelper instanceof SizeAwareFileBasedHelper) {
+      try {
+        Map<String, Long> fileSizes = Maps.newLinkedHashMap();
+        for (String file : filesToPull) {
+          fileSizes.put(file, ((SizeAwareFileBasedHelper) this.fsHelper).getFileSize(file));
+        }
+        return SizeBalancedFilePacker.pack(fileSizes, numPartitions);
+      } catch (FileBasedHelperException | UnsupportedOperationException e) {
+        log.warn("Unable to get the size of the files to pull, will partition them by count instead", e);
+      }
+    }
+
+    int filesPerPartition = filesToPull.size() % numPartitions == 0 ?
+        filesToPull.size() / numPartitions : filesToPull.size() / numPartitions + 1;
+    return Lists.partition(filesToPull, filesPerPartition);
+  }
+
+  /**
+   * Get the path of the snapshot file written by the previous run, if it persisted its snapshot to a file.
+   */
+  private Optional<String> getPreviousFsSnapshotFile(SourceState state, List<WorkUnitState> previousWorkunits) {
+    SourceState previousState = state.getPreviousSourceState();
+    if (previousState != null && previousState.contains(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_FILE)) {
+      return Optional.of(previousState.getProp(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_FILE));
+    }
+    if (!previousWorkunits.isEmpty()
+        && previousWorkunits.get(0).contains(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_FILE)) {
+      return Optional.of(previousWorkunits.get(0).getProp(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_FILE));
+    }
+    return Optional.absent();
+  }
+
+  /**
+   * Get the files seen in the previous run, either from the snapshot file it persisted or from the snapshot stored
+   * in its work units.
+   */
+  private Set<String> getPreviousFsSnapshot(Optional<String> prevFsSnapshotFile, List<WorkUnitState> previousWorkunits)
+      throws IOException {
+    if (prevFsSnapshotFile.isPresent()) {
+      Path snapshotFile = new Path(prevFsSnapshotFile.get());
+      return new FsSnapshotStore(snapshotFile.getParent()).read(snapshotFile);
+    }
+
+    if (!previousWorkunits.isEmpty()
+        && previousWorkunits.get(0).getWorkunit().contains(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT)) {
+      return Sets.newHashSet(
+          previousWorkunits.get(0).getWorkunit().getPropAsList(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT));
+    }
+
+    return Collections.emptySet();
+  }
+
+  /**
+   * Write the current snapshot to a subdirectory of {@link ConfigurationKeys#SOURCE_FILEBASED_FS_SNAPSHOT_DIR} named
+   * after the job and reference it from the job state, which is persisted with the dataset state. The snapshot of the
+   * previous run is kept so that it can still be used if this run fails before its state is committed. Snapshots of
+   * other jobs sharing the snapshot directory are in other subdirectories, so they are left alone.
+   *
+   * <p>
+   *   Snapshots used to be written directly to {@link ConfigurationKeys#SOURCE_FILEBASED_FS_SNAPSHOT_DIR}, named after
+   *   the ID of the job run that wrote them. Those of this job are deleted from there as well, unless the previous run
+   *   wrote its snapshot there.
+   * </p>
+   */
+  private void persistFsSnapshot(SourceState state, List<String> currentFsSnapshot, Optional<String> prevFsSnapshotFile)
+      throws IOException {
+    Preconditions.checkArgument(state.contains(ConfigurationKeys.JOB_NAME_KEY),
+        "A job name is required to persist file system snapshots");
+    String jobName = state.getProp(ConfigurationKeys.JOB_NAME_KEY);
+    Path jobSnapshotDir = new Path(state.getProp(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_DIR), jobName);
+    FsSnapshotStore snapshotStore = new FsSnapshotStore(jobSnapshotDir);
+    String snapshotName = state.getProp(ConfigurationKeys.JOB_ID_KEY, "snapshot_" + System.currentTimeMillis());
+    Path snapshotFile = snapshotStore.write(snapshotName, currentFsSnapshot);
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_FS_SNAPSHOT_FILE, snapshotFile.toString());
+
+    ImmutableList.Builder<Path> toKeep = ImmutableList.<Path> builder().add(snapshotFile);
+    if (prevFsSnapshotFile.isPresent()) {
+      toKeep.add(new Path(prevFsSnapshotFile.get()));
+    }
+    snapshotStore.deleteAllExcept(toKeep.build());
+    // Job IDs are of the form job_<job name>_<timestamp>, see JobLauncherUtils#newJobId
+    new FsSnapshotStore(jobSnapshotDir.getParent()).deleteAllExcept(toKeep.build(),
+        Pattern.compile(Pattern.quote("job_" + jobName + "_") + "\\d+"));
+  }
+
   /**
    * This method is responsible for connecting to the source and taking
    * a snapshot of the folder where the data is present, it then returns
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+
+
+/**
+ * An {@link Iterator} over the content of a file that returns it as consecutive chunks of bytes.
+ *
+ * <p>
+ *   Every chunk but the last one is exactly {@code chunkSize} bytes long. Unlike {@link FileByteIterator}, which
+ *   returns a boxed {@link Byte} per record, this lets a raw file be moved through the task pipeline as a small
+ *   number of records.
+ * </p>
+ */
+public class FileByteChunkIterator implements Iterator<byte[]> {
+
+  private final InputStream inputStream;
+  private final byte[] buffer;
+  private byte[] nextChunk;
+
+  public FileByteChunkIterator(InputStream inputStream, int chunkSize) {
+    Preconditions.checkArgument(chunkSize > 0, "Chunk size must be positive");
+    this.inputStream = inputStream;
+    this.buffer = new byte[chunkSize];
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (this.nextChunk == null) {
+      this.nextChunk = readChunk();
+    }
+    return this.nextChunk != null;
+  }
+
+  @Override
+  public byte[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more data left in the file");
+    }
+    byte[] chunk = this.nextChunk;
+    this.nextChunk = null;
+    return chunk;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  private byte[] readChunk() {
+    try {
+      int bytesRead = ByteStreams.read(this.inputStream, this.buffer, 0, this.buffer.length);
+      if (bytesRead == 0) {
+        return null;
+      }
+      // The returned chunk is handed downstream as a record, so it cannot share the read buffer
+      return Arrays.copyOf(this.buffer, bytesRead);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+}
@@ -21,6 +21,12 @@ import java.util.NoSuchElementException;
 import com.google.common.base.Throwables;
 
 
+/**
+ * An {@link Iterator} over the content of a file that returns it one byte at a time.
+ *
+ * @deprecated Returning a boxed {@link Byte} per record is very slow. Use {@link FileByteChunkIterator} instead.
+ */
+@Deprecated
 public class FileByteIterator implements Iterator<Byte> {
 
   private BufferedInputStream bufferedInputStream;
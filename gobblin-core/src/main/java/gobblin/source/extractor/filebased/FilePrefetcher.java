@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closer;
+
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * Opens the next files to be read by a {@link FileBasedExtractor} in the background.
+ *
+ * <p>
+ *   Up to {@code depth} files are opened ahead of time through {@link FileBasedHelper#getFileStream(String)} while
+ *   the current file is being processed, so that the connection and open latency of the source is not paid serially
+ *   for every file. If a local buffer directory is given, each prefetched file is also downloaded completely into a
+ *   temporary file in that directory, which is deleted once the returned stream is closed. In that case no new
+ *   download is started while the total size of the buffered files that have not been closed yet is above
+ *   {@code maxBytesInFlight}. Downloads reserve their bytes in the order the files will be read, so a file never waits
+ *   for the bytes of a file that is read after it.
+ * </p>
+ */
+public class FilePrefetcher implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FilePrefetcher.class);
+
+  private final FileBasedHelper fsHelper;
+  private final int depth;
+  private final Optional<File> localBufferDir;
+  private final long maxBytesInFlight;
+  private final ExecutorService executor;
+
+  private final Map<String, Future<InputStream>> pending = new LinkedHashMap<>();
+  private final Object bytesInFlightLock = new Object();
+  private long bytesInFlight = 0;
+  // The order in which files were submitted, and the next file in that order that may reserve bytes in flight
+  private long nextSubmission = 0;
+  private long nextReservation = 0;
+
+  public FilePrefetcher(FileBasedHelper fsHelper, int depth, Optional<File> localBufferDir, long maxBytesInFlight) {
+    Preconditions.checkArgument(depth > 0, "Prefetch depth must be positive");
+    this.fsHelper = fsHelper;
+    this.depth = depth;
+    this.localBufferDir = localBufferDir;
+    this.maxBytesInFlight = maxBytesInFlight;
+    this.executor = Executors.newFixedThreadPool(depth,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("FilePrefetcher-%d")));
+  }
+
+  /**
+   * Start opening the first {@code depth} files of the given list that are not already being opened.
+   *
+   * @param upcomingFiles the files that will be read next, in order
+   */
+  public synchronized void prefetch(List<String> upcomingFiles) {
+    for (final String file : upcomingFiles.subList(0, Math.min(this.depth, upcomingFiles.size()))) {
+      if (this.pending.size() >= this.depth) {
+        return;
+      }
+      if (!this.pending.containsKey(file)) {
+        final long submission = this.nextSubmission++;
+        this.pending.put(file, this.executor.submit(new Callable<InputStream>() {
+          @Override
+          public InputStream call() throws Exception {
+            InputStream inputStream = open(file, submission);
+            if (executor.isShutdown()) {
+              // The prefetcher was closed while the file was being opened, so nobody will read it
+              inputStream.close();
+            }
+            return inputStream;
+          }
+        }));
+      }
+    }
+  }
+
+  /**
+   * Get an {@link InputStream} for the given file, waiting for it to be opened if it is being prefetched, or
+   * opening it on the calling thread otherwise.
+   */
+  public InputStream getFileStream(String file) throws FileBasedHelperException {
+    Future<InputStream> future;
+    synchronized (this) {
+      future = this.pending.remove(file);
+    }
+
+    if (future == null) {
+      return this.fsHelper.getFileStream(file);
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new FileBasedHelperException("Interrupted while prefetching file " + file, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof FileBasedHelperException) {
+        throw (FileBasedHelperException) cause;
+      }
+      throw new FileBasedHelperException("Failed to prefetch file " + file, e);
+    }
+  }
+
+  private InputStream open(String file, long submission)
+      throws FileBasedHelperException, IOException, InterruptedException {
+    if (!this.localBufferDir.isPresent()) {
+      return this.fsHelper.getFileStream(file);
+    }
+
+    // Reserve the bytes of the file before downloading it, so concurrent downloads cannot exceed the limit together
+    final long reserved = reserveBytesInFlight(submission, estimateFileSize(file));
+
+    final File localFile;
+    final long size;
+    try {
+      localFile = File.createTempFile("prefetch", null, this.localBufferDir.get());
+      Closer closer = Closer.create();
+      try {
+        InputStream in = closer.register(this.fsHelper.getFileStream(file));
+        OutputStream out = closer.register(new FileOutputStream(localFile));
+        size = ByteStreams.copy(in, out);
+      } catch (Throwable t) {
+        localFile.delete();
+        throw closer.rethrow(t, FileBasedHelperException.class);
+      } finally {
+        closer.close();
+      }
+    } catch (Throwable t) {
+      releaseBytesInFlight(reserved);
+      Throwables.propagateIfPossible(t, FileBasedHelperException.class, IOException.class);
+      throw Throwables.propagate(t);
+    }
+
+    // Replace the reservation with the actual size of the file
+    synchronized (this.bytesInFlightLock) {
+      this.bytesInFlight += size - reserved;
+      this.bytesInFlightLock.notifyAll();
+    }
+    LOG.info(String.format("Prefetched %d bytes of file %s into %s", size, file, localFile));
+
+    return new FilterInputStream(new FileInputStream(localFile)) {
+      private boolean closed = false;
+
+      @Override
+      public void close() throws IOException {
+        if (this.closed) {
+          return;
+        }
+        this.closed = true;
+        try {
+          super.close();
+        } finally {
+          localFile.delete();
+          releaseBytesInFlight(size);
+        }
+      }
+    };
+  }
+
+  /**
+   * Get the number of bytes to reserve for a file before downloading it, which is its size if the helper knows it,
+   * or one {@code depth}-th of {@code maxBytesInFlight} otherwise.
+   */
+  private long estimateFileSize(String file) {
+    if (this.fsHelper instanceof SizeAwareFileBasedHelper) {
+      try {
+        return ((SizeAwareFileBasedHelper) this.fsHelper).getFileSize(file);
+      } catch (FileBasedHelperException | UnsupportedOperationException e) {
+        LOG.debug("Failed to get the size of file " + file, e);
+      }
+    }
+    return Math.max(1, this.maxBytesInFlight / this.depth);
+  }
+
+  /**
+   * Wait until all files submitted before the given one have reserved their bytes and the given number of bytes fit
+   * within {@code maxBytesInFlight}, and reserve them. A file larger than the limit is admitted once nothing else is
+   * in flight.
+   */
+  private long reserveBytesInFlight(long submission, long bytes) throws InterruptedException {
+    synchronized (this.bytesInFlightLock) {
+      while (submission != this.nextReservation
+          || (this.bytesInFlight > 0 && this.bytesInFlight + bytes > this.maxBytesInFlight)) {
+        this.bytesInFlightLock.wait();
+      }
+      this.bytesInFlight += bytes;
+      this.nextReservation++;
+      this.bytesInFlightLock.notifyAll();
+      return bytes;
+    }
+  }
+
+  private void releaseBytesInFlight(long bytes) {
+    synchronized (this.bytesInFlightLock) {
+      this.bytesInFlight -= bytes;
+      this.bytesInFlightLock.notifyAll();
+    }
+  }
+
+  /**
+   * Cancel all pending prefetches and close the streams of the files that were prefetched but never read.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    this.executor.shutdownNow();
+    Closer closer = Closer.create();
+    for (Iterator<Future<InputStream>> it = this.pending.values().iterator(); it.hasNext();) {
+      Future<InputStream> future = it.next();
+      it.remove();
+      if (future.isDone() && !future.isCancelled()) {
+        try {
+          closer.register(future.get());
+        } catch (InterruptedException | ExecutionException e) {
+          // Nothing to close
+        }
+      } else {
+        future.cancel(true);
+      }
+    }
+    closer.close();
+  }
+}
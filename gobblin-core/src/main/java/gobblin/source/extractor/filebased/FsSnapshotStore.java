@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closer;
+
+import gobblin.util.HadoopUtils;
+
+
+/**
+ * Persists the file listings (snapshots) of a {@link FileBasedSource} as files in a directory.
+ *
+ * <p>
+ *   Each snapshot is stored as a sorted, gzipped text file with one file path per line. This keeps snapshots of
+ *   directories with hundreds of thousands of files out of the work units and the state store, which only need to
+ *   reference the snapshot file by its path.
+ * </p>
+ */
+public class FsSnapshotStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FsSnapshotStore.class);
+
+  static final String SNAPSHOT_FILE_EXTENSION = ".snapshot.gz";
+
+  private final FileSystem fs;
+  private final Path snapshotDir;
+
+  public FsSnapshotStore(Path snapshotDir) throws IOException {
+    this.fs = snapshotDir.getFileSystem(HadoopUtils.newConfiguration());
+    this.snapshotDir = snapshotDir;
+  }
+
+  /**
+   * Write a snapshot.
+   *
+   * @param name name of the snapshot, which must be unique within the snapshot directory
+   * @param files the files in the snapshot
+   * @return the path of the written snapshot file
+   */
+  public Path write(String name, Collection<String> files) throws IOException {
+    List<String> sortedFiles = Lists.newArrayList(files);
+    Collections.sort(sortedFiles);
+
+    Path snapshotFile = new Path(this.snapshotDir, name + SNAPSHOT_FILE_EXTENSION);
+    Path tmpFile = new Path(this.snapshotDir, "_tmp_" + name + SNAPSHOT_FILE_EXTENSION);
+    Closer closer = Closer.create();
+    try {
+      BufferedWriter writer = closer.register(new BufferedWriter(
+          new OutputStreamWriter(new GZIPOutputStream(this.fs.create(tmpFile, true)), Charsets.UTF_8)));
+      for (String file : sortedFiles) {
+        writer.write(file);
+        writer.newLine();
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    // Write to a temporary file first so a reader never sees a partially written snapshot
+    HadoopUtils.renamePath(this.fs, tmpFile, snapshotFile);
+    LOG.info(String.format("Wrote snapshot of %d files to %s", sortedFiles.size(), snapshotFile));
+    return snapshotFile;
+  }
+
+  /**
+   * Read a snapshot written by {@link #write(String, Collection)} into a {@link Set} for constant time lookups.
+   */
+  public Set<String> read(Path snapshotFile) throws IOException {
+    Set<String> files = Sets.newHashSet();
+    Closer closer = Closer.create();
+    try {
+      BufferedReader reader = closer.register(new BufferedReader(
+          new InputStreamReader(new GZIPInputStream(this.fs.open(snapshotFile)), Charsets.UTF_8)));
+      String file;
+      while ((file = reader.readLine()) != null) {
+        files.add(file);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+    return files;
+  }
+
+  /**
+   * Delete all snapshot files in the snapshot directory except the given ones.
+   */
+  public void deleteAllExcept(Collection<Path> snapshotFilesToKeep) throws IOException {
+    deleteAllExcept(snapshotFilesToKeep, Pattern.compile(".*"));
+  }
+
+  /**
+   * Delete the snapshot files in the snapshot directory whose name, without extension, matches the given pattern,
+   * except the given ones.
+   */
+  public void deleteAllExcept(Collection<Path> snapshotFilesToKeep, Pattern snapshotNamePattern) throws IOException {
+    if (!this.fs.exists(this.snapshotDir)) {
+      return;
+    }
+
+    Set<Path> toKeep = Sets.newHashSet();
+    for (Path path : snapshotFilesToKeep) {
+      toKeep.add(this.fs.makeQualified(path));
+    }
+
+    for (FileStatus status : this.fs.listStatus(this.snapshotDir)) {
+      String fileName = status.getPath().getName();
+      if (fileName.endsWith(SNAPSHOT_FILE_EXTENSION)
+          && snapshotNamePattern.matcher(fileName.substring(0, fileName.length() - SNAPSHOT_FILE_EXTENSION.length()))
+              .matches()
+          && !toKeep.contains(this.fs.makeQualified(status.getPath()))) {
+        LOG.info("Deleting old snapshot " + status.getPath());
+        this.fs.delete(status.getPath(), false);
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+
+/**
+ * Packs files into a fixed number of partitions so that the total size of the files in each partition is balanced.
+ *
+ * <p>
+ *   This uses the same worst-fit decreasing strategy as the Kafka work unit packers: files are sorted by decreasing
+ *   size and each file is added to the partition with the smallest total size so far. Partitions with the same total
+ *   size are ordered by their number of files, so empty files are spread out as well.
+ * </p>
+ */
+public class SizeBalancedFilePacker {
+
+  private SizeBalancedFilePacker() {
+  }
+
+  /**
+   * Pack the given files into at most {@code numPartitions} partitions.
+   *
+   * @param fileSizes the files to pack and their sizes
+   * @param numPartitions the maximum number of partitions
+   * @return the non-empty partitions, each being a list of files
+   */
+  public static List<List<String>> pack(Map<String, Long> fileSizes, int numPartitions) {
+    Preconditions.checkArgument(numPartitions > 0, "The number of partitions should be positive");
+
+    List<Map.Entry<String, Long>> sortedFiles = Lists.newArrayList(fileSizes.entrySet());
+    Collections.sort(sortedFiles, new Comparator<Map.Entry<String, Long>>() {
+      @Override
+      public int compare(Map.Entry<String, Long> f1, Map.Entry<String, Long> f2) {
+        return Longs.compare(f2.getValue(), f1.getValue());
+      }
+    });
+
+    int numBins = Math.min(numPartitions, sortedFiles.size());
+    PriorityQueue<Bin> bins = new PriorityQueue<>(Math.max(1, numBins));
+    for (int i = 0; i < numBins; i++) {
+      bins.offer(new Bin());
+    }
+
+    for (Map.Entry<String, Long> file : sortedFiles) {
+      Bin lightestBin = bins.poll();
+      lightestBin.files.add(file.getKey());
+      lightestBin.size += file.getValue();
+      bins.offer(lightestBin);
+    }
+
+    List<List<String>> partitions = Lists.newArrayListWithCapacity(numBins);
+    for (Bin bin : bins) {
+      partitions.add(bin.files);
+    }
+    return partitions;
+  }
+
+  private static class Bin implements Comparable<Bin> {
+
+    private final List<String> files = Lists.newArrayList();
+    private long size = 0;
+
+    @Override
+    public int compareTo(Bin other) {
+      int result = Longs.compare(this.size, other.size);
+      return result != 0 ? result : Ints.compare(this.files.size(), other.files.size());
+    }
+  }
+}
@@ -45,6 +45,15 @@ public class AvroFileExtractor extends FileBasedExtractor<Schema, GenericRecord>
     return null;
   }
 
+  /**
+   * Avro files are opened through {@link AvroFsHelper#getAvroFile(String)} rather than {@link #getFileStream(String)},
+   * so they cannot be prefetched.
+   */
+  @Override
+  protected boolean isPrefetchSupported() {
+    return false;
+  }
+
   /**
    * Assumption is that all files in the input directory have the same schema
    */
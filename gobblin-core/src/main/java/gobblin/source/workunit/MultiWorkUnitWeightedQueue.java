@@ -12,11 +12,15 @@
 
 package gobblin.source.workunit;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 
 
@@ -32,25 +36,28 @@ import com.google.common.primitives.Longs;
  * means that when more than maxMultiWorkUnits are added to the queue, WorkUnits will start to be paired together into
  * MultiWorkUnits.
  *
+ * <p>
+ *
+ * The WorkUnits are distributed using a worst-fit decreasing strategy: when {@link #getQueueAsList()} is called, the
+ * WorkUnits are sorted by decreasing weight and each one is added to the MultiWorkUnit with the smallest total weight.
+ * This keeps a few heavy WorkUnits that are added late from ending up in the same MultiWorkUnit.
+ *
  * @see {@link MultiWorkUnit}
  */
 public class MultiWorkUnitWeightedQueue {
 
-  private final Queue<WeightedMultiWorkUnit> weightedWorkUnitQueue;
+  private final List<WeightedWorkUnit> weightedWorkUnits = Lists.newArrayList();
 
   private int maxMultiWorkUnits = Integer.MAX_VALUE;
-  private int numMultiWorkUnits = 0;
 
   /**
    * The default constructor sets the limit on the queue to size to be {@link Integer#MAX_VALUE}. This means that until
    * Integer.MAX_VALUE + 1 WorkUnits are added to the queue, no WorkUnits will be paired together.
    */
   public MultiWorkUnitWeightedQueue() {
-    this.weightedWorkUnitQueue = new PriorityQueue<WeightedMultiWorkUnit>();
   }
 
   public MultiWorkUnitWeightedQueue(int maxMultiWorkUnits) {
-    this.weightedWorkUnitQueue = new PriorityQueue<WeightedMultiWorkUnit>(maxMultiWorkUnits);
     this.maxMultiWorkUnits = maxMultiWorkUnits;
   }
 
@@ -58,21 +65,7 @@ public class MultiWorkUnitWeightedQueue {
    * Adds a {@link WorkUnit} to this queue, along with an associated weight for that WorkUnit.
    */
   public void addWorkUnit(WorkUnit workUnit, long weight) {
-
-    WeightedMultiWorkUnit weightMultiWorkUnit;
-
-    if (this.numMultiWorkUnits < this.maxMultiWorkUnits) {
-      weightMultiWorkUnit = new WeightedMultiWorkUnit();
-      this.numMultiWorkUnits++;
-
-    } else {
-
-      weightMultiWorkUnit = this.weightedWorkUnitQueue.poll();
-    }
-
-    weightMultiWorkUnit.addWorkUnit(weight, workUnit);
-    this.weightedWorkUnitQueue.offer(weightMultiWorkUnit);
-
+    this.weightedWorkUnits.add(new WeightedWorkUnit(workUnit, weight));
   }
 
   /**
@@ -80,7 +73,38 @@ public class MultiWorkUnitWeightedQueue {
    * method.
    */
   public List<WorkUnit> getQueueAsList() {
-    return ImmutableList.<WorkUnit>builder().addAll(this.weightedWorkUnitQueue).build();
+    List<WeightedWorkUnit> sortedWorkUnits = Lists.newArrayList(this.weightedWorkUnits);
+    Collections.sort(sortedWorkUnits, new Comparator<WeightedWorkUnit>() {
+      @Override
+      public int compare(WeightedWorkUnit w1, WeightedWorkUnit w2) {
+        return Longs.compare(w2.weight, w1.weight);
+      }
+    });
+
+    Queue<WeightedMultiWorkUnit> weightedMultiWorkUnitQueue =
+        new PriorityQueue<WeightedMultiWorkUnit>(Math.max(1, Math.min(this.maxMultiWorkUnits, sortedWorkUnits.size())));
+    for (WeightedWorkUnit weightedWorkUnit : sortedWorkUnits) {
+      WeightedMultiWorkUnit weightedMultiWorkUnit = weightedMultiWorkUnitQueue.size() < this.maxMultiWorkUnits
+          ? new WeightedMultiWorkUnit() : weightedMultiWorkUnitQueue.poll();
+      weightedMultiWorkUnit.addWorkUnit(weightedWorkUnit.weight, weightedWorkUnit.workUnit);
+      weightedMultiWorkUnitQueue.offer(weightedMultiWorkUnit);
+    }
+
+    return ImmutableList.<WorkUnit>builder().addAll(weightedMultiWorkUnitQueue).build();
+  }
+
+  /**
+   * A {@link WorkUnit} that has been added to the queue along with its weight.
+   */
+  private static class WeightedWorkUnit {
+
+    private final WorkUnit workUnit;
+    private final long weight;
+
+    private WeightedWorkUnit(WorkUnit workUnit, long weight) {
+      this.workUnit = workUnit;
+      this.weight = weight;
+    }
   }
 
   /**
@@ -105,11 +129,14 @@ public class MultiWorkUnitWeightedQueue {
     }
 
     /**
-     * Compare with the other weightedMultiWorkUnit based on weight.
+     * Compare with the other weightedMultiWorkUnit based on weight, and on the number of workUnits if the weights are
+     * equal, so that workUnits with no weight are still spread out.
      */
     @Override
     public int compareTo(WeightedMultiWorkUnit weightedMultiWorkUnit) {
-      return Longs.compare(this.weight, weightedMultiWorkUnit.getWeight());
+      int result = Longs.compare(this.weight, weightedMultiWorkUnit.getWeight());
+      return result != 0 ? result
+          : Ints.compare(this.getWorkUnits().size(), weightedMultiWorkUnit.getWorkUnits().size());
     }
 
     @Override
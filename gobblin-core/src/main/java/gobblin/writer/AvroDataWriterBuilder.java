@@ -39,7 +39,7 @@ public class AvroDataWriterBuilder extends FsDataWriterBuilder<Schema, GenericRe
       case HDFS:
         return new AvroHdfsDataWriter(this, this.destination.getProperties());
       case KAFKA:
-        return new AvroKafkaDataWriter();
+        return new AvroKafkaDataWriter(this.destination.getProperties(), this.schema, this.branches, this.branch);
       default:
         throw new RuntimeException("Unknown destination type: " + this.destination.getType());
     }
@@ -18,11 +18,14 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumWriter;
 import org.apache.hadoop.fs.FileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
@@ -41,14 +44,25 @@ import gobblin.util.WriterUtils;
  *   property {@link ConfigurationKeys#WRITER_CODEC_TYPE}. By default, the deflate codec is used.
  * </p>
  *
+ * <p>
+ *   If {@link ConfigurationKeys#WRITER_COMPRESSION_THREADS} is positive and the codec is null, deflate or snappy,
+ *   records are written with a {@link PipelinedAvroFileWriter}, which compresses and writes blocks on that many
+ *   background threads, so that compression does not stall the thread calling {@link #write(GenericRecord)}. At most
+ *   {@link ConfigurationKeys#WRITER_MAX_PENDING_BLOCKS} blocks are buffered waiting to be written.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(AvroHdfsDataWriter.class);
+
   private final Schema schema;
   private final OutputStream stagingFileOutputStream;
   private final DatumWriter<GenericRecord> datumWriter;
-  private final DataFileWriter<GenericRecord> writer;
+  // Exactly one of the two writers is present
+  private final Optional<DataFileWriter<GenericRecord>> writer;
+  private final Optional<PipelinedAvroFileWriter> pipelinedWriter;
 
   // Number of records successfully written
   protected final AtomicLong count = new AtomicLong(0);
@@ -56,16 +70,37 @@ public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
   public AvroHdfsDataWriter(FsDataWriterBuilder<Schema, GenericRecord> builder, State state) throws IOException {
     super(builder, state);
 
-    CodecFactory codecFactory = WriterUtils.getCodecFactory(
-        Optional.fromNullable(properties.getProp(ForkOperatorUtils
-            .getPropertyNameForBranch(ConfigurationKeys.WRITER_CODEC_TYPE, this.numBranches, this.branchId))),
-        Optional.fromNullable(properties.getProp(ForkOperatorUtils
-            .getPropertyNameForBranch(ConfigurationKeys.WRITER_DEFLATE_LEVEL, this.numBranches, this.branchId))));
+    Optional<String> codecName = Optional.fromNullable(properties.getProp(ForkOperatorUtils
+        .getPropertyNameForBranch(ConfigurationKeys.WRITER_CODEC_TYPE, this.numBranches, this.branchId)));
+    Optional<String> deflateLevel = Optional.fromNullable(properties.getProp(ForkOperatorUtils
+        .getPropertyNameForBranch(ConfigurationKeys.WRITER_DEFLATE_LEVEL, this.numBranches, this.branchId)));
+    int compressionThreads = properties.getPropAsInt(ForkOperatorUtils.getPropertyNameForBranch(
+        ConfigurationKeys.WRITER_COMPRESSION_THREADS, this.numBranches, this.branchId),
+        ConfigurationKeys.DEFAULT_WRITER_COMPRESSION_THREADS);
 
     this.schema = builder.getSchema();
     this.stagingFileOutputStream = createStagingFileOutputStream();
     this.datumWriter = new GenericDatumWriter<GenericRecord>();
-    this.writer = this.closer.register(createDataFileWriter(codecFactory));
+
+    String codec = codecName.or(DataFileConstants.DEFLATE_CODEC);
+    if (compressionThreads > 0 && PipelinedAvroFileWriter.isSupportedCodec(codec)) {
+      int maxPendingBlocks = properties.getPropAsInt(ForkOperatorUtils.getPropertyNameForBranch(
+          ConfigurationKeys.WRITER_MAX_PENDING_BLOCKS, this.numBranches, this.branchId),
+          ConfigurationKeys.DEFAULT_WRITER_MAX_PENDING_BLOCKS);
+      int level = deflateLevel.isPresent() ? Integer.parseInt(deflateLevel.get())
+          : ConfigurationKeys.DEFAULT_DEFLATE_LEVEL;
+      this.writer = Optional.absent();
+      this.pipelinedWriter = Optional.of(this.closer.register(new PipelinedAvroFileWriter(this.schema, codec, level,
+          this.stagingFileOutputStream, compressionThreads, maxPendingBlocks)));
+    } else {
+      if (compressionThreads > 0) {
+        LOG.warn(String.format("Codec %s is not supported by %s, compressing on the writer thread", codec,
+            PipelinedAvroFileWriter.class.getSimpleName()));
+      }
+      this.writer = Optional.of(this.closer.register(
+          createDataFileWriter(WriterUtils.getCodecFactory(codecName, deflateLevel))));
+      this.pipelinedWriter = Optional.absent();
+    }
 
     setStagingFileGroup();
   }
@@ -78,7 +113,11 @@ public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
   public void write(GenericRecord record) throws IOException {
     Preconditions.checkNotNull(record);
 
-    this.writer.append(record);
+    if (this.pipelinedWriter.isPresent()) {
+      this.pipelinedWriter.get().append(record);
+    } else {
+      this.writer.get().append(record);
+    }
     // Only increment when write is successful
     this.count.incrementAndGet();
   }
@@ -88,15 +127,6 @@ public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
     return this.count.get();
   }
 
-  @Override
-  public synchronized long bytesWritten() throws IOException {
-    if (!this.fs.exists(this.outputFile)) {
-      return 0;
-    }
-
-    return this.fs.getFileStatus(this.outputFile).getLen();
-  }
-
   /**
    * Create a new {@link DataFileWriter} for writing Avro records.
    *
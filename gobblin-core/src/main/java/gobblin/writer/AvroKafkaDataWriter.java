@@ -12,45 +12,210 @@
 
 package gobblin.writer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import gobblin.configuration.State;
+import gobblin.util.ForkOperatorUtils;
 
 
 /**
  * An implementation of {@link DataWriter} that writes to a Kafka topic.
  *
+ * <p>
+ *   Each record is serialized in Avro binary format, without the schema, using a reused {@link BinaryEncoder}, and
+ *   sent asynchronously with a {@link KafkaProducer}, which batches the records per partition of the topic. The
+ *   batching can be tuned by passing producer configurations such as {@code batch.size} and {@code linger.ms} with
+ *   the prefix {@link #WRITER_KAFKA_PRODUCER_CONFIG_PREFIX} followed by a dot. At most
+ *   {@link #WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS} records can be sent and not yet acknowledged at any time, and
+ *   {@link #write(GenericRecord)} blocks while that many records are in flight. {@link #commit()} waits for all
+ *   records in flight to be acknowledged, and fails if any record failed to be sent.
+ * </p>
+ *
+ * <p>
+ *   {@link #recordsWritten()} and {@link #bytesWritten()} only count records that have been acknowledged.
+ * </p>
+ *
  * @author Yinan Li
  */
 class AvroKafkaDataWriter implements DataWriter<GenericRecord> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(AvroKafkaDataWriter.class);
+
+  public static final String WRITER_KAFKA_PREFIX = "writer.kafka.";
+  public static final String WRITER_KAFKA_BROKERS = WRITER_KAFKA_PREFIX + "brokers";
+  public static final String WRITER_KAFKA_TOPIC = WRITER_KAFKA_PREFIX + "topic";
+  public static final String WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS = WRITER_KAFKA_PREFIX + "max.in.flight.records";
+  public static final int DEFAULT_WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS = 10000;
+  public static final String WRITER_KAFKA_PRODUCER_CONFIG_PREFIX = WRITER_KAFKA_PREFIX + "producer";
+
+  private final Producer<byte[], byte[]> producer;
+  private final String topic;
+  private final int maxInFlightRecords;
+  private final Semaphore inFlightPermits;
+
+  private final GenericDatumWriter<GenericRecord> datumWriter;
+  private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+  private BinaryEncoder encoder;
+
+  // Number of records and bytes acknowledged by Kafka
+  private final AtomicLong recordsWritten = new AtomicLong(0);
+  private final AtomicLong bytesWritten = new AtomicLong(0);
+
+  // The first failure to send a record, which fails subsequent writes and the commit
+  private final AtomicReference<Exception> sendFailure = new AtomicReference<Exception>();
+
+  private boolean closed = false;
+
+  public AvroKafkaDataWriter(State properties, Schema schema, int numBranches, int branchId) {
+    this(createProducer(properties, numBranches, branchId), properties, schema, numBranches, branchId);
+  }
+
+  AvroKafkaDataWriter(Producer<byte[], byte[]> producer, State properties, Schema schema, int numBranches,
+      int branchId) {
+    this.producer = producer;
+    this.topic = properties.getProp(ForkOperatorUtils.getPropertyNameForBranch(WRITER_KAFKA_TOPIC, numBranches,
+        branchId));
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(this.topic), "Missing required property " + WRITER_KAFKA_TOPIC);
+    this.maxInFlightRecords = properties.getPropAsInt(ForkOperatorUtils.getPropertyNameForBranch(
+        WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS, numBranches, branchId), DEFAULT_WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS);
+    Preconditions.checkArgument(this.maxInFlightRecords > 0, WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS + " must be positive");
+    this.inFlightPermits = new Semaphore(this.maxInFlightRecords);
+    this.datumWriter = new GenericDatumWriter<GenericRecord>(schema);
+  }
+
   @Override
   public void write(GenericRecord record)
       throws IOException {
+    Preconditions.checkNotNull(record);
+    checkSendFailure();
+
+    final byte[] value = serialize(record);
+    acquireInFlightPermits(1);
+    try {
+      this.producer.send(new ProducerRecord<byte[], byte[]>(this.topic, value), new Callback() {
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+          try {
+            if (exception == null) {
+              AvroKafkaDataWriter.this.recordsWritten.incrementAndGet();
+              AvroKafkaDataWriter.this.bytesWritten.addAndGet(value.length);
+            } else if (AvroKafkaDataWriter.this.sendFailure.compareAndSet(null, exception)) {
+              LOG.error("Failed to send record to Kafka topic " + AvroKafkaDataWriter.this.topic, exception);
+            }
+          } finally {
+            AvroKafkaDataWriter.this.inFlightPermits.release();
+          }
+        }
+      });
+    } catch (RuntimeException re) {
+      this.inFlightPermits.release();
+      throw new IOException("Failed to send record to Kafka topic " + this.topic, re);
+    }
   }
 
   @Override
   public void close()
       throws IOException {
+    if (!this.closed) {
+      this.closed = true;
+      this.producer.close();
+    }
   }
 
+  /**
+   * Wait for all records in flight to be acknowledged.
+   *
+   * @throws IOException if any record failed to be sent
+   */
   @Override
   public void commit()
       throws IOException {
+    acquireInFlightPermits(this.maxInFlightRecords);
+    this.inFlightPermits.release(this.maxInFlightRecords);
+    checkSendFailure();
+    LOG.info(String.format("Committed %d records (%d bytes) to Kafka topic %s", this.recordsWritten.get(),
+        this.bytesWritten.get(), this.topic));
   }
 
   @Override
   public void cleanup()
       throws IOException {
+    // Records sent to Kafka cannot be taken back, so there is nothing to clean up
   }
 
   @Override
   public long recordsWritten() {
-    return 0;
+    return this.recordsWritten.get();
   }
 
   @Override
   public long bytesWritten() {
-    return 0;
+    return this.bytesWritten.get();
+  }
+
+  private byte[] serialize(GenericRecord record)
+      throws IOException {
+    this.recordBytes.reset();
+    this.encoder = EncoderFactory.get().binaryEncoder(this.recordBytes, this.encoder);
+    this.datumWriter.write(record, this.encoder);
+    this.encoder.flush();
+    return this.recordBytes.toByteArray();
+  }
+
+  private void acquireInFlightPermits(int permits)
+      throws IOException {
+    try {
+      this.inFlightPermits.acquire(permits);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for records in flight to Kafka topic " + this.topic, ie);
+    }
+  }
+
+  private void checkSendFailure()
+      throws IOException {
+    Exception failure = this.sendFailure.get();
+    if (failure != null) {
+      throw new IOException("Failed to send records to Kafka topic " + this.topic, failure);
+    }
+  }
+
+  private static Producer<byte[], byte[]> createProducer(State properties, int numBranches, int branchId) {
+    Properties producerProps = new Properties();
+    String producerConfigPrefix =
+        ForkOperatorUtils.getPropertyNameForBranch(WRITER_KAFKA_PRODUCER_CONFIG_PREFIX, numBranches, branchId) + ".";
+    for (String key : properties.getPropertyNames()) {
+      if (key.startsWith(producerConfigPrefix)) {
+        producerProps.setProperty(key.substring(producerConfigPrefix.length()), properties.getProp(key));
+      }
+    }
+    String brokers = properties.getProp(ForkOperatorUtils.getPropertyNameForBranch(WRITER_KAFKA_BROKERS, numBranches,
+        branchId));
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(brokers), "Missing required property " + WRITER_KAFKA_BROKERS);
+    producerProps.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+    return new KafkaProducer<byte[], byte[]>(producerProps, new ByteArraySerializer(), new ByteArraySerializer());
   }
 }
@@ -33,6 +33,9 @@ import gobblin.util.ForkOperatorUtils;
 import gobblin.util.HadoopUtils;
 import gobblin.util.JobConfigurationUtils;
 import gobblin.util.WriterUtils;
+import gobblin.util.io.CountingOutputStream;
+import gobblin.util.io.ThrottledOutputStream;
+import gobblin.util.limiter.BandwidthGovernor;
 import gobblin.util.recordcount.IngestionRecordCountProvider;
 
 
@@ -51,6 +54,7 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
       ConfigurationKeys.WRITER_PREFIX + ".include.record.count.in.file.names";
 
   protected final State properties;
+  protected final Configuration conf;
   protected final String id;
   protected final int numBranches;
   protected final int branchId;
@@ -68,6 +72,11 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
   protected final Optional<String> group;
   protected final Closer closer = Closer.create();
 
+  // Counts the bytes written to the staging file, once it is created by createStagingFileOutputStream
+  private volatile Optional<CountingOutputStream> stagingFileBytesCounter = Optional.absent();
+  // Length of the output file, which is looked up on commit if the staging file was created by a subclass
+  private volatile long committedBytes = 0;
+
   public FsDataWriter(FsDataWriterBuilder<?, D> builder, State properties) throws IOException {
     this.properties = properties;
     this.id = builder.getWriterId();
@@ -75,9 +84,9 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
     this.branchId = builder.getBranch();
     this.fileName = builder.getFileName(properties);
 
-    Configuration conf = new Configuration();
+    this.conf = new Configuration();
     // Add all job configuration properties so they are picked up by Hadoop
-    JobConfigurationUtils.putStateIntoConfiguration(properties, conf);
+    JobConfigurationUtils.putStateIntoConfiguration(properties, this.conf);
 
     this.fs = WriterUtils.getWriterFS(properties, this.numBranches, this.branchId);
 
@@ -126,12 +135,29 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
   /**
    * Create the staging output file and an {@link OutputStream} to write to the file.
    *
+   * <p>
+   *   If a bandwidth budget is configured, see {@link BandwidthGovernor}, the returned {@link OutputStream} is
+   *   throttled by the job-wide budget and the budget of the dataset at {@link ConfigurationKeys#DATASET_URN_KEY}.
+   * </p>
+   *
+   * <p>
+   *   The bytes written to the returned {@link OutputStream} are counted, and reported by {@link #bytesWritten()}.
+   * </p>
+   *
    * @return an {@link OutputStream} to write to the staging file
    * @throws IOException if it fails to create the file and the {@link OutputStream}
    */
   protected OutputStream createStagingFileOutputStream() throws IOException {
-    return this.closer.register(this.fs.create(this.stagingFile, this.filePermission, true, this.bufferSize,
-        this.replicationFactor, this.blockSize, null));
+    CountingOutputStream outputStream = new CountingOutputStream(this.closer.register(this.fs.create(this.stagingFile,
+        this.filePermission, true, this.bufferSize, this.replicationFactor, this.blockSize, null)));
+    this.stagingFileBytesCounter = Optional.of(outputStream);
+    if (!BandwidthGovernor.isEnabled(this.properties)) {
+      return outputStream;
+    }
+
+    BandwidthGovernor governor = this.closer.register(BandwidthGovernor.getInstance(this.properties));
+    return new ThrottledOutputStream(outputStream,
+        governor.getLimiter(Optional.fromNullable(this.properties.getProp(ConfigurationKeys.DATASET_URN_KEY))));
   }
 
   /**
@@ -179,6 +205,10 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
     }
 
     HadoopUtils.renamePath(this.fs, this.stagingFile, this.outputFile);
+
+    if (!this.stagingFileBytesCounter.isPresent()) {
+      this.committedBytes = this.fs.getFileStatus(this.outputFile).getLen();
+    }
   }
 
   /**
@@ -219,6 +249,23 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
     return filePathWithRecordCount;
   }
 
+  /**
+   * {@inheritDoc}.
+   *
+   * <p>
+   *   This default implementation returns the number of bytes written to the {@link OutputStream} created by
+   *   {@link #createStagingFileOutputStream()}, without any call to the {@link FileSystem}. Bytes buffered by the
+   *   subclass and not yet written to the {@link OutputStream} are not counted. If the subclass creates the staging
+   *   file itself, for instance through a Hadoop output format, its bytes cannot be counted as they are written, and
+   *   this returns 0 until the output file is committed, and the length of the output file after that.
+   * </p>
+   */
+  @Override
+  public long bytesWritten() throws IOException {
+    return this.stagingFileBytesCounter.isPresent() ? this.stagingFileBytesCounter.get().getCount()
+        : this.committedBytes;
+  }
+
   @Override
   public State getFinalState() {
     State state = new State();
@@ -77,15 +77,6 @@ public class HiveWritableHdfsDataWriter extends FsDataWriter<Writable> {
     return this.count.get();
   }
 
-  @Override
-  public long bytesWritten() throws IOException {
-    if (!this.fs.exists(this.outputFile)) {
-      return 0;
-    }
-
-    return this.fs.getFileStatus(this.outputFile).getLen();
-  }
-
   @Override
   public void close() throws IOException {
     this.writer.close(false);
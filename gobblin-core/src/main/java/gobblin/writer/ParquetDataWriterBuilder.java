@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.util.limiter.BandwidthGovernor;
+
+
+/**
+ * A {@link DataWriterBuilder} for building {@link DataWriter}s that write Avro {@link GenericRecord}s in Parquet
+ * format.
+ *
+ * <p>
+ *   The size of row groups and pages can be configured with {@link #WRITER_PARQUET_BLOCK_SIZE} and
+ *   {@link #WRITER_PARQUET_PAGE_SIZE}, the compression codec with {@link #WRITER_PARQUET_COMPRESSION_CODEC}, and
+ *   dictionary encoding can be disabled with {@link #WRITER_PARQUET_DICTIONARY}.
+ * </p>
+ *
+ * <p>
+ *   The Parquet writer creates its output file itself, so its output cannot be throttled, and building a
+ *   {@link DataWriter} fails if a bandwidth budget is configured, see {@link BandwidthGovernor}.
+ * </p>
+ */
+public class ParquetDataWriterBuilder extends FsDataWriterBuilder<Schema, GenericRecord> {
+
+  public static final String WRITER_PARQUET_PREFIX = ConfigurationKeys.WRITER_PREFIX + ".parquet";
+  public static final String WRITER_PARQUET_BLOCK_SIZE = WRITER_PARQUET_PREFIX + ".block.size";
+  public static final String WRITER_PARQUET_PAGE_SIZE = WRITER_PARQUET_PREFIX + ".page.size";
+  public static final String WRITER_PARQUET_COMPRESSION_CODEC = WRITER_PARQUET_PREFIX + ".compression.codec";
+  public static final String WRITER_PARQUET_DICTIONARY = WRITER_PARQUET_PREFIX + ".dictionary";
+
+  @Override
+  public DataWriter<GenericRecord> build() throws IOException {
+    Preconditions.checkNotNull(this.destination);
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(this.writerId));
+    Preconditions.checkNotNull(this.schema);
+    Preconditions.checkArgument(this.format == WriterOutputFormat.PARQUET);
+    Preconditions.checkArgument(!BandwidthGovernor.isEnabled(this.destination.getProperties()),
+        "Writing Parquet files does not support a bandwidth budget");
+
+    switch (this.destination.getType()) {
+      case HDFS:
+        return new ParquetHdfsDataWriter(this, this.destination.getProperties());
+      default:
+        throw new RuntimeException("Unknown destination type: " + this.destination.getType());
+    }
+  }
+}
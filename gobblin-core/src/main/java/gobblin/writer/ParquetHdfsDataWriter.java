@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import com.google.common.base.Preconditions;
+
+import parquet.avro.AvroParquetWriter;
+import parquet.hadoop.ParquetWriter;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import gobblin.configuration.State;
+import gobblin.util.ForkOperatorUtils;
+
+
+/**
+ * An extension to {@link FsDataWriter} that writes Avro {@link GenericRecord}s in Parquet format.
+ *
+ * <p>
+ *   Records are written to the staging file with an {@link AvroParquetWriter}, and the staging file is moved to the
+ *   output file on {@link #commit()} like for any other {@link FsDataWriter}. Since the {@link AvroParquetWriter}
+ *   buffers a whole row group in memory, and creates the staging file itself, {@link #bytesWritten()} is 0 until the
+ *   output file is committed. See {@link ParquetDataWriterBuilder} for the configuration properties.
+ * </p>
+ *
+ * <p>
+ *   Because the staging file is not created by {@link #createStagingFileOutputStream()}, the file permissions and
+ *   the replication factor are set right after the {@link AvroParquetWriter} creates it. The writer buffer size and
+ *   the file block size do not apply, the file system defaults are used instead, and a bandwidth budget cannot be
+ *   enforced, so {@link ParquetDataWriterBuilder} rejects it.
+ * </p>
+ */
+public class ParquetHdfsDataWriter extends FsDataWriter<GenericRecord> {
+
+  private final ParquetWriter<GenericRecord> writer;
+
+  // Number of records successfully written
+  protected final AtomicLong count = new AtomicLong(0);
+
+  public ParquetHdfsDataWriter(FsDataWriterBuilder<Schema, GenericRecord> builder, State state) throws IOException {
+    super(builder, state);
+
+    int blockSize = this.properties.getPropAsInt(getPropertyNameForBranch(
+        ParquetDataWriterBuilder.WRITER_PARQUET_BLOCK_SIZE), ParquetWriter.DEFAULT_BLOCK_SIZE);
+    int pageSize = this.properties.getPropAsInt(getPropertyNameForBranch(
+        ParquetDataWriterBuilder.WRITER_PARQUET_PAGE_SIZE), ParquetWriter.DEFAULT_PAGE_SIZE);
+    CompressionCodecName codec = CompressionCodecName.valueOf(this.properties.getProp(getPropertyNameForBranch(
+        ParquetDataWriterBuilder.WRITER_PARQUET_COMPRESSION_CODEC), CompressionCodecName.SNAPPY.name()).toUpperCase());
+    boolean enableDictionary = this.properties.getPropAsBoolean(getPropertyNameForBranch(
+        ParquetDataWriterBuilder.WRITER_PARQUET_DICTIONARY), ParquetWriter.DEFAULT_IS_DICTIONARY_ENABLED);
+
+    this.writer = this.closer.register(new AvroParquetWriter<GenericRecord>(this.fs.makeQualified(this.stagingFile),
+        builder.getSchema(), codec, blockSize, pageSize, enableDictionary, this.conf));
+
+    this.fs.setPermission(this.stagingFile, this.filePermission);
+    this.fs.setReplication(this.stagingFile, this.replicationFactor);
+    setStagingFileGroup();
+  }
+
+  @Override
+  public void write(GenericRecord record) throws IOException {
+    Preconditions.checkNotNull(record);
+
+    this.writer.write(record);
+    // Only increment when write is successful
+    this.count.incrementAndGet();
+  }
+
+  @Override
+  public long recordsWritten() {
+    return this.count.get();
+  }
+
+  private String getPropertyNameForBranch(String key) {
+    return ForkOperatorUtils.getPropertyNameForBranch(key, this.numBranches, this.branchId);
+  }
+}
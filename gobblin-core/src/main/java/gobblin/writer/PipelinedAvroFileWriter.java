@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xerial.snappy.Snappy;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * A writer of Avro container files that compresses and writes blocks in the background.
+ *
+ * <p>
+ *   Records are serialized into a block on the calling thread. Once a block reaches the sync interval, it is handed
+ *   to a pool of compression threads, which compress blocks concurrently and write them to the output stream in the
+ *   order the blocks were filled. At most a given number of blocks can be pending, that is, filled but not yet
+ *   written, and {@link #append(GenericRecord)} blocks while that many blocks are pending. The output is the same
+ *   container file format written by {@link DataFileWriter}, and only the {@value DataFileConstants#NULL_CODEC},
+ *   {@value DataFileConstants#DEFLATE_CODEC} and {@value DataFileConstants#SNAPPY_CODEC} codecs are supported.
+ * </p>
+ *
+ * <p>
+ *   This class is not thread-safe: {@link #append(GenericRecord)} and {@link #close()} must be called from a single
+ *   thread.
+ * </p>
+ */
+class PipelinedAvroFileWriter implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PipelinedAvroFileWriter.class);
+
+  private final String codecName;
+  private final int deflateLevel;
+  private final OutputStream out;
+  private final BinaryEncoder outEncoder;
+  private final byte[] sync;
+  private final int syncInterval;
+
+  private final GenericDatumWriter<GenericRecord> datumWriter;
+  private final BlockOutputStream blockBytes = new BlockOutputStream();
+  private final BinaryEncoder blockEncoder;
+  private long blockCount = 0;
+
+  private final ExecutorService compressionPool;
+  private final Semaphore pendingBlocks;
+  // Completes when the last submitted block, and therefore all blocks before it, have been written
+  private Future<Void> lastBlockWritten = Futures.immediateFuture(null);
+  private boolean closed = false;
+
+  /**
+   * @param schema schema of the records
+   * @param codecName one of {@value DataFileConstants#NULL_CODEC}, {@value DataFileConstants#DEFLATE_CODEC} and
+   *                  {@value DataFileConstants#SNAPPY_CODEC}
+   * @param deflateLevel deflate level, only used by the {@value DataFileConstants#DEFLATE_CODEC} codec
+   * @param out the output stream, which is closed when this writer is closed
+   * @param compressionThreads number of threads compressing blocks
+   * @param maxPendingBlocks maximum number of blocks that are filled but not yet written
+   */
+  PipelinedAvroFileWriter(Schema schema, String codecName, int deflateLevel, OutputStream out,
+      int compressionThreads, int maxPendingBlocks) throws IOException {
+    Preconditions.checkArgument(isSupportedCodec(codecName), "Unsupported codec " + codecName);
+    Preconditions.checkArgument(compressionThreads > 0, "The number of compression threads must be positive");
+    Preconditions.checkArgument(maxPendingBlocks > 0, "The maximum number of pending blocks must be positive");
+
+    this.codecName = codecName.toLowerCase();
+    this.deflateLevel = deflateLevel;
+    this.out = new BufferedOutputStream(out);
+    this.outEncoder = EncoderFactory.get().directBinaryEncoder(this.out, null);
+    this.sync = createSync();
+    this.syncInterval = DataFileConstants.DEFAULT_SYNC_INTERVAL;
+    this.datumWriter = new GenericDatumWriter<GenericRecord>(schema);
+    this.blockEncoder = EncoderFactory.get().directBinaryEncoder(this.blockBytes, null);
+    this.compressionPool = Executors.newFixedThreadPool(compressionThreads,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("AvroBlockCompressor-%d")));
+    this.pendingBlocks = new Semaphore(maxPendingBlocks);
+
+    writeHeader(schema);
+  }
+
+  /**
+   * Whether blocks compressed with the given codec can be written by this class.
+   */
+  static boolean isSupportedCodec(String codecName) {
+    return DataFileConstants.NULL_CODEC.equalsIgnoreCase(codecName)
+        || DataFileConstants.DEFLATE_CODEC.equalsIgnoreCase(codecName)
+        || DataFileConstants.SNAPPY_CODEC.equalsIgnoreCase(codecName);
+  }
+
+  /**
+   * Append a record to the current block. Like {@link DataFileWriter#append(Object)}, if the record fails to be
+   * serialized, the partially serialized record is dropped from the block and a
+   * {@link DataFileWriter.AppendWriteException} is thrown, so that the writer can still be used.
+   */
+  public void append(GenericRecord record) throws IOException {
+    checkBlockWriteFailure();
+    int blockSize = this.blockBytes.size();
+    try {
+      this.datumWriter.write(record, this.blockEncoder);
+    } catch (IOException | RuntimeException e) {
+      this.blockBytes.resetTo(blockSize);
+      throw new DataFileWriter.AppendWriteException(e);
+    }
+    this.blockCount++;
+    if (this.blockBytes.size() >= this.syncInterval) {
+      submitBlock();
+    }
+  }
+
+  /**
+   * Write the last block, wait for all blocks to be written, and close the output stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      submitBlock();
+      waitForBlockWrite(this.lastBlockWritten);
+      this.out.flush();
+    } finally {
+      this.compressionPool.shutdownNow();
+      this.out.close();
+    }
+  }
+
+  private void writeHeader(Schema schema) throws IOException {
+    this.outEncoder.writeFixed(DataFileConstants.MAGIC);
+    this.outEncoder.writeMapStart();
+    this.outEncoder.setItemCount(2);
+    this.outEncoder.startItem();
+    this.outEncoder.writeString(DataFileConstants.SCHEMA);
+    this.outEncoder.writeBytes(schema.toString().getBytes(Charsets.UTF_8));
+    this.outEncoder.startItem();
+    this.outEncoder.writeString(DataFileConstants.CODEC);
+    this.outEncoder.writeBytes(this.codecName.getBytes(Charsets.UTF_8));
+    this.outEncoder.writeMapEnd();
+    this.outEncoder.writeFixed(this.sync);
+  }
+
+  private void submitBlock() throws IOException {
+    if (this.blockCount == 0) {
+      return;
+    }
+    final long count = this.blockCount;
+    final byte[] block = this.blockBytes.toByteArray();
+    this.blockBytes.reset();
+    this.blockCount = 0;
+
+    try {
+      this.pendingBlocks.acquire();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for pending blocks to be written", ie);
+    }
+
+    // Tasks start in submission order, so the previous block is always being compressed or written already
+    final Future<Void> previousBlockWritten = this.lastBlockWritten;
+    this.lastBlockWritten = this.compressionPool.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        try {
+          byte[] compressed = compress(block);
+          previousBlockWritten.get();
+          writeBlock(count, compressed);
+          return null;
+        } finally {
+          PipelinedAvroFileWriter.this.pendingBlocks.release();
+        }
+      }
+    });
+  }
+
+  private byte[] compress(byte[] block) throws IOException {
+    if (DataFileConstants.DEFLATE_CODEC.equals(this.codecName)) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.length / 2);
+      Deflater deflater = new Deflater(this.deflateLevel, true);
+      try {
+        DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(compressed, deflater);
+        deflaterOutputStream.write(block);
+        deflaterOutputStream.close();
+      } finally {
+        deflater.end();
+      }
+      return compressed.toByteArray();
+    }
+    if (DataFileConstants.SNAPPY_CODEC.equals(this.codecName)) {
+      byte[] compressed = Snappy.compress(block);
+      CRC32 crc32 = new CRC32();
+      crc32.update(block);
+      return ByteBuffer.allocate(compressed.length + 4).put(compressed).putInt((int) crc32.getValue()).array();
+    }
+    return block;
+  }
+
+  private void writeBlock(long count, byte[] compressed) throws IOException {
+    this.outEncoder.writeLong(count);
+    this.outEncoder.writeLong(compressed.length);
+    this.outEncoder.writeFixed(compressed);
+    this.outEncoder.writeFixed(this.sync);
+  }
+
+  private void checkBlockWriteFailure() throws IOException {
+    if (this.lastBlockWritten.isDone()) {
+      waitForBlockWrite(this.lastBlockWritten);
+    }
+  }
+
+  private static void waitForBlockWrite(Future<Void> blockWritten) throws IOException {
+    try {
+      blockWritten.get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for blocks to be written", ie);
+    } catch (ExecutionException ee) {
+      // A block fails to be written if any block before it failed, so the root cause is the first failure
+      Throwable cause = ee.getCause();
+      while (cause instanceof ExecutionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      throw new IOException("Failed to write Avro block", cause);
+    }
+  }
+
+  /**
+   * A {@link ByteArrayOutputStream} that can be truncated to a previous size.
+   */
+  private static class BlockOutputStream extends ByteArrayOutputStream {
+    private void resetTo(int size) {
+      this.count = size;
+    }
+  }
+
+  private static byte[] createSync() {
+    UUID uuid = UUID.randomUUID();
+    return ByteBuffer.allocate(DataFileConstants.SYNC_SIZE).putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits()).array();
+  }
+}
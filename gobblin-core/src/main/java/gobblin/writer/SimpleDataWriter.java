@@ -15,9 +15,6 @@ package gobblin.writer;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-
-import org.apache.commons.lang3.ArrayUtils;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
@@ -40,6 +37,9 @@ import gobblin.configuration.State;
  * <li>{@link ConfigurationKeys#SIMPLE_WRITER_DELIMITER} accepts a byte value. If specified, this byte will be used
  * as a separator between records. If unspecified, no delimiter will be used between records.
  * </ul>
+ * {@link ConfigurationKeys#SIMPLE_WRITER_PREPEND_SIZE} defaults to true. Sources whose records are consecutive slices
+ * of a byte stream, such as {@link gobblin.source.extractor.filebased.FileBasedSource} reading binary chunks, set it
+ * to false in their work units so that the records are written back to back.
  * @author akshay@nerdwallet.com
  */
 public class SimpleDataWriter extends FsDataWriter<byte[]> {
@@ -47,8 +47,9 @@ public class SimpleDataWriter extends FsDataWriter<byte[]> {
   private final Optional<Byte> recordDelimiter; // optional byte to place between each record write
   private final boolean prependSize;
 
-  private int recordsWritten;
-  private int bytesWritten;
+  private final byte[] sizeBuffer = new byte[Longs.BYTES];
+
+  private long recordsWritten;
 
   private final OutputStream stagingFileOutputStream;
 
@@ -63,7 +64,6 @@ public class SimpleDataWriter extends FsDataWriter<byte[]> {
 
     this.prependSize = properties.getPropAsBoolean(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE, true);
     this.recordsWritten = 0;
-    this.bytesWritten = 0;
     this.stagingFileOutputStream = createStagingFileOutputStream();
 
     setStagingFileGroup();
@@ -79,19 +79,16 @@ public class SimpleDataWriter extends FsDataWriter<byte[]> {
   public void write(byte[] record) throws IOException {
     Preconditions.checkNotNull(record);
 
-    byte[] toWrite = record;
-    if (this.recordDelimiter.isPresent()) {
-      toWrite = Arrays.copyOf(record, record.length + 1);
-      toWrite[toWrite.length - 1] = this.recordDelimiter.get();
-    }
+    // Write the size, record and delimiter separately rather than copying them into a new array
+    int recordSize = record.length + (this.recordDelimiter.isPresent() ? 1 : 0);
     if (this.prependSize) {
-      long recordSize = toWrite.length;
-      ByteBuffer buf = ByteBuffer.allocate(Longs.BYTES);
-      buf.putLong(recordSize);
-      toWrite = ArrayUtils.addAll(buf.array(), toWrite);
+      ByteBuffer.wrap(this.sizeBuffer).putLong(recordSize);
+      this.stagingFileOutputStream.write(this.sizeBuffer);
+    }
+    this.stagingFileOutputStream.write(record);
+    if (this.recordDelimiter.isPresent()) {
+      this.stagingFileOutputStream.write(this.recordDelimiter.get());
     }
-    this.stagingFileOutputStream.write(toWrite);
-    this.bytesWritten += toWrite.length;
     this.recordsWritten++;
   }
 
@@ -104,14 +101,4 @@ public class SimpleDataWriter extends FsDataWriter<byte[]> {
   public long recordsWritten() {
     return this.recordsWritten;
   }
-
-  /**
-   * Get the number of bytes written.
-   *
-   * @return number of bytes written
-   */
-  @Override
-  public long bytesWritten() throws IOException {
-    return this.bytesWritten;
-  }
 }
@@ -20,8 +20,10 @@ import org.apache.avro.SchemaBuilder.FieldAssembler;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
-import org.joda.time.DateTime;
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeField;
 import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
@@ -45,6 +47,12 @@ import gobblin.util.ForkOperatorUtils;
  * A prefix and a suffix can be added to the partition, e.g., the partition path can be
  * 'prefix/2015/11/05/suffix'.
  *
+ * Records whose timestamps fall into the same time bucket, e.g., the same hour for the 'HOUR' granularity
+ * or the pattern 'yyyy/MM/dd/HH', are in the same partition. The bounds of the bucket of the last partition
+ * are kept, and the last partition is returned as long as timestamps stay within them, so a new partition
+ * is only created when a record falls into a different bucket. Partitions returned must not be modified,
+ * and this class is not thread-safe.
+ *
  * @author ziliu
  */
 public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner<D> {
@@ -73,16 +81,27 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
   private final String writerPartitionSuffix;
   private final Granularity granularity;
   private final DateTimeZone timeZone;
+  private final Chronology chronology;
   private final Optional<DateTimeFormatter> timestampToPathFormatter;
   private final Schema schema;
 
+  // Field of the time buckets whose records are in the same partition, absent if partitions are not reused
+  private final Optional<DateTimeField> bucketField;
+
+  // The last partition, which is reused for records with timestamps in [currentBucketStart, currentBucketEnd)
+  private GenericRecord currentPartition;
+  private long currentBucketStart = Long.MAX_VALUE;
+  private long currentBucketEnd = Long.MIN_VALUE;
+
   public TimeBasedWriterPartitioner(State state, int numBranches, int branchId) {
     this.writerPartitionPrefix = getWriterPartitionPrefix(state, numBranches, branchId);
     this.writerPartitionSuffix = getWriterPartitionSuffix(state, numBranches, branchId);
     this.granularity = getGranularity(state, numBranches, branchId);
     this.timeZone = getTimeZone(state, numBranches, branchId);
+    this.chronology = ISOChronology.getInstance(this.timeZone);
     this.timestampToPathFormatter = getTimestampToPathFormatter(state, numBranches, branchId);
     this.schema = getSchema();
+    this.bucketField = getBucketField(state, numBranches, branchId);
   }
 
   private String getWriterPartitionPrefix(State state, int numBranches, int branchId) {
@@ -135,6 +154,19 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
   @Override
   public GenericRecord partitionForRecord(D record) {
     long timestamp = getRecordTimestamp(record);
+    if (timestamp >= this.currentBucketStart && timestamp < this.currentBucketEnd) {
+      return this.currentPartition;
+    }
+
+    this.currentPartition = createPartition(timestamp);
+    if (this.bucketField.isPresent()) {
+      this.currentBucketStart = this.bucketField.get().roundFloor(timestamp);
+      this.currentBucketEnd = this.bucketField.get().add(this.currentBucketStart, 1);
+    }
+    return this.currentPartition;
+  }
+
+  private GenericRecord createPartition(long timestamp) {
     GenericRecord partition = new GenericData.Record(this.schema);
     if (!Strings.isNullOrEmpty(this.writerPartitionPrefix)) {
       partition.put(PREFIX, this.writerPartitionPrefix);
@@ -147,18 +179,17 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
       String partitionedPath = getPartitionedPath(timestamp);
       partition.put(PARTITIONED_PATH, partitionedPath);
     } else {
-      DateTime dateTime = new DateTime(timestamp, this.timeZone);
       switch (this.granularity) {
         case MINUTE:
-          partition.put(Granularity.MINUTE.toString(), dateTime.getMinuteOfHour());
+          partition.put(Granularity.MINUTE.toString(), this.chronology.minuteOfHour().get(timestamp));
         case HOUR:
-          partition.put(Granularity.HOUR.toString(), dateTime.getHourOfDay());
+          partition.put(Granularity.HOUR.toString(), this.chronology.hourOfDay().get(timestamp));
         case DAY:
-          partition.put(Granularity.DAY.toString(), dateTime.getDayOfMonth());
+          partition.put(Granularity.DAY.toString(), this.chronology.dayOfMonth().get(timestamp));
         case MONTH:
-          partition.put(Granularity.MONTH.toString(), dateTime.getMonthOfYear());
+          partition.put(Granularity.MONTH.toString(), this.chronology.monthOfYear().get(timestamp));
         case YEAR:
-          partition.put(Granularity.YEAR.toString(), dateTime.getYear());
+          partition.put(Granularity.YEAR.toString(), this.chronology.year().get(timestamp));
       }
     }
 
@@ -211,6 +242,97 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     return schema;
   }
 
+  /**
+   * Get the field of the time buckets whose records are in the same partition.
+   *
+   * <p>
+   *   For a {@link DateTimeFormat} pattern, this is the field of the finest time unit in the pattern. Partitions
+   *   are not reused for patterns with units finer than minutes, with time zones, or that are not recognized.
+   * </p>
+   */
+  private Optional<DateTimeField> getBucketField(State state, int numBranches, int branchId) {
+    Optional<Granularity> bucketGranularity = Optional.of(this.granularity);
+    if (this.timestampToPathFormatter.isPresent()) {
+      String propName = ForkOperatorUtils.getPropertyNameForBranch(WRITER_PARTITION_PATTERN, numBranches, branchId);
+      bucketGranularity = getPatternGranularity(state.getProp(propName));
+    }
+    if (!bucketGranularity.isPresent()) {
+      return Optional.absent();
+    }
+
+    switch (bucketGranularity.get()) {
+      case MINUTE:
+        return Optional.of(this.chronology.minuteOfHour());
+      case HOUR:
+        return Optional.of(this.chronology.hourOfDay());
+      case DAY:
+        return Optional.of(this.chronology.dayOfMonth());
+      case MONTH:
+        return Optional.of(this.chronology.monthOfYear());
+      default:
+        return Optional.of(this.chronology.year());
+    }
+  }
+
+  /**
+   * Get the {@link Granularity} of the finest time unit in a {@link DateTimeFormat} pattern, or absent if the
+   * pattern has a unit finer than minutes, a time zone, or a letter that is not recognized.
+   */
+  private static Optional<Granularity> getPatternGranularity(String pattern) {
+    Granularity granularity = Granularity.YEAR;
+    boolean quoted = false;
+    for (char c : pattern.toCharArray()) {
+      if (c == '\'') {
+        quoted = !quoted;
+        continue;
+      }
+      if (quoted || !Character.isLetter(c)) {
+        continue;
+      }
+
+      Granularity letterGranularity;
+      switch (c) {
+        case 'G':
+        case 'C':
+        case 'Y':
+        case 'y':
+          letterGranularity = Granularity.YEAR;
+          break;
+        case 'M':
+          letterGranularity = Granularity.MONTH;
+          break;
+        case 'x':
+        case 'w':
+        case 'e':
+        case 'E':
+        case 'D':
+        case 'd':
+          letterGranularity = Granularity.DAY;
+          break;
+        case 'a':
+        case 'K':
+        case 'h':
+        case 'H':
+        case 'k':
+          letterGranularity = Granularity.HOUR;
+          break;
+        case 'm':
+          letterGranularity = Granularity.MINUTE;
+          break;
+        case 'z':
+        case 'Z':
+          // The zone name or offset can change within any bucket of local time, e.g. on daylight saving transitions
+          return Optional.absent();
+        default:
+          return Optional.absent();
+      }
+      if (letterGranularity.ordinal() > granularity.ordinal()) {
+        granularity = letterGranularity;
+      }
+    }
+    return Optional.of(granularity);
+  }
+
   private String getPartitionedPath(long timestamp) {
     return this.timestampToPathFormatter.get().print(timestamp);
   }
@@ -21,6 +21,11 @@ import java.util.Properties;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.SerDeException;
 import org.apache.hadoop.io.Writable;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -107,4 +112,201 @@ public class HiveSerDeTest {
       HadoopUtils.deletePath(this.fs, new Path(sourceState.getProp(ConfigurationKeys.WRITER_STAGING_DIR)), true);
     }
   }
+
+  /**
+   * This test uses Avro SerDe as both deserializer and serializer, in which case records are passed through.
+   */
+  @Test(groups = { "gobblin.serde" })
+  public void testSameSerDePassesRecordsThrough() throws IOException, DataRecordException, DataConversionException {
+    Properties properties = new Properties();
+    properties.load(new FileReader("gobblin-core/src/test/resources/serde/serde.properties"));
+    properties.setProperty(HiveSerDeWrapper.SERDE_SERIALIZER_TYPE, "AVRO");
+    SourceState sourceState = new SourceState(new State(properties), ImmutableList.<WorkUnitState> of());
+
+    OldApiWritableFileSource source = new OldApiWritableFileSource();
+    WorkUnitState wus = new WorkUnitState(source.getWorkunits(sourceState).get(0));
+    wus.addAll(sourceState);
+
+    Closer closer = Closer.create();
+    try {
+      OldApiWritableFileExtractor extractor = closer.register((OldApiWritableFileExtractor) source.getExtractor(wus));
+      HiveSerDeConverter converter = closer.register(new HiveSerDeConverter());
+      converter.init(wus);
+
+      int numRecords = 0;
+      Writable record = null;
+      while ((record = extractor.readRecord(null)) != null) {
+        Assert.assertSame(converter.convertRecordImpl(null, record, wus).iterator().next(), record);
+        numRecords++;
+      }
+      Assert.assertTrue(numRecords > 0);
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * This test uses Avro SerDe to deserialize data from Avro files, and ORC SerDe given the table columns to
+   * serialize them, in which case records are converted with an object inspector converter.
+   */
+  @Test(groups = { "gobblin.serde" })
+  public void testAvroOrcSerDesWithColumns() throws IOException, DataRecordException, DataConversionException {
+    Properties properties = new Properties();
+    properties.load(new FileReader("gobblin-core/src/test/resources/serde/serde.properties"));
+    properties.setProperty(serdeConstants.LIST_COLUMNS, "name,favorite_number,favorite_color");
+    properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "string:int:string");
+    SourceState sourceState = new SourceState(new State(properties), ImmutableList.<WorkUnitState> of());
+
+    OldApiWritableFileSource source = new OldApiWritableFileSource();
+    WorkUnitState wus = new WorkUnitState(source.getWorkunits(sourceState).get(0));
+    wus.addAll(sourceState);
+
+    Path stagingFile = new Path(sourceState.getProp(ConfigurationKeys.WRITER_STAGING_DIR),
+        sourceState.getProp(ConfigurationKeys.WRITER_FILE_NAME));
+    int numRecords = 0;
+    Closer closer = Closer.create();
+    try {
+      OldApiWritableFileExtractor extractor = closer.register((OldApiWritableFileExtractor) source.getExtractor(wus));
+      HiveSerDeConverter converter = closer.register(new HiveSerDeConverter());
+      HiveWritableHdfsDataWriter writer =
+          closer.register((HiveWritableHdfsDataWriter) new HiveWritableHdfsDataWriterBuilder<Object>().withBranches(1)
+              .withWriterId("0").writeTo(Destination.of(DestinationType.HDFS, sourceState))
+              .writeInFormat(WriterOutputFormat.ORC).build());
+
+      converter.init(wus);
+      Writable record = null;
+      while ((record = extractor.readRecord(null)) != null) {
+        writer.write(converter.convertRecordImpl(null, record, wus).iterator().next());
+        numRecords++;
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    try {
+      Reader reader = OrcFile.createReader(this.fs, stagingFile);
+      Assert.assertEquals(reader.getNumberOfRows(), numRecords);
+      Assert.assertEquals(reader.getObjectInspector().getTypeName(),
+          "struct<name:string,favorite_number:int,favorite_color:string>");
+    } finally {
+      HadoopUtils.deletePath(this.fs, new Path(sourceState.getProp(ConfigurationKeys.WRITER_STAGING_DIR)), true);
+    }
+  }
+
+  /**
+   * This test uses ORC SerDe as both deserializer and serializer to rewrite an ORC file. The records read from ORC
+   * files are not of the class the ORC writer expects, so they are serialized rather than passed through.
+   */
+  @Test(groups = { "gobblin.serde" })
+  public void testOrcOrcSerDes() throws IOException, DataRecordException, DataConversionException {
+    Properties properties = new Properties();
+    properties.load(new FileReader("gobblin-core/src/test/resources/serde/serde.properties"));
+    properties.setProperty(serdeConstants.LIST_COLUMNS, "name,favorite_number,favorite_color");
+    properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "string:int:string");
+    SourceState sourceState = new SourceState(new State(properties), ImmutableList.<WorkUnitState> of());
+
+    OldApiWritableFileSource source = new OldApiWritableFileSource();
+    WorkUnitState wus = new WorkUnitState(source.getWorkunits(sourceState).get(0));
+    wus.addAll(sourceState);
+
+    Path orcFile = new Path(sourceState.getProp(ConfigurationKeys.WRITER_STAGING_DIR),
+        sourceState.getProp(ConfigurationKeys.WRITER_FILE_NAME));
+    properties.setProperty(HiveSerDeWrapper.SERDE_DESERIALIZER_TYPE, "ORC");
+    properties.setProperty(ConfigurationKeys.WRITER_STAGING_DIR, new Path(orcFile.getParent(), "orc").toString());
+    SourceState orcState = new SourceState(new State(properties), ImmutableList.<WorkUnitState> of());
+    WorkUnitState orcWus = new WorkUnitState();
+    orcWus.addAll(orcState);
+    Path rewrittenOrcFile = new Path(orcState.getProp(ConfigurationKeys.WRITER_STAGING_DIR),
+        orcState.getProp(ConfigurationKeys.WRITER_FILE_NAME));
+
+    int numRecords = 0;
+    Closer closer = Closer.create();
+    try {
+      // Write the Avro records into an ORC file first
+      OldApiWritableFileExtractor extractor = closer.register((OldApiWritableFileExtractor) source.getExtractor(wus));
+      HiveSerDeConverter converter = closer.register(new HiveSerDeConverter());
+      HiveWritableHdfsDataWriter writer =
+          closer.register((HiveWritableHdfsDataWriter) new HiveWritableHdfsDataWriterBuilder<Object>().withBranches(1)
+              .withWriterId("0").writeTo(Destination.of(DestinationType.HDFS, sourceState))
+              .writeInFormat(WriterOutputFormat.ORC).build());
+
+      converter.init(wus);
+      Writable record = null;
+      while ((record = extractor.readRecord(null)) != null) {
+        writer.write(converter.convertRecordImpl(null, record, wus).iterator().next());
+        numRecords++;
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    closer = Closer.create();
+    try {
+      RecordReader rows = OrcFile.createReader(this.fs, orcFile).rows();
+      HiveSerDeConverter converter = closer.register(new HiveSerDeConverter());
+      HiveWritableHdfsDataWriter writer =
+          closer.register((HiveWritableHdfsDataWriter) new HiveWritableHdfsDataWriterBuilder<Object>().withBranches(1)
+              .withWriterId("0").writeTo(Destination.of(DestinationType.HDFS, orcState))
+              .writeInFormat(WriterOutputFormat.ORC).build());
+
+      converter.init(orcWus);
+      try {
+        while (rows.hasNext()) {
+          Writable record = (Writable) rows.next(null);
+          Writable converted = converter.convertRecordImpl(null, record, orcWus).iterator().next();
+          Assert.assertNotSame(converted, record);
+          writer.write(converted);
+        }
+      } finally {
+        rows.close();
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    try {
+      Reader reader = OrcFile.createReader(this.fs, rewrittenOrcFile);
+      Assert.assertEquals(reader.getNumberOfRows(), numRecords);
+      Assert.assertEquals(reader.getObjectInspector().getTypeName(),
+          "struct<name:string,favorite_number:int,favorite_color:string>");
+    } finally {
+      HadoopUtils.deletePath(this.fs, new Path(sourceState.getProp(ConfigurationKeys.WRITER_STAGING_DIR)), true);
+    }
+  }
+
+  /**
+   * This test uses Avro SerDe to deserialize data from Avro files, and ORC SerDe given the table columns in a
+   * different order to serialize them, which fails since the object inspector converter maps fields by position.
+   */
+  @Test(groups = { "gobblin.serde" })
+  public void testAvroOrcSerDesWithReorderedColumns() throws IOException {
+    Properties properties = new Properties();
+    properties.load(new FileReader("gobblin-core/src/test/resources/serde/serde.properties"));
+    properties.setProperty(serdeConstants.LIST_COLUMNS, "favorite_number,name,favorite_color");
+    properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "int:string:string");
+    SourceState sourceState = new SourceState(new State(properties), ImmutableList.<WorkUnitState> of());
+
+    OldApiWritableFileSource source = new OldApiWritableFileSource();
+    WorkUnitState wus = new WorkUnitState(source.getWorkunits(sourceState).get(0));
+    wus.addAll(sourceState);
+
+    Closer closer = Closer.create();
+    try {
+      HiveSerDeConverter converter = closer.register(new HiveSerDeConverter());
+      converter.init(wus);
+      Assert.fail("Expected the converter to reject columns with different names");
+    } catch (RuntimeException re) {
+      Assert.assertTrue(re.getCause() instanceof SerDeException);
+    } finally {
+      closer.close();
+    }
+  }
 }
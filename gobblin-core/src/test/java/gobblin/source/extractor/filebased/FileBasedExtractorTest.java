@@ -12,10 +12,15 @@
 
 package gobblin.source.extractor.filebased;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import org.mockito.Mockito;
@@ -96,6 +101,100 @@ public class FileBasedExtractorTest {
     Assert.assertEquals(getNumRecords(extractor), 5);
   }
 
+  public void testReadBinaryChunks() throws DataRecordException, IOException, FileBasedHelperException {
+    String file1 = "file1.bin";
+    String file2 = "file2.bin";
+
+    WorkUnitState state = new WorkUnitState();
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL, Joiner.on(",").join(file1, file2));
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_READ_BINARY_CHUNKS, true);
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_BINARY_CHUNK_SIZE, 4);
+
+    FileBasedHelper fsHelper = Mockito.mock(FileBasedHelper.class);
+    Mockito.when(fsHelper.getFileStream(file1)).thenReturn(IOUtils.toInputStream("0123456789"));
+    Mockito.when(fsHelper.getFileStream(file2)).thenReturn(IOUtils.toInputStream("abcd"));
+
+    FileBasedExtractor<String, byte[]> extractor = new DummyFileBasedExtractor<String, byte[]>(state, fsHelper);
+
+    StringBuilder content = new StringBuilder();
+    int numRecords = 0;
+    byte[] chunk;
+    while ((chunk = extractor.readRecord(null)) != null) {
+      Assert.assertTrue(chunk.length <= 4);
+      content.append(new String(chunk, ConfigurationKeys.DEFAULT_CHARSET_ENCODING));
+      numRecords++;
+    }
+
+    Assert.assertEquals(numRecords, 4);
+    Assert.assertEquals(content.toString(), "0123456789abcd");
+  }
+
+  public void testReadRecordWithPrefetch() throws DataRecordException, IOException, FileBasedHelperException {
+    File localBufferDir = Files.createTempDir();
+    try {
+      for (boolean useLocalBuffer : new boolean[] { false, true }) {
+        String file1 = "file1.txt";
+        String file2 = "file2.txt";
+        String file3 = "file3.txt";
+
+        WorkUnitState state = new WorkUnitState();
+        state.setProp(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL, Joiner.on(",").join(file1, file2, file3));
+        state.setProp(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_DEPTH, 2);
+        if (useLocalBuffer) {
+          state.setProp(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_LOCAL_BUFFER_DIR, localBufferDir.getAbsolutePath());
+        }
+
+        FileBasedHelper fsHelper = Mockito.mock(FileBasedHelper.class);
+        Mockito.when(fsHelper.getFileStream(file1)).thenReturn(IOUtils.toInputStream("record1 \n record2"));
+        Mockito.when(fsHelper.getFileStream(file2)).thenReturn(IOUtils.toInputStream(""));
+        Mockito.when(fsHelper.getFileStream(file3)).thenReturn(IOUtils.toInputStream("record3 \n record4 \n record5"));
+
+        FileBasedExtractor<String, String> extractor = new DummyFileBasedExtractor<String, String>(state, fsHelper);
+
+        Assert.assertEquals(getNumRecords(extractor), 5);
+        extractor.close();
+        Mockito.verify(fsHelper).getFileStream(file2);
+        Mockito.verify(fsHelper).getFileStream(file3);
+        // Buffered files are deleted once they are read
+        Assert.assertEquals(localBufferDir.list().length, 0);
+      }
+    } finally {
+      FileUtils.deleteDirectory(localBufferDir);
+    }
+  }
+
+  @Test(timeOut = 30000)
+  public void testPrefetchWithEmptyFiles() throws DataRecordException, IOException, FileBasedHelperException {
+    File localBufferDir = Files.createTempDir();
+    try {
+      List<String> files = Lists.newArrayList();
+      FileBasedHelper fsHelper = Mockito.mock(FileBasedHelper.class);
+      for (int i = 0; i < 6; i++) {
+        String file = "file" + i + ".txt";
+        files.add(file);
+        // Files with a header only have bytes to buffer, but no records
+        String content = i == 5 ? "header\nrecord" : "header\n";
+        Mockito.when(fsHelper.getFileStream(file)).thenReturn(IOUtils.toInputStream(content));
+      }
+
+      WorkUnitState state = new WorkUnitState();
+      state.setProp(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL, Joiner.on(",").join(files));
+      state.setProp(ConfigurationKeys.SOURCE_SKIP_FIRST_RECORD, true);
+      state.setProp(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_DEPTH, 2);
+      state.setProp(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_LOCAL_BUFFER_DIR, localBufferDir.getAbsolutePath());
+      // Only one buffered file fits at a time, so a file that is not closed blocks all later prefetches
+      state.setProp(ConfigurationKeys.SOURCE_FILEBASED_PREFETCH_MAX_BYTES_IN_FLIGHT, 10);
+
+      FileBasedExtractor<String, String> extractor = new DummyFileBasedExtractor<String, String>(state, fsHelper);
+
+      Assert.assertEquals(getNumRecords(extractor), 1);
+      extractor.close();
+      Assert.assertEquals(localBufferDir.list().length, 0);
+    } finally {
+      FileUtils.deleteDirectory(localBufferDir);
+    }
+  }
+
   private int getNumRecords(Extractor<?, ?> extractor) throws DataRecordException, IOException {
     int numRecords = 0;
     while (extractor.readRecord(null) != null) {
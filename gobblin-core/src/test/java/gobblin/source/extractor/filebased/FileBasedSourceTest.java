@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.SourceState;
+import gobblin.configuration.State;
+import gobblin.configuration.WorkUnitState;
+import gobblin.source.extractor.Extractor;
+import gobblin.source.workunit.WorkUnit;
+
+
+/**
+ * Unit tests for {@link FileBasedSource}.
+ */
+@Test(groups = { "gobblin.source.extractor.filebased" })
+public class FileBasedSourceTest {
+
+  public void testBinaryChunksAreWrittenWithoutSizes() {
+    SourceState state = createSourceState();
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_READ_BINARY_CHUNKS, true);
+
+    for (WorkUnit workUnit : getWorkunits(state)) {
+      Assert.assertFalse(workUnit.getPropAsBoolean(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE));
+    }
+  }
+
+  public void testConfiguredPrependSizeIsKept() {
+    SourceState state = createSourceState();
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_READ_BINARY_CHUNKS, true);
+    state.setProp(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE, true);
+
+    for (WorkUnit workUnit : getWorkunits(state)) {
+      Assert.assertTrue(workUnit.getPropAsBoolean(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE));
+    }
+  }
+
+  public void testPrependSizeIsNotSetForLines() {
+    for (WorkUnit workUnit : getWorkunits(createSourceState())) {
+      Assert.assertFalse(workUnit.contains(ConfigurationKeys.SIMPLE_WRITER_PREPEND_SIZE));
+    }
+  }
+
+  private static List<WorkUnit> getWorkunits(SourceState state) {
+    List<WorkUnit> workUnits = new TestFileBasedSource().getWorkunits(state);
+    Assert.assertFalse(workUnits.isEmpty());
+    return workUnits;
+  }
+
+  private static SourceState createSourceState() {
+    SourceState state = new SourceState();
+    state.setProp(ConfigurationKeys.EXTRACT_NAMESPACE_NAME_KEY, "test");
+    state.setProp(ConfigurationKeys.EXTRACT_TABLE_NAME_KEY, "table");
+    state.setProp(ConfigurationKeys.EXTRACT_TABLE_TYPE_KEY, "snapshot_only");
+    return state;
+  }
+
+  private static class TestFileBasedSource extends FileBasedSource<String, byte[]> {
+
+    @Override
+    public void initFileSystemHelper(State state) {
+    }
+
+    @Override
+    public List<String> getcurrentFsSnapshot(State state) {
+      return ImmutableList.of("/data/file1", "/data/file2");
+    }
+
+    @Override
+    public Extractor<String, byte[]> getExtractor(WorkUnitState state) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+
+/**
+ * Unit tests for {@link FilePrefetcher}.
+ */
+@Test(groups = {"gobblin.source.extractor.filebased"})
+public class FilePrefetcherTest {
+
+  private static final String CONTENT = "0123456789";
+
+  @Test
+  public void testFileSizeIsReservedBeforeDownload() throws Exception {
+    SizeAwareFileBasedHelper fsHelper = Mockito.mock(SizeAwareFileBasedHelper.class);
+    Mockito.when(fsHelper.getFileSize(Mockito.anyString())).thenReturn((long) CONTENT.length());
+    Mockito.when(fsHelper.getFileStream(Mockito.anyString())).thenAnswer(new Answer<InputStream>() {
+      @Override
+      public InputStream answer(InvocationOnMock invocation) throws Throwable {
+        return IOUtils.toInputStream(CONTENT);
+      }
+    });
+
+    File bufferDir = Files.createTempDir();
+    // Only one file fits within the limit, so the other two must not be downloaded concurrently with it
+    FilePrefetcher prefetcher = new FilePrefetcher(fsHelper, 3, Optional.of(bufferDir), CONTENT.length());
+    try {
+      prefetcher.prefetch(ImmutableList.of("file1", "file2", "file3"));
+      Mockito.verify(fsHelper, Mockito.timeout(10000).times(1)).getFileStream(Mockito.anyString());
+      Thread.sleep(200);
+      Mockito.verify(fsHelper, Mockito.times(1)).getFileStream(Mockito.anyString());
+
+      // Closing the stream of a downloaded file releases its bytes for the next download
+      ArgumentCaptor<String> downloadedFile = ArgumentCaptor.forClass(String.class);
+      Mockito.verify(fsHelper).getFileStream(downloadedFile.capture());
+      InputStream downloaded = prefetcher.getFileStream(downloadedFile.getValue());
+      Assert.assertEquals(IOUtils.toString(downloaded), CONTENT);
+      downloaded.close();
+      Mockito.verify(fsHelper, Mockito.timeout(10000).times(2)).getFileStream(Mockito.anyString());
+    } finally {
+      prefetcher.close();
+      FileUtils.deleteDirectory(bufferDir);
+    }
+  }
+
+  @Test
+  public void testReservationIsReleasedOnFailure() throws Exception {
+    SizeAwareFileBasedHelper fsHelper = Mockito.mock(SizeAwareFileBasedHelper.class);
+    Mockito.when(fsHelper.getFileSize(Mockito.anyString())).thenReturn((long) CONTENT.length());
+    Mockito.when(fsHelper.getFileStream("bad")).thenThrow(new FileBasedHelperException("Failed to open"));
+    Mockito.when(fsHelper.getFileStream("good")).thenReturn(IOUtils.toInputStream(CONTENT));
+
+    File bufferDir = Files.createTempDir();
+    FilePrefetcher prefetcher = new FilePrefetcher(fsHelper, 1, Optional.of(bufferDir), CONTENT.length());
+    try {
+      prefetcher.prefetch(ImmutableList.of("bad"));
+      try {
+        prefetcher.getFileStream("bad");
+        Assert.fail("Expected the prefetch to fail");
+      } catch (FileBasedHelperException fbhe) {
+        // Expected
+      }
+
+      prefetcher.prefetch(ImmutableList.of("good"));
+      InputStream good = prefetcher.getFileStream("good");
+      Assert.assertEquals(IOUtils.toString(good), CONTENT);
+      good.close();
+    } finally {
+      prefetcher.close();
+      FileUtils.deleteDirectory(bufferDir);
+    }
+  }
+}
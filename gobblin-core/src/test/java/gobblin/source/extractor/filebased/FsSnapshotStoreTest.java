@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+
+/**
+ * Unit tests for {@link FsSnapshotStore}.
+ */
+@Test(groups = { "gobblin.source.extractor.filebased" })
+public class FsSnapshotStoreTest {
+
+  private File snapshotDir;
+
+  @BeforeClass
+  public void setUp() {
+    this.snapshotDir = Files.createTempDir();
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    FsSnapshotStore store = new FsSnapshotStore(new Path(this.snapshotDir.getAbsolutePath()));
+    Path snapshotFile = store.write("job_1", ImmutableList.of("/data/b", "/data/a", "/data/c"));
+
+    Assert.assertEquals(store.read(snapshotFile), ImmutableSet.of("/data/a", "/data/b", "/data/c"));
+    Assert.assertEquals(store.read(store.write("job_2", ImmutableList.<String> of())), ImmutableSet.of());
+  }
+
+  @Test(dependsOnMethods = "testWriteAndRead")
+  public void testDeleteAllExcept() throws IOException {
+    FsSnapshotStore store = new FsSnapshotStore(new Path(this.snapshotDir.getAbsolutePath()));
+    Path snapshotFile = store.write("job_3", ImmutableList.of("/data/a"));
+
+    store.deleteAllExcept(ImmutableList.of(snapshotFile));
+
+    Assert.assertEquals(this.snapshotDir.list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(FsSnapshotStore.SNAPSHOT_FILE_EXTENSION);
+      }
+    }), new String[] { snapshotFile.getName() });
+  }
+
+  @Test
+  public void testDeleteAllExceptLeavesOtherDirectoriesAlone() throws IOException {
+    Path rootDir = new Path(this.snapshotDir.getAbsolutePath(), "shared");
+    FsSnapshotStore job1Store = new FsSnapshotStore(new Path(rootDir, "Job1"));
+    FsSnapshotStore job2Store = new FsSnapshotStore(new Path(rootDir, "Job2"));
+    Path job1SnapshotFile = job1Store.write("job1_1", ImmutableList.of("/data/a"));
+    Path job2SnapshotFile = job2Store.write("job2_1", ImmutableList.of("/data/b"));
+
+    job1Store.deleteAllExcept(ImmutableList.of(job1Store.write("job1_2", ImmutableList.of("/data/c"))));
+
+    Assert.assertFalse(new File(job1SnapshotFile.toUri().getPath()).exists());
+    Assert.assertEquals(job2Store.read(job2SnapshotFile), ImmutableSet.of("/data/b"));
+  }
+
+  @Test
+  public void testDeleteAllExceptMatchingPattern() throws IOException {
+    FsSnapshotStore store = new FsSnapshotStore(new Path(this.snapshotDir.getAbsolutePath(), "legacy"));
+    Path job1SnapshotFile = store.write("job_Job1_1444437036", ImmutableList.of("/data/a"));
+    Path job1PreviousSnapshotFile = store.write("job_Job1_1444437037", ImmutableList.of("/data/a"));
+    Path otherJobSnapshotFile = store.write("job_Job1_other_1444437038", ImmutableList.of("/data/b"));
+
+    store.deleteAllExcept(ImmutableList.of(job1PreviousSnapshotFile),
+        Pattern.compile(Pattern.quote("job_Job1_") + "\\d+"));
+
+    Assert.assertFalse(new File(job1SnapshotFile.toUri().getPath()).exists());
+    Assert.assertTrue(new File(job1PreviousSnapshotFile.toUri().getPath()).exists());
+    Assert.assertEquals(store.read(otherJobSnapshotFile), ImmutableSet.of("/data/b"));
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(this.snapshotDir);
+  }
+}
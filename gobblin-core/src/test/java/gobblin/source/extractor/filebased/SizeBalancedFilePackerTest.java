@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.filebased;
+
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+
+/**
+ * Unit tests for {@link SizeBalancedFilePacker}.
+ */
+@Test(groups = { "gobblin.source.extractor.filebased" })
+public class SizeBalancedFilePackerTest {
+
+  @Test
+  public void testPackBySize() {
+    Map<String, Long> fileSizes = Maps.newLinkedHashMap();
+    fileSizes.put("big1", 100L);
+    fileSizes.put("big2", 100L);
+    for (int i = 0; i < 10; i++) {
+      fileSizes.put("small" + i, 10L);
+    }
+
+    List<List<String>> partitions = SizeBalancedFilePacker.pack(fileSizes, 3);
+    Assert.assertEquals(partitions.size(), 3);
+
+    int numFiles = 0;
+    for (List<String> partition : partitions) {
+      long size = 0;
+      for (String file : partition) {
+        size += fileSizes.get(file);
+      }
+      Assert.assertTrue(size >= 100 && size <= 110, "Unbalanced partition " + partition);
+      numFiles += partition.size();
+    }
+    Assert.assertEquals(numFiles, fileSizes.size());
+  }
+
+  @Test
+  public void testOneFilePerPartition() {
+    Map<String, Long> fileSizes = Maps.newLinkedHashMap();
+    fileSizes.put("file1", 0L);
+    fileSizes.put("file2", 0L);
+    fileSizes.put("file3", 5L);
+
+    List<List<String>> partitions = SizeBalancedFilePacker.pack(fileSizes, 5);
+    Assert.assertEquals(partitions.size(), 3);
+    for (List<String> partition : partitions) {
+      Assert.assertEquals(partition.size(), 1);
+    }
+    Assert.assertEquals(Sets.newHashSet(partitions.get(0).get(0), partitions.get(1).get(0), partitions.get(2).get(0)),
+        fileSizes.keySet());
+  }
+}
@@ -62,4 +62,26 @@ public class MultiWorkUnitWeightedQueueTest {
       Assert.assertEquals(multiWorkUnit.getWorkUnits().size(), numWorkUnits / maxMultiWorkUnits);
     }
   }
+
+  /**
+   * Test that heavy WorkUnits added after light ones are still spread across the MultiWorkUnits.
+   */
+  @Test
+  public void testBalancedWeights() {
+    MultiWorkUnitWeightedQueue multiWorkUnitWeightedQueue = new MultiWorkUnitWeightedQueue(2);
+    WorkUnit workUnit = WorkUnit.createEmpty();
+
+    for (int i = 0; i < 4; i++) {
+      multiWorkUnitWeightedQueue.addWorkUnit(workUnit, 1);
+    }
+    multiWorkUnitWeightedQueue.addWorkUnit(workUnit, 10);
+
+    // The heavy WorkUnit gets a MultiWorkUnit of its own and the light ones share the other one
+    List<WorkUnit> multiWorkUnits = multiWorkUnitWeightedQueue.getQueueAsList();
+    Assert.assertEquals(multiWorkUnits.size(), 2);
+    int size1 = ((MultiWorkUnit) multiWorkUnits.get(0)).getWorkUnits().size();
+    int size2 = ((MultiWorkUnit) multiWorkUnits.get(1)).getWorkUnits().size();
+    Assert.assertEquals(Math.min(size1, size2), 1);
+    Assert.assertEquals(Math.max(size1, size2), 4);
+  }
 }
@@ -106,6 +106,7 @@ public class AvroHdfsDataWriterTest {
 
     File outputFile =
         new File(TestConstants.TEST_OUTPUT_DIR + Path.SEPARATOR + this.filePath, TestConstants.TEST_FILE_NAME);
+    Assert.assertEquals(this.writer.bytesWritten(), outputFile.length());
     DataFileReader<GenericRecord> reader =
         new DataFileReader<GenericRecord>(outputFile, new GenericDatumReader<GenericRecord>(this.schema));
 
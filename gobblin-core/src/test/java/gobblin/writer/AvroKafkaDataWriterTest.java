@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import gobblin.configuration.State;
+
+
+/**
+ * Unit tests for {@link AvroKafkaDataWriter}, which use a {@link MockProducer} in place of a Kafka broker.
+ */
+@Test(groups = {"gobblin.writer"})
+public class AvroKafkaDataWriterTest {
+
+  private static final String TOPIC = "test-topic";
+
+  private Schema schema;
+  private State properties;
+
+  @BeforeMethod
+  public void setUp() {
+    this.schema = new Schema.Parser().parse(TestConstants.AVRO_SCHEMA);
+    this.properties = new State();
+    this.properties.setProp(AvroKafkaDataWriter.WRITER_KAFKA_TOPIC, TOPIC);
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    MockProducer producer = new MockProducer(true);
+    AvroKafkaDataWriter writer = new AvroKafkaDataWriter(producer, this.properties, this.schema, 1, 0);
+
+    for (int i = 0; i < 3; i++) {
+      writer.write(createRecord(i));
+    }
+    writer.commit();
+    writer.close();
+
+    Assert.assertEquals(producer.history().size(), 3);
+    long bytes = 0;
+    for (int i = 0; i < 3; i++) {
+      byte[] value = producer.history().get(i).value();
+      Assert.assertEquals(producer.history().get(i).topic(), TOPIC);
+      Assert.assertEquals(readRecord(value), createRecord(i));
+      bytes += value.length;
+    }
+    Assert.assertEquals(writer.recordsWritten(), 3);
+    Assert.assertEquals(writer.bytesWritten(), bytes);
+  }
+
+  @Test
+  public void testOnlyAcknowledgedRecordsAreCounted() throws IOException {
+    MockProducer producer = new MockProducer(false);
+    AvroKafkaDataWriter writer = new AvroKafkaDataWriter(producer, this.properties, this.schema, 1, 0);
+
+    writer.write(createRecord(0));
+    writer.write(createRecord(1));
+    Assert.assertEquals(writer.recordsWritten(), 0);
+
+    Assert.assertTrue(producer.completeNext());
+    Assert.assertEquals(writer.recordsWritten(), 1);
+    Assert.assertTrue(producer.completeNext());
+    writer.commit();
+    Assert.assertEquals(writer.recordsWritten(), 2);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testCommitFailsIfSendFails() throws IOException {
+    MockProducer producer = new MockProducer(false);
+    AvroKafkaDataWriter writer = new AvroKafkaDataWriter(producer, this.properties, this.schema, 1, 0);
+
+    writer.write(createRecord(0));
+    producer.errorNext(new RuntimeException("Broker unavailable"));
+    writer.commit();
+  }
+
+  @Test
+  public void testWriteBlocksWhenTooManyRecordsInFlight() throws Exception {
+    this.properties.setProp(AvroKafkaDataWriter.WRITER_KAFKA_MAX_IN_FLIGHT_RECORDS, 2);
+    MockProducer producer = new MockProducer(false);
+    final AvroKafkaDataWriter writer = new AvroKafkaDataWriter(producer, this.properties, this.schema, 1, 0);
+
+    writer.write(createRecord(0));
+    writer.write(createRecord(1));
+
+    final CountDownLatch thirdWriteDone = new CountDownLatch(1);
+    Thread writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          writer.write(createRecord(2));
+          thirdWriteDone.countDown();
+        } catch (IOException ioe) {
+          throw new RuntimeException(ioe);
+        }
+      }
+    });
+    writerThread.start();
+
+    Assert.assertFalse(thirdWriteDone.await(200, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(producer.completeNext());
+    Assert.assertTrue(thirdWriteDone.await(10, TimeUnit.SECONDS));
+    writerThread.join();
+
+    Assert.assertEquals(producer.history().size(), 3);
+    Assert.assertTrue(producer.completeNext());
+    Assert.assertTrue(producer.completeNext());
+    writer.commit();
+    Assert.assertEquals(writer.recordsWritten(), 3);
+  }
+
+  private GenericRecord createRecord(int i) {
+    GenericRecord record = new GenericData.Record(this.schema);
+    record.put("name", "name" + i);
+    record.put("favorite_number", i);
+    record.put("favorite_color", "color" + i);
+    return record;
+  }
+
+  private GenericRecord readRecord(byte[] value) throws IOException {
+    return new GenericDatumReader<GenericRecord>(this.schema).read(null,
+        DecoderFactory.get().binaryDecoder(value, null));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+
+import parquet.avro.AvroParquetReader;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.util.limiter.BandwidthGovernor;
+
+
+/**
+ * Unit tests for {@link ParquetHdfsDataWriter}.
+ */
+@Test(groups = {"gobblin.writer"})
+public class ParquetHdfsDataWriterTest {
+
+  private static final Type FIELD_ENTRY_TYPE = new TypeToken<Map<String, Object>>() {
+  }.getType();
+
+  private static final String TEST_ROOT_DIR = "ParquetHdfsDataWriterTest";
+  private static final String FILE_NAME = "test.parquet";
+
+  private Schema schema;
+  private DataWriter<GenericRecord> writer;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    File stagingDir = new File(TEST_ROOT_DIR, "staging");
+    File outputDir = new File(TEST_ROOT_DIR, "output");
+    stagingDir.mkdirs();
+    outputDir.mkdirs();
+
+    this.schema = new Schema.Parser().parse(TestConstants.AVRO_SCHEMA);
+    this.writer = buildWriter(createProperties(FILE_NAME));
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    for (String record : TestConstants.JSON_RECORDS) {
+      this.writer.write(convertRecord(record));
+    }
+    Assert.assertEquals(this.writer.recordsWritten(), 3);
+
+    this.writer.close();
+    this.writer.commit();
+
+    File outputFile = new File(new File(TEST_ROOT_DIR, "output/test"), FILE_NAME);
+    Assert.assertEquals(this.writer.bytesWritten(), outputFile.length());
+
+    AvroParquetReader<GenericRecord> reader =
+        new AvroParquetReader<GenericRecord>(new Path(outputFile.getAbsolutePath()));
+    try {
+      for (String record : TestConstants.JSON_RECORDS) {
+        GenericRecord expected = convertRecord(record);
+        GenericRecord actual = reader.read();
+        Assert.assertEquals(actual.get("name").toString(), expected.get("name"));
+        Assert.assertEquals(actual.get("favorite_number"), expected.get("favorite_number"));
+        Assert.assertEquals(actual.get("favorite_color").toString(), expected.get("favorite_color"));
+      }
+      Assert.assertNull(reader.read());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testStagingFilePermission() throws IOException {
+    String fileName = "permission.parquet";
+    State properties = createProperties(fileName);
+    properties.setProp(ConfigurationKeys.WRITER_FILE_PERMISSIONS, "640");
+    DataWriter<GenericRecord> writer = buildWriter(properties);
+    try {
+      Path stagingFile = new Path(new File(TEST_ROOT_DIR, "staging/test").getPath(), fileName);
+      Assert.assertEquals(FileSystem.getLocal(new Configuration()).getFileStatus(stagingFile).getPermission(),
+          new FsPermission((short) 0640));
+    } finally {
+      writer.close();
+      writer.cleanup();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBandwidthBudgetRejected() throws IOException {
+    State properties = createProperties("throttled.parquet");
+    properties.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 1024 * 1024);
+    buildWriter(properties);
+  }
+
+  private State createProperties(String fileName) {
+    State properties = new State();
+    properties.setProp(ConfigurationKeys.WRITER_BUFFER_SIZE, ConfigurationKeys.DEFAULT_BUFFER_SIZE);
+    properties.setProp(ConfigurationKeys.WRITER_FILE_SYSTEM_URI, TestConstants.TEST_FS_URI);
+    properties.setProp(ConfigurationKeys.WRITER_STAGING_DIR, new File(TEST_ROOT_DIR, "staging").getPath());
+    properties.setProp(ConfigurationKeys.WRITER_OUTPUT_DIR, new File(TEST_ROOT_DIR, "output").getPath());
+    properties.setProp(ConfigurationKeys.WRITER_FILE_PATH, "test");
+    properties.setProp(ConfigurationKeys.WRITER_FILE_NAME, fileName);
+    properties.setProp(ParquetDataWriterBuilder.WRITER_PARQUET_BLOCK_SIZE, 1024 * 1024);
+    properties.setProp(ParquetDataWriterBuilder.WRITER_PARQUET_PAGE_SIZE, 64 * 1024);
+    return properties;
+  }
+
+  private DataWriter<GenericRecord> buildWriter(State properties) throws IOException {
+    return new ParquetDataWriterBuilder()
+        .writeTo(Destination.of(Destination.DestinationType.HDFS, properties))
+        .writeInFormat(WriterOutputFormat.PARQUET)
+        .withWriterId(TestConstants.TEST_WRITER_ID)
+        .withSchema(this.schema)
+        .withBranches(1)
+        .forBranch(0)
+        .build();
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    File testRootDir = new File(TEST_ROOT_DIR);
+    if (testRootDir.exists()) {
+      FileUtil.fullyDelete(testRootDir);
+    }
+  }
+
+  private GenericRecord convertRecord(String inputRecord) {
+    Gson gson = new Gson();
+    JsonElement element = gson.fromJson(inputRecord, JsonElement.class);
+    Map<String, Object> fields = gson.fromJson(element, FIELD_ENTRY_TYPE);
+    GenericRecord outputRecord = new GenericData.Record(this.schema);
+    outputRecord.put("name", fields.get("name"));
+    outputRecord.put("favorite_number", (int) Double.parseDouble(fields.get("favorite_number").toString()));
+    outputRecord.put("favorite_color", fields.get("favorite_color"));
+    return outputRecord;
+  }
+}
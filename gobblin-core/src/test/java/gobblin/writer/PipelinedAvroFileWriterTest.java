@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit tests for {@link PipelinedAvroFileWriter}.
+ */
+@Test(groups = {"gobblin.writer"})
+public class PipelinedAvroFileWriterTest {
+
+  private static final int NUM_RECORDS = 50000;
+
+  @DataProvider(name = "codecs")
+  public Object[][] codecs() {
+    return new Object[][] { { DataFileConstants.NULL_CODEC }, { DataFileConstants.DEFLATE_CODEC },
+        { DataFileConstants.SNAPPY_CODEC } };
+  }
+
+  @Test(dataProvider = "codecs")
+  public void testWrittenFileIsReadable(String codec) throws IOException {
+    Schema schema = new Schema.Parser().parse(TestConstants.AVRO_SCHEMA);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    PipelinedAvroFileWriter writer = new PipelinedAvroFileWriter(schema, codec, 6, out, 3, 2);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      writer.append(createRecord(schema, i));
+    }
+    writer.close();
+
+    DataFileStream<GenericRecord> reader = new DataFileStream<GenericRecord>(
+        new ByteArrayInputStream(out.toByteArray()), new GenericDatumReader<GenericRecord>(schema));
+    try {
+      Assert.assertEquals(reader.getMetaString(DataFileConstants.CODEC), codec);
+      int i = 0;
+      for (GenericRecord record : reader) {
+        Assert.assertEquals(record, createRecord(schema, i++));
+      }
+      Assert.assertEquals(i, NUM_RECORDS);
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    Schema schema = new Schema.Parser().parse(TestConstants.AVRO_SCHEMA);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    new PipelinedAvroFileWriter(schema, DataFileConstants.DEFLATE_CODEC, 6, out, 1, 1).close();
+
+    DataFileStream<GenericRecord> reader = new DataFileStream<GenericRecord>(
+        new ByteArrayInputStream(out.toByteArray()), new GenericDatumReader<GenericRecord>(schema));
+    try {
+      Assert.assertEquals(reader.getSchema(), schema);
+      Assert.assertFalse(reader.hasNext());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testAppendFailureDropsPartialRecord() throws IOException {
+    Schema schema = new Schema.Parser().parse(TestConstants.AVRO_SCHEMA);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    PipelinedAvroFileWriter writer = new PipelinedAvroFileWriter(schema, DataFileConstants.NULL_CODEC, 6, out, 1, 1);
+    writer.append(createRecord(schema, 0));
+    // The first fields of this record are serialized before the null color fails to be
+    GenericRecord invalidRecord = createRecord(schema, 1);
+    invalidRecord.put("favorite_color", null);
+    try {
+      writer.append(invalidRecord);
+      Assert.fail("Appending a record with a null required field should fail");
+    } catch (DataFileWriter.AppendWriteException awe) {
+      // Expected
+    }
+    writer.append(createRecord(schema, 2));
+    writer.close();
+
+    DataFileStream<GenericRecord> reader = new DataFileStream<GenericRecord>(
+        new ByteArrayInputStream(out.toByteArray()), new GenericDatumReader<GenericRecord>(schema));
+    try {
+      Assert.assertEquals(reader.next(), createRecord(schema, 0));
+      Assert.assertEquals(reader.next(), createRecord(schema, 2));
+      Assert.assertFalse(reader.hasNext());
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static GenericRecord createRecord(Schema schema, int i) {
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("name", "name" + i);
+    record.put("favorite_number", i);
+    record.put("favorite_color", "color" + (i % 7));
+    return record;
+  }
+}
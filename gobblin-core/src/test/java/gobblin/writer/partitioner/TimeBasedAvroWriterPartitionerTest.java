@@ -142,6 +142,81 @@ public class TimeBasedAvroWriterPartitionerTest {
     Assert.assertTrue(outputDir20150103.exists());
   }
 
+  @Test
+  public void testPartitionIsReusedWithinGranularity() {
+    State properties = new State();
+    properties.setProp(TimeBasedAvroWriterPartitioner.WRITER_PARTITION_COLUMNS, PARTITION_COLUMN_NAME);
+    properties.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_TIMEZONE, "UTC");
+    TimeBasedAvroWriterPartitioner partitioner = new TimeBasedAvroWriterPartitioner(properties);
+
+    // These timestamps correspond to 2015/01/01 08:00, 08:59 and 09:00 UTC
+    GenericRecord partition = partitioner.partitionForRecord(createRecord(1420099200000L));
+    Assert.assertSame(partitioner.partitionForRecord(createRecord(1420102740000L)), partition);
+    GenericRecord nextPartition = partitioner.partitionForRecord(createRecord(1420102800000L));
+    Assert.assertNotSame(nextPartition, partition);
+
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.Granularity.YEAR.toString()), 2015);
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.Granularity.MONTH.toString()), 1);
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.Granularity.DAY.toString()), 1);
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.Granularity.HOUR.toString()), 8);
+    Assert.assertEquals(nextPartition.get(TimeBasedWriterPartitioner.Granularity.HOUR.toString()), 9);
+
+    // A timestamp back in an earlier hour gets a new partition equal to the earlier one
+    Assert.assertEquals(partitioner.partitionForRecord(createRecord(1420099200000L)), partition);
+  }
+
+  @Test
+  public void testPartitionIsReusedWithinPattern() {
+    State properties = new State();
+    properties.setProp(TimeBasedAvroWriterPartitioner.WRITER_PARTITION_COLUMNS, PARTITION_COLUMN_NAME);
+    properties.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_TIMEZONE, "UTC");
+    properties.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, "'day'=yyyy-MM-dd");
+    TimeBasedAvroWriterPartitioner partitioner = new TimeBasedAvroWriterPartitioner(properties);
+
+    // These timestamps correspond to 2015/01/01 08:00 and 23:59, and 2015/01/02 00:00 UTC
+    GenericRecord partition = partitioner.partitionForRecord(createRecord(1420099200000L));
+    Assert.assertSame(partitioner.partitionForRecord(createRecord(1420156740000L)), partition);
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.PARTITIONED_PATH), "day=2015-01-01");
+    Assert.assertEquals(partitioner.partitionForRecord(createRecord(1420156800000L))
+        .get(TimeBasedWriterPartitioner.PARTITIONED_PATH), "day=2015-01-02");
+  }
+
+  @Test
+  public void testPartitionsAcrossDstTransitions() {
+    // 2015/03/08 10:00 UTC is 03:00 PDT right after 01:59 PST, and 2015/11/01 09:00 UTC is 01:00 PST right after
+    // 01:59 PDT
+    long[] transitions = { 1425808800000L, 1446368400000L };
+    // No pattern means the default HOUR granularity
+    String[] patterns = { null, "yyyy/MM/dd", "yyyy/MM/dd z", "yyyy/MM/dd HH:mm Z" };
+
+    for (String pattern : patterns) {
+      TimeBasedAvroWriterPartitioner partitioner = createDstPartitioner(pattern);
+      for (long transition : transitions) {
+        for (long timestamp = transition - 3 * 3600000L; timestamp < transition + 3 * 3600000L;
+            timestamp += 10 * 60000L) {
+          // A reused partition must equal the partition of a partitioner that has not seen any record yet
+          Assert.assertEquals(partitioner.partitionForRecord(createRecord(timestamp)),
+              createDstPartitioner(pattern).partitionForRecord(createRecord(timestamp)),
+              "Pattern " + pattern + ", timestamp " + timestamp);
+        }
+      }
+    }
+  }
+
+  private static TimeBasedAvroWriterPartitioner createDstPartitioner(String pattern) {
+    State properties = new State();
+    properties.setProp(TimeBasedAvroWriterPartitioner.WRITER_PARTITION_COLUMNS, PARTITION_COLUMN_NAME);
+    properties.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_TIMEZONE, "America/Los_Angeles");
+    if (pattern != null) {
+      properties.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, pattern);
+    }
+    return new TimeBasedAvroWriterPartitioner(properties);
+  }
+
+  private GenericRecord createRecord(long timestamp) {
+    return new GenericRecordBuilder(this.schema).set(PARTITION_COLUMN_NAME, timestamp).build();
+  }
+
   @AfterClass
   public void tearDown() throws IOException {
     this.writer.close();
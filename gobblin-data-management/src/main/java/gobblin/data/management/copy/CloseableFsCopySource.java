@@ -70,7 +70,8 @@ public class CloseableFsCopySource extends CopySource {
 
     List<CopyableFile> copyableFiles = deserializeCopyableFiles(state);
 
-    return new CloseableFsFileAwareInputStreamExtractor(getSourceFileSystem(state), copyableFiles.iterator());
+    return new CloseableFsFileAwareInputStreamExtractor(getSourceFileSystem(state), copyableFiles.iterator(),
+        FileChunk.fromState(state));
   }
 
 }
@@ -29,6 +29,7 @@ import gobblin.util.PathUtils;
 import gobblin.source.extractor.Extractor;
 import gobblin.source.extractor.extract.AbstractSource;
 import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
 import gobblin.util.HadoopUtils;
 import gobblin.util.WriterUtils;
@@ -48,10 +49,14 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 
 
 /**
@@ -65,15 +70,31 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
   private static final String COPY_PREFIX = "gobblin.copy";
   public static final String SERIALIZED_COPYABLE_FILES = COPY_PREFIX + ".serialized.copyable.files";
   public static final String SERIALIZED_COPYABLE_DATASET = COPY_PREFIX + ".serialized.copyable.datasets";
+  public static final String SERIALIZED_FILES_TO_DELETE = COPY_PREFIX + ".serialized.files.to.delete";
   public static final String PRESERVE_ATTRIBUTES_KEY = COPY_PREFIX + ".preserved.attributes";
 
+  /**
+   * Target total size in bytes of the files copied by a single {@link MultiWorkUnit}. Work units are only packed into
+   * {@link MultiWorkUnit}s if this or {@link #MAX_FILES_PER_MULTI_WORK_UNIT_KEY} is set.
+   */
+  public static final String MAX_BYTES_PER_MULTI_WORK_UNIT_KEY = COPY_PREFIX + ".bin.packing.max.bytes.per.work.unit";
+  /**
+   * Target number of work units in a single {@link MultiWorkUnit}.
+   */
+  public static final String MAX_FILES_PER_MULTI_WORK_UNIT_KEY = COPY_PREFIX + ".bin.packing.max.files.per.work.unit";
+  private static final String WORK_UNIT_SIZE_BYTES = COPY_PREFIX + ".work.unit.size.bytes";
+  private static final String DELETES_EXTRACT_NAME = "deletes";
+  private static final Gson GSON = new Gson();
+
   /**
    * <ul>
    * Does the following:
    * <li>Instantiate a {@link DatasetFinder}.
    * <li>Find all {@link Dataset} using {@link DatasetFinder}.
    * <li>For each {@link CopyableDataset} get all {@link CopyableFile}s.
-   * <li>Create a {@link WorkUnit} per {@link CopyableFile}.
+   * <li>Create a {@link WorkUnit} per {@link CopyableFile}, or per {@link FileChunk} for large files.
+   * <li>Optionally pack the {@link WorkUnit}s of each {@link Partition} into {@link MultiWorkUnit}s.
+   * <li>For each {@link CopyableDatasetWithDeletes} with files to delete, create a {@link WorkUnit} carrying them.
    * </ul>
    *
    * <p>
@@ -81,6 +102,15 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
    * and writers are built to support multiple {@link CopyableFile}s per workunit
    * </p>
    *
+   * <p>
+   * If {@link #MAX_BYTES_PER_MULTI_WORK_UNIT_KEY} or {@link #MAX_FILES_PER_MULTI_WORK_UNIT_KEY} is set, the workunits
+   * of each {@link Partition} are packed into {@link MultiWorkUnit}s of at most that many bytes and workunits, so that
+   * copies of many small files are not dominated by the per task overhead. A {@link MultiWorkUnit} never spans more
+   * than one {@link Partition}, so the files of a file set are still published together. The inner workunits of a
+   * {@link MultiWorkUnit} only carry the properties of their own file, while the job properties are added by the job
+   * launcher and the dataset metadata is stored once in the {@link MultiWorkUnit}.
+   * </p>
+   *
    * @param state see {@link gobblin.configuration.SourceState}
    * @return Work units for copying files.
    */
@@ -97,6 +127,8 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
               DEFAULT_DATASET_PROFILE_CLASS_KEY);
       List<CopyableDataset> copyableDatasets = datasetFinder.findDatasets();
       FileSystem targetFs = getTargetFileSystem(state);
+      boolean packWorkUnits =
+          state.contains(MAX_BYTES_PER_MULTI_WORK_UNIT_KEY) || state.contains(MAX_FILES_PER_MULTI_WORK_UNIT_KEY);
 
       for (CopyableDataset copyableDataset : copyableDatasets) {
 
@@ -108,19 +140,53 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
         Collection<CopyableFile> files = copyableDataset.getCopyableFiles(targetFs, copyConfiguration);
         Collection<Partition<CopyableFile>> partitions = partitionCopyableFiles(files);
 
+        // Properties shared by all work units of the dataset
+        State datasetState = new State();
+        if (!packWorkUnits) {
+          datasetState.addAll(state);
+        } else if (state.contains(GobblinMetrics.METRICS_STATE_CUSTOM_TAGS)) {
+          datasetState.setProp(GobblinMetrics.METRICS_STATE_CUSTOM_TAGS,
+              state.getProp(GobblinMetrics.METRICS_STATE_CUSTOM_TAGS));
+        }
+        serializeCopyableDataset(datasetState, new CopyableDatasetMetadata(copyableDataset, targetRoot));
+        GobblinMetrics.addCustomTagToState(datasetState, new Tag<String>(
+            CopyEventSubmitterHelper.DATASET_ROOT_METADATA_NAME, copyableDataset.datasetRoot().toString()));
+        datasetState.setProp(SlaEventKeys.DATASET_URN_KEY, copyableDataset.datasetRoot().toString());
+
         for (Partition<CopyableFile> partition : partitions) {
           Extract extract = new Extract(Extract.TableType.SNAPSHOT_ONLY, COPY_PREFIX, partition.getName());
+          List<WorkUnit> partitionWorkUnits = Lists.newArrayList();
           for (CopyableFile copyableFile : partition.getFiles()) {
-            WorkUnit workUnit = new WorkUnit(extract);
-            workUnit.addAll(state);
-            serializeCopyableFiles(workUnit, Lists.newArrayList(copyableFile));
-            serializeCopyableDataset(workUnit, new CopyableDatasetMetadata(copyableDataset, targetRoot));
-            GobblinMetrics.addCustomTagToState(workUnit, new Tag<String>(
-                CopyEventSubmitterHelper.DATASET_ROOT_METADATA_NAME, copyableDataset.datasetRoot().toString()));
-            workUnit.setProp(SlaEventKeys.DATASET_URN_KEY, copyableDataset.datasetRoot().toString());
-            workUnit.setProp(SlaEventKeys.PARTITION_KEY, copyableFile.getFileSet());
-            workUnit.setProp(SlaEventKeys.ORIGIN_TS_IN_MILLI_SECS_KEY, copyableFile.getFileStatus().getModificationTime());
-            workUnits.add(workUnit);
+            for (Optional<FileChunk> chunk : getChunks(state, copyableFile)) {
+              WorkUnit workUnit = new WorkUnit(extract);
+              if (!packWorkUnits) {
+                workUnit.addAll(datasetState);
+              }
+              serializeCopyableFiles(workUnit, Lists.newArrayList(copyableFile));
+              workUnit.setProp(SlaEventKeys.PARTITION_KEY, copyableFile.getFileSet());
+              workUnit.setProp(SlaEventKeys.ORIGIN_TS_IN_MILLI_SECS_KEY,
+                  copyableFile.getFileStatus().getModificationTime());
+              workUnit.setProp(WORK_UNIT_SIZE_BYTES,
+                  chunk.isPresent() ? chunk.get().getLength() : copyableFile.getOrigin().getLen());
+              if (chunk.isPresent()) {
+                chunk.get().toState(workUnit);
+              }
+              partitionWorkUnits.add(workUnit);
+            }
+          }
+
+          if (packWorkUnits) {
+            workUnits.addAll(packWorkUnits(state, partitionWorkUnits, datasetState));
+          } else {
+            workUnits.addAll(partitionWorkUnits);
+          }
+        }
+
+        if (copyableDataset instanceof CopyableDatasetWithDeletes) {
+          Collection<Path> filesToDelete =
+              ((CopyableDatasetWithDeletes) copyableDataset).getFilesToDelete(targetFs, copyConfiguration);
+          if (!filesToDelete.isEmpty()) {
+            workUnits.add(createDeletesWorkUnit(datasetState, filesToDelete));
           }
         }
       }
@@ -133,6 +199,76 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
     return workUnits;
   }
 
+  /**
+   * Pack the {@link WorkUnit}s of a single {@link Partition}, in order, into {@link MultiWorkUnit}s. A new
+   * {@link MultiWorkUnit} is started whenever adding the next {@link WorkUnit} would exceed
+   * {@link #MAX_BYTES_PER_MULTI_WORK_UNIT_KEY} or {@link #MAX_FILES_PER_MULTI_WORK_UNIT_KEY}, so a single
+   * {@link WorkUnit} larger than the byte target gets a {@link MultiWorkUnit} of its own.
+   *
+   * @param sharedState properties shared by all {@link WorkUnit}s, which are only stored in the
+   *          {@link MultiWorkUnit}s
+   */
+  private List<WorkUnit> packWorkUnits(State state, List<WorkUnit> workUnits, State sharedState) {
+    long maxBytes = state.getPropAsLong(MAX_BYTES_PER_MULTI_WORK_UNIT_KEY, Long.MAX_VALUE);
+    int maxWorkUnits = state.getPropAsInt(MAX_FILES_PER_MULTI_WORK_UNIT_KEY, Integer.MAX_VALUE);
+
+    List<WorkUnit> multiWorkUnits = Lists.newArrayList();
+    MultiWorkUnit multiWorkUnit = null;
+    int count = 0;
+    long bytes = 0;
+    for (WorkUnit workUnit : workUnits) {
+      long workUnitBytes = workUnit.getPropAsLong(WORK_UNIT_SIZE_BYTES);
+      if (multiWorkUnit == null || count >= maxWorkUnits || bytes + workUnitBytes > maxBytes) {
+        multiWorkUnit = MultiWorkUnit.createEmpty();
+        for (String key : sharedState.getPropertyNames()) {
+          multiWorkUnit.setPropExcludeInnerWorkUnits(key, sharedState.getProp(key));
+        }
+        multiWorkUnits.add(multiWorkUnit);
+        count = 0;
+        bytes = 0;
+      }
+      multiWorkUnit.addWorkUnit(workUnit);
+      count++;
+      bytes += workUnitBytes;
+    }
+    return multiWorkUnits;
+  }
+
+  /**
+   * Create a {@link WorkUnit} that copies nothing, but carries the files a {@link CopyableDatasetWithDeletes} deletes
+   * from its target. {@link gobblin.data.management.copy.publisher.CopyDataPublisher} only deletes them once all the
+   * other {@link WorkUnit}s of the dataset were published.
+   */
+  private WorkUnit createDeletesWorkUnit(State datasetState, Collection<Path> filesToDelete) throws IOException {
+    WorkUnit workUnit = new WorkUnit(new Extract(Extract.TableType.SNAPSHOT_ONLY, COPY_PREFIX, DELETES_EXTRACT_NAME));
+    workUnit.addAll(datasetState);
+    serializeCopyableFiles(workUnit, Lists.<CopyableFile> newArrayList());
+    serializeFilesToDelete(workUnit, filesToDelete);
+    return workUnit;
+  }
+
+  /**
+   * Get the {@link FileChunk}s a {@link CopyableFile} should be copied in, or a single absent {@link FileChunk} if the
+   * file should be copied as a whole. Files are only split if {@link FileChunk#SPLIT_THRESHOLD_BYTES_KEY} is set and no
+   * converter, which might need the whole file, is configured.
+   */
+  private List<Optional<FileChunk>> getChunks(State state, CopyableFile copyableFile) {
+    List<Optional<FileChunk>> chunks = Lists.newArrayList();
+    if (!state.contains(FileChunk.SPLIT_THRESHOLD_BYTES_KEY)
+        || !Strings.isNullOrEmpty(state.getProp(ConfigurationKeys.CONVERTER_CLASSES_KEY))
+        || copyableFile.getOrigin().getLen() <= state.getPropAsLong(FileChunk.SPLIT_THRESHOLD_BYTES_KEY)) {
+      chunks.add(Optional.<FileChunk> absent());
+      return chunks;
+    }
+
+    long chunkSize = state.getPropAsLong(FileChunk.SPLIT_CHUNK_BYTES_KEY, FileChunk.DEFAULT_SPLIT_CHUNK_BYTES);
+    for (FileChunk chunk : FileChunk.split(copyableFile.getOrigin().getLen(), chunkSize)) {
+      chunks.add(Optional.of(chunk));
+    }
+    log.info(String.format("Splitting %s into %d chunks", copyableFile.getOrigin().getPath(), chunks.size()));
+    return chunks;
+  }
+
   /**
    * @param state a {@link gobblin.configuration.WorkUnitState} carrying properties needed by the returned
    *          {@link Extractor}
@@ -144,7 +280,8 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
 
     List<CopyableFile> copyableFiles = deserializeCopyableFiles(state);
 
-    return new FileAwareInputStreamExtractor(getSourceFileSystem(state), copyableFiles.iterator());
+    return new FileAwareInputStreamExtractor(getSourceFileSystem(state), copyableFiles.iterator(),
+        FileChunk.fromState(state));
   }
 
   @Override
@@ -200,6 +337,34 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
     return CopyableDatasetMetadata.deserialize(state.getProp(SERIALIZED_COPYABLE_DATASET));
   }
 
+  /**
+   * Serialize the {@link Path}s of the files to delete into a {@link State} at {@link #SERIALIZED_FILES_TO_DELETE}
+   */
+  public static void serializeFilesToDelete(State state, Collection<Path> filesToDelete) {
+    List<String> paths = Lists.newArrayList();
+    for (Path fileToDelete : filesToDelete) {
+      paths.add(fileToDelete.toString());
+    }
+    state.setProp(SERIALIZED_FILES_TO_DELETE, GSON.toJson(paths));
+  }
+
+  /**
+   * Deserialize the {@link Path}s of the files to delete from a {@link State} at {@link #SERIALIZED_FILES_TO_DELETE}.
+   * Returns an empty {@link List} if the {@link State} does not carry any files to delete.
+   */
+  public static List<Path> deserializeFilesToDelete(State state) {
+    List<Path> filesToDelete = Lists.newArrayList();
+    if (!state.contains(SERIALIZED_FILES_TO_DELETE)) {
+      return filesToDelete;
+    }
+    List<String> paths = GSON.fromJson(state.getProp(SERIALIZED_FILES_TO_DELETE), new TypeToken<List<String>>() {
+    }.getType());
+    for (String path : paths) {
+      filesToDelete.add(new Path(path));
+    }
+    return filesToDelete;
+  }
+
   private Collection<Partition<CopyableFile>> partitionCopyableFiles(Collection<CopyableFile> files) {
     Map<String, Partition.Builder<CopyableFile>> partitionBuildersMaps = Maps.newHashMap();
     for (CopyableFile file : files) {
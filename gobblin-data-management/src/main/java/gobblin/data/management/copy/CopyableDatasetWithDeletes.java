@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.data.management.copy;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+
+/**
+ * A {@link CopyableDataset} that also removes files from its target, e.g. files that no longer exist at the source.
+ *
+ * <p>
+ *   Datasets must not delete anything themselves. {@link CopySource} creates a separate work unit carrying the files
+ *   returned by {@link #getFilesToDelete}, and {@link gobblin.data.management.copy.publisher.CopyDataPublisher} moves
+ *   them to trash at publish time, only if all the {@link CopyableFile}s of the dataset were published successfully.
+ * </p>
+ */
+public interface CopyableDatasetWithDeletes extends CopyableDataset {
+
+  /**
+   * Find the files under the target root of the dataset that should be deleted once the dataset is copied.
+   * {@link CopySource} calls this method after {@link #getCopyableFiles} with the same arguments, so implementations
+   * may reuse the listings taken for the copy.
+   *
+   * @param targetFs target {@link FileSystem} where copied files will be placed.
+   * @param configuration {@link CopyConfiguration} for this job. See {@link CopyConfiguration}.
+   * @return fully qualified or absolute {@link Path}s under {@link CopyConfiguration#getTargetRoot()}.
+   */
+  public Collection<Path> getFilesToDelete(FileSystem targetFs, CopyConfiguration configuration) throws IOException;
+}
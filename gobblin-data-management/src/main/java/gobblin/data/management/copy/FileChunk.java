@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.data.management.copy;
+
+import gobblin.configuration.State;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import org.apache.hadoop.fs.Path;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
+
+/**
+ * A byte range of a {@link CopyableFile} that is copied by its own work unit.
+ *
+ * <p>
+ *   {@link CopySource} splits files larger than {@link #SPLIT_THRESHOLD_BYTES_KEY} into chunks of
+ *   {@link #SPLIT_CHUNK_BYTES_KEY} bytes, and creates a work unit for each chunk. Each chunk is written to its own file
+ *   next to the destination of the {@link CopyableFile}, see {@link #getChunkPath(Path)}, and the chunks are stitched
+ *   together by {@link gobblin.data.management.copy.publisher.CopyDataPublisher} once all of them are copied.
+ * </p>
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class FileChunk {
+
+  private static final String SPLIT_PREFIX = "gobblin.copy.split";
+
+  /** Files larger than this are split into chunks. Splitting is disabled if this is not set. */
+  public static final String SPLIT_THRESHOLD_BYTES_KEY = SPLIT_PREFIX + ".threshold.bytes";
+  /** Size of the chunks. HDFS can only concatenate chunks whose size is a multiple of the block size. */
+  public static final String SPLIT_CHUNK_BYTES_KEY = SPLIT_PREFIX + ".chunk.bytes";
+  public static final long DEFAULT_SPLIT_CHUNK_BYTES = 1024L * 1024 * 1024;
+  /** Whether to compare the checksum of a stitched file with the checksum of the origin file. */
+  public static final String SPLIT_VERIFY_CHECKSUM_KEY = SPLIT_PREFIX + ".verify.checksum";
+  public static final boolean DEFAULT_SPLIT_VERIFY_CHECKSUM = true;
+
+  private static final String CHUNK_INDEX_KEY = SPLIT_PREFIX + ".chunk.index";
+  private static final String NUM_CHUNKS_KEY = SPLIT_PREFIX + ".num.chunks";
+  private static final String CHUNK_OFFSET_KEY = SPLIT_PREFIX + ".chunk.offset";
+  private static final String CHUNK_LENGTH_KEY = SPLIT_PREFIX + ".chunk.length";
+
+  private static final String CHUNK_FILE_SUFFIX = ".__chunk_";
+
+  private final int index;
+  private final int numChunks;
+  private final long offset;
+  private final long length;
+
+  /**
+   * Split a file of the given length into chunks of at most {@code chunkSize} bytes.
+   */
+  public static List<FileChunk> split(long fileLength, long chunkSize) {
+    int numChunks = (int) ((fileLength + chunkSize - 1) / chunkSize);
+    List<FileChunk> chunks = Lists.newArrayListWithCapacity(numChunks);
+    for (int i = 0; i < numChunks; i++) {
+      long offset = i * chunkSize;
+      chunks.add(new FileChunk(i, numChunks, offset, Math.min(chunkSize, fileLength - offset)));
+    }
+    return chunks;
+  }
+
+  /**
+   * Get the {@link FileChunk} of a work unit, if the work unit copies a chunk of a file.
+   */
+  public static Optional<FileChunk> fromState(State state) {
+    if (!state.contains(CHUNK_INDEX_KEY)) {
+      return Optional.absent();
+    }
+    return Optional.of(new FileChunk(state.getPropAsInt(CHUNK_INDEX_KEY), state.getPropAsInt(NUM_CHUNKS_KEY),
+        state.getPropAsLong(CHUNK_OFFSET_KEY), state.getPropAsLong(CHUNK_LENGTH_KEY)));
+  }
+
+  /**
+   * Set this {@link FileChunk} in the state of a work unit.
+   */
+  public void toState(State state) {
+    state.setProp(CHUNK_INDEX_KEY, this.index);
+    state.setProp(NUM_CHUNKS_KEY, this.numChunks);
+    state.setProp(CHUNK_OFFSET_KEY, this.offset);
+    state.setProp(CHUNK_LENGTH_KEY, this.length);
+  }
+
+  /**
+   * Get the path this chunk is written to, given the path the whole file would be written to.
+   */
+  public Path getChunkPath(Path filePath) {
+    return getChunkPath(filePath, this.index);
+  }
+
+  /**
+   * Get the path the chunk with the given index is written to, given the path the whole file would be written to.
+   */
+  public static Path getChunkPath(Path filePath, int index) {
+    return new Path(filePath.getParent(), filePath.getName() + CHUNK_FILE_SUFFIX + String.format("%05d", index));
+  }
+}
@@ -13,36 +13,71 @@
 package gobblin.data.management.copy;
 
 import gobblin.data.management.dataset.DatasetUtils;
-import gobblin.util.PathUtils;
 import gobblin.util.FileListUtils;
+import gobblin.util.PathUtils;
+import gobblin.util.ParallelFileLister;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
 
+import org.apache.hadoop.fs.FileChecksum;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
 
+import com.google.common.base.Optional;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closer;
 
 
 /**
  * Implementation of {@link CopyableDataset} that creates a {@link CopyableFile} for every file that is a descendant if
  * the root directory.
+ *
+ * <p>
+ *   If {@link #UPDATE_KEY} is set to true, the target root is listed once and files that already exist at the target
+ *   with the same length, and that were written at the target after they were last modified at the source, are not
+ *   copied again. If {@link #UPDATE_COMPARE_CHECKSUM_KEY} is also set, the checksums of such files are compared as
+ *   well. If {@link #DELETE_KEY} is set to true, files under the target root that pass the path filter of the
+ *   dataset but do not exist at the source are returned by {@link #getFilesToDelete}, so that they are moved to trash
+ *   once the dataset is published. The files to delete are computed from the source and target listings taken by the
+ *   preceding {@link #getCopyableFiles} call for the same target, so neither tree is listed twice.
+ * </p>
  */
-public class RecursiveCopyableDataset extends SinglePartitionCopyableDataset {
+@Slf4j
+public class RecursiveCopyableDataset extends SinglePartitionCopyableDataset implements CopyableDatasetWithDeletes {
+
+  private static final String RECURSIVE_COPY_PREFIX = "gobblin.copy.recursive";
+  public static final String UPDATE_KEY = RECURSIVE_COPY_PREFIX + ".update";
+  public static final String UPDATE_COMPARE_CHECKSUM_KEY = RECURSIVE_COPY_PREFIX + ".update.compare.checksum";
+  public static final String DELETE_KEY = RECURSIVE_COPY_PREFIX + ".delete";
 
   private final Path rootPath;
   private final FileSystem fs;
   private final Properties properties;
   private LoadingCache<Path, OwnerAndPermission> ownerAndPermissionCache;
   private final PathFilter pathFilter;
+  private final int listingThreads;
+  private final boolean cacheListings;
+  private final boolean update;
+  private final boolean compareChecksum;
+  private final boolean delete;
+  // Listings taken by the last call to getCopyableFiles, kept for getFilesToDelete if DELETE_KEY is set
+  private Optional<Listings> lastListings = Optional.absent();
 
   public RecursiveCopyableDataset(final FileSystem fs, Path rootPath, Properties properties) {
 
@@ -58,21 +93,142 @@ public class RecursiveCopyableDataset extends SinglePartitionCopyableDataset {
     });
 
     this.pathFilter = DatasetUtils.instantiatePathFilter(properties);
+    this.listingThreads = Integer.parseInt(properties.getProperty(ParallelFileLister.PARALLEL_FILE_LISTER_THREADS_KEY,
+        Integer.toString(ParallelFileLister.DEFAULT_PARALLEL_FILE_LISTER_THREADS)));
+    this.cacheListings = Boolean.parseBoolean(properties.getProperty(
+        ParallelFileLister.PARALLEL_FILE_LISTER_CACHE_ENABLED_KEY,
+        Boolean.toString(ParallelFileLister.DEFAULT_PARALLEL_FILE_LISTER_CACHE_ENABLED)));
+    this.update = Boolean.parseBoolean(properties.getProperty(UPDATE_KEY, Boolean.FALSE.toString()));
+    this.compareChecksum =
+        Boolean.parseBoolean(properties.getProperty(UPDATE_COMPARE_CHECKSUM_KEY, Boolean.FALSE.toString()));
+    this.delete = Boolean.parseBoolean(properties.getProperty(DELETE_KEY, Boolean.FALSE.toString()));
   }
 
   @Override public Collection<CopyableFile> getCopyableFiles(FileSystem targetFs, CopyConfiguration configuration)
       throws IOException {
 
-    List<FileStatus> files = FileListUtils.listFilesRecursively(this.fs, this.rootPath, this.pathFilter);
-
     List<CopyableFile> copyableFiles = Lists.newArrayList();
+    int upToDateFiles = 0;
 
-    for (FileStatus file : files) {
-      copyableFiles.add(CopyableFile.builder(this.fs, file, this.rootPath, configuration).build());
+    // Create the copyable files while the rest of the tree is still being listed
+    Closer closer = Closer.create();
+    try {
+      ParallelFileLister lister = closer.register(new ParallelFileLister(this.fs, this.listingThreads,
+          this.cacheListings));
+
+      Map<Path, FileStatus> targetFiles = this.update || this.delete
+          ? listTargetFiles(targetFs, configuration.getTargetRoot()) : Maps.<Path, FileStatus> newHashMap();
+      Set<Path> sourceFiles = Sets.newHashSet();
+
+      Iterator<FileStatus> files = lister.iterateFilesRecursively(this.rootPath, this.pathFilter, false);
+      while (files.hasNext()) {
+        FileStatus file = files.next();
+        Path relativePath = getRelativeOuptutPath(file);
+        if (this.delete) {
+          sourceFiles.add(relativePath);
+        }
+        FileStatus targetFile = this.update ? targetFiles.get(relativePath) : null;
+        if (targetFile != null && isUpToDate(file, targetFs, targetFile)) {
+          upToDateFiles++;
+          continue;
+        }
+        copyableFiles.add(CopyableFile.builder(this.fs, file, this.rootPath, configuration).build());
+      }
+
+      if (this.delete) {
+        this.lastListings = Optional.of(new Listings(targetFs.getUri(), configuration.getTargetRoot(), sourceFiles,
+            targetFiles));
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    if (this.update) {
+      log.info(String.format("Found %d files to copy and %d up-to-date files under %s", copyableFiles.size(),
+          upToDateFiles, this.rootPath));
     }
     return copyableFiles;
   }
 
+  /**
+   * Find the files under the target root that pass the path filter of the dataset, but do not exist at the source.
+   * Returns no files unless {@link #DELETE_KEY} is set to true. Reuses the listings of the last
+   * {@link #getCopyableFiles} call for the same target, and lists both trees otherwise.
+   */
+  @Override
+  public Collection<Path> getFilesToDelete(FileSystem targetFs, CopyConfiguration configuration) throws IOException {
+    if (!this.delete) {
+      return Lists.newArrayList();
+    }
+
+    Map<Path, FileStatus> targetFiles;
+    if (this.lastListings.isPresent() && this.lastListings.get().isOf(targetFs, configuration.getTargetRoot())) {
+      targetFiles = this.lastListings.get().targetFiles;
+      targetFiles.keySet().removeAll(this.lastListings.get().sourceFiles);
+      // The listings are only valid for the copy they were taken for
+      this.lastListings = Optional.absent();
+    } else {
+      targetFiles = listTargetFiles(targetFs, configuration.getTargetRoot());
+      Closer closer = Closer.create();
+      try {
+        ParallelFileLister lister = closer.register(new ParallelFileLister(this.fs, this.listingThreads,
+            this.cacheListings));
+        Iterator<FileStatus> files = lister.iterateFilesRecursively(this.rootPath, this.pathFilter, false);
+        while (files.hasNext()) {
+          targetFiles.remove(getRelativeOuptutPath(files.next()));
+        }
+      } catch (Throwable t) {
+        throw closer.rethrow(t);
+      } finally {
+        closer.close();
+      }
+    }
+
+    List<Path> filesToDelete = Lists.newArrayList();
+    for (FileStatus targetFile : targetFiles.values()) {
+      filesToDelete.add(targetFile.getPath());
+    }
+    log.info(String.format("Found %d files under %s that do not exist at the source", filesToDelete.size(),
+        configuration.getTargetRoot()));
+    return filesToDelete;
+  }
+
+  /**
+   * List the files under the target root that pass the path filter of the dataset, keyed by their path relative to
+   * the target root.
+   */
+  private Map<Path, FileStatus> listTargetFiles(FileSystem targetFs, Path targetRoot) throws IOException {
+    Map<Path, FileStatus> targetFiles = Maps.newHashMap();
+    if (!targetFs.exists(targetRoot)) {
+      return targetFiles;
+    }
+
+    Path targetRootWithoutSchemeAndAuthority = PathUtils.getPathWithoutSchemeAndAuthority(targetRoot);
+    for (FileStatus targetFile : FileListUtils.listFilesRecursively(targetFs, targetRoot, this.pathFilter,
+        this.listingThreads)) {
+      targetFiles.put(PathUtils.relativizePath(PathUtils.getPathWithoutSchemeAndAuthority(targetFile.getPath()),
+          targetRootWithoutSchemeAndAuthority), targetFile);
+    }
+    return targetFiles;
+  }
+
+  /**
+   * Whether the target file is an up-to-date copy of the source file.
+   */
+  private boolean isUpToDate(FileStatus file, FileSystem targetFs, FileStatus targetFile) throws IOException {
+    if (file.getLen() != targetFile.getLen() || file.getModificationTime() > targetFile.getModificationTime()) {
+      return false;
+    }
+    if (!this.compareChecksum) {
+      return true;
+    }
+
+    FileChecksum checksum = this.fs.getFileChecksum(file.getPath());
+    return checksum != null && checksum.equals(targetFs.getFileChecksum(targetFile.getPath()));
+  }
+
   /**
    * Get the expected output path of the file under {@link #datasetTargetRoot()}. Subclasses can override this method if
    * the file name needs to be different at destination.
@@ -90,4 +246,25 @@ public class RecursiveCopyableDataset extends SinglePartitionCopyableDataset {
     return this.rootPath;
   }
 
+  /**
+   * The relative paths of the source files and the target files listed for a copy to a target root.
+   */
+  private static class Listings {
+    private final URI targetFsUri;
+    private final Path targetRoot;
+    private final Set<Path> sourceFiles;
+    private final Map<Path, FileStatus> targetFiles;
+
+    private Listings(URI targetFsUri, Path targetRoot, Set<Path> sourceFiles, Map<Path, FileStatus> targetFiles) {
+      this.targetFsUri = targetFsUri;
+      this.targetRoot = targetRoot;
+      this.sourceFiles = sourceFiles;
+      this.targetFiles = targetFiles;
+    }
+
+    private boolean isOf(FileSystem targetFs, Path targetRoot) {
+      return this.targetFsUri.equals(targetFs.getUri()) && this.targetRoot.equals(targetRoot);
+    }
+  }
+
 }
@@ -12,6 +12,7 @@
 package gobblin.data.management.copy.extractor;
 
 import gobblin.data.management.copy.CopyableFile;
+import gobblin.data.management.copy.FileChunk;
 import gobblin.source.extractor.extract.sftp.SftpLightWeightFileSystem;
 
 import java.io.IOException;
@@ -19,6 +20,7 @@ import java.util.Iterator;
 
 import org.apache.hadoop.fs.FileSystem;
 
+import com.google.common.base.Optional;
 import com.google.common.io.Closer;
 
 
@@ -33,7 +35,13 @@ public class CloseableFsFileAwareInputStreamExtractor extends FileAwareInputStre
   public CloseableFsFileAwareInputStreamExtractor(FileSystem fs, Iterator<CopyableFile> filesIterator)
       throws IOException {
 
-    super(fs, filesIterator);
+    this(fs, filesIterator, Optional.<FileChunk> absent());
+  }
+
+  public CloseableFsFileAwareInputStreamExtractor(FileSystem fs, Iterator<CopyableFile> filesIterator,
+      Optional<FileChunk> chunk) throws IOException {
+
+    super(fs, filesIterator, chunk);
     closer.register(fs);
   }
 
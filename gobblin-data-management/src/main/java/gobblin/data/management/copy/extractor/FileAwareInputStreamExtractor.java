@@ -14,16 +14,22 @@ package gobblin.data.management.copy.extractor;
 
 import gobblin.data.management.copy.CopyableFile;
 import gobblin.data.management.copy.FileAwareInputStream;
+import gobblin.data.management.copy.FileChunk;
 import gobblin.source.extractor.DataRecordException;
 import gobblin.source.extractor.Extractor;
 import gobblin.source.extractor.extract.sftp.SftpLightWeightFileSystem;
+import gobblin.util.io.SeekableFSInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+
 
 /**
  * An implementation of {@link Extractor} that extracts {@link InputStream}s. This extractor is suitable for copy jobs
@@ -39,11 +45,21 @@ public class FileAwareInputStreamExtractor implements Extractor<String, FileAwar
 
   private final FileSystem fs;
   private Iterator<CopyableFile> fileIterator;
+  private final Optional<FileChunk> chunk;
 
   public FileAwareInputStreamExtractor(FileSystem fs, Iterator<CopyableFile> filesIterator) throws IOException {
+    this(fs, filesIterator, Optional.<FileChunk> absent());
+  }
+
+  /**
+   * @param chunk if present, only this {@link FileChunk} of the files is extracted
+   */
+  public FileAwareInputStreamExtractor(FileSystem fs, Iterator<CopyableFile> filesIterator, Optional<FileChunk> chunk)
+      throws IOException {
 
     this.fs = fs;
     this.fileIterator = filesIterator;
+    this.chunk = chunk;
   }
 
   /**
@@ -62,12 +78,23 @@ public class FileAwareInputStreamExtractor implements Extractor<String, FileAwar
     while (fileIterator.hasNext()) {
       CopyableFile file = fileIterator.next();
       fileIterator.remove();
-      return new FileAwareInputStream(file, fs.open(file.getFileStatus().getPath()));
+      return new FileAwareInputStream(file, open(file));
     }
 
     return null;
   }
 
+  private FSDataInputStream open(CopyableFile file) throws IOException {
+    FSDataInputStream inputStream = this.fs.open(file.getFileStatus().getPath());
+    if (!this.chunk.isPresent()) {
+      return inputStream;
+    }
+
+    inputStream.seek(this.chunk.get().getOffset());
+    return new FSDataInputStream(
+        new SeekableFSInputStream(ByteStreams.limit(inputStream, this.chunk.get().getLength())));
+  }
+
   @Override
   public long getExpectedRecordCount() {
     return 0;
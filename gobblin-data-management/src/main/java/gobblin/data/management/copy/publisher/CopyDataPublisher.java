@@ -18,9 +18,13 @@ import gobblin.configuration.WorkUnitState;
 import gobblin.configuration.WorkUnitState.WorkingState;
 import gobblin.data.management.copy.CopySource;
 import gobblin.data.management.copy.CopyableDataset;
+import gobblin.data.management.copy.CopyableDatasetWithDeletes;
 import gobblin.data.management.copy.CopyableFile;
 import gobblin.data.management.copy.CopyableDatasetMetadata;
+import gobblin.data.management.copy.FileChunk;
 import gobblin.data.management.copy.writer.FileAwareInputStreamDataWriterBuilder;
+import gobblin.data.management.trash.Trash;
+import gobblin.data.management.trash.TrashFactory;
 import gobblin.util.PathUtils;
 import gobblin.instrumented.Instrumented;
 import gobblin.metrics.GobblinMetrics;
@@ -30,28 +34,47 @@ import gobblin.publisher.DataPublisher;
 import gobblin.util.HadoopUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closer;
 
 
 /**
  * A {@link DataPublisher} to {@link CopyableFile}s from task output to final destination.
+ *
+ * <p>
+ *   Files that a {@link CopyableDatasetWithDeletes} deletes from its target are moved to trash only after all the
+ *   other {@link WorkUnitState}s of the dataset were committed, so a failed copy never loses data at the target.
+ * </p>
  */
 @Slf4j
 public class CopyDataPublisher extends DataPublisher {
 
   private Path writerOutputDir;
   private FileSystem fs;
+  private Optional<Trash> trash = Optional.absent();
   protected EventSubmitter eventSubmitter;
 
   /**
@@ -83,11 +106,21 @@ public class CopyDataPublisher extends DataPublisher {
   @Override
   public void publishData(Collection<? extends WorkUnitState> states) throws IOException {
 
+    List<WorkUnitState> copyStates = Lists.newArrayList();
+    List<WorkUnitState> deletesStates = Lists.newArrayList();
+    for (WorkUnitState state : states) {
+      if (state.contains(CopySource.SERIALIZED_FILES_TO_DELETE)) {
+        deletesStates.add(state);
+      } else {
+        copyStates.add(state);
+      }
+    }
+
     /*
      * This mapping is used to set WorkingState of all {@link WorkUnitState}s to {@link
      * WorkUnitState.WorkingState#COMMITTED} after a {@link CopyableDataset} is successfully published
      */
-    Multimap<CopyableFile.DatasetAndPartition, WorkUnitState> datasets = groupByFileSet(states);
+    Multimap<CopyableFile.DatasetAndPartition, WorkUnitState> datasets = groupByFileSet(copyStates);
 
     boolean allDatasetsPublished = true;
     for (CopyableFile.DatasetAndPartition datasetAndPartition : datasets.keySet()) {
@@ -100,6 +133,28 @@ public class CopyDataPublisher extends DataPublisher {
       }
     }
 
+    Set<CopyableDatasetMetadata> unpublishedDatasets = Sets.newHashSet();
+    for (WorkUnitState state : copyStates) {
+      if (state.getWorkingState() != WorkingState.COMMITTED) {
+        unpublishedDatasets.add(CopySource.deserializeCopyableDataset(state));
+      }
+    }
+    for (WorkUnitState state : deletesStates) {
+      CopyableDatasetMetadata metadata = CopySource.deserializeCopyableDataset(state);
+      if (state.getWorkingState() != WorkingState.SUCCESSFUL || unpublishedDatasets.contains(metadata)) {
+        log.error("Not all files of " + metadata.getDatasetTargetRoot() + " were published, will not delete any file");
+        allDatasetsPublished = false;
+        continue;
+      }
+      try {
+        publishDeletes(metadata, CopySource.deserializeFilesToDelete(state));
+        state.setWorkingState(WorkingState.COMMITTED);
+      } catch (Throwable e) {
+        log.error("Failed to delete files from " + metadata.getDatasetTargetRoot(), e);
+        allDatasetsPublished = false;
+      }
+    }
+
     if (!allDatasetsPublished) {
       throw new IOException("Not all datasets published successfully");
     }
@@ -141,6 +196,14 @@ public class CopyDataPublisher extends DataPublisher {
     Path datasetWriterOutputPath = new Path(new Path(writerOutputDir, datasetAndPartition.identifier()),
         PathUtils.withoutLeadingSeparator(metadata.getDatasetTargetRoot()));
 
+    if (!stitchChunks(datasetAndPartition, datasetWorkUnitStates)) {
+      for (WorkUnitState wus : datasetWorkUnitStates) {
+        wus.setWorkingState(WorkingState.FAILED);
+      }
+      throw new IOException(String.format("Not all split files of fileSet %s could be stitched, will not publish it",
+          datasetAndPartition.identifier()));
+    }
+
     log.info(String
         .format("Publishing fileSet from %s to %s", datasetWriterOutputPath, metadata.getDatasetTargetRoot()));
 
@@ -158,6 +221,168 @@ public class CopyDataPublisher extends DataPublisher {
     CopyEventSubmitterHelper.submitSuccessfulDatasetPublish(eventSubmitter, datasetAndPartition);
   }
 
+  /**
+   * Move the files a {@link CopyableDatasetWithDeletes} deletes from its target to trash. Files that are not under the
+   * target root of the dataset are never deleted.
+   */
+  private void publishDeletes(CopyableDatasetMetadata metadata, List<Path> filesToDelete) throws IOException {
+    Path targetRoot = PathUtils.getPathWithoutSchemeAndAuthority(metadata.getDatasetTargetRoot());
+    for (Path fileToDelete : filesToDelete) {
+      if (!PathUtils.isAncestor(targetRoot, PathUtils.getPathWithoutSchemeAndAuthority(fileToDelete))) {
+        throw new IOException(String.format("Will not delete %s as it is not under %s", fileToDelete, targetRoot));
+      }
+    }
+
+    if (!this.trash.isPresent()) {
+      this.trash = Optional.of(TrashFactory.createTrash(this.fs, this.state.getProperties()));
+    }
+    for (Path fileToDelete : filesToDelete) {
+      if (!this.fs.exists(fileToDelete)) {
+        continue;
+      }
+      log.info("Moving " + fileToDelete + " which does not exist at the source to trash");
+      if (!this.trash.get().moveToTrash(fileToDelete)) {
+        throw new IOException("Failed to move " + fileToDelete + " to trash");
+      }
+    }
+  }
+
+  /**
+   * Stitch together the {@link FileChunk}s of the files of a fileSet that were split by {@link CopySource}. The
+   * chunks of a file are concatenated if the {@link FileSystem} supports it, and merged into a new file otherwise. If
+   * any chunk of a file was not copied successfully, or the stitched file does not match its origin, the chunks and the
+   * stitched file are deleted.
+   *
+   * @return whether all split files of the fileSet were stitched successfully
+   */
+  private boolean stitchChunks(CopyableFile.DatasetAndPartition datasetAndPartition,
+      Collection<WorkUnitState> datasetWorkUnitStates) throws IOException {
+
+    Multimap<Path, WorkUnitState> chunkStatesByDestination = ArrayListMultimap.create();
+    Map<Path, CopyableFile> filesByDestination = Maps.newHashMap();
+    for (WorkUnitState wus : datasetWorkUnitStates) {
+      if (FileChunk.fromState(wus).isPresent()) {
+        CopyableFile file = CopySource.deserializeCopyableFiles(wus).get(0);
+        chunkStatesByDestination.put(file.getDestination(), wus);
+        filesByDestination.put(file.getDestination(), file);
+      }
+    }
+
+    boolean allStitched = true;
+    Path fileSetOutputPath = new Path(this.writerOutputDir, datasetAndPartition.identifier());
+    for (Path destination : chunkStatesByDestination.keySet()) {
+      Collection<WorkUnitState> chunkStates = chunkStatesByDestination.get(destination);
+      Path outputFile = new Path(fileSetOutputPath, PathUtils.withoutLeadingSeparator(destination));
+      int numChunks = FileChunk.fromState(chunkStates.iterator().next()).get().getNumChunks();
+
+      List<Path> chunkFiles = Lists.newArrayListWithCapacity(numChunks);
+      for (int i = 0; i < numChunks; i++) {
+        chunkFiles.add(FileChunk.getChunkPath(outputFile, i));
+      }
+
+      boolean allChunksCopied = chunkStates.size() == numChunks;
+      for (WorkUnitState wus : chunkStates) {
+        allChunksCopied &= wus.getWorkingState() == WorkingState.SUCCESSFUL;
+      }
+      if (!allChunksCopied) {
+        log.error(String.format("Not all %d chunks of %s were copied, will not publish it", numChunks, destination));
+        deleteChunks(chunkFiles);
+        allStitched = false;
+        continue;
+      }
+
+      try {
+        stitch(chunkFiles, outputFile);
+        verify(filesByDestination.get(destination), outputFile);
+      } catch (IOException ioe) {
+        log.error(String.format("Failed to stitch the chunks of %s, will not publish it", destination), ioe);
+        deleteChunks(chunkFiles);
+        this.fs.delete(outputFile, false);
+        allStitched = false;
+      }
+    }
+    return allStitched;
+  }
+
+  private void deleteChunks(List<Path> chunkFiles) throws IOException {
+    for (Path chunkFile : chunkFiles) {
+      this.fs.delete(chunkFile, false);
+    }
+  }
+
+  private void stitch(List<Path> chunkFiles, Path outputFile) throws IOException {
+    boolean concatenated = false;
+    try {
+      if (chunkFiles.size() > 1) {
+        this.fs.concat(chunkFiles.get(0), chunkFiles.subList(1, chunkFiles.size()).toArray(new Path[0]));
+      }
+      concatenated = true;
+    } catch (UnsupportedOperationException | IOException e) {
+      log.info(String.format("Could not concatenate the chunks of %s, will merge them instead: %s", outputFile,
+          e.getMessage()));
+    }
+
+    if (concatenated) {
+      HadoopUtils.renamePath(this.fs, chunkFiles.get(0), outputFile);
+      return;
+    }
+
+    FileStatus firstChunk = this.fs.getFileStatus(chunkFiles.get(0));
+    Closer closer = Closer.create();
+    try {
+      OutputStream out = closer.register(this.fs.create(outputFile, firstChunk.getPermission(), true,
+          this.fs.getConf().getInt("io.file.buffer.size", 4096), firstChunk.getReplication(),
+          firstChunk.getBlockSize(), null));
+      for (Path chunkFile : chunkFiles) {
+        try (InputStream in = this.fs.open(chunkFile)) {
+          ByteStreams.copy(in, out);
+        }
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    try {
+      this.fs.setOwner(outputFile, firstChunk.getOwner(), firstChunk.getGroup());
+    } catch (IOException ioe) {
+      log.warn("Failed to set owner and/or group for path " + outputFile, ioe);
+    }
+    deleteChunks(chunkFiles);
+  }
+
+  /**
+   * Verify that a stitched file has the length and, if {@link FileChunk#SPLIT_VERIFY_CHECKSUM_KEY} is set and the
+   * checksums are comparable, the checksum of the origin file.
+   */
+  private void verify(CopyableFile file, Path outputFile) throws IOException {
+    FileStatus outputStatus = this.fs.getFileStatus(outputFile);
+    if (outputStatus.getLen() != file.getOrigin().getLen()) {
+      throw new IOException(String.format("Stitched file %s has length %d, but origin %s has length %d", outputFile,
+          outputStatus.getLen(), file.getOrigin().getPath(), file.getOrigin().getLen()));
+    }
+
+    if (!this.state.getPropAsBoolean(FileChunk.SPLIT_VERIFY_CHECKSUM_KEY, FileChunk.DEFAULT_SPLIT_VERIFY_CHECKSUM)) {
+      return;
+    }
+
+    FileSystem sourceFs = FileSystem.get(URI.create(this.state.getProp(ConfigurationKeys.SOURCE_FILEBASED_FS_URI,
+        ConfigurationKeys.LOCAL_FS_URI)), HadoopUtils.getConfFromState(this.state));
+    FileChecksum originChecksum = sourceFs.getFileChecksum(file.getOrigin().getPath());
+    FileChecksum outputChecksum = this.fs.getFileChecksum(outputFile);
+    // Checksums computed with different parameters, e.g. different block sizes on HDFS, cannot be compared
+    if (originChecksum == null || outputChecksum == null
+        || !originChecksum.getAlgorithmName().equals(outputChecksum.getAlgorithmName())) {
+      log.info("Checksums of " + outputFile + " and its origin are not comparable, skipping checksum verification");
+      return;
+    }
+    if (!originChecksum.equals(outputChecksum)) {
+      throw new IOException(String.format("Checksum of stitched file %s does not match the checksum of origin %s",
+          outputFile, file.getOrigin().getPath()));
+    }
+  }
+
   @Override
   public void publishMetadata(Collection<? extends WorkUnitState> states) throws IOException {
   }
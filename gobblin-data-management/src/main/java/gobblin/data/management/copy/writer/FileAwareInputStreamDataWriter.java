@@ -18,6 +18,7 @@ import gobblin.data.management.copy.CopySource;
 import gobblin.data.management.copy.CopyableDatasetMetadata;
 import gobblin.data.management.copy.CopyableFile;
 import gobblin.data.management.copy.FileAwareInputStream;
+import gobblin.data.management.copy.FileChunk;
 import gobblin.data.management.copy.OwnerAndPermission;
 import gobblin.data.management.copy.PreserveAttributes;
 import gobblin.util.PathUtils;
@@ -26,9 +27,12 @@ import gobblin.util.ForkOperatorUtils;
 import gobblin.util.HadoopUtils;
 import gobblin.util.WriterUtils;
 import gobblin.util.io.StreamUtils;
+import gobblin.util.io.ThrottledInputStream;
+import gobblin.util.limiter.BandwidthGovernor;
 import gobblin.writer.DataWriter;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
@@ -44,6 +48,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.io.Closer;
 
@@ -62,6 +67,8 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
   protected final Path outputDir;
   protected final Closer closer = Closer.create();
   protected CopyableDatasetMetadata copyableDatasetMetadata;
+  protected final Optional<FileChunk> chunk;
+  protected final Optional<BandwidthGovernor> bandwidthGovernor;
 
   public FileAwareInputStreamDataWriter(State state, int numBranches, int branchId) throws IOException {
     this.state = state;
@@ -78,6 +85,9 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
             numBranches, branchId)));
     this.copyableDatasetMetadata =
         CopyableDatasetMetadata.deserialize(state.getProp(CopySource.SERIALIZED_COPYABLE_DATASET));
+    this.chunk = FileChunk.fromState(state);
+    this.bandwidthGovernor = BandwidthGovernor.isEnabled(state) ?
+        Optional.of(this.closer.register(BandwidthGovernor.getInstance(state))) : Optional.<BandwidthGovernor> absent();
   }
 
   @Override
@@ -94,8 +104,13 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
         copyableFile.getOrigin().getBlockSize() : fs.getDefaultBlockSize(stagingFile);
     FSDataOutputStream os = this.fs.create(stagingFile, true, fs.getConf().getInt("io.file.buffer.size", 4096),
         replication, blockSize);
+    InputStream inputStream = fileAwareInputStream.getInputStream();
+    if (this.bandwidthGovernor.isPresent()) {
+      inputStream = new ThrottledInputStream(inputStream, this.bandwidthGovernor.get()
+          .getLimiter(Optional.of(this.copyableDatasetMetadata.getDatasetRoot().toString())));
+    }
     try {
-      this.bytesWritten.addAndGet(StreamUtils.copy(fileAwareInputStream.getInputStream(), os));
+      this.bytesWritten.addAndGet(StreamUtils.copy(inputStream, os));
       log.info("bytes written: " + this.bytesWritten.get() + " for file " + fileAwareInputStream.getFile());
     } finally {
       os.close();
@@ -119,11 +134,16 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
     }
   }
 
+  /**
+   * Get the path the file is written to in the task staging directory. If this task copies a {@link FileChunk}, this
+   * is the path of the chunk.
+   */
   protected Path getStagingFilePath(CopyableFile file) {
     CopyableFile.DatasetAndPartition datasetAndPartition =
         file.getDatasetAndPartition(this.copyableDatasetMetadata);
-    return new Path(new Path(this.stagingDir, datasetAndPartition.identifier()),
+    Path stagingFile = new Path(new Path(this.stagingDir, datasetAndPartition.identifier()),
         PathUtils.withoutLeadingSeparator(file.getDestination()));
+    return this.chunk.isPresent() ? this.chunk.get().getChunkPath(stagingFile) : stagingFile;
   }
 
   protected Path getOutputFilePath(CopyableFile file) {
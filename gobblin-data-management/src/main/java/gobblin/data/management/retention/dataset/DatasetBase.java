@@ -16,22 +16,36 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
 
 import gobblin.data.management.retention.policy.RetentionPolicy;
 import gobblin.data.management.retention.version.DatasetVersion;
 import gobblin.data.management.retention.version.finder.VersionFinder;
 import gobblin.data.management.trash.ProxiedTrash;
 import gobblin.data.management.trash.TrashFactory;
+import gobblin.util.ExecutorsUtils;
 import gobblin.util.PathUtils;
 
 
@@ -84,6 +98,14 @@ import gobblin.util.PathUtils;
  *  and delete directories that are now empty, up to but not including the dataset root.
  * </p>
  *
+ * <p>
+ *  Paths are moved to trash in parallel by up to {@link #DELETION_THREADS_KEY} threads. If
+ *  {@link #deleteEmptyDirectories}, a version whose paths are all the contents of a single directory is deleted by
+ *  moving that directory to trash in one operation. The directory is listed by the deletion thread right before it is
+ *  moved, and if it holds any other path, the paths of the version are moved to trash one by one instead. Each
+ *  distinct parent directory is checked for emptiness at most once, after all versions have been deleted.
+ * </p>
+ *
  * @param <T> type of {@link gobblin.data.management.retention.version.DatasetVersion} supported by this
  *           {@link CleanableDataset}.
  */
@@ -98,6 +120,8 @@ public abstract class DatasetBase<T extends DatasetVersion> implements Cleanable
   public static final String DELETE_EMPTY_DIRECTORIES_DEFAULT = Boolean.toString(true);
   public static final String DELETE_AS_OWNER_KEY = CONFIGURATION_KEY_PREFIX + "delete.as.owner";
   public static final String DELETE_AS_OWNER_DEFAULT = Boolean.toString(true);
+  public static final String DELETION_THREADS_KEY = CONFIGURATION_KEY_PREFIX + "deletion.threads";
+  public static final String DELETION_THREADS_DEFAULT = Integer.toString(10);
 
   protected final FileSystem fs;
   protected final ProxiedTrash trash;
@@ -105,6 +129,7 @@ public abstract class DatasetBase<T extends DatasetVersion> implements Cleanable
   protected final boolean skipTrash;
   protected final boolean deleteEmptyDirectories;
   protected final boolean deleteAsOwner;
+  protected final int deletionThreads;
 
   protected final Logger log;
 
@@ -153,6 +178,8 @@ public abstract class DatasetBase<T extends DatasetVersion> implements Cleanable
     }
     this.trash = TrashFactory.createProxiedTrash(this.fs, thisProperties);
     this.deleteAsOwner = deleteAsOwner;
+    this.deletionThreads =
+        Math.max(1, Integer.parseInt(properties.getProperty(DELETION_THREADS_KEY, DELETION_THREADS_DEFAULT)));
   }
 
   /**
@@ -190,45 +217,200 @@ public abstract class DatasetBase<T extends DatasetVersion> implements Cleanable
 
     Set<Path> possiblyEmptyDirectories = new HashSet<Path>();
 
+    Map<DatasetVersion, Optional<Path>> batchParentsByVersion = Maps.newLinkedHashMap();
+    int numDeletions = 0;
     for (DatasetVersion versionToDelete : deletableVersions) {
-      this.log.info("Deleting dataset version " + versionToDelete);
+      Optional<Path> batchParent = getBatchParent(versionToDelete.getPathsToDelete());
+      batchParentsByVersion.put(versionToDelete, batchParent);
+      numDeletions += batchParent.isPresent() ? 1 : versionToDelete.getPathsToDelete().size();
+    }
 
-      Set<Path> pathsToDelete = versionToDelete.getPathsToDelete();
-      this.log.info("Deleting paths: " + Arrays.toString(pathsToDelete.toArray()));
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(this.deletionThreads,
+        numDeletions)), ExecutorsUtils.newThreadFactory(Optional.of(this.log),
+        Optional.of("Dataset-deletion-pool-%d")));
+    try {
+      List<PendingDeletion> pendingDeletions = Lists.newArrayList();
+      List<PendingBatchedDeletion> pendingBatchedDeletions = Lists.newArrayList();
+      for (Map.Entry<DatasetVersion, Optional<Path>> entry : batchParentsByVersion.entrySet()) {
+        DatasetVersion version = entry.getKey();
+        this.log.info("Deleting dataset version " + version);
+        this.log.info("Deleting paths: " + Arrays.toString(version.getPathsToDelete().toArray()));
+
+        if (entry.getValue().isPresent()) {
+          pendingBatchedDeletions.add(new PendingBatchedDeletion(version, entry.getValue().get(),
+              submitBatchedDeletion(executor, entry.getValue().get(), version.getPathsToDelete())));
+        } else {
+          for (Path path : version.getPathsToDelete()) {
+            pendingDeletions.add(new PendingDeletion(version, path, submitDeletion(executor, path)));
+          }
+        }
+      }
 
-      boolean deletedAllPaths = true;
+      for (PendingBatchedDeletion pendingBatchedDeletion : pendingBatchedDeletions) {
+        DatasetVersion version = pendingBatchedDeletion.version;
+        Optional<Boolean> result = getResult(pendingBatchedDeletion.result, pendingBatchedDeletion.parent);
+        if (result.isPresent()) {
+          pendingDeletions.add(new PendingDeletion(version, pendingBatchedDeletion.parent,
+              Futures.immediateFuture(result.get())));
+        } else {
+          this.log.info(String.format("Directory %s holds paths other than those of dataset version %s, will delete "
+              + "them one by one", pendingBatchedDeletion.parent, version));
+          for (Path path : version.getPathsToDelete()) {
+            pendingDeletions.add(new PendingDeletion(version, path, submitDeletion(executor, path)));
+          }
+        }
+      }
+
+      Set<DatasetVersion> failedVersions = Sets.newLinkedHashSet();
+      for (PendingDeletion pendingDeletion : pendingDeletions) {
+        if (pendingDeletion.isSuccessful()) {
+          possiblyEmptyDirectories.add(pendingDeletion.path.getParent());
+        } else {
+          this.log.error("Failed to delete path " + pendingDeletion.path + " in dataset version "
+              + pendingDeletion.version);
+          failedVersions.add(pendingDeletion.version);
+        }
+      }
+      for (DatasetVersion failedVersion : failedVersions) {
+        this.log.error("Failed to delete some paths in dataset version " + failedVersion);
+      }
+    } finally {
+      ExecutorsUtils.shutdownExecutorService(executor, Optional.of(this.log));
+    }
 
-      for (Path path : pathsToDelete) {
+    if (this.deleteEmptyDirectories) {
+      deleteEmptyParentDirectories(datasetRoot(), possiblyEmptyDirectories);
+    }
+  }
 
-        boolean successfullyDeleted =
-            this.deleteAsOwner ? this.trash.moveToTrashAsOwner(path) : this.trash.moveToTrash(path);
+  /**
+   * If {@link #deleteEmptyDirectories}, and the given paths have the same parent directory under the dataset root,
+   * return that directory, which can be moved to trash in one operation if the paths are all its contents.
+   */
+  private Optional<Path> getBatchParent(Set<Path> pathsToDelete) {
+    if (!this.deleteEmptyDirectories || pathsToDelete.size() < 2) {
+      return Optional.absent();
+    }
 
-        if (successfullyDeleted) {
-          possiblyEmptyDirectories.add(path.getParent());
-        } else {
-          this.log.error("Failed to delete path " + path + " in dataset version " + versionToDelete);
-          deletedAllPaths = false;
+    Path parent = pathsToDelete.iterator().next().getParent();
+    for (Path path : pathsToDelete) {
+      if (!path.getParent().equals(parent)) {
+        return Optional.absent();
+      }
+    }
+    return isStrictlyUnderDatasetRoot(datasetRoot(), parent) ? Optional.of(parent) : Optional.<Path> absent();
+  }
+
+  private Future<Boolean> submitDeletion(ExecutorService executor, final Path path) {
+    return executor.submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws IOException {
+        return moveToTrash(path);
+      }
+    });
+  }
+
+  /**
+   * Submit moving the parent directory of the given paths to trash, which is done only if the directory holds exactly
+   * the given paths when it is listed. The result is absent if the directory holds any other path.
+   */
+  private Future<Optional<Boolean>> submitBatchedDeletion(ExecutorService executor, final Path parent,
+      final Set<Path> pathsToDelete) {
+    return executor.submit(new Callable<Optional<Boolean>>() {
+      @Override
+      public Optional<Boolean> call() throws IOException {
+        Set<String> names = Sets.newHashSet();
+        for (Path path : pathsToDelete) {
+          names.add(path.getName());
+        }
+        Set<String> contents = Sets.newHashSet();
+        for (FileStatus status : DatasetBase.this.fs.listStatus(parent)) {
+          contents.add(status.getPath().getName());
         }
+        return contents.equals(names) ? Optional.of(moveToTrash(parent)) : Optional.<Boolean> absent();
       }
+    });
+  }
+
+  private boolean moveToTrash(Path path) throws IOException {
+    return this.deleteAsOwner ? this.trash.moveToTrashAsOwner(path) : this.trash.moveToTrash(path);
+  }
 
-      if (!deletedAllPaths) {
-        this.log.error("Failed to delete some paths in dataset version " + versionToDelete);
+  /**
+   * Delete the given directories and their ancestors under the dataset root if they are empty. Directories are
+   * visited deepest first, so that each one is listed at most once, after all its deleted subdirectories.
+   */
+  private void deleteEmptyParentDirectories(Path datasetRoot, Set<Path> possiblyEmptyDirectories)
+      throws IOException {
+    PriorityQueue<Path> toCheck = new PriorityQueue<Path>(Math.max(1, possiblyEmptyDirectories.size()),
+        new Comparator<Path>() {
+          @Override
+          public int compare(Path path1, Path path2) {
+            return Integer.compare(path2.depth(), path1.depth());
+          }
+        });
+    toCheck.addAll(possiblyEmptyDirectories);
+
+    Set<Path> checked = Sets.newHashSet();
+    while (!toCheck.isEmpty()) {
+      Path parent = toCheck.poll();
+      if (checked.add(parent) && isStrictlyUnderDatasetRoot(datasetRoot, parent)
+          && this.fs.listStatus(parent).length == 0) {
+        this.fs.delete(parent, false);
+        toCheck.add(parent.getParent());
       }
+    }
+  }
+
+  private static boolean isStrictlyUnderDatasetRoot(Path datasetRoot, Path path) {
+    return path != null && PathUtils.isAncestor(datasetRoot, path) && !datasetRoot.equals(path);
+  }
 
+  /**
+   * A move to trash of a path of a dataset version that was submitted for execution.
+   */
+  private static class PendingDeletion {
+    private final DatasetVersion version;
+    private final Path path;
+    private final Future<Boolean> result;
+
+    private PendingDeletion(DatasetVersion version, Path path, Future<Boolean> result) {
+      this.version = version;
+      this.path = path;
+      this.result = result;
     }
 
-    if (this.deleteEmptyDirectories) {
-      for (Path parentDirectory : possiblyEmptyDirectories) {
-        deleteEmptyParentDirectories(datasetRoot(), parentDirectory);
-      }
+    private boolean isSuccessful() throws IOException {
+      return getResult(this.result, this.path);
     }
   }
 
-  private void deleteEmptyParentDirectories(Path datasetRoot, Path parent) throws IOException {
-    if (PathUtils.isAncestor(datasetRoot, parent) && !datasetRoot.equals(parent) &&
-        this.fs.listStatus(parent).length == 0) {
-      this.fs.delete(parent, false);
-      deleteEmptyParentDirectories(datasetRoot, parent.getParent());
+  /**
+   * A move to trash of the parent directory of all the paths of a dataset version that was submitted for execution.
+   */
+  private static class PendingBatchedDeletion {
+    private final DatasetVersion version;
+    private final Path parent;
+    private final Future<Optional<Boolean>> result;
+
+    private PendingBatchedDeletion(DatasetVersion version, Path parent, Future<Optional<Boolean>> result) {
+      this.version = version;
+      this.parent = parent;
+      this.result = result;
+    }
+  }
+
+  private static <V> V getResult(Future<V> result, Path path) throws IOException {
+    try {
+      return result.get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while deleting " + path, ie);
+    } catch (ExecutionException ee) {
+      if (ee.getCause() instanceof IOException) {
+        throw (IOException) ee.getCause();
+      }
+      throw new IOException("Failed to delete " + path, ee.getCause());
     }
   }
 
@@ -29,6 +29,7 @@ import gobblin.data.management.retention.dataset.CleanableDataset;
 import gobblin.data.management.retention.version.DatasetVersion;
 import gobblin.data.management.retention.version.TimestampedDatasetVersion;
 import gobblin.util.FileListUtils;
+import gobblin.util.ParallelFileLister;
 
 
 /**
@@ -42,9 +43,12 @@ public class FileLevelTimestampVersionFinder implements VersionFinder<Timestampe
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FileLevelTimestampVersionFinder.class);
   private final FileSystem fs;
+  private final int listingThreads;
 
   public FileLevelTimestampVersionFinder(FileSystem fs, Properties props) {
     this.fs = fs;
+    this.listingThreads = Integer.parseInt(props.getProperty(ParallelFileLister.PARALLEL_FILE_LISTER_THREADS_KEY,
+        Integer.toString(ParallelFileLister.DEFAULT_PARALLEL_FILE_LISTER_THREADS)));
   }
 
   @Override
@@ -56,7 +60,8 @@ public class FileLevelTimestampVersionFinder implements VersionFinder<Timestampe
   public Collection<TimestampedDatasetVersion> findDatasetVersions(CleanableDataset dataset) {
     try {
       List<TimestampedDatasetVersion> timestampedVersions = Lists.newArrayList();
-      for (FileStatus fileStatus : FileListUtils.listMostNestedPathRecursively(this.fs, dataset.datasetRoot())) {
+      for (FileStatus fileStatus : FileListUtils.listMostNestedPathRecursively(this.fs, dataset.datasetRoot(),
+          FileListUtils.NO_OP_PATH_FILTER, this.listingThreads)) {
         timestampedVersions.add(new TimestampedDatasetVersion(new DateTime(fileStatus.getModificationTime()),
             fileStatus.getPath()));
       }
@@ -16,10 +16,13 @@ import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.SourceState;
 import gobblin.data.management.dataset.DatasetUtils;
 import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
+import gobblin.util.JobLauncherUtils;
 
 import java.util.List;
 
+import org.apache.hadoop.fs.Path;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -98,4 +101,50 @@ public class CopySourceTest {
     Assert.assertNotNull(extractBelow);
 
   }
+
+  @Test
+  public void testPackWorkUnits() throws Exception {
+
+    SourceState state = new SourceState();
+
+    state.setProp(ConfigurationKeys.SOURCE_FILEBASED_FS_URI, "file:///");
+    state.setProp(ConfigurationKeys.WRITER_FILE_SYSTEM_URI, "file:///");
+    state.setProp(ConfigurationKeys.DATA_PUBLISHER_FINAL_DIR, "/target/dir");
+    state.setProp(DatasetUtils.DATASET_PROFILE_CLASS_KEY,
+        TestCopyablePartitionableDatasedFinder.class.getCanonicalName());
+    // Every test file is 10 bytes long, so each multi work unit gets at most two files
+    state.setProp(CopySource.MAX_BYTES_PER_MULTI_WORK_UNIT_KEY, 25);
+
+    CopySource source = new CopySource();
+
+    List<WorkUnit> workunits = source.getWorkunits(state);
+
+    // Each of the two partitions of five files is packed into three multi work units
+    Assert.assertEquals(workunits.size(), 6);
+
+    for (WorkUnit workUnit : workunits) {
+      Assert.assertTrue(workUnit instanceof MultiWorkUnit);
+      List<WorkUnit> innerWorkUnits = ((MultiWorkUnit) workUnit).getWorkUnits();
+      Assert.assertTrue(innerWorkUnits.size() <= 2);
+      Assert.assertTrue(workUnit.contains(CopySource.SERIALIZED_COPYABLE_DATASET));
+
+      Extract extract = innerWorkUnits.get(0).getExtract();
+      for (WorkUnit innerWorkUnit : innerWorkUnits) {
+        // Neither the job properties nor the dataset metadata are copied into the inner work units
+        Assert.assertFalse(innerWorkUnit.contains(ConfigurationKeys.DATA_PUBLISHER_FINAL_DIR));
+        Assert.assertFalse(innerWorkUnit.contains(CopySource.SERIALIZED_COPYABLE_DATASET));
+        // A multi work unit never spans more than one partition
+        Assert.assertEquals(innerWorkUnit.getExtract(), extract);
+      }
+    }
+
+    List<WorkUnit> flattenedWorkUnits = JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(workunits);
+    Assert.assertEquals(flattenedWorkUnits.size(), TestCopyableDataset.FILE_COUNT);
+    for (WorkUnit workUnit : flattenedWorkUnits) {
+      CopyableFile copyableFile = CopySource.deserializeCopyableFiles(workUnit).get(0);
+      Assert.assertTrue(copyableFile.getOrigin().getPath().toString().startsWith(TestCopyableDataset.ORIGIN_PREFIX));
+      Assert.assertEquals(CopySource.deserializeCopyableDataset(workUnit).getDatasetRoot(),
+          new Path(TestCopyableDataset.ORIGIN_PREFIX));
+    }
+  }
 }
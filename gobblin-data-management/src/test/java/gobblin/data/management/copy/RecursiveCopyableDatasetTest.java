@@ -12,20 +12,26 @@
 
 package gobblin.data.management.copy;
 
+import gobblin.data.management.dataset.DatasetUtils;
 import gobblin.util.PathUtils;
+import gobblin.util.filters.TarGpgPathFilter;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 
 
 public class RecursiveCopyableDatasetTest {
@@ -62,4 +68,95 @@ public class RecursiveCopyableDatasetTest {
     }
 
   }
+
+  @Test
+  public void testIncrementalCopy() throws Exception {
+    FileSystem localFs = FileSystem.getLocal(new Configuration());
+    Path testDir = new Path(Files.createTempDir().getAbsolutePath());
+    try {
+      Path source = new Path(testDir, "source");
+      Path target = new Path(testDir, "target");
+
+      writeFile(localFs, new Path(source, "dir1/unchanged"), "unchanged");
+      writeFile(localFs, new Path(source, "dir1/changed"), "new content");
+      writeFile(localFs, new Path(source, "dir2/new"), "new");
+
+      writeFile(localFs, new Path(target, "dir1/unchanged"), "unchanged");
+      writeFile(localFs, new Path(target, "dir1/changed"), "old");
+      writeFile(localFs, new Path(target, "dir2/deleted"), "deleted");
+
+      Properties properties = new Properties();
+      properties.setProperty(RecursiveCopyableDataset.UPDATE_KEY, Boolean.TRUE.toString());
+      properties.setProperty(RecursiveCopyableDataset.DELETE_KEY, Boolean.TRUE.toString());
+      RecursiveCopyableDataset dataset = new RecursiveCopyableDataset(localFs, source, properties);
+
+      CopyConfiguration copyConfiguration = new CopyConfiguration(target,
+          PreserveAttributes.fromMnemonicString(""), new CopyContext());
+      Collection<CopyableFile> files = dataset.getCopyableFiles(localFs, copyConfiguration);
+
+      Set<Path> relativeDestinations = Sets.newHashSet();
+      for (CopyableFile file : files) {
+        relativeDestinations.add(file.getRelativeDestination());
+      }
+      Assert.assertEquals(relativeDestinations, Sets.newHashSet(new Path("dir1/changed"), new Path("dir2/new")));
+
+      // The files to delete are computed from the listings taken for the copy, so a file written at the target since
+      // then is not deleted
+      writeFile(localFs, new Path(target, "dir2/writtenLater"), "written later");
+
+      // Deletes are only planned, they happen at publish time
+      Assert.assertTrue(localFs.exists(new Path(target, "dir2/deleted")));
+      Assert.assertEquals(toRelativePaths(dataset.getFilesToDelete(localFs, copyConfiguration), target),
+          Sets.newHashSet(new Path("dir2/deleted")));
+    } finally {
+      localFs.delete(testDir, true);
+    }
+  }
+
+  @Test
+  public void testGetFilesToDeleteAppliesPathFilter() throws Exception {
+    FileSystem localFs = FileSystem.getLocal(new Configuration());
+    Path testDir = new Path(Files.createTempDir().getAbsolutePath());
+    try {
+      Path source = new Path(testDir, "source");
+      Path target = new Path(testDir, "target");
+
+      writeFile(localFs, new Path(source, "kept.tar.gz.gpg"), "kept");
+      writeFile(localFs, new Path(target, "kept.tar.gz.gpg"), "kept");
+      writeFile(localFs, new Path(target, "stale.tar.gz.gpg"), "stale");
+      writeFile(localFs, new Path(target, "unfiltered.txt"), "unfiltered");
+
+      Properties properties = new Properties();
+      properties.setProperty(DatasetUtils.CONFIGURATION_KEY_PREFIX + "path.filter.class",
+          TarGpgPathFilter.class.getName());
+      properties.setProperty(RecursiveCopyableDataset.DELETE_KEY, Boolean.TRUE.toString());
+      RecursiveCopyableDataset dataset = new RecursiveCopyableDataset(localFs, source, properties);
+
+      CopyConfiguration copyConfiguration = new CopyConfiguration(target,
+          PreserveAttributes.fromMnemonicString(""), new CopyContext());
+      Assert.assertEquals(toRelativePaths(dataset.getFilesToDelete(localFs, copyConfiguration), target),
+          Sets.newHashSet(new Path("stale.tar.gz.gpg")));
+
+      properties.setProperty(RecursiveCopyableDataset.DELETE_KEY, Boolean.FALSE.toString());
+      Assert.assertTrue(new RecursiveCopyableDataset(localFs, source, properties)
+          .getFilesToDelete(localFs, copyConfiguration).isEmpty());
+    } finally {
+      localFs.delete(testDir, true);
+    }
+  }
+
+  private static Set<Path> toRelativePaths(Collection<Path> paths, Path root) {
+    Set<Path> relativePaths = Sets.newHashSet();
+    for (Path path : paths) {
+      relativePaths.add(PathUtils.relativizePath(PathUtils.getPathWithoutSchemeAndAuthority(path),
+          PathUtils.getPathWithoutSchemeAndAuthority(root)));
+    }
+    return relativePaths;
+  }
+
+  private static void writeFile(FileSystem fs, Path path, String content) throws IOException {
+    try (FSDataOutputStream out = fs.create(path)) {
+      out.write(content.getBytes(Charsets.UTF_8));
+    }
+  }
 }
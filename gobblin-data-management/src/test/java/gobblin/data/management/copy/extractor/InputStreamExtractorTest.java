@@ -15,6 +15,7 @@ import gobblin.data.management.copy.CopyConfiguration;
 import gobblin.data.management.copy.CopyContext;
 import gobblin.data.management.copy.CopyableFile;
 import gobblin.data.management.copy.FileAwareInputStream;
+import gobblin.data.management.copy.FileChunk;
 import gobblin.data.management.copy.PreserveAttributes;
 
 import java.io.IOException;
@@ -29,6 +30,7 @@ import org.apache.hadoop.fs.Path;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 
 
@@ -54,6 +56,18 @@ public class InputStreamExtractorTest {
     Assert.assertEquals(IOUtils.toString(fileAwareInputStream.getInputStream()), "second");
   }
 
+  @Test
+  public void testReadChunk() throws Exception {
+    List<CopyableFile> files = Lists.newArrayList(getTestCopyableFile("inputStreamExtractorTest/second.txt"));
+
+    FileAwareInputStreamExtractor extractor = new FileAwareInputStreamExtractor(
+        FileSystem.getLocal(new Configuration()), files.iterator(), Optional.of(new FileChunk(1, 3, 2, 3)));
+
+    FileAwareInputStream fileAwareInputStream = extractor.readRecord(null);
+    Assert.assertEquals(IOUtils.toString(fileAwareInputStream.getInputStream()), "con");
+    Assert.assertNull(extractor.readRecord(null));
+  }
+
   private CopyableFile getTestCopyableFile(String resourcePath) throws IOException {
     String filePath = getClass().getClassLoader().getResource(resourcePath).getFile();
     FileStatus status = new FileStatus(0l, false, 0, 0l, 0l, new Path(filePath));
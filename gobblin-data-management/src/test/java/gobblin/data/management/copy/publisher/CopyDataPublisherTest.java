@@ -20,17 +20,21 @@ import gobblin.data.management.copy.CopySource;
 import gobblin.data.management.copy.CopyableDataset;
 import gobblin.data.management.copy.CopyableDatasetMetadata;
 import gobblin.data.management.copy.CopyableFile;
+import gobblin.data.management.copy.FileChunk;
 import gobblin.data.management.copy.PreserveAttributes;
 import gobblin.data.management.copy.TestCopyableDataset;
+import gobblin.data.management.trash.Trash;
 import gobblin.util.PathUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -39,8 +43,10 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
 
 
@@ -52,6 +58,8 @@ import com.google.common.io.Closer;
  * - Two datasets multiple files
  * - Two datasets one of them failed to publish
  * - datasets with overlapping dataset roots
+ * - fileSet with a split file one of whose chunks failed
+ * - deletes of a dataset published only after all its files
  *
  */
 @Slf4j
@@ -184,6 +192,180 @@ public class CopyDataPublisherTest {
 
   }
 
+  @Test
+  public void testPublishSplitFile() throws Exception {
+
+    State state = getTestState("testPublishSplitFile");
+
+    Path testMethodTempPath = new Path(testClassTempPath, "testPublishSplitFile");
+    Path targetRoot = new Path(testMethodTempPath, "datasetTargetPath");
+
+    CopyDataPublisher copyDataPublisher = closer.register(new CopyDataPublisher(state));
+
+    String content = "0123456789";
+    FileStatus origin = new FileStatus(content.length(), false, 0, 0, 0, new Path("/origin/file"));
+    CopyableFile copyableFile = CopyableFile.builder(fs, origin, new Path("/origin"),
+        new CopyConfiguration(targetRoot, PreserveAttributes.fromMnemonicString(""), new CopyContext())).build();
+    CopyableDatasetMetadata metadata = new CopyableDatasetMetadata(new TestCopyableDataset(new Path("/origin")),
+        targetRoot);
+
+    Path writerOutputFile = new Path(new Path(new Path(state.getProp(ConfigurationKeys.WRITER_OUTPUT_DIR)),
+        copyableFile.getDatasetAndPartition(metadata).identifier()),
+        PathUtils.withoutLeadingSeparator(copyableFile.getDestination()));
+
+    List<WorkUnitState> workUnitStates = Lists.newArrayList();
+    for (FileChunk chunk : FileChunk.split(content.length(), 4)) {
+      try (FSDataOutputStream out = fs.create(chunk.getChunkPath(writerOutputFile))) {
+        out.write(content.substring((int) chunk.getOffset(), (int) (chunk.getOffset() + chunk.getLength()))
+            .getBytes(Charsets.UTF_8));
+      }
+
+      WorkUnitState wus = new WorkUnitState();
+      CopySource.serializeCopyableDataset(wus, metadata);
+      CopySource.serializeCopyableFiles(wus, Lists.newArrayList(copyableFile));
+      chunk.toState(wus);
+      wus.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+      workUnitStates.add(wus);
+    }
+    Assert.assertEquals(workUnitStates.size(), 3);
+
+    copyDataPublisher.publishData(workUnitStates);
+
+    Path publishedFile = new Path(targetRoot, "file");
+    try (InputStream in = fs.open(publishedFile)) {
+      Assert.assertEquals(new String(ByteStreams.toByteArray(in), Charsets.UTF_8), content);
+    }
+    for (WorkUnitState wus : workUnitStates) {
+      Assert.assertEquals(wus.getWorkingState(), WorkUnitState.WorkingState.COMMITTED);
+    }
+  }
+
+  @Test
+  public void testNoPublishIfChunkFailed() throws Exception {
+
+    State state = getTestState("testNoPublishIfChunkFailed");
+
+    Path testMethodTempPath = new Path(testClassTempPath, "testNoPublishIfChunkFailed");
+    Path targetRoot = new Path(testMethodTempPath, "datasetTargetPath");
+
+    CopyDataPublisher copyDataPublisher = closer.register(new CopyDataPublisher(state));
+
+    String content = "0123456789";
+    CopyConfiguration copyConfiguration =
+        new CopyConfiguration(targetRoot, PreserveAttributes.fromMnemonicString(""), new CopyContext());
+    CopyableFile splitFile = CopyableFile.builder(fs,
+        new FileStatus(content.length(), false, 0, 0, 0, new Path("/origin/file")), new Path("/origin"),
+        copyConfiguration).build();
+    CopyableFile otherFile = CopyableFile.builder(fs, new FileStatus(0, false, 0, 0, 0, new Path("/origin/other")),
+        new Path("/origin"), copyConfiguration).build();
+    CopyableDatasetMetadata metadata = new CopyableDatasetMetadata(new TestCopyableDataset(new Path("/origin")),
+        targetRoot);
+
+    Path fileSetOutputPath = new Path(new Path(state.getProp(ConfigurationKeys.WRITER_OUTPUT_DIR)),
+        splitFile.getDatasetAndPartition(metadata).identifier());
+    Path writerOutputFile = new Path(fileSetOutputPath, PathUtils.withoutLeadingSeparator(splitFile.getDestination()));
+
+    List<WorkUnitState> workUnitStates = Lists.newArrayList();
+    for (FileChunk chunk : FileChunk.split(content.length(), 4)) {
+      try (FSDataOutputStream out = fs.create(chunk.getChunkPath(writerOutputFile))) {
+        out.write(content.substring((int) chunk.getOffset(), (int) (chunk.getOffset() + chunk.getLength()))
+            .getBytes(Charsets.UTF_8));
+      }
+
+      WorkUnitState wus = new WorkUnitState();
+      CopySource.serializeCopyableDataset(wus, metadata);
+      CopySource.serializeCopyableFiles(wus, Lists.newArrayList(splitFile));
+      chunk.toState(wus);
+      wus.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+      workUnitStates.add(wus);
+    }
+    workUnitStates.get(1).setWorkingState(WorkUnitState.WorkingState.FAILED);
+
+    fs.create(new Path(fileSetOutputPath, PathUtils.withoutLeadingSeparator(otherFile.getDestination()))).close();
+    WorkUnitState otherWus = new WorkUnitState();
+    CopySource.serializeCopyableDataset(otherWus, metadata);
+    CopySource.serializeCopyableFiles(otherWus, Lists.newArrayList(otherFile));
+    otherWus.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+    workUnitStates.add(otherWus);
+
+    try {
+      copyDataPublisher.publishData(workUnitStates);
+      Assert.fail("Publishing should fail as not all chunks of the split file were copied");
+    } catch (IOException ioe) {
+      // Expected
+    }
+
+    Assert.assertFalse(fs.exists(targetRoot));
+    for (WorkUnitState wus : workUnitStates) {
+      Assert.assertEquals(wus.getWorkingState(), WorkUnitState.WorkingState.FAILED);
+    }
+  }
+
+  @Test
+  public void testPublishDeletes() throws Exception {
+
+    State state = getTestState("testPublishDeletes");
+    Path testMethodTempPath = new Path(testClassTempPath, "testPublishDeletes");
+    Path trashLocation = new Path(testMethodTempPath, "trash");
+    state.setProp(Trash.TRASH_LOCATION_KEY, trashLocation);
+
+    CopyDataPublisher copyDataPublisher = closer.register(new CopyDataPublisher(state));
+
+    TestDatasetManager datasetManager =
+        new TestDatasetManager(testMethodTempPath, state, "datasetTargetPath", ImmutableList.of("a/b"));
+    datasetManager.createDatasetFiles();
+    Path staleFile = datasetManager.createTargetFile("stale");
+
+    List<WorkUnitState> workUnitStates = datasetManager.getWorkUnitStates();
+    workUnitStates.add(datasetManager.getDeletesWorkUnitState(staleFile));
+    for (WorkUnitState wus : workUnitStates) {
+      wus.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+    }
+
+    copyDataPublisher.publishData(workUnitStates);
+
+    datasetManager.verifyExists();
+    Assert.assertFalse(fs.exists(staleFile));
+    Assert.assertTrue(fs.exists(PathUtils.mergePaths(trashLocation, staleFile)));
+    for (WorkUnitState wus : workUnitStates) {
+      Assert.assertEquals(wus.getWorkingState(), WorkUnitState.WorkingState.COMMITTED);
+    }
+  }
+
+  @Test
+  public void testNoDeletesIfCopyFailed() throws Exception {
+
+    State state = getTestState("testNoDeletesIfCopyFailed");
+    Path testMethodTempPath = new Path(testClassTempPath, "testNoDeletesIfCopyFailed");
+    state.setProp(Trash.TRASH_LOCATION_KEY, new Path(testMethodTempPath, "trash"));
+
+    CopyDataPublisher copyDataPublisher = closer.register(new CopyDataPublisher(state));
+
+    TestDatasetManager datasetManager =
+        new TestDatasetManager(testMethodTempPath, state, "datasetTargetPath", ImmutableList.of("a/b"));
+    datasetManager.createDatasetFiles();
+    Path staleFile = datasetManager.createTargetFile("stale");
+
+    List<WorkUnitState> workUnitStates = datasetManager.getWorkUnitStates();
+    for (WorkUnitState wus : workUnitStates) {
+      wus.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+    }
+    workUnitStates.get(0).setWorkingState(WorkUnitState.WorkingState.FAILED);
+    WorkUnitState deletesWorkUnitState = datasetManager.getDeletesWorkUnitState(staleFile);
+    deletesWorkUnitState.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+    workUnitStates.add(deletesWorkUnitState);
+
+    try {
+      copyDataPublisher.publishData(workUnitStates);
+      Assert.fail("Publishing should fail as not all files of the dataset were copied");
+    } catch (IOException ioe) {
+      // Expected
+    }
+
+    Assert.assertTrue(fs.exists(staleFile));
+    Assert.assertEquals(deletesWorkUnitState.getWorkingState(), WorkUnitState.WorkingState.SUCCESSFUL);
+  }
+
   @BeforeClass
   public void setup() throws Exception {
     fs = FileSystem.getLocal(new Configuration());
@@ -267,6 +449,21 @@ public class CopyDataPublisherTest {
       return workUnitStates;
     }
 
+    WorkUnitState getDeletesWorkUnitState(Path... filesToDelete) throws IOException {
+      WorkUnitState wus = new WorkUnitState();
+      CopySource.serializeCopyableDataset(wus, metadata);
+      CopySource.serializeCopyableFiles(wus, Lists.<CopyableFile> newArrayList());
+      CopySource.serializeFilesToDelete(wus, Lists.newArrayList(filesToDelete));
+      return wus;
+    }
+
+    Path createTargetFile(String relativePath) throws IOException {
+      Path targetFile = new Path(metadata.getDatasetTargetRoot(), relativePath);
+      fs.mkdirs(targetFile.getParent());
+      fs.create(targetFile).close();
+      return targetFile;
+    }
+
     void verifyExists() throws IOException {
       for (String fileRelativePath : relativeFilePaths) {
         Path filePublishPath = new Path(metadata.getDatasetTargetRoot(), fileRelativePath);
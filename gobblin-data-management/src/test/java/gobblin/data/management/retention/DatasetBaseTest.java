@@ -15,6 +15,7 @@ package gobblin.data.management.retention;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -24,6 +25,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import static org.mockito.Mockito.*;
 
@@ -155,6 +157,83 @@ public class DatasetBaseTest {
 
   }
 
+  @Test
+  public void testDeleteVersionDirectoryInOneOperation() throws IOException {
+    FileSystem fs = mock(FileSystem.class);
+
+    Path datasetRoot = new Path("/test/dataset");
+    Path version1Dir = new Path(datasetRoot, "parent/version1");
+    final Path version2Dir = new Path(datasetRoot, "parent/version2");
+
+    DatasetVersion dataset1Version1 = new StringDatasetVersion("version1", version1Dir);
+    DatasetVersion dataset1Version2 = new StringDatasetVersion("version2", version2Dir) {
+      @Override
+      public Set<Path> getPathsToDelete() {
+        return Sets.newHashSet(new Path(version2Dir, "file1"), new Path(version2Dir, "file2"));
+      }
+    };
+
+    when(fs.delete(any(Path.class), anyBoolean())).thenReturn(true);
+    when(fs.listStatus(any(Path.class))).thenReturn(new FileStatus[]{});
+    when(fs.listStatus(version2Dir)).thenReturn(new FileStatus[]{
+        new FileStatus(0, false, 0, 0, 0, new Path(version2Dir, "file1")),
+        new FileStatus(0, false, 0, 0, 0, new Path(version2Dir, "file2"))});
+
+    DatasetImpl dataset = new DatasetImpl(fs, false, false, true, false, datasetRoot);
+
+    when(dataset.versionFinder.findDatasetVersions(dataset)).
+        thenReturn(Lists.newArrayList(dataset1Version1, dataset1Version2));
+
+    dataset.clean();
+
+    Assert.assertEquals(dataset.getTrash().getDeleteOperations().size(), 1);
+    Assert.assertEquals(dataset.getTrash().getDeleteOperations().get(0).getPath(), version2Dir);
+    verify(fs, times(1)).listStatus(version2Dir);
+    verify(fs, times(1)).listStatus(version2Dir.getParent());
+    verify(fs).delete(version2Dir.getParent(), false);
+    verify(fs, times(1)).delete(any(Path.class), eq(false));
+  }
+
+  @Test
+  public void testDeletePathsOneByOneIfVersionDirectoryHoldsOtherPaths() throws IOException {
+    FileSystem fs = mock(FileSystem.class);
+
+    Path datasetRoot = new Path("/test/dataset");
+    Path version1Dir = new Path(datasetRoot, "parent/version1");
+    final Path version2Dir = new Path(datasetRoot, "parent/version2");
+
+    DatasetVersion dataset1Version1 = new StringDatasetVersion("version1", version1Dir);
+    DatasetVersion dataset1Version2 = new StringDatasetVersion("version2", version2Dir) {
+      @Override
+      public Set<Path> getPathsToDelete() {
+        return Sets.newHashSet(new Path(version2Dir, "file1"), new Path(version2Dir, "file2"));
+      }
+    };
+
+    when(fs.delete(any(Path.class), anyBoolean())).thenReturn(true);
+    when(fs.listStatus(any(Path.class))).thenReturn(new FileStatus[]{});
+    // A file written to the version directory after the version was found is not deleted
+    when(fs.listStatus(version2Dir)).thenReturn(new FileStatus[]{
+        new FileStatus(0, false, 0, 0, 0, new Path(version2Dir, "file1")),
+        new FileStatus(0, false, 0, 0, 0, new Path(version2Dir, "file2")),
+        new FileStatus(0, false, 0, 0, 0, new Path(version2Dir, "writtenLater"))});
+
+    DatasetImpl dataset = new DatasetImpl(fs, false, false, true, false, datasetRoot);
+
+    when(dataset.versionFinder.findDatasetVersions(dataset)).
+        thenReturn(Lists.newArrayList(dataset1Version1, dataset1Version2));
+
+    dataset.clean();
+
+    Assert.assertEquals(dataset.getTrash().getDeleteOperations().size(), 2);
+    Set<Path> deletedPaths = Sets.newHashSet();
+    for (TestTrash.DeleteOperation operation : dataset.getTrash().getDeleteOperations()) {
+      deletedPaths.add(operation.getPath());
+    }
+    Assert.assertEquals(deletedPaths, dataset1Version2.getPathsToDelete());
+    verify(fs, never()).delete(any(Path.class), anyBoolean());
+  }
+
   private class DeleteFirstRetentionPolicy implements RetentionPolicy<StringDatasetVersion> {
     @Override
     public Class<? extends DatasetVersion> versionClass() {
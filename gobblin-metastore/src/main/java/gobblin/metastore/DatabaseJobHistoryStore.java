@@ -23,8 +23,11 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.AbstractMap;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import javax.sql.DataSource;
@@ -32,17 +35,27 @@ import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.BaseEncoding;
 import com.google.inject.Inject;
 
 import com.linkedin.data.template.StringMap;
 
 import gobblin.rest.JobExecutionInfo;
+import gobblin.rest.JobExecutionInfoArray;
 import gobblin.rest.JobExecutionQuery;
+import gobblin.rest.JobExecutionQueryResult;
 import gobblin.rest.JobStateEnum;
 import gobblin.rest.LauncherTypeEnum;
 import gobblin.rest.Metric;
@@ -119,16 +132,23 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
           + "WHERE j.job_id=t.job_id AND %s GROUP BY j.job_name";
 
   private static final String JOB_ID_QUERY_BY_JOB_NAME_STATEMENT_TEMPLATE =
-      "SELECT job_id FROM gobblin_job_executions WHERE job_name=?";
+      "SELECT job_id,created_ts FROM gobblin_job_executions WHERE job_name=?";
+
+  // Filter of job executions of a job name that come after a given one, in the order of the query by job name
+  private static final String JOB_EXECUTION_AFTER_POSITION_FILTER =
+      "(created_ts<? OR (created_ts=? AND job_id<?))";
 
   private static final String JOB_EXECUTION_QUERY_BY_JOB_ID_STATEMENT_TEMPLATE =
       "SELECT * FROM gobblin_job_executions WHERE job_id=?";
 
+  private static final String JOB_EXECUTION_QUERY_BY_JOB_IDS_STATEMENT_TEMPLATE =
+      "SELECT * FROM gobblin_job_executions WHERE job_id IN (%s)";
+
   private static final String TASK_EXECUTION_EXIST_QUERY_STATEMENT_TEMPLATE =
       "SELECT * FROM gobblin_task_executions WHERE task_id=?";
 
   private static final String TASK_EXECUTION_QUERY_STATEMENT_TEMPLATE =
-      "SELECT * FROM gobblin_task_executions WHERE job_id=?";
+      "SELECT * FROM gobblin_task_executions WHERE job_id IN (%s)";
 
   private static final String JOB_METRIC_EXIST_QUERY_STATEMENT_TEMPLATE =
       "SELECT * FROM gobblin_job_metrics " + "WHERE job_id=? AND metric_group=? AND metric_name=? AND metric_type=?";
@@ -137,10 +157,11 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
       "SELECT * FROM gobblin_task_metrics " + "WHERE task_id=? AND metric_group=? AND metric_name=? AND metric_type=?";
 
   private static final String JOB_METRIC_QUERY_STATEMENT_TEMPLATE =
-      "SELECT metric_group,metric_name,metric_type,metric_value FROM gobblin_job_metrics WHERE job_id=?";
+      "SELECT metric_group,metric_name,metric_type,metric_value,job_id FROM gobblin_job_metrics WHERE job_id IN (%s)";
 
   private static final String TASK_METRIC_QUERY_STATEMENT_TEMPLATE =
-      "SELECT metric_group,metric_name,metric_type,metric_value FROM gobblin_task_metrics WHERE task_id=?";
+      "SELECT m.metric_group,m.metric_name,m.metric_type,m.metric_value,m.task_id "
+          + "FROM gobblin_task_metrics m, gobblin_task_executions t WHERE m.task_id=t.task_id AND t.job_id IN (%s)";
 
   private static final String JOB_PROPERTY_EXIST_QUERY_STATEMENT_TEMPLATE =
       "SELECT * FROM gobblin_job_properties WHERE job_id=? AND property_key=?";
@@ -149,10 +170,14 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
       "SELECT * FROM gobblin_task_properties WHERE task_id=? AND property_key=?";
 
   private static final String JOB_PROPERTY_QUERY_STATEMENT_TEMPLATE =
-      "SELECT property_key, property_value FROM gobblin_job_properties WHERE job_id=?";
+      "SELECT property_key,property_value,job_id FROM gobblin_job_properties WHERE job_id IN (%s)";
 
   private static final String TASK_PROPERTY_QUERY_STATEMENT_TEMPLATE =
-      "SELECT property_key, property_value FROM gobblin_task_properties WHERE task_id=?";
+      "SELECT p.property_key,p.property_value,p.task_id "
+          + "FROM gobblin_task_properties p, gobblin_task_executions t WHERE p.task_id=t.task_id AND t.job_id IN (%s)";
+
+  // Maximum number of job IDs in the IN list of a query statement
+  private static final int MAX_JOB_IDS_PER_QUERY = 500;
 
   private static final Timestamp DEFAULT_TIMESTAMP = new Timestamp(1000L);
 
@@ -258,33 +283,71 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
   }
 
   @Override
-  public synchronized List<JobExecutionInfo> get(JobExecutionQuery query)
+  public List<JobExecutionInfo> get(JobExecutionQuery query)
       throws IOException {
-    Preconditions.checkArgument(query.hasId() && query.hasIdType());
+    return get(Collections.singletonList(query)).get(query).getJobExecutions();
+  }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   *   The job executions of all the queries are looked up first, and then loaded together with a fixed number of
+   *   statements per table filter, independent of the numbers of queries, job executions and task executions.
+   *   Reads are not serialized with each other or with writes, since each call uses its own connection.
+   * </p>
+   */
+  @Override
+  public Map<JobExecutionQuery, JobExecutionQueryResult> get(Collection<JobExecutionQuery> queries)
+      throws IOException {
     Optional<Connection> connectionOptional = Optional.absent();
     try {
       connectionOptional = Optional.of(getConnection());
       Connection connection = connectionOptional.get();
 
-      switch (query.getIdType()) {
-        case JOB_ID:
-          List<JobExecutionInfo> jobExecutionInfos = Lists.newArrayList();
-          JobExecutionInfo jobExecutionInfo =
-              processQueryById(connection, query.getId().getString(), Optional.<String>absent());
+      Map<JobExecutionQuery, QueryPage> pages = Maps.newLinkedHashMap();
+      Map<Optional<String>, Set<String>> jobIdsByTableFilter = Maps.newHashMap();
+      for (JobExecutionQuery query : queries) {
+        QueryPage page = findJobExecutions(connection, query);
+        pages.put(query, page);
+        if (!jobIdsByTableFilter.containsKey(page.tableFilter)) {
+          jobIdsByTableFilter.put(page.tableFilter, Sets.<String>newLinkedHashSet());
+        }
+        jobIdsByTableFilter.get(page.tableFilter).addAll(page.jobIds);
+      }
+
+      Map<Optional<String>, Map<String, JobExecutionInfo>> jobExecutionInfosByTableFilter = Maps.newHashMap();
+      for (Map.Entry<Optional<String>, Set<String>> entry : jobIdsByTableFilter.entrySet()) {
+        jobExecutionInfosByTableFilter
+            .put(entry.getKey(), loadJobExecutionInfos(connection, entry.getValue(), entry.getKey()));
+      }
+
+      Map<JobExecutionQuery, JobExecutionQueryResult> results = Maps.newLinkedHashMap();
+      Set<JobExecutionInfo> addedJobExecutionInfos = Sets.newIdentityHashSet();
+      for (Map.Entry<JobExecutionQuery, QueryPage> entry : pages.entrySet()) {
+        QueryPage page = entry.getValue();
+        Map<String, JobExecutionInfo> jobExecutionInfos = jobExecutionInfosByTableFilter.get(page.tableFilter);
+        JobExecutionInfoArray jobExecutionInfoArray = new JobExecutionInfoArray();
+        for (String jobId : page.jobIds) {
+          JobExecutionInfo jobExecutionInfo = jobExecutionInfos.get(jobId);
           if (jobExecutionInfo != null) {
-            jobExecutionInfos.add(jobExecutionInfo);
+            // A job execution in the results of more than one query is copied so results do not share records
+            jobExecutionInfoArray.add(addedJobExecutionInfos.add(jobExecutionInfo)
+                ? jobExecutionInfo : copy(jobExecutionInfo));
           }
-          return jobExecutionInfos;
-        case JOB_NAME:
-          return processQueryByJobName(connection, query.getId().getString(), query, Optional.<String>absent());
-        case TABLE:
-          return processQueryByTable(connection, query);
-        default:
-          throw new IOException("Unsupported query ID type: " + query.getIdType().name());
+        }
+
+        JobExecutionQueryResult result = new JobExecutionQueryResult();
+        result.setJobExecutions(jobExecutionInfoArray);
+        if (page.nextCursor.isPresent()) {
+          result.setNextCursor(page.nextCursor.get());
+        }
+        results.put(entry.getKey(), result);
       }
+
+      return results;
     } catch (SQLException se) {
-      LOGGER.error("Failed to execute query: " + query, se);
+      LOGGER.error("Failed to execute queries: " + queries, se);
       throw new IOException(se);
     } finally {
       if (connectionOptional.isPresent()) {
@@ -493,90 +556,104 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
     updateStatement.executeUpdate();
   }
 
-  private JobExecutionInfo processQueryById(Connection connection, String jobId, Optional<String> tableFilter)
-      throws SQLException {
-    Preconditions.checkArgument(!Strings.isNullOrEmpty(jobId));
-
-    // Query job execution information
-    PreparedStatement jobExecutionQueryStatement =
-        connection.prepareStatement(JOB_EXECUTION_QUERY_BY_JOB_ID_STATEMENT_TEMPLATE);
-    jobExecutionQueryStatement.setString(1, jobId);
-    ResultSet jobRs = jobExecutionQueryStatement.executeQuery();
-    if (!jobRs.next()) {
-      return null;
-    }
+  /**
+   * Find the IDs of the job executions in the page of the result of a given query.
+   */
+  private QueryPage findJobExecutions(Connection connection, JobExecutionQuery query)
+      throws IOException, SQLException {
+    Preconditions.checkArgument(query.hasId() && query.hasIdType());
 
-    JobExecutionInfo jobExecutionInfo = resultSetToJobExecutionInfo(jobRs);
+    switch (query.getIdType()) {
+      case JOB_ID:
+        return new QueryPage(ImmutableList.of(query.getId().getString()), Optional.<String>absent(),
+            Optional.<String>absent());
+      case JOB_NAME:
+        return findJobExecutionsByJobNames(connection, ImmutableList.of(query.getId().getString()), query,
+            Optional.<String>absent());
+      case TABLE:
+        Preconditions.checkArgument(query.getId().isTable());
+        String tableFilter = constructTableFilter(query.getId().getTable());
+
+        // Query job names by table definition
+        List<String> jobNames = Lists.newArrayList();
+        try (PreparedStatement queryStatement =
+            connection.prepareStatement(String.format(JOB_NAME_QUERY_BY_TABLE_STATEMENT_TEMPLATE, tableFilter));
+            ResultSet rs = queryStatement.executeQuery()) {
+          while (rs.next()) {
+            jobNames.add(rs.getString(1));
+          }
+        }
+        // Job names are sorted here so they are in the same order as cursors compare them
+        Collections.sort(jobNames);
 
-    // Query job metrics
-    PreparedStatement jobMetricQueryStatement = connection.prepareStatement(JOB_METRIC_QUERY_STATEMENT_TEMPLATE);
-    jobMetricQueryStatement.setString(1, jobRs.getString(2));
-    ResultSet jobMetricRs = jobMetricQueryStatement.executeQuery();
-    MetricArray jobMetrics = new MetricArray();
-    while (jobMetricRs.next()) {
-      jobMetrics.add(resultSetToMetric(jobMetricRs));
+        return findJobExecutionsByJobNames(connection, jobNames, query, Optional.of(tableFilter));
+      default:
+        throw new IOException("Unsupported query ID type: " + query.getIdType().name());
     }
-    // Add job metrics
-    jobExecutionInfo.setMetrics(jobMetrics);
+  }
 
-    // Query job properties
-    PreparedStatement jobPropertiesQueryStatement = connection.prepareStatement(JOB_PROPERTY_QUERY_STATEMENT_TEMPLATE);
-    jobPropertiesQueryStatement.setString(1, jobExecutionInfo.getJobId());
-    ResultSet jobPropertiesRs = jobPropertiesQueryStatement.executeQuery();
-    Map<String, String> jobProperties = Maps.newHashMap();
-    while (jobPropertiesRs.next()) {
-      Map.Entry<String, String> property = resultSetToProperty(jobPropertiesRs);
-      jobProperties.put(property.getKey(), property.getValue());
-    }
-    // Add job properties
-    jobExecutionInfo.setJobProperties(new StringMap(jobProperties));
+  /**
+   * Find the IDs of the job executions of the given job names in the page of the result of a given query.
+   *
+   * <p>
+   *   Job executions are ordered by job name and then from the latest to the earliest. At most as many job
+   *   executions of each job name as the query limit are in the result, and the page continues after the
+   *   job execution the cursor of the query points to, if there is one.
+   * </p>
+   */
+  private QueryPage findJobExecutionsByJobNames(Connection connection, List<String> jobNames,
+      JobExecutionQuery query, Optional<String> tableFilter)
+      throws IOException, SQLException {
+    int limit = query.getLimit();
+    int pageSize = query.hasPageSize() ? query.getPageSize() : 0;
+    Optional<JobExecutionPosition> cursor = query.hasCursor() ?
+        Optional.of(JobExecutionPosition.fromCursor(query.getCursor())) : Optional.<JobExecutionPosition>absent();
+
+    List<JobExecutionPosition> positions = Lists.newArrayList();
+    for (String jobName : jobNames) {
+      Optional<JobExecutionPosition> after = Optional.absent();
+      if (cursor.isPresent()) {
+        int order = jobName.compareTo(cursor.get().jobName);
+        if (order < 0) {
+          // Job executions of this job name are all in previous pages
+          continue;
+        }
+        if (order == 0) {
+          after = cursor;
+        }
+      }
 
-    // Query task execution information
-    TaskExecutionInfoArray taskExecutionInfos = new TaskExecutionInfoArray();
-    String taskExecutionQuery = TASK_EXECUTION_QUERY_STATEMENT_TEMPLATE;
-    // Add table filter if applicable
-    if (tableFilter.isPresent() && !Strings.isNullOrEmpty(tableFilter.get())) {
-      taskExecutionQuery += " AND " + tableFilter.get();
-    }
-    PreparedStatement taskExecutionQueryStatement = connection.prepareStatement(taskExecutionQuery);
-    taskExecutionQueryStatement.setString(1, jobId);
-    ResultSet taskRs = taskExecutionQueryStatement.executeQuery();
-    while (taskRs.next()) {
-      TaskExecutionInfo taskExecutionInfo = resultSetToTaskExecutionInfo(taskRs);
-      // Query task metrics for each task execution record
-      PreparedStatement taskMetricQueryStatement = connection.prepareStatement(TASK_METRIC_QUERY_STATEMENT_TEMPLATE);
-      taskMetricQueryStatement.setString(1, taskExecutionInfo.getTaskId());
-      ResultSet taskMetricRs = taskMetricQueryStatement.executeQuery();
-      MetricArray taskMetrics = new MetricArray();
-      while (taskMetricRs.next()) {
-        taskMetrics.add(resultSetToMetric(taskMetricRs));
+      // Find one more job execution than fits in the page to tell if there is a next page
+      int maxRows = pageSize > 0 ? pageSize + 1 - positions.size() : 0;
+      if (limit > 0) {
+        int remaining = limit - (after.isPresent() ? after.get().rank : 0);
+        if (remaining <= 0) {
+          continue;
+        }
+        maxRows = maxRows > 0 ? Math.min(maxRows, remaining) : remaining;
       }
-      // Add task metrics
-      taskExecutionInfo.setMetrics(taskMetrics);
-      taskExecutionInfos.add(taskExecutionInfo);
-
-      // Query task properties
-      PreparedStatement taskPropertiesQueryStatement =
-          connection.prepareStatement(TASK_PROPERTY_QUERY_STATEMENT_TEMPLATE);
-      taskPropertiesQueryStatement.setString(1, taskExecutionInfo.getTaskId());
-      ResultSet taskPropertiesRs = taskPropertiesQueryStatement.executeQuery();
-      Map<String, String> taskProperties = Maps.newHashMap();
-      while (taskPropertiesRs.next()) {
-        Map.Entry<String, String> property = resultSetToProperty(taskPropertiesRs);
-        taskProperties.put(property.getKey(), property.getValue());
+
+      positions.addAll(findJobExecutionsByJobName(connection, jobName, query, after, maxRows));
+      if (pageSize > 0 && positions.size() > pageSize) {
+        break;
       }
-      // Add job properties
-      taskExecutionInfo.setTaskProperties(new StringMap(taskProperties));
-      // Add task properties
     }
-    // Add task execution information
-    jobExecutionInfo.setTaskExecutions(taskExecutionInfos);
 
-    return jobExecutionInfo;
+    Optional<String> nextCursor = Optional.absent();
+    if (pageSize > 0 && positions.size() > pageSize) {
+      positions = positions.subList(0, pageSize);
+      nextCursor = Optional.of(positions.get(pageSize - 1).toCursor());
+    }
+
+    List<String> jobIds = Lists.newArrayList();
+    for (JobExecutionPosition position : positions) {
+      jobIds.add(position.jobId);
+    }
+    return new QueryPage(jobIds, tableFilter, nextCursor);
   }
 
-  private List<JobExecutionInfo> processQueryByJobName(Connection connection, String jobName, JobExecutionQuery query,
-      Optional<String> tableFilter)
+  private List<JobExecutionPosition> findJobExecutionsByJobName(Connection connection, String jobName,
+      JobExecutionQuery query, Optional<JobExecutionPosition> after, int maxRows)
       throws SQLException {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(jobName));
 
@@ -594,45 +671,181 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
         throw new SQLException(pe);
       }
     }
+    if (after.isPresent()) {
+      jobIdByNameQuery += " AND " + JOB_EXECUTION_AFTER_POSITION_FILTER;
+    }
 
     // Add ORDER BY
-    jobIdByNameQuery += " ORDER BY created_ts DESC";
+    jobIdByNameQuery += " ORDER BY created_ts DESC, job_id DESC";
 
-    List<JobExecutionInfo> jobExecutionInfos = Lists.newArrayList();
     // Query job IDs by the given job name
-    PreparedStatement queryStatement = connection.prepareStatement(jobIdByNameQuery);
-    int limit = query.getLimit();
-    // Add LIMIT if applicable
-    if (limit > 0) {
-      queryStatement.setMaxRows(limit);
-    }
-    queryStatement.setString(1, jobName);
-    ResultSet rs = queryStatement.executeQuery();
-    while (rs.next()) {
-      jobExecutionInfos.add(processQueryById(connection, rs.getString(1), tableFilter));
+    try (PreparedStatement queryStatement = connection.prepareStatement(jobIdByNameQuery)) {
+      // Add LIMIT if applicable
+      if (maxRows > 0) {
+        queryStatement.setMaxRows(maxRows);
+      }
+      int index = 0;
+      int rank = 0;
+      queryStatement.setString(++index, jobName);
+      if (after.isPresent()) {
+        queryStatement.setTimestamp(++index, after.get().createdTs);
+        queryStatement.setTimestamp(++index, after.get().createdTs);
+        queryStatement.setString(++index, after.get().jobId);
+        rank = after.get().rank;
+      }
+
+      List<JobExecutionPosition> positions = Lists.newArrayList();
+      try (ResultSet rs = queryStatement.executeQuery()) {
+        while (rs.next()) {
+          positions.add(new JobExecutionPosition(jobName, rs.getString(1), rs.getTimestamp(2), ++rank));
+        }
+      }
+      return positions;
     }
+  }
 
+  /**
+   * Load the job executions with the given IDs, together with their metrics, properties and task executions.
+   *
+   * @return a map from job IDs to job executions, which does not have the IDs of job executions that do not exist
+   */
+  private Map<String, JobExecutionInfo> loadJobExecutionInfos(Connection connection, Collection<String> jobIds,
+      Optional<String> tableFilter)
+      throws SQLException {
+    Map<String, JobExecutionInfo> jobExecutionInfos = Maps.newHashMap();
+    for (List<String> jobIdBatch : Iterables.partition(jobIds, MAX_JOB_IDS_PER_QUERY)) {
+      loadJobExecutionInfos(connection, jobIdBatch, tableFilter, jobExecutionInfos);
+    }
     return jobExecutionInfos;
   }
 
-  private List<JobExecutionInfo> processQueryByTable(Connection connection, JobExecutionQuery query)
+  private void loadJobExecutionInfos(Connection connection, List<String> jobIds, Optional<String> tableFilter,
+      Map<String, JobExecutionInfo> jobExecutionInfos)
       throws SQLException {
-    Preconditions.checkArgument(query.getId().isTable());
+    String jobIdList = Joiner.on(',').join(Collections.nCopies(jobIds.size(), "?"));
+    // Add table filter if applicable
+    String taskFilter =
+        tableFilter.isPresent() && !Strings.isNullOrEmpty(tableFilter.get()) ? " AND " + tableFilter.get() : "";
 
-    String tableFilter = constructTableFilter(query.getId().getTable());
+    // Query job metrics
+    Map<String, MetricArray> jobMetrics = Maps.newHashMap();
+    try (PreparedStatement jobMetricStatement = prepareQueryByJobIds(connection,
+        String.format(JOB_METRIC_QUERY_STATEMENT_TEMPLATE, jobIdList), jobIds);
+        ResultSet jobMetricRs = jobMetricStatement.executeQuery()) {
+      while (jobMetricRs.next()) {
+        addMetric(jobMetrics, jobMetricRs.getString(5), resultSetToMetric(jobMetricRs));
+      }
+    }
+
+    // Query job properties
+    Map<String, Map<String, String>> jobProperties = Maps.newHashMap();
+    try (PreparedStatement jobPropertiesStatement = prepareQueryByJobIds(connection,
+        String.format(JOB_PROPERTY_QUERY_STATEMENT_TEMPLATE, jobIdList), jobIds);
+        ResultSet jobPropertiesRs = jobPropertiesStatement.executeQuery()) {
+      while (jobPropertiesRs.next()) {
+        addProperty(jobProperties, jobPropertiesRs.getString(3), resultSetToProperty(jobPropertiesRs));
+      }
+    }
 
-    // Construct the query for job names by table definition
-    String jobNameByTableQuery = String.format(JOB_NAME_QUERY_BY_TABLE_STATEMENT_TEMPLATE, tableFilter);
+    // Query task metrics
+    Map<String, MetricArray> taskMetrics = Maps.newHashMap();
+    try (PreparedStatement taskMetricStatement = prepareQueryByJobIds(connection,
+        String.format(TASK_METRIC_QUERY_STATEMENT_TEMPLATE, jobIdList) + taskFilter, jobIds);
+        ResultSet taskMetricRs = taskMetricStatement.executeQuery()) {
+      while (taskMetricRs.next()) {
+        addMetric(taskMetrics, taskMetricRs.getString(5), resultSetToMetric(taskMetricRs));
+      }
+    }
 
-    List<JobExecutionInfo> jobExecutionInfos = Lists.newArrayList();
-    // Query job names by table definition
-    PreparedStatement queryStatement = connection.prepareStatement(jobNameByTableQuery);
-    ResultSet rs = queryStatement.executeQuery();
-    while (rs.next()) {
-      jobExecutionInfos.addAll(processQueryByJobName(connection, rs.getString(1), query, Optional.of(tableFilter)));
+    // Query task properties
+    Map<String, Map<String, String>> taskProperties = Maps.newHashMap();
+    try (PreparedStatement taskPropertiesStatement = prepareQueryByJobIds(connection,
+        String.format(TASK_PROPERTY_QUERY_STATEMENT_TEMPLATE, jobIdList) + taskFilter, jobIds);
+        ResultSet taskPropertiesRs = taskPropertiesStatement.executeQuery()) {
+      while (taskPropertiesRs.next()) {
+        addProperty(taskProperties, taskPropertiesRs.getString(3), resultSetToProperty(taskPropertiesRs));
+      }
     }
 
-    return jobExecutionInfos;
+    // Query task execution information
+    Map<String, TaskExecutionInfoArray> taskExecutionInfos = Maps.newHashMap();
+    try (PreparedStatement taskStatement = prepareQueryByJobIds(connection,
+        String.format(TASK_EXECUTION_QUERY_STATEMENT_TEMPLATE, jobIdList) + taskFilter, jobIds);
+        ResultSet taskRs = taskStatement.executeQuery()) {
+      while (taskRs.next()) {
+        TaskExecutionInfo taskExecutionInfo = resultSetToTaskExecutionInfo(taskRs);
+        String taskId = taskExecutionInfo.getTaskId();
+        // Add task metrics
+        taskExecutionInfo.setMetrics(taskMetrics.containsKey(taskId) ? taskMetrics.get(taskId) : new MetricArray());
+        // Add task properties
+        taskExecutionInfo.setTaskProperties(new StringMap(taskProperties.containsKey(taskId) ?
+            taskProperties.get(taskId) : ImmutableMap.<String, String>of()));
+        if (!taskExecutionInfos.containsKey(taskExecutionInfo.getJobId())) {
+          taskExecutionInfos.put(taskExecutionInfo.getJobId(), new TaskExecutionInfoArray());
+        }
+        taskExecutionInfos.get(taskExecutionInfo.getJobId()).add(taskExecutionInfo);
+      }
+    }
+
+    // Query job execution information
+    try (PreparedStatement jobStatement = prepareQueryByJobIds(connection,
+        String.format(JOB_EXECUTION_QUERY_BY_JOB_IDS_STATEMENT_TEMPLATE, jobIdList), jobIds);
+        ResultSet jobRs = jobStatement.executeQuery()) {
+      while (jobRs.next()) {
+        JobExecutionInfo jobExecutionInfo = resultSetToJobExecutionInfo(jobRs);
+        String jobId = jobExecutionInfo.getJobId();
+        // Add job metrics
+        jobExecutionInfo.setMetrics(jobMetrics.containsKey(jobId) ? jobMetrics.get(jobId) : new MetricArray());
+        // Add job properties
+        jobExecutionInfo.setJobProperties(new StringMap(jobProperties.containsKey(jobId) ?
+            jobProperties.get(jobId) : ImmutableMap.<String, String>of()));
+        // Add task execution information
+        jobExecutionInfo.setTaskExecutions(taskExecutionInfos.containsKey(jobId) ?
+            taskExecutionInfos.get(jobId) : new TaskExecutionInfoArray());
+        jobExecutionInfos.put(jobId, jobExecutionInfo);
+      }
+    }
+  }
+
+  /**
+   * Prepare a query with the given job IDs as its parameters. The caller is responsible for closing the statement.
+   */
+  private static PreparedStatement prepareQueryByJobIds(Connection connection, String query, List<String> jobIds)
+      throws SQLException {
+    PreparedStatement queryStatement = connection.prepareStatement(query);
+    try {
+      int index = 0;
+      for (String jobId : jobIds) {
+        queryStatement.setString(++index, jobId);
+      }
+      return queryStatement;
+    } catch (SQLException se) {
+      queryStatement.close();
+      throw se;
+    }
+  }
+
+  private static void addMetric(Map<String, MetricArray> metrics, String id, Metric metric) {
+    if (!metrics.containsKey(id)) {
+      metrics.put(id, new MetricArray());
+    }
+    metrics.get(id).add(metric);
+  }
+
+  private static void addProperty(Map<String, Map<String, String>> properties, String id,
+      Map.Entry<String, String> property) {
+    if (!properties.containsKey(id)) {
+      properties.put(id, Maps.<String, String>newHashMap());
+    }
+    properties.get(id).put(property.getKey(), property.getValue());
+  }
+
+  private static JobExecutionInfo copy(JobExecutionInfo jobExecutionInfo) {
+    try {
+      return jobExecutionInfo.copy();
+    } catch (CloneNotSupportedException cnse) {
+      throw new IllegalStateException(cnse);
+    }
   }
 
   private JobExecutionInfo resultSetToJobExecutionInfo(ResultSet rs)
@@ -788,4 +1001,62 @@ public class DatabaseJobHistoryStore implements JobHistoryStore {
   private static Calendar getCalendarUTCInstance() {
     return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
   }
+
+  /**
+   * IDs of the job executions in a page of the result of a query.
+   */
+  private static class QueryPage {
+
+    private final List<String> jobIds;
+    // Filter of the task executions of the job executions
+    private final Optional<String> tableFilter;
+    private final Optional<String> nextCursor;
+
+    private QueryPage(List<String> jobIds, Optional<String> tableFilter, Optional<String> nextCursor) {
+      this.jobIds = jobIds;
+      this.tableFilter = tableFilter;
+      this.nextCursor = nextCursor;
+    }
+  }
+
+  /**
+   * Position of a job execution in the result of a query, which is what a cursor encodes.
+   */
+  private static class JobExecutionPosition {
+
+    private final String jobName;
+    private final String jobId;
+    private final Timestamp createdTs;
+    // Number of job executions of the job name in the query result up to and including this one
+    private final int rank;
+
+    private JobExecutionPosition(String jobName, String jobId, Timestamp createdTs, int rank) {
+      this.jobName = jobName;
+      this.jobId = jobId;
+      this.createdTs = createdTs;
+      this.rank = rank;
+    }
+
+    private String toCursor() {
+      String position = Joiner.on('\n').join(this.jobName, this.jobId, this.createdTs.getTime(),
+          this.createdTs.getNanos(), this.rank);
+      return BaseEncoding.base64Url().encode(position.getBytes(Charsets.UTF_8));
+    }
+
+    private static JobExecutionPosition fromCursor(String cursor)
+        throws IOException {
+      try {
+        List<String> fields =
+            Splitter.on('\n').splitToList(new String(BaseEncoding.base64Url().decode(cursor), Charsets.UTF_8));
+        if (fields.size() != 5) {
+          throw new IOException("Invalid cursor: " + cursor);
+        }
+        Timestamp createdTs = new Timestamp(Long.parseLong(fields.get(2)));
+        createdTs.setNanos(Integer.parseInt(fields.get(3)));
+        return new JobExecutionPosition(fields.get(0), fields.get(1), createdTs, Integer.parseInt(fields.get(4)));
+      } catch (IllegalArgumentException iae) {
+        throw new IOException("Invalid cursor: " + cursor, iae);
+      }
+    }
+  }
 }
@@ -14,10 +14,13 @@ package gobblin.metastore;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import gobblin.rest.JobExecutionInfo;
 import gobblin.rest.JobExecutionQuery;
+import gobblin.rest.JobExecutionQueryResult;
 
 
 /**
@@ -45,4 +48,20 @@ public interface JobHistoryStore extends Closeable {
    */
   public List<JobExecutionInfo> get(JobExecutionQuery query)
       throws IOException;
+
+  /**
+   * Get the results of a collection of queries, which are executed together.
+   *
+   * <p>
+   *   The result of a query with a positive {@code pageSize} has at most that many {@link JobExecutionInfo}
+   *   records, and a {@code nextCursor} if there are more, which is set as the {@code cursor} of the query
+   *   to get the next page.
+   * </p>
+   *
+   * @param queries a collection of {@link JobExecutionQuery} instances
+   * @return a map from each query to its result
+   * @throws IOException if any of the queries fails
+   */
+  public Map<JobExecutionQuery, JobExecutionQueryResult> get(Collection<JobExecutionQuery> queries)
+      throws IOException;
 }
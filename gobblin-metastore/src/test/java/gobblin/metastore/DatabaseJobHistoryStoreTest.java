@@ -31,6 +31,7 @@ import org.testng.annotations.Test;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.Files;
@@ -40,7 +41,9 @@ import com.google.inject.Injector;
 import com.linkedin.data.template.StringMap;
 
 import gobblin.rest.JobExecutionInfo;
+import gobblin.rest.JobExecutionInfoArray;
 import gobblin.rest.JobExecutionQuery;
+import gobblin.rest.JobExecutionQueryResult;
 import gobblin.rest.JobStateEnum;
 import gobblin.rest.LauncherTypeEnum;
 import gobblin.rest.Metric;
@@ -171,6 +174,70 @@ public class DatabaseJobHistoryStoreTest {
         this.expectedJobExecutionInfos.get(1).getTaskExecutions().get(1).getTable());
   }
 
+  @Test(dependsOnMethods = {"testUpdate"})
+  public void testBatchQuery()
+      throws IOException {
+    JobExecutionQuery queryByJobId = new JobExecutionQuery();
+    queryByJobId.setIdType(QueryIdTypeEnum.JOB_ID);
+    queryByJobId.setId(JobExecutionQuery.Id.create(this.expectedJobExecutionInfos.get(1).getJobId()));
+
+    JobExecutionQuery queryByJobName = new JobExecutionQuery();
+    queryByJobName.setIdType(QueryIdTypeEnum.JOB_NAME);
+    queryByJobName.setId(JobExecutionQuery.Id.create(this.expectedJobExecutionInfos.get(0).getJobName()));
+
+    JobExecutionQuery queryByUnknownJobId = new JobExecutionQuery();
+    queryByUnknownJobId.setIdType(QueryIdTypeEnum.JOB_ID);
+    queryByUnknownJobId.setId(JobExecutionQuery.Id.create("UnknownJob_0"));
+
+    Map<JobExecutionQuery, JobExecutionQueryResult> results =
+        this.jobHistoryStore.get(ImmutableList.of(queryByJobId, queryByJobName, queryByUnknownJobId));
+    Assert.assertEquals(results.size(), 3);
+
+    JobExecutionInfoArray result = results.get(queryByJobId).getJobExecutions();
+    Assert.assertEquals(result.size(), 1);
+    assertJobExecution(result.get(0), this.expectedJobExecutionInfos.get(1));
+    Assert.assertFalse(results.get(queryByJobId).hasNextCursor());
+
+    result = results.get(queryByJobName).getJobExecutions();
+    Assert.assertEquals(result.size(), 1);
+    assertJobExecution(result.get(0), this.expectedJobExecutionInfos.get(0));
+
+    Assert.assertTrue(results.get(queryByUnknownJobId).getJobExecutions().isEmpty());
+  }
+
+  @Test(dependsOnMethods = {"testUpdate"})
+  public void testPagedQueryByTable()
+      throws IOException {
+    JobExecutionQuery queryByTable = new JobExecutionQuery();
+    queryByTable.setIdType(QueryIdTypeEnum.TABLE);
+    queryByTable.setId(
+        JobExecutionQuery.Id.create(this.expectedJobExecutionInfos.get(0).getTaskExecutions().get(0).getTable()));
+    queryByTable.setPageSize(1);
+
+    JobExecutionQueryResult result = this.jobHistoryStore.get(ImmutableList.of(queryByTable)).get(queryByTable);
+    Assert.assertEquals(result.getJobExecutions().size(), 1);
+    Assert.assertEquals(result.getJobExecutions().get(0).getJobId(), this.expectedJobExecutionInfos.get(0).getJobId());
+    Assert.assertTrue(result.hasNextCursor());
+
+    queryByTable.setCursor(result.getNextCursor());
+    result = this.jobHistoryStore.get(ImmutableList.of(queryByTable)).get(queryByTable);
+    Assert.assertEquals(result.getJobExecutions().size(), 1);
+    Assert.assertEquals(result.getJobExecutions().get(0).getJobId(), this.expectedJobExecutionInfos.get(1).getJobId());
+    Assert.assertEquals(result.getJobExecutions().get(0).getTaskExecutions().size(), 1);
+    Assert.assertFalse(result.hasNextCursor());
+  }
+
+  @Test(dependsOnMethods = {"testUpdate"}, expectedExceptions = IOException.class)
+  public void testQueryWithInvalidCursor()
+      throws IOException {
+    JobExecutionQuery queryByJobName = new JobExecutionQuery();
+    queryByJobName.setIdType(QueryIdTypeEnum.JOB_NAME);
+    queryByJobName.setId(JobExecutionQuery.Id.create(this.expectedJobExecutionInfos.get(0).getJobName()));
+    queryByJobName.setCursor("invalid");
+
+    this.jobHistoryStore.get(queryByJobName);
+  }
+
   @AfterClass
   public void tearDown()
       throws Exception {
@@ -20,6 +20,8 @@ import javax.inject.Named;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 
 import com.linkedin.restli.common.ComplexResourceKey;
@@ -33,6 +35,13 @@ import gobblin.metastore.JobHistoryStore;
 /**
  * A Rest.li resource for serving queries of Gobblin job executions.
  *
+ * <p>
+ *   Query results can be cached in a bounded cache whose entries expire a configurable amount of time after they
+ *   are added, and the queries of a batch request that are not cached are executed together. The cache is disabled
+ *   by default, since a cached result does not reflect updates of the job executions it contains, such as running
+ *   jobs completing, until it expires. It is enabled by setting {@code rest.server.query.cache.max.size}.
+ * </p>
+ *
  * @author Yinan Li
  */
 @RestLiCollection(name = "jobExecutions", namespace = "gobblin.rest")
@@ -44,25 +53,13 @@ public class JobExecutionInfoResource extends ComplexKeyResourceTemplate<JobExec
   @Named("jobHistoryStore")
   private JobHistoryStore jobHistoryStore;
 
+  @Inject
+  @Named("jobExecutionQueryResultCache")
+  private Cache<JobExecutionQuery, JobExecutionQueryResult> queryResultCache;
+
   @Override
   public JobExecutionQueryResult get(ComplexResourceKey<JobExecutionQuery, EmptyRecord> key) {
-    JobExecutionQuery query = key.getKey();
-
-    JobExecutionInfoArray jobExecutionInfos = new JobExecutionInfoArray();
-    try {
-      for (JobExecutionInfo jobExecutionInfo : this.jobHistoryStore.get(query)) {
-        jobExecutionInfos.add(jobExecutionInfo);
-      }
-    } catch (Throwable t) {
-      LOGGER
-          .error(String.format("Failed to execute query [id = %s, type = %s]", query.getId(), query.getIdType().name()),
-              t);
-      return null;
-    }
-
-    JobExecutionQueryResult result = new JobExecutionQueryResult();
-    result.setJobExecutions(jobExecutionInfos);
-    return result;
+    return batchGet(ImmutableSet.of(key)).get(key);
   }
 
   @Override
@@ -70,11 +67,28 @@ public class JobExecutionInfoResource extends ComplexKeyResourceTemplate<JobExec
       Set<ComplexResourceKey<JobExecutionQuery, EmptyRecord>> keys) {
 
     Map<ComplexResourceKey<JobExecutionQuery, EmptyRecord>, JobExecutionQueryResult> results = Maps.newHashMap();
+    Map<JobExecutionQuery, ComplexResourceKey<JobExecutionQuery, EmptyRecord>> uncachedQueries = Maps.newHashMap();
     for (ComplexResourceKey<JobExecutionQuery, EmptyRecord> key : keys) {
-      JobExecutionQueryResult result = get(key);
+      JobExecutionQueryResult result = this.queryResultCache.getIfPresent(key.getKey());
       if (result != null) {
-        results.put(key, get(key));
+        results.put(key, result);
+      } else {
+        uncachedQueries.put(key.getKey(), key);
+      }
+    }
+
+    if (uncachedQueries.isEmpty()) {
+      return results;
+    }
+
+    try {
+      for (Map.Entry<JobExecutionQuery, JobExecutionQueryResult> entry : this.jobHistoryStore
+          .get(uncachedQueries.keySet()).entrySet()) {
+        this.queryResultCache.put(entry.getKey(), entry.getValue());
+        results.put(uncachedQueries.get(entry.getKey()), entry.getValue());
       }
+    } catch (Throwable t) {
+      LOGGER.error("Failed to execute queries " + uncachedQueries.keySet(), t);
     }
 
     return results;
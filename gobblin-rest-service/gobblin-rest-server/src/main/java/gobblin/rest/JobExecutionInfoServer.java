@@ -14,11 +14,13 @@ package gobblin.rest;
 
 import java.net.URI;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -76,6 +78,14 @@ public class JobExecutionInfoServer extends AbstractIdleService {
     JobHistoryStore jobHistoryStore = injector.getInstance(JobHistoryStore.class);
     SimpleBeanProvider beanProvider = new SimpleBeanProvider();
     beanProvider.add("jobHistoryStore", jobHistoryStore);
+    long queryCacheMaxSize = Long.parseLong(properties.getProperty(
+        ConfigurationKeys.REST_SERVER_QUERY_CACHE_MAX_SIZE_KEY,
+        ConfigurationKeys.DEFAULT_REST_SERVER_QUERY_CACHE_MAX_SIZE));
+    long queryCacheTtlSeconds = Long.parseLong(properties.getProperty(
+        ConfigurationKeys.REST_SERVER_QUERY_CACHE_TTL_SECONDS_KEY,
+        ConfigurationKeys.DEFAULT_REST_SERVER_QUERY_CACHE_TTL_SECONDS));
+    beanProvider.add("jobExecutionQueryResultCache", CacheBuilder.newBuilder().maximumSize(queryCacheMaxSize)
+        .expireAfterWrite(queryCacheTtlSeconds, TimeUnit.SECONDS).<JobExecutionQuery, JobExecutionQueryResult>build());
     // Use InjectMockResourceFactory to keep this Spring free
     ResourceFactory factory = new InjectMockResourceFactory(beanProvider);
 
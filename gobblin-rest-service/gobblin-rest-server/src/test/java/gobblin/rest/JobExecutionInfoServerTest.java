@@ -61,6 +61,7 @@ import gobblin.metastore.MetaStoreModule;
  */
 @Test(groups = { "gobblin.rest" })
 public class JobExecutionInfoServerTest {
+  private Properties defaultProperties;
   private JobHistoryStore jobHistoryStore;
   private JobExecutionInfoClient client;
   private JobExecutionInfoServer server;
@@ -73,10 +74,16 @@ public class JobExecutionInfoServerTest {
     properties.setProperty(ConfigurationKeys.JOB_HISTORY_STORE_JDBC_DRIVER_KEY, "org.apache.derby.jdbc.EmbeddedDriver");
     properties.setProperty(ConfigurationKeys.JOB_HISTORY_STORE_URL_KEY, "jdbc:derby:memory:gobblin;create=true");
 
+    prepareJobHistoryStoreDatabase(properties);
+    this.defaultProperties = new Properties();
+    this.defaultProperties.putAll(properties);
+
     String randomPort = chooseRandomPort();
     properties.setProperty(ConfigurationKeys.REST_SERVER_PORT_KEY, randomPort);
+    // The query result cache is disabled by default
+    properties.setProperty(ConfigurationKeys.REST_SERVER_QUERY_CACHE_MAX_SIZE_KEY, "1000");
+    properties.setProperty(ConfigurationKeys.REST_SERVER_QUERY_CACHE_TTL_SECONDS_KEY, "600");
 
-    prepareJobHistoryStoreDatabase(properties);
     Injector injector = Guice.createInjector(new MetaStoreModule(properties));
     this.jobHistoryStore = injector.getInstance(JobHistoryStore.class);
 
@@ -141,6 +148,50 @@ public class JobExecutionInfoServerTest {
     }
   }
 
+  @Test
+  public void testGetIsCached() throws Exception {
+    JobExecutionInfo expected3 = createJobExecutionInfo(3);
+    this.jobHistoryStore.put(expected3);
+
+    JobExecutionQuery queryByJobId = new JobExecutionQuery();
+    queryByJobId.setIdType(QueryIdTypeEnum.JOB_ID);
+    queryByJobId.setId(JobExecutionQuery.Id.create(expected3.getJobId()));
+    Assert.assertEquals(this.client.get(queryByJobId).getJobExecutions().get(0).getState(), JobStateEnum.PENDING);
+
+    // The update is not visible until the cached query result expires
+    expected3.setState(JobStateEnum.COMMITTED);
+    this.jobHistoryStore.put(expected3);
+    Assert.assertEquals(this.client.get(queryByJobId).getJobExecutions().get(0).getState(), JobStateEnum.PENDING);
+  }
+
+  @Test
+  public void testGetIsNotCachedByDefault() throws Exception {
+    String randomPort = chooseRandomPort();
+    Properties properties = new Properties();
+    properties.putAll(this.defaultProperties);
+    properties.setProperty(ConfigurationKeys.REST_SERVER_PORT_KEY, randomPort);
+    JobExecutionInfoServer server = new JobExecutionInfoServer(properties);
+    JobExecutionInfoClient client = new JobExecutionInfoClient(String.format("http://%s:%s/", "localhost", randomPort));
+    server.startUp();
+    try {
+      JobExecutionInfo expected4 = createJobExecutionInfo(4);
+      expected4.setState(JobStateEnum.RUNNING);
+      this.jobHistoryStore.put(expected4);
+
+      JobExecutionQuery queryByJobId = new JobExecutionQuery();
+      queryByJobId.setIdType(QueryIdTypeEnum.JOB_ID);
+      queryByJobId.setId(JobExecutionQuery.Id.create(expected4.getJobId()));
+      Assert.assertEquals(client.get(queryByJobId).getJobExecutions().get(0).getState(), JobStateEnum.RUNNING);
+
+      expected4.setState(JobStateEnum.COMMITTED);
+      this.jobHistoryStore.put(expected4);
+      Assert.assertEquals(client.get(queryByJobId).getJobExecutions().get(0).getState(), JobStateEnum.COMMITTED);
+    } finally {
+      client.close();
+      server.shutDown();
+    }
+  }
+
   @AfterClass
   public void tearDown() throws Exception {
     this.client.close();
@@ -51,6 +51,7 @@ import gobblin.util.ClusterNameTags;
 import gobblin.util.ExecutorsUtils;
 import gobblin.util.JobLauncherUtils;
 import gobblin.util.ParallelRunner;
+import gobblin.util.limiter.BandwidthGovernor;
 
 
 /**
@@ -240,7 +241,7 @@ public abstract class AbstractJobLauncher implements JobLauncher {
 
       TimingEvent workUnitsPreparationTimer =
           this.eventSubmitter.getTimingEvent(TimingEventNames.LauncherTimings.WORK_UNITS_PREPARATION);
-      prepareWorkUnits(JobLauncherUtils.flattenWorkUnits(workUnits.get()), jobState);
+      prepareWorkUnits(workUnits.get(), jobState);
       workUnitsPreparationTimer.stop();
 
       // Write job execution info to the job history store before the job starts to run
@@ -282,6 +283,7 @@ public abstract class AbstractJobLauncher implements JobLauncher {
         this.jobContext.storeJobExecutionInfo();
       } finally {
         launchJobTimer.stop();
+        releaseBandwidthGovernor(jobId);
         unlockJob();
       }
     }
@@ -411,15 +413,19 @@ public abstract class AbstractJobLauncher implements JobLauncher {
   }
 
   /**
-   * Prepare the flattened {@link WorkUnit}s for execution by populating the job and task IDs.
+   * Prepare the {@link WorkUnit}s for execution by populating the job and task IDs of the flattened
+   * {@link WorkUnit}s.
    */
   private void prepareWorkUnits(List<WorkUnit> workUnits, JobState jobState) {
     int taskIdSequence = 0;
-    for (WorkUnit workUnit : workUnits) {
+    for (WorkUnit workUnit : JobLauncherUtils.flattenWorkUnits(workUnits)) {
       workUnit.setProp(ConfigurationKeys.JOB_ID_KEY, this.jobContext.getJobId());
       String taskId = JobLauncherUtils.newTaskId(this.jobContext.getJobId(), taskIdSequence++);
       workUnit.setId(taskId);
       workUnit.setProp(ConfigurationKeys.TASK_ID_KEY, taskId);
+    }
+
+    for (WorkUnit workUnit : JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(workUnits)) {
       jobState.incrementTaskCount();
       // Pre-add a task state so if the task fails and no task state is written out,
       // there is still task state for the task when job/task states are persisted.
@@ -456,6 +462,17 @@ public abstract class AbstractJobLauncher implements JobLauncher {
     }
   }
 
+  /**
+   * Release the {@link BandwidthGovernor} the tasks of a job ran in this JVM may have used.
+   */
+  protected static void releaseBandwidthGovernor(String jobId) {
+    try {
+      BandwidthGovernor.release(jobId);
+    } catch (IOException ioe) {
+      LOG.warn("Failed to release the bandwidth governor of job " + jobId, ioe);
+    }
+  }
+
   /**
    * Cleanup the left-over staging data possibly from the previous run of the job that may have failed
    * and not cleaned up its staging data.
@@ -466,7 +483,7 @@ public abstract class AbstractJobLauncher implements JobLauncher {
         Closer closer = Closer.create();
         Map<String, ParallelRunner> parallelRunners = Maps.newHashMap();
         try {
-          for (WorkUnit workUnit : JobLauncherUtils.flattenWorkUnits(workUnits)) {
+          for (WorkUnit workUnit : JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(workUnits)) {
             WorkUnit fatWorkUnit = WorkUnit.copyOf(workUnit);
             fatWorkUnit.addAllIfNotExist(jobState);
             JobLauncherUtils.cleanTaskStagingData(fatWorkUnit, LOG, closer, parallelRunners);
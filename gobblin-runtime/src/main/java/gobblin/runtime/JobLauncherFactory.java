@@ -52,6 +52,24 @@ public class JobLauncherFactory {
    * @return newly created {@link JobLauncher}
    */
   public static @Nonnull JobLauncher newJobLauncher(Properties sysProps, Properties jobProps) throws Exception {
+    return newJobLauncher(sysProps, jobProps, Optional.<TaskExecutor>absent());
+  }
+
+  /**
+   * Create a new {@link JobLauncher}.
+   *
+   * <p>
+   *   This method will never return a {@code null}.
+   * </p>
+   *
+   * @param sysProps system configuration properties
+   * @param jobProps job configuration properties
+   * @param sharedTaskExecutor an optional running {@link TaskExecutor} shared among jobs, which is only
+   *                           used by {@link LocalJobLauncher}s
+   * @return newly created {@link JobLauncher}
+   */
+  public static @Nonnull JobLauncher newJobLauncher(Properties sysProps, Properties jobProps,
+      Optional<TaskExecutor> sharedTaskExecutor) throws Exception {
 
     String launcherTypeValue =
         sysProps.getProperty(ConfigurationKeys.JOB_LAUNCHER_TYPE_KEY, JobLauncherType.LOCAL.name());
@@ -60,6 +78,10 @@ public class JobLauncherFactory {
     if (launcherType.isPresent()) {
       switch (launcherType.get()) {
         case LOCAL:
+          if (sharedTaskExecutor.isPresent()) {
+            return new LocalJobLauncher(JobConfigurationUtils.combineSysAndJobProperties(sysProps, jobProps),
+                sharedTaskExecutor.get());
+          }
           return new LocalJobLauncher(JobConfigurationUtils.combineSysAndJobProperties(sysProps, jobProps));
         case MAPREDUCE:
           return new MRJobLauncher(JobConfigurationUtils.combineSysAndJobProperties(sysProps, jobProps));
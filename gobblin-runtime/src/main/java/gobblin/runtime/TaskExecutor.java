@@ -12,10 +12,15 @@
 
 package gobblin.runtime;
 
+import java.util.Deque;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -27,6 +32,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AbstractIdleService;
 
 import gobblin.configuration.ConfigurationKeys;
@@ -37,6 +45,16 @@ import gobblin.util.ExecutorsUtils;
 /**
  * A class for executing {@link Task}s and retrying failed ones as well as for executing {@link Fork}s.
  *
+ * <p>
+ *   A {@link TaskExecutor} may be shared by concurrently running jobs, e.g., jobs launched locally by a
+ *   {@link gobblin.runtime.JobLauncher} that all use the same {@link TaskExecutor}. Threads of the task
+ *   thread pool are shared fairly among the jobs: whenever a thread becomes available, it runs the next
+ *   waiting {@link Task} of the job that has the fewest running {@link Task}s relative to its weight,
+ *   which is configured by {@link ConfigurationKeys#TASK_EXECUTOR_JOB_WEIGHT_KEY}. {@link Task}s of the
+ *   same job run in the order they are submitted. The {@link Task}s of a job can be cancelled through
+ *   {@link #cancelJob(String)} without affecting the other jobs.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class TaskExecutor extends AbstractIdleService {
@@ -55,6 +73,12 @@ public class TaskExecutor extends AbstractIdleService {
   // Task retry interval
   private final long retryIntervalInSeconds;
 
+  // Tasks waiting for a thread of the task thread pool, grouped by job. Guarded by itself.
+  private final Map<String, JobTasks> jobTasks = Maps.newLinkedHashMap();
+
+  // Number of threads of the task thread pool not running a task. Guarded by jobTasks.
+  private int idleTaskThreads;
+
   /**
    * Constructor used internally.
    */
@@ -63,6 +87,7 @@ public class TaskExecutor extends AbstractIdleService {
     Preconditions.checkArgument(retryIntervalInSeconds > 0, "Task retry interval should be positive");
 
     // Currently a fixed-size thread pool is used to execute tasks. We probably need to revisit this later.
+    this.idleTaskThreads = taskExecutorThreadPoolSize;
     this.taskExecutor = Executors.newFixedThreadPool(
         taskExecutorThreadPoolSize,
         ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("TaskExecutor-%d")));
@@ -132,6 +157,13 @@ public class TaskExecutor extends AbstractIdleService {
   protected void shutDown()
       throws Exception {
     LOG.info("Stopping the task executor");
+    synchronized (this.jobTasks) {
+      // Tasks that are still waiting are never going to run
+      for (JobTasks tasks : this.jobTasks.values()) {
+        tasks.cancelled = true;
+        cancelWaitingTasks(tasks);
+      }
+    }
     try {
       ExecutorsUtils.shutdownExecutorService(this.taskExecutor, Optional.of(LOG));
     } finally {
@@ -150,7 +182,7 @@ public class TaskExecutor extends AbstractIdleService {
    */
   public void execute(Task task) {
     LOG.info(String.format("Executing task %s", task.getTaskId()));
-    this.taskExecutor.execute(task);
+    execute(task.getJobId(), getJobWeight(task), task);
   }
 
   /**
@@ -161,7 +193,9 @@ public class TaskExecutor extends AbstractIdleService {
    */
   public Future<?> submit(Task task) {
     LOG.info(String.format("Submitting task %s", task.getTaskId()));
-    return this.taskExecutor.submit(task);
+    FutureTask<Void> future = new FutureTask<>(task, null);
+    execute(task.getJobId(), getJobWeight(task), future);
+    return future;
   }
 
   /**
@@ -206,6 +240,154 @@ public class TaskExecutor extends AbstractIdleService {
     task.incrementRetryCount();
   }
 
+  /**
+   * Cancel the {@link Task}s of a given job: its waiting {@link Task}s are dropped, and the threads running its
+   * {@link Task}s are interrupted. {@link java.util.concurrent.Future}s of dropped {@link Task}s are cancelled.
+   * {@link Task}s of the job submitted before all its running {@link Task}s have stopped are dropped as well.
+   *
+   * <p>
+   *   This is meant for a job that is cancelled while other jobs keep using this {@link TaskExecutor}.
+   * </p>
+   *
+   * @param jobId ID of the job whose {@link Task}s are cancelled
+   */
+  public void cancelJob(String jobId) {
+    synchronized (this.jobTasks) {
+      JobTasks tasks = this.jobTasks.get(jobId);
+      if (tasks == null) {
+        return;
+      }
+      LOG.info(String.format("Cancelling %d waiting and %d running tasks of job %s", tasks.waiting.size(),
+          tasks.running, jobId));
+      tasks.cancelled = true;
+      cancelWaitingTasks(tasks);
+      for (Thread thread : tasks.threads) {
+        thread.interrupt();
+      }
+      removeIfDone(tasks);
+    }
+  }
+
+  /**
+   * Run a task of a given job on the task thread pool once the job gets its fair share of the threads.
+   *
+   * @param jobId ID of the job the task belongs to
+   * @param jobWeight weight of the job, which only takes effect if the job has no running or waiting tasks
+   * @param task the task to run
+   */
+  void execute(String jobId, int jobWeight, Runnable task) {
+    Preconditions.checkArgument(jobWeight > 0, "Job weight should be positive");
+    synchronized (this.jobTasks) {
+      JobTasks tasks = this.jobTasks.get(jobId);
+      if (tasks == null) {
+        tasks = new JobTasks(jobId, jobWeight);
+        this.jobTasks.put(jobId, tasks);
+      }
+      if (tasks.cancelled) {
+        LOG.warn("Dropping a task of cancelled job " + jobId);
+        cancel(task);
+        return;
+      }
+      tasks.waiting.add(task);
+      dispatch();
+    }
+  }
+
+  /**
+   * Hand waiting tasks to idle threads of the task thread pool, picking the job with the fewest running
+   * tasks relative to its weight each time. Must be called while holding the lock on {@link #jobTasks}.
+   */
+  private void dispatch() {
+    while (this.idleTaskThreads > 0) {
+      JobTasks next = null;
+      for (JobTasks tasks : this.jobTasks.values()) {
+        if (!tasks.waiting.isEmpty() && (next == null || tasks.running * next.weight < next.running * tasks.weight)) {
+          next = tasks;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+
+      // Move the job to the end of the iteration order so jobs that are tied take turns
+      this.jobTasks.remove(next.jobId);
+      this.jobTasks.put(next.jobId, next);
+
+      final JobTasks jobTasksToRun = next;
+      final Runnable task = jobTasksToRun.waiting.poll();
+      jobTasksToRun.running++;
+      this.idleTaskThreads--;
+      try {
+        this.taskExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              if (taskStarted(jobTasksToRun)) {
+                task.run();
+              } else {
+                cancel(task);
+              }
+            } finally {
+              taskFinished(jobTasksToRun);
+            }
+          }
+        });
+      } catch (RejectedExecutionException ree) {
+        jobTasksToRun.waiting.addFirst(task);
+        jobTasksToRun.running--;
+        this.idleTaskThreads++;
+        throw ree;
+      }
+    }
+  }
+
+  /**
+   * Register the current thread as running a task of the given job, unless the job has been cancelled.
+   */
+  private boolean taskStarted(JobTasks tasks) {
+    synchronized (this.jobTasks) {
+      if (tasks.cancelled) {
+        return false;
+      }
+      tasks.threads.add(Thread.currentThread());
+      return true;
+    }
+  }
+
+  private void taskFinished(JobTasks tasks) {
+    synchronized (this.jobTasks) {
+      tasks.threads.remove(Thread.currentThread());
+      tasks.running--;
+      this.idleTaskThreads++;
+      removeIfDone(tasks);
+      dispatch();
+    }
+  }
+
+  private void removeIfDone(JobTasks tasks) {
+    if (tasks.running == 0 && tasks.waiting.isEmpty()) {
+      this.jobTasks.remove(tasks.jobId);
+    }
+  }
+
+  private static void cancelWaitingTasks(JobTasks tasks) {
+    for (Runnable task : tasks.waiting) {
+      cancel(task);
+    }
+    tasks.waiting.clear();
+  }
+
+  private static void cancel(Runnable task) {
+    if (task instanceof Future) {
+      ((Future<?>) task).cancel(false);
+    }
+  }
+
+  private static int getJobWeight(Task task) {
+    return task.getTaskState().getPropAsInt(ConfigurationKeys.TASK_EXECUTOR_JOB_WEIGHT_KEY,
+        ConfigurationKeys.DEFAULT_TASK_EXECUTOR_JOB_WEIGHT);
+  }
+
   /**
    * Get the {@link ExecutorService} used to run {@link Fork}s.
    *
@@ -214,4 +396,23 @@ public class TaskExecutor extends AbstractIdleService {
   ExecutorService getForkExecutor() {
     return this.forkExecutor;
   }
+
+  /**
+   * Running and waiting tasks of a job.
+   */
+  private static class JobTasks {
+
+    private final String jobId;
+    private final int weight;
+    private final Deque<Runnable> waiting = Queues.newArrayDeque();
+    // Threads running tasks of the job
+    private final Set<Thread> threads = Sets.newHashSet();
+    private int running = 0;
+    private boolean cancelled = false;
+
+    private JobTasks(String jobId, int weight) {
+      this.jobId = jobId;
+      this.weight = weight;
+    }
+  }
 }
@@ -13,24 +13,32 @@
 package gobblin.runtime;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Properties;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.EventBus;
+import com.google.common.io.Closer;
 import com.google.common.util.concurrent.AbstractScheduledService;
 
 import gobblin.configuration.ConfigurationKeys;
+import gobblin.util.HadoopUtils;
 import gobblin.util.ParallelRunner;
 
 
@@ -38,7 +46,8 @@ import gobblin.util.ParallelRunner;
  * An {@link AbstractScheduledService} for collecting output {@link TaskState}s of completed {@link Task}s
  * stored in files, which get deleted once the {@link TaskState}s they store are successfully collected.
  * For each batch of {@link TaskState}s collected, it posts a {@link NewTaskCompletionEvent} to notify
- * parties that are interested in such events.
+ * parties that are interested in such events. Output {@link TaskState} files can also be collected as soon
+ * as tasks report them, through {@link #collectOutputTaskState(Path)}, and each file is collected only once.
  *
  * @author Yinan Li
  */
@@ -60,6 +69,9 @@ public class TaskStateCollectorService extends AbstractScheduledService {
 
   private final Path outputTaskStateDir;
 
+  // Names of the output TaskState files already collected, which are skipped if they are found again
+  private final Set<String> collectedTaskStateFileNames = Sets.newConcurrentHashSet();
+
   public TaskStateCollectorService(Properties jobProps, JobState jobState, EventBus eventBus, FileSystem fs,
       Path outputTaskStateDir) {
     this.jobState = jobState;
@@ -105,13 +117,38 @@ public class TaskStateCollectorService extends AbstractScheduledService {
     }
   }
 
+  /**
+   * Get the directory the output {@link TaskState} files are collected from.
+   */
+  public Path getOutputTaskStateDir() {
+    return this.outputTaskStateDir;
+  }
+
+  /**
+   * Collect the output {@link TaskState} stored in a given file, without waiting for the next run of the collector.
+   *
+   * <p>
+   *   This method is meant to be called when a task reports that its output {@link TaskState} file has been
+   *   written, e.g., by the {@link gobblin.runtime.local.LocalTaskStateTracker} of a local job upon the
+   *   completion of a task, so the {@link TaskState} is collected right away and the file does not need to be
+   *   found by listing the output task state directory. A file that has already been collected is ignored, so
+   *   the {@link TaskState} it stores is collected exactly once.
+   * </p>
+   *
+   * @param taskStateFilePath path of the output {@link TaskState} file
+   * @throws IOException if it fails to collect the output {@link TaskState}
+   */
+  public void collectOutputTaskState(Path taskStateFilePath)
+      throws IOException {
+    collectOutputTaskStates(ImmutableList.of(taskStateFilePath));
+  }
+
   /**
    * Collect output {@link TaskState}s of tasks of the job launched.
    *
    * <p>
-   *   This method collects all available output {@link TaskState} files at the time it is called. It
-   *   uses a {@link ParallelRunner} to deserialize the {@link TaskState}s. Each {@link TaskState}
-   *   file gets deleted after the {@link TaskState} it stores is successfully collected.
+   *   This method collects all available output {@link TaskState} files at the time it is called, except
+   *   those that have already been collected.
    * </p>
    *
    * @throws IOException if it fails to collect the output {@link TaskState}s
@@ -126,33 +163,105 @@ public class TaskStateCollectorService extends AbstractScheduledService {
     FileStatus[] fileStatuses = this.fs.listStatus(this.outputTaskStateDir, new PathFilter() {
       @Override
       public boolean accept(Path path) {
-        return path.getName().endsWith(AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX);
+        return path.getName().endsWith(AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX) && !isCollected(path);
       }
     });
     if (fileStatuses == null || fileStatuses.length == 0) {
-      LOGGER.warn("No output task state files found in " + this.outputTaskStateDir);
+      LOGGER.warn("No new output task state files found in " + this.outputTaskStateDir);
       return;
     }
 
-    Queue<TaskState> taskStateQueue = Queues.newConcurrentLinkedQueue();
-    try (ParallelRunner stateSerDeRunner = new ParallelRunner(stateSerDeRunnerThreads, this.fs)) {
-      for (FileStatus status : fileStatuses) {
-        LOGGER.info("Found output task state file " + status.getPath());
-        // Deserialize the TaskState and delete the file
-        stateSerDeRunner.deserializeFromSequenceFile(Text.class, TaskState.class, status.getPath(),
-            taskStateQueue, true);
+    List<Path> taskStateFilePaths = Lists.newArrayListWithCapacity(fileStatuses.length);
+    for (FileStatus status : fileStatuses) {
+      taskStateFilePaths.add(status.getPath());
+    }
+    collectOutputTaskStates(taskStateFilePaths);
+  }
+
+  /**
+   * Collect output {@link TaskState}s stored in the given files.
+   *
+   * <p>
+   *   This method uses a {@link ParallelRunner} to deserialize the {@link TaskState}s. Each {@link TaskState}
+   *   file is remembered as collected as soon as the {@link TaskState} it stores is read, in case it is listed
+   *   again, and then gets deleted. A file that fails to be deleted is left behind and skipped afterwards. The
+   *   {@link TaskState}s successfully read are collected even if some other file fails to be read.
+   * </p>
+   */
+  private synchronized void collectOutputTaskStates(List<Path> taskStateFilePaths)
+      throws IOException {
+    List<Path> newTaskStateFilePaths = Lists.newArrayList();
+    for (Path taskStateFilePath : taskStateFilePaths) {
+      if (!isCollected(taskStateFilePath)) {
+        newTaskStateFilePaths.add(taskStateFilePath);
       }
     }
+    if (newTaskStateFilePaths.isEmpty()) {
+      return;
+    }
+
+    Queue<TaskState> taskStateQueue = Queues.newConcurrentLinkedQueue();
+    try (ParallelRunner stateSerDeRunner = new ParallelRunner(
+        Math.min(this.stateSerDeRunnerThreads, newTaskStateFilePaths.size()), this.fs)) {
+      for (Path taskStateFilePath : newTaskStateFilePaths) {
+        LOGGER.info("Found output task state file " + taskStateFilePath);
+        stateSerDeRunner.submitCallable(newTaskStateCollector(taskStateFilePath, taskStateQueue));
+      }
+    } finally {
+      LOGGER.info(String.format("Collected task state of %d completed tasks", taskStateQueue.size()));
 
-    LOGGER.info(String.format("Collected task state of %d completed tasks", taskStateQueue.size()));
+      // Add the TaskStates of completed tasks to the JobState so when the control
+      // returns to the launcher, it sees the TaskStates of all completed tasks.
+      for (TaskState taskState : taskStateQueue) {
+        this.jobState.addTaskState(taskState);
+      }
 
-    // Add the TaskStates of completed tasks to the JobState so when the control
-    // returns to the launcher, it sees the TaskStates of all completed tasks.
-    for (TaskState taskState : taskStateQueue) {
-      this.jobState.addTaskState(taskState);
+      // Notify the listeners for the completion of the tasks
+      this.eventBus.post(new NewTaskCompletionEvent(ImmutableList.copyOf(taskStateQueue)));
     }
+  }
+
+  /**
+   * Get a {@link Callable} that reads the {@link TaskState}s stored in a given file into a given {@link Queue},
+   * records the file as collected, and then deletes the file.
+   */
+  private Callable<Void> newTaskStateCollector(final Path taskStateFilePath, final Queue<TaskState> taskStateQueue) {
+    return new Callable<Void>() {
+      @Override
+      public Void call()
+          throws Exception {
+        List<TaskState> taskStates = Lists.newArrayList();
+        Closer closer = Closer.create();
+        try {
+          @SuppressWarnings("deprecation")
+          SequenceFile.Reader reader = closer.register(new SequenceFile.Reader(fs, taskStateFilePath, fs.getConf()));
+          Text key = new Text();
+          TaskState taskState = new TaskState();
+          while (reader.next(key, taskState)) {
+            taskStates.add(taskState);
+            taskState = new TaskState();
+          }
+        } catch (Throwable t) {
+          throw closer.rethrow(t);
+        } finally {
+          closer.close();
+        }
+
+        collectedTaskStateFileNames.add(taskStateFilePath.getName());
+        taskStateQueue.addAll(taskStates);
+
+        try {
+          HadoopUtils.deletePath(fs, taskStateFilePath, false);
+        } catch (IOException ioe) {
+          // The TaskStates are collected already and the file is skipped if it is found again
+          LOGGER.warn("Failed to delete collected output task state file " + taskStateFilePath, ioe);
+        }
+        return null;
+      }
+    };
+  }
 
-    // Notify the listeners for the completion of the tasks
-    this.eventBus.post(new NewTaskCompletionEvent(ImmutableList.copyOf(taskStateQueue)));
+  private boolean isCollected(Path taskStateFilePath) {
+    return this.collectedTaskStateFileNames.contains(taskStateFilePath.getName());
   }
 }
@@ -22,15 +22,18 @@ import java.util.concurrent.TimeoutException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ServiceManager;
 
 import gobblin.configuration.ConfigurationKeys;
+import gobblin.metastore.FsStateStore;
 import gobblin.metrics.Tag;
 import gobblin.metrics.event.TimingEvent;
 import gobblin.runtime.AbstractJobLauncher;
@@ -38,6 +41,8 @@ import gobblin.runtime.FileBasedJobLock;
 import gobblin.runtime.JobLock;
 import gobblin.runtime.JobState;
 import gobblin.runtime.TaskExecutor;
+import gobblin.runtime.TaskState;
+import gobblin.runtime.TaskStateCollectorService;
 import gobblin.runtime.TaskStateTracker;
 import gobblin.runtime.util.TimingEventNames;
 import gobblin.source.workunit.WorkUnit;
@@ -48,33 +53,76 @@ import gobblin.util.JobLauncherUtils;
  * An implementation of {@link gobblin.runtime.JobLauncher} for launching and running jobs
  * locally on a single node.
  *
+ * <p>
+ *   By default, each {@link LocalJobLauncher} creates, starts, and stops its own {@link TaskExecutor}.
+ *   Alternatively, a {@link TaskExecutor} shared by multiple {@link LocalJobLauncher}s can be passed in,
+ *   in which case the caller is responsible for starting and stopping it.
+ * </p>
+ *
+ * <p>
+ *   The {@link gobblin.runtime.TaskState}s of completed tasks are collected by a {@link TaskStateCollectorService},
+ *   to which the {@link LocalTaskStateTracker} reports each output task state file as soon as it is written. The
+ *   output task state files are kept on the local file system, in the directory configured by
+ *   {@link ConfigurationKeys#LOCAL_JOB_OUTPUT_TASK_STATE_DIR_KEY}.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class LocalJobLauncher extends AbstractJobLauncher {
 
   private static final Logger LOG = LoggerFactory.getLogger(LocalJobLauncher.class);
 
+  private static final String DEFAULT_OUTPUT_TASK_STATE_DIR_NAME = "gobblin-local-task-states";
+
   private final TaskExecutor taskExecutor;
 
+  // Whether the TaskExecutor is shared with other jobs, in which case it is not stopped with this launcher
+  private final boolean taskExecutorShared;
+
   private final TaskStateTracker taskStateTracker;
 
+  private final FileSystem localFs;
+
+  private final TaskStateCollectorService taskStateCollectorService;
+
   // Service manager to manage dependent services
   private final ServiceManager serviceManager;
 
   private volatile CountDownLatch countDownLatch;
 
   public LocalJobLauncher(Properties jobProps) throws Exception {
+    this(jobProps, Optional.<TaskExecutor>absent());
+  }
+
+  /**
+   * @param jobProps job configuration properties
+   * @param sharedTaskExecutor a running {@link TaskExecutor} shared with other jobs, which is not stopped
+   *                           when this {@link LocalJobLauncher} is closed
+   */
+  public LocalJobLauncher(Properties jobProps, TaskExecutor sharedTaskExecutor) throws Exception {
+    this(jobProps, Optional.of(sharedTaskExecutor));
+  }
+
+  private LocalJobLauncher(Properties jobProps, Optional<TaskExecutor> sharedTaskExecutor) throws Exception {
     super(jobProps, ImmutableList.<Tag<?>>of());
 
     TimingEvent jobLocalSetupTimer = this.eventSubmitter.getTimingEvent(TimingEventNames.RunJobTimings.JOB_LOCAL_SETUP);
 
-    this.taskExecutor = new TaskExecutor(jobProps);
-    this.taskStateTracker =
-        new LocalTaskStateTracker(jobProps, this.jobContext.getJobState(), this.taskExecutor, this.eventBus);
-
-    this.serviceManager = new ServiceManager(Lists.newArrayList(
-        // The order matters due to dependencies between services
-        this.taskExecutor, this.taskStateTracker));
+    this.taskExecutor = sharedTaskExecutor.isPresent() ? sharedTaskExecutor.get() : new TaskExecutor(jobProps);
+    this.taskExecutorShared = sharedTaskExecutor.isPresent();
+
+    this.localFs = FileSystem.getLocal(new Configuration());
+    String outputTaskStateRootDir = jobProps.getProperty(ConfigurationKeys.LOCAL_JOB_OUTPUT_TASK_STATE_DIR_KEY,
+        new Path(System.getProperty("java.io.tmpdir"), DEFAULT_OUTPUT_TASK_STATE_DIR_NAME).toString());
+    this.taskStateCollectorService = new TaskStateCollectorService(jobProps, this.jobContext.getJobState(),
+        this.eventBus, this.localFs, new Path(outputTaskStateRootDir, this.jobContext.getJobId()));
+    this.taskStateTracker = new LocalTaskStateTracker(jobProps, this.jobContext.getJobState(), this.taskExecutor,
+        this.eventBus, new FsStateStore<>(this.localFs, outputTaskStateRootDir, TaskState.class),
+        this.taskStateCollectorService);
+
+    // The order matters due to dependencies between services
+    this.serviceManager = new ServiceManager(sharedTaskExecutor.isPresent()
+        ? Lists.newArrayList(this.taskStateTracker) : Lists.newArrayList(this.taskExecutor, this.taskStateTracker));
     // Start all dependent services
     this.serviceManager.startAsync().awaitHealthy(5, TimeUnit.SECONDS);
 
@@ -86,12 +134,20 @@ public class LocalJobLauncher extends AbstractJobLauncher {
   @Override
   public void close() throws IOException {
     try {
+      if (this.taskExecutorShared) {
+        // Tasks of this job that are still running must not outlive it on the shared TaskExecutor
+        this.taskExecutor.cancelJob(this.jobContext.getJobId());
+      }
       // Stop all dependent services
       this.serviceManager.stopAsync().awaitStopped(5, TimeUnit.SECONDS);
     } catch (TimeoutException te) {
       LOG.warn("Timed out while waiting for the service manager to be stopped", te);
     } finally {
-      super.close();
+      try {
+        this.localFs.delete(this.taskStateCollectorService.getOutputTaskStateDir(), true);
+      } finally {
+        super.close();
+      }
     }
   }
 
@@ -99,7 +155,7 @@ public class LocalJobLauncher extends AbstractJobLauncher {
   protected void runWorkUnits(List<WorkUnit> workUnits) throws Exception {
     TimingEvent workUnitsPreparationTimer =
         this.eventSubmitter.getTimingEvent(TimingEventNames.RunJobTimings.WORK_UNITS_PREPARATION);
-    List<WorkUnit> workUnitsToRun = JobLauncherUtils.flattenWorkUnits(workUnits);
+    List<WorkUnit> workUnitsToRun = JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(workUnits);
     workUnitsPreparationTimer.stop();
 
     if (workUnitsToRun.isEmpty()) {
@@ -116,16 +172,23 @@ public class LocalJobLauncher extends AbstractJobLauncher {
 
     TimingEvent workUnitsRunTimer = this.eventSubmitter.getTimingEvent(TimingEventNames.RunJobTimings.WORK_UNITS_RUN);
 
-    this.countDownLatch = new CountDownLatch(workUnitsToRun.size());
-    AbstractJobLauncher.runWorkUnits(this.jobContext.getJobId(), workUnitsToRun, this.taskStateTracker,
-        this.taskExecutor, this.countDownLatch);
+    // Start the output TaskState collector service, which collects any output TaskState
+    // file that is not reported by the task state tracker when it is stopped
+    this.taskStateCollectorService.startAsync().awaitRunning();
+    try {
+      this.countDownLatch = new CountDownLatch(workUnitsToRun.size());
+      AbstractJobLauncher.runWorkUnits(this.jobContext.getJobId(), workUnitsToRun, this.taskStateTracker,
+          this.taskExecutor, this.countDownLatch);
 
-    LOG.info(String.format("Waiting for submitted tasks of job %s to complete...", jobId));
-    while (this.countDownLatch.getCount() > 0) {
-      LOG.info(String.format("%d out of %d tasks of job %s are running", this.countDownLatch.getCount(),
-          workUnitsToRun.size(), jobId));
+      LOG.info(String.format("Waiting for submitted tasks of job %s to complete...", jobId));
+      while (this.countDownLatch.getCount() > 0) {
+        LOG.info(String.format("%d out of %d tasks of job %s are running", this.countDownLatch.getCount(),
+            workUnitsToRun.size(), jobId));
 
-      this.countDownLatch.await(1, TimeUnit.MINUTES);
+        this.countDownLatch.await(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      this.taskStateCollectorService.stopAsync().awaitTerminated();
     }
 
     workUnitsRunTimer.stop();
@@ -155,6 +218,10 @@ public class LocalJobLauncher extends AbstractJobLauncher {
 
   @Override
   protected void executeCancellation() {
+    if (this.taskExecutorShared) {
+      // Stopping the shared TaskExecutor would affect other jobs, so only the tasks of this job are cancelled
+      this.taskExecutor.cancelJob(this.jobContext.getJobId());
+    }
     if (this.countDownLatch != null) {
       while (this.countDownLatch.getCount() > 0) {
         this.countDownLatch.countDown();
@@ -12,11 +12,13 @@
 
 package gobblin.runtime.local;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 
+import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,17 +28,28 @@ import com.google.common.eventbus.EventBus;
 
 import gobblin.configuration.WorkUnitState;
 import gobblin.configuration.ConfigurationKeys;
+import gobblin.metastore.StateStore;
 import gobblin.metrics.GobblinMetrics;
+import gobblin.runtime.AbstractJobLauncher;
 import gobblin.runtime.AbstractTaskStateTracker;
 import gobblin.runtime.JobState;
 import gobblin.runtime.NewTaskCompletionEvent;
 import gobblin.runtime.Task;
 import gobblin.runtime.TaskExecutor;
+import gobblin.runtime.TaskState;
+import gobblin.runtime.TaskStateCollectorService;
 
 
 /**
  * A concrete extension to {@link AbstractTaskStateTracker} for standalone mode.
  *
+ * <p>
+ *   The {@link gobblin.runtime.TaskState} of each completed task is written to the output task state directory
+ *   and reported to the {@link TaskStateCollectorService} right away, which adds it to the {@link JobState} and
+ *   notifies the listeners for the completion of the task. If the {@link gobblin.runtime.TaskState} cannot be
+ *   written, it is added to the {@link JobState} directly.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class LocalTaskStateTracker extends AbstractTaskStateTracker {
@@ -53,16 +66,31 @@ public class LocalTaskStateTracker extends AbstractTaskStateTracker {
 
   private final EventBus eventBus;
 
+  private final StateStore<TaskState> taskStateStore;
+
+  private final TaskStateCollectorService taskStateCollectorService;
+
   // Maximum number of task retries allowed
   private final int maxTaskRetries;
 
+  /**
+   * @param properties job configuration properties
+   * @param jobState the {@link JobState} of the job
+   * @param taskExecutor the {@link TaskExecutor} used to retry failed tasks
+   * @param eventBus the {@link EventBus} of the job
+   * @param taskStateStore a {@link StateStore} whose store for the job ID is the directory of output task states
+   *                       of the {@link TaskStateCollectorService}
+   * @param taskStateCollectorService the {@link TaskStateCollectorService} of the job
+   */
   public LocalTaskStateTracker(Properties properties, JobState jobState, TaskExecutor taskExecutor,
-      EventBus eventBus) {
+      EventBus eventBus, StateStore<TaskState> taskStateStore, TaskStateCollectorService taskStateCollectorService) {
     super(properties, LOG);
 
     this.jobState = jobState;
     this.taskExecutor = taskExecutor;
     this.eventBus = eventBus;
+    this.taskStateStore = taskStateStore;
+    this.taskStateCollectorService = taskStateCollectorService;
     this.maxTaskRetries = Integer.parseInt(properties.getProperty(
         ConfigurationKeys.MAX_TASK_RETRIES_KEY, Integer.toString(ConfigurationKeys.DEFAULT_MAX_TASK_RETRIES)));
   }
@@ -103,18 +131,36 @@ public class LocalTaskStateTracker extends AbstractTaskStateTracker {
       LOG.error("Failed to process a task completion callback", t);
     }
 
-    // Add the TaskState of the completed task to the JobState so when the control
-    // returns to the launcher, it sees the TaskStates of all completed tasks.
-    this.jobState.addTaskState(task.getTaskState());
+    // Have the TaskState of the completed task collected before marking its completion, so when the
+    // control returns to the launcher, it sees the TaskStates of all completed tasks.
+    collectTaskState(task);
 
     // Mark the completion of this task
     task.markTaskCompletion();
 
-    // Notify the listeners for the completion of the task
-    this.eventBus.post(new NewTaskCompletionEvent(ImmutableList.of(task.getTaskState())));
-
     // At this point, the task is considered being completed.
     LOG.info(String.format("Task %s completed in %dms with state %s", task.getTaskId(),
         task.getTaskState().getTaskDuration(), task.getTaskState().getWorkingState()));
   }
+
+  private void collectTaskState(Task task) {
+    String taskStateFileName = task.getTaskId() + AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX;
+    try {
+      this.taskStateStore.put(task.getJobId(), taskStateFileName, task.getTaskState());
+    } catch (IOException ioe) {
+      LOG.error(String.format("Failed to write the task state of task %s, adding it to the job state directly",
+          task.getTaskId()), ioe);
+      this.jobState.addTaskState(task.getTaskState());
+      this.eventBus.post(new NewTaskCompletionEvent(ImmutableList.of(task.getTaskState())));
+      return;
+    }
+
+    try {
+      this.taskStateCollectorService.collectOutputTaskState(
+          new Path(this.taskStateCollectorService.getOutputTaskStateDir(), taskStateFileName));
+    } catch (IOException ioe) {
+      // The file is left for the collector to find when it lists the output task state directory
+      LOG.error("Failed to collect the task state of task " + task.getTaskId(), ioe);
+    }
+  }
 }
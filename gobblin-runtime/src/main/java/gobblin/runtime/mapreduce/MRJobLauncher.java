@@ -561,7 +561,7 @@ public class MRJobLauncher extends AbstractJobLauncher {
 
       if (workUnit instanceof MultiWorkUnit) {
         List<WorkUnit> flattenedWorkUnits =
-            JobLauncherUtils.flattenWorkUnits(((MultiWorkUnit) workUnit).getWorkUnits());
+            JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(Lists.newArrayList(workUnit));
         for (WorkUnit flattenedWorkUnit : flattenedWorkUnits) {
           flattenedWorkUnit.addAllIfNotExist(this.jobState);
         }
@@ -580,6 +580,7 @@ public class MRJobLauncher extends AbstractJobLauncher {
       } catch (TimeoutException te) {
         // Ignored
       } finally {
+        releaseBandwidthGovernor(this.jobState.getJobId());
         if (this.jobMetrics.isPresent()) {
           try {
             this.jobMetrics.get().stopMetricsReporting();
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.ConfigurationKeys;
+
+
+/**
+ * Unit tests for the sharing of task threads among jobs by {@link TaskExecutor}.
+ */
+@Test(groups = { "gobblin.runtime" })
+public class TaskExecutorTest {
+
+  private TaskExecutor taskExecutor;
+
+  @AfterMethod
+  public void tearDown() {
+    if (this.taskExecutor != null) {
+      this.taskExecutor.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test
+  public void testJobsWithEqualWeightsTakeTurns() throws Exception {
+    this.taskExecutor = newTaskExecutor(1);
+    List<String> started = Lists.newArrayList();
+    CountDownLatch blockerReleased = new CountDownLatch(1);
+    CountDownLatch allDone = new CountDownLatch(5);
+
+    this.taskExecutor.execute("A", 1, new RecordingTask(started, "A0", blockerReleased, allDone));
+    this.taskExecutor.execute("A", 1, new RecordingTask(started, "A1", null, allDone));
+    this.taskExecutor.execute("A", 1, new RecordingTask(started, "A2", null, allDone));
+    this.taskExecutor.execute("A", 1, new RecordingTask(started, "A3", null, allDone));
+    this.taskExecutor.execute("B", 1, new RecordingTask(started, "B1", null, allDone));
+    blockerReleased.countDown();
+
+    Assert.assertTrue(allDone.await(10, TimeUnit.SECONDS));
+    synchronized (started) {
+      Assert.assertEquals(started, ImmutableList.of("A0", "A1", "B1", "A2", "A3"));
+    }
+  }
+
+  @Test
+  public void testThreadsAreSharedByWeight() throws Exception {
+    this.taskExecutor = newTaskExecutor(3);
+    List<String> started = Lists.newArrayList();
+    CountDownLatch blockersReleased = new CountDownLatch(1);
+    CountDownLatch tasksReleased = new CountDownLatch(1);
+    CountDownLatch allDone = new CountDownLatch(9);
+
+    // Occupy all threads so all tasks of jobs A and B are waiting when threads become available
+    for (int i = 0; i < 3; i++) {
+      this.taskExecutor.execute("C", 1, new RecordingTask(started, "C", blockersReleased, allDone));
+    }
+    for (int i = 0; i < 3; i++) {
+      this.taskExecutor.execute("A", 2, new RecordingTask(started, "A", tasksReleased, allDone));
+      this.taskExecutor.execute("B", 1, new RecordingTask(started, "B", tasksReleased, allDone));
+    }
+    blockersReleased.countDown();
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (countStarted(started, "A") + countStarted(started, "B") < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(countStarted(started, "A"), 2);
+    Assert.assertEquals(countStarted(started, "B"), 1);
+
+    tasksReleased.countDown();
+    Assert.assertTrue(allDone.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCancelJob() throws Exception {
+    this.taskExecutor = newTaskExecutor(2);
+    List<String> started = Lists.newArrayList();
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    CountDownLatch jobBReleased = new CountDownLatch(1);
+    CountDownLatch jobADone = new CountDownLatch(1);
+    CountDownLatch jobBDone = new CountDownLatch(2);
+
+    this.taskExecutor.execute("A", 1, new RecordingTask(started, "A0", neverReleased, jobADone));
+    this.taskExecutor.execute("B", 1, new RecordingTask(started, "B0", jobBReleased, jobBDone));
+    FutureTask<Void> waitingTaskOfJobA =
+        new FutureTask<>(new RecordingTask(started, "A1", null, new CountDownLatch(1)), null);
+    this.taskExecutor.execute("A", 1, waitingTaskOfJobA);
+    this.taskExecutor.execute("B", 1, new RecordingTask(started, "B1", null, jobBDone));
+    long deadline = System.currentTimeMillis() + 10000;
+    while (countStarted(started, "A0") + countStarted(started, "B0") < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    // The running task of job A is interrupted and its waiting task is dropped, which frees a thread for job B
+    this.taskExecutor.cancelJob("A");
+    Assert.assertTrue(jobADone.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(waitingTaskOfJobA.isCancelled());
+    deadline = System.currentTimeMillis() + 10000;
+    while (countStarted(started, "B1") == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(countStarted(started, "B1"), 1);
+
+    jobBReleased.countDown();
+    Assert.assertTrue(jobBDone.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(countStarted(started, "A1"), 0);
+  }
+
+  @Test
+  public void testStopCancelsWaitingTasks() throws Exception {
+    this.taskExecutor = newTaskExecutor(1);
+    List<String> started = Lists.newArrayList();
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    this.taskExecutor.execute("A", 1, new RecordingTask(started, "A0", neverReleased, new CountDownLatch(1)));
+    FutureTask<Void> waitingTask =
+        new FutureTask<>(new RecordingTask(started, "A1", null, new CountDownLatch(1)), null);
+    this.taskExecutor.execute("A", 1, waitingTask);
+
+    this.taskExecutor.stopAsync().awaitTerminated();
+    Assert.assertTrue(waitingTask.isCancelled());
+    Assert.assertEquals(countStarted(started, "A1"), 0);
+  }
+
+  private static TaskExecutor newTaskExecutor(int threads) {
+    Properties properties = new Properties();
+    properties.setProperty(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_SIZE_KEY, Integer.toString(threads));
+    TaskExecutor taskExecutor = new TaskExecutor(properties);
+    taskExecutor.startAsync().awaitRunning();
+    return taskExecutor;
+  }
+
+  private static int countStarted(List<String> started, String name) {
+    synchronized (started) {
+      int count = 0;
+      for (String startedName : started) {
+        if (startedName.equals(name)) {
+          count++;
+        }
+      }
+      return count;
+    }
+  }
+
+  /**
+   * A task that records its start and optionally waits for a latch before finishing.
+   */
+  private static class RecordingTask implements Runnable {
+
+    private final List<String> started;
+    private final String name;
+    private final CountDownLatch release;
+    private final CountDownLatch done;
+
+    private RecordingTask(List<String> started, String name, CountDownLatch release, CountDownLatch done) {
+      this.started = started;
+      this.name = name;
+      this.release = release;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this.started) {
+        this.started.add(this.name);
+      }
+      try {
+        if (this.release != null) {
+          this.release.await();
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      } finally {
+        this.done.countDown();
+      }
+    }
+  }
+}
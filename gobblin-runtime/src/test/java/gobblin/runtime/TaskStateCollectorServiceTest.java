@@ -13,17 +13,20 @@
 package gobblin.runtime;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -44,6 +47,7 @@ public class TaskStateCollectorServiceTest {
   private static final String JOB_ID = JobLauncherUtils.newJobId(JOB_NAME);
   private static final String TASK_ID_0 = JobLauncherUtils.newTaskId(JOB_ID, 0);
   private static final String TASK_ID_1 = JobLauncherUtils.newTaskId(JOB_ID, 1);
+  private static final String TASK_ID_2 = JobLauncherUtils.newTaskId(JOB_ID, 2);
 
   private final Path outputTaskStateDir = new Path(TaskStateCollectorServiceTest.class.getSimpleName());
 
@@ -96,6 +100,103 @@ public class TaskStateCollectorServiceTest {
     Assert.assertEquals(this.taskStateMap.get(TASK_ID_1).getTaskId(), TASK_ID_1);
   }
 
+  @Test(dependsOnMethods = "testCollectOutputTaskStates")
+  public void testCollectReportedOutputTaskState() throws Exception {
+    TaskState taskState = new TaskState();
+    taskState.setJobId(JOB_ID);
+    taskState.setTaskId(TASK_ID_2);
+    String taskStateFileName = TASK_ID_2 + AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX;
+    this.taskStateStore.put(JOB_ID, taskStateFileName, taskState);
+
+    this.taskStateCollectorService.collectOutputTaskState(
+        new Path(new Path(this.outputTaskStateDir, JOB_ID), taskStateFileName));
+    Assert.assertEquals(this.jobState.getTaskStates().size(), 3);
+    Assert.assertEquals(this.taskStateMap.get(TASK_ID_2).getTaskId(), TASK_ID_2);
+
+    // A file that is found again, e.g., because it failed to be deleted, is not collected twice
+    this.taskStateStore.put(JOB_ID, taskStateFileName, taskState);
+    this.taskStateCollectorService.runOneIteration();
+    Assert.assertEquals(this.jobState.getTaskStates().size(), 3);
+  }
+
+  @Test
+  public void testCollectReportedOutputTaskStatesThenListing() throws Exception {
+    String jobId = JobLauncherUtils.newJobId(JOB_NAME);
+    Path taskStateDir = new Path(this.outputTaskStateDir, jobId);
+    JobState jobState = new JobState();
+    EventBus eventBus = new EventBus();
+    final List<NewTaskCompletionEvent> events = Lists.newArrayList();
+    eventBus.register(new Object() {
+      @Subscribe
+      public void handleNewTaskCompletionEvent(NewTaskCompletionEvent event) {
+        events.add(event);
+      }
+    });
+    TaskStateCollectorService taskStateCollectorService =
+        new TaskStateCollectorService(new Properties(), jobState, eventBus, this.localFs, taskStateDir);
+
+    // Each reported file is collected right away, with its own notification
+    List<TaskState> taskStates = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      TaskState taskState = new TaskState();
+      taskState.setJobId(jobId);
+      taskState.setTaskId(JobLauncherUtils.newTaskId(jobId, i));
+      taskStates.add(taskState);
+    }
+    for (int i = 0; i < 2; i++) {
+      String taskStateFileName = taskStates.get(i).getTaskId() + AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX;
+      this.taskStateStore.put(jobId, taskStateFileName, taskStates.get(i));
+      taskStateCollectorService.collectOutputTaskState(new Path(taskStateDir, taskStateFileName));
+      Assert.assertEquals(jobState.getTaskStates().size(), i + 1);
+      Assert.assertEquals(events.size(), i + 1);
+      Assert.assertEquals(events.get(i).getTaskStates().iterator().next().getTaskId(), taskStates.get(i).getTaskId());
+      Assert.assertFalse(this.localFs.exists(new Path(taskStateDir, taskStateFileName)));
+    }
+
+    // A listing skips a reported file that is found again, and collects a file that was not reported
+    this.taskStateStore.put(jobId, taskStates.get(0).getTaskId() + AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX,
+        taskStates.get(0));
+    this.taskStateStore.put(jobId, taskStates.get(2).getTaskId() + AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX,
+        taskStates.get(2));
+    taskStateCollectorService.runOneIteration();
+    Assert.assertEquals(jobState.getTaskStates().size(), 3);
+    Assert.assertEquals(events.size(), 3);
+    Assert.assertEquals(events.get(2).getTaskStates().size(), 1);
+    Assert.assertEquals(events.get(2).getTaskStates().iterator().next().getTaskId(), taskStates.get(2).getTaskId());
+  }
+
+  @Test
+  public void testCollectOutputTaskStatesWithFailedDelete() throws Exception {
+    String jobId = JobLauncherUtils.newJobId(JOB_NAME);
+    Path taskStateDir = new Path(this.outputTaskStateDir, jobId);
+    List<Path> taskStateFilePaths = Lists.newArrayList();
+    for (int i = 0; i < 2; i++) {
+      TaskState taskState = new TaskState();
+      taskState.setJobId(jobId);
+      taskState.setTaskId(JobLauncherUtils.newTaskId(jobId, i));
+      String taskStateFileName = taskState.getTaskId() + AbstractJobLauncher.TASK_STATE_STORE_TABLE_SUFFIX;
+      this.taskStateStore.put(jobId, taskStateFileName, taskState);
+      taskStateFilePaths.add(this.localFs.makeQualified(new Path(taskStateDir, taskStateFileName)));
+    }
+
+    // The first file fails to be deleted
+    FileSystem fs = Mockito.spy(this.localFs);
+    Mockito.doReturn(false).when(fs).delete(taskStateFilePaths.get(0), false);
+    JobState jobState = new JobState();
+    TaskStateCollectorService taskStateCollectorService =
+        new TaskStateCollectorService(new Properties(), jobState, new EventBus(), fs, taskStateDir);
+
+    taskStateCollectorService.runOneIteration();
+    Assert.assertEquals(jobState.getTaskStates().size(), 2);
+    Assert.assertTrue(this.localFs.exists(taskStateFilePaths.get(0)));
+    Assert.assertFalse(this.localFs.exists(taskStateFilePaths.get(1)));
+
+    // The file left behind is not collected again
+    taskStateCollectorService.runOneIteration();
+    Assert.assertEquals(jobState.getTaskStates().size(), 2);
+    Mockito.verify(fs, Mockito.times(1)).delete(taskStateFilePaths.get(0), false);
+  }
+
   @AfterClass
   public void tearDown() throws IOException {
     if (this.localFs.exists(this.outputTaskStateDir)) {
@@ -18,15 +18,19 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
+import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Optional;
+
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.metastore.FsStateStore;
 import gobblin.metastore.StateStore;
 import gobblin.runtime.JobLauncherTestHelper;
 import gobblin.runtime.JobState;
+import gobblin.runtime.TaskExecutor;
 import gobblin.util.limiter.BaseLimiterType;
 import gobblin.util.limiter.DefaultLimiterFactory;
 import gobblin.writer.Destination;
@@ -80,6 +84,28 @@ public class LocalJobLauncherTest {
     }
   }
 
+  @Test
+  public void testLaunchJobsWithSharedTaskExecutor() throws Exception {
+    TaskExecutor sharedTaskExecutor = new TaskExecutor(this.launcherProps);
+    sharedTaskExecutor.startAsync().awaitRunning();
+    try {
+      for (int i = 0; i < 2; i++) {
+        Properties jobProps = loadJobProps();
+        jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY,
+            jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY) + "-testLaunchJobsWithSharedTaskExecutor" + i);
+        try {
+          this.jobLauncherTestHelper.runTest(jobProps, Optional.of(sharedTaskExecutor));
+        } finally {
+          this.jobLauncherTestHelper.deleteStateStore(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY));
+        }
+        // Closing the job launcher must not stop the shared task executor
+        Assert.assertTrue(sharedTaskExecutor.isRunning());
+      }
+    } finally {
+      sharedTaskExecutor.stopAsync().awaitTerminated();
+    }
+  }
+
   @Test
   public void testLaunchJobWithPullLimit() throws Exception {
     Properties jobProps = loadJobProps();
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.salesforce;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.gson.JsonElement;
+import com.sforce.async.AsyncApiException;
+import com.sforce.async.BatchInfo;
+import com.sforce.async.BatchStateEnum;
+import com.sforce.async.BulkConnection;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.source.extractor.utils.InputStreamCSVReader;
+import gobblin.source.extractor.utils.Utils;
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * Polls the batches of a Salesforce bulk api query job and downloads the result sets of completed batches in parallel.
+ *
+ * <p>
+ *   This is used for PK-chunked bulk jobs, for which Salesforce splits the original query batch into many batches
+ *   that complete independently. A single thread polls the status of all batches of the job through
+ *   {@link BulkConnection#getBatchInfoList(String)} and, as soon as a batch completes, hands each of its result sets
+ *   to a fixed pool of download threads. Each download thread streams one result set, parses the CSV records into
+ *   {@link com.google.gson.JsonObject}s and puts them in chunks into a bounded queue consumed through
+ *   {@link #nextChunk()}, so downloads block when the extractor falls behind.
+ * </p>
+ */
+public class SalesforceBulkResultFetcher implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SalesforceBulkResultFetcher.class);
+
+  private static final long QUEUE_POLL_TIMEOUT_MILLIS = 1000;
+
+  private final BulkConnection bulkConnection;
+  private final String jobId;
+  private final int chunkSize;
+  private final long statusPollIntervalSeconds;
+
+  private final ScheduledExecutorService statusPoller;
+  private final ExecutorService downloader;
+  private final BlockingQueue<List<JsonElement>> chunkQueue;
+
+  // Ids of the batches whose result sets have already been submitted for download
+  private final Set<String> processedBatchIds = new HashSet<>();
+  private final AtomicInteger submittedResultSets = new AtomicInteger();
+  private final AtomicInteger completedResultSets = new AtomicInteger();
+
+  private volatile boolean allBatchesProcessed = false;
+  private volatile Throwable failure = null;
+
+  /**
+   * @param bulkConnection connection to the Salesforce bulk api
+   * @param jobId id of the bulk query job whose batches are fetched
+   * @param fetchThreads number of result sets to download in parallel
+   * @param chunkSize maximum number of records in each chunk returned by {@link #nextChunk()}
+   * @param statusPollIntervalSeconds interval between two polls of the batch status
+   */
+  public SalesforceBulkResultFetcher(BulkConnection bulkConnection, String jobId, int fetchThreads, int chunkSize,
+      long statusPollIntervalSeconds) {
+    this.bulkConnection = bulkConnection;
+    this.jobId = jobId;
+    this.chunkSize = chunkSize;
+    this.statusPollIntervalSeconds = statusPollIntervalSeconds;
+    this.statusPoller = Executors.newSingleThreadScheduledExecutor(
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("SalesforceBulkStatusPoller-%d")));
+    this.downloader = Executors.newFixedThreadPool(fetchThreads,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("SalesforceBulkResultDownloader-%d")));
+    this.chunkQueue = new ArrayBlockingQueue<>(2 * fetchThreads);
+  }
+
+  /**
+   * Start polling the status of the batches of the job and downloading the results of completed batches.
+   */
+  public void start() {
+    this.statusPoller.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (pollBatches()) {
+            allBatchesProcessed = true;
+            statusPoller.shutdown();
+          }
+        } catch (Throwable t) {
+          failure = t;
+          statusPoller.shutdown();
+        }
+      }
+    }, 0, this.statusPollIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Get the next chunk of records, blocking until one is available.
+   *
+   * @return the next chunk of records, or <code>null</code> if the results of all batches have been fetched
+   * @throws IOException if polling a batch or downloading a result set failed
+   */
+  public List<JsonElement> nextChunk() throws IOException, InterruptedException {
+    while (true) {
+      List<JsonElement> chunk = this.chunkQueue.poll(QUEUE_POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      if (chunk != null) {
+        return chunk;
+      }
+
+      // Check whether everything is done before checking for failures, since download threads record their failure
+      // before counting themselves as completed
+      boolean done = this.allBatchesProcessed && this.completedResultSets.get() == this.submittedResultSets.get();
+
+      if (this.failure != null) {
+        throw new IOException("Failed to fetch bulk api results for job " + this.jobId, this.failure);
+      }
+
+      if (done) {
+        // All download threads are done, so anything they produced is already in the queue
+        return this.chunkQueue.poll();
+      }
+    }
+  }
+
+  /**
+   * Check the status of all batches of the job and submit the result sets of newly completed batches for download.
+   *
+   * @return <code>true</code> if every batch of the job has reached a final state
+   */
+  private boolean pollBatches() throws AsyncApiException {
+    BatchInfo[] batchInfos = this.bulkConnection.getBatchInfoList(this.jobId).getBatchInfo();
+    boolean allDone = batchInfos.length > 0;
+    int completed = 0;
+
+    for (BatchInfo batchInfo : batchInfos) {
+      BatchStateEnum state = batchInfo.getState();
+      if (state == BatchStateEnum.Failed) {
+        throw new RuntimeException("Bulk api batch " + batchInfo.getId() + " of job " + this.jobId + " failed; error - "
+            + batchInfo.getStateMessage());
+      }
+
+      if (state == BatchStateEnum.Completed) {
+        completed++;
+        if (this.processedBatchIds.add(batchInfo.getId())) {
+          for (String resultId : this.bulkConnection.getQueryResultList(this.jobId, batchInfo.getId()).getResult()) {
+            submitResultSet(batchInfo.getId(), resultId);
+          }
+        }
+      } else if (state != BatchStateEnum.NotProcessed) {
+        // With PK chunking the original batch ends up in NotProcessed state once it is split into chunk batches
+        allDone = false;
+      }
+    }
+
+    LOG.info(String.format("Bulk api job %s: %d of %d batches completed", this.jobId, completed, batchInfos.length));
+    return allDone;
+  }
+
+  private void submitResultSet(final String batchId, final String resultId) {
+    this.submittedResultSets.incrementAndGet();
+    this.downloader.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          downloadResultSet(batchId, resultId);
+        } catch (Throwable t) {
+          failure = t;
+        } finally {
+          completedResultSets.incrementAndGet();
+        }
+      }
+    });
+  }
+
+  private void downloadResultSet(String batchId, String resultId) throws Exception {
+    LOG.info("Stream resultset for batchId:" + batchId + " resultId:" + resultId);
+    try (InputStream inputStream = this.bulkConnection.getQueryResultStream(this.jobId, batchId, resultId)) {
+      InputStreamCSVReader reader = new InputStreamCSVReader(
+          new BufferedReader(new InputStreamReader(inputStream, ConfigurationKeys.DEFAULT_CHARSET_ENCODING)));
+
+      List<String> header = reader.nextRecord();
+      if (header == null) {
+        return;
+      }
+
+      List<JsonElement> chunk = new ArrayList<>(this.chunkSize);
+      List<String> csvRecord;
+      while ((csvRecord = reader.nextRecord()) != null) {
+        chunk.add(Utils.csvToJsonObject(header, csvRecord, header.size()));
+        if (chunk.size() >= this.chunkSize) {
+          this.chunkQueue.put(chunk);
+          chunk = new ArrayList<>(this.chunkSize);
+        }
+      }
+
+      if (!chunk.isEmpty()) {
+        this.chunkQueue.put(chunk);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.statusPoller.shutdownNow();
+    this.downloader.shutdownNow();
+  }
+}
@@ -17,4 +17,18 @@ public class SalesforceConfigurationKeys {
       "source.querybased.salesforce.is.soft.deletes.pull.disabled";
   public static final int DEFAULT_SALESFORCE_MAX_CHARS_IN_FILE = 200000000;
   public static final int DEFAULT_SALESFORCE_MAX_ROWS_IN_FILE = 1000000;
+
+  // Bulk api PK chunking
+  public static final String SOURCE_QUERYBASED_SALESFORCE_BULK_PK_CHUNKING_ENABLED =
+      "source.querybased.salesforce.bulk.pk.chunking.enabled";
+  public static final boolean DEFAULT_SALESFORCE_BULK_PK_CHUNKING_ENABLED = false;
+  public static final String SOURCE_QUERYBASED_SALESFORCE_BULK_PK_CHUNKING_SIZE =
+      "source.querybased.salesforce.bulk.pk.chunking.size";
+  public static final int DEFAULT_SALESFORCE_BULK_PK_CHUNKING_SIZE = 100000;
+  public static final String SOURCE_QUERYBASED_SALESFORCE_BULK_FETCH_THREADS =
+      "source.querybased.salesforce.bulk.fetch.threads";
+  public static final int DEFAULT_SALESFORCE_BULK_FETCH_THREADS = 4;
+  public static final String SOURCE_QUERYBASED_SALESFORCE_BULK_STATUS_POLL_INTERVAL_SECONDS =
+      "source.querybased.salesforce.bulk.status.poll.interval.seconds";
+  public static final long DEFAULT_SALESFORCE_BULK_STATUS_POLL_INTERVAL_SECONDS = 30;
 }
@@ -93,6 +93,7 @@ public class SalesforceExtractor extends RestApiExtractor {
   private static final String SALESFORCE_HOUR_FORMAT = "HH";
   private static final String SALESFORCE_SOAP_AUTH_SERVICE = "/services/Soap/u";
   private static final String SALESFORCE_BULK_AUTH_SERVICE = "/services/async";
+  private static final String SALESFORCE_PK_CHUNKING_HEADER = "Sforce-Enable-PKChunking";
   private static final Gson gson = new Gson();
 
   private boolean pullStatus = true;
@@ -111,6 +112,7 @@ public class SalesforceExtractor extends RestApiExtractor {
   private int bulkResultColumCount;
   private boolean newBulkResultSet = true;
   private int bulkRecordCount = 0;
+  private SalesforceBulkResultFetcher bulkResultFetcher = null;
 
   private Logger log = LoggerFactory.getLogger(SalesforceExtractor.class);
 
@@ -582,14 +584,20 @@ public class SalesforceExtractor extends RestApiExtractor {
       if (this.bulkApiInitialRun == true) {
         // set finish status to false before starting the bulk job
         this.setBulkJobFinished(false);
-        this.bulkResultIdList = this.getQueryResultIds(schema, entity, predicateList);
-        this.log.info("Number of bulk api resultSet Ids:" + this.bulkResultIdList.size());
+        if (this.workUnit.getPropAsBoolean(
+            SalesforceConfigurationKeys.SOURCE_QUERYBASED_SALESFORCE_BULK_PK_CHUNKING_ENABLED,
+            SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_PK_CHUNKING_ENABLED)) {
+          this.bulkResultFetcher = this.startPkChunkedBulkJob(entity, predicateList);
+        } else {
+          this.bulkResultIdList = this.getQueryResultIds(schema, entity, predicateList);
+          this.log.info("Number of bulk api resultSet Ids:" + this.bulkResultIdList.size());
+        }
       }
 
       // Get data from input stream
       // If bulk load load is not finished, get data from the stream
       if (!this.isBulkJobFinished()) {
-        rs = getBulkData();
+        rs = this.bulkResultFetcher != null ? getPkChunkedBulkData() : getBulkData();
       }
 
       // Set bulkApiInitialRun to false after the completion of first run
@@ -688,36 +696,7 @@ public class SalesforceExtractor extends RestApiExtractor {
     }
 
     try {
-      // Set bulk job attributes
-      this.bulkJob.setObject(entity);
-      this.bulkJob.setOperation(OperationEnum.query);
-      this.bulkJob.setConcurrencyMode(ConcurrencyMode.Parallel);
-
-      // Result type as CSV
-      this.bulkJob.setContentType(ContentType.CSV);
-
-      this.bulkJob = bulkConnection.createJob(this.bulkJob);
-      this.bulkJob = bulkConnection.getJobStatus(this.bulkJob.getId());
-
-      // Construct query with the predicates
-      String query = this.updatedQuery;
-      if (!isNullPredicate(predicateList)) {
-        String limitString = this.getLimitFromInputQuery(query);
-        query = query.replace(limitString, "");
-
-        Iterator<Predicate> i = predicateList.listIterator();
-        while (i.hasNext()) {
-          Predicate predicate = i.next();
-          query = SqlQueryUtils.addPredicate(query, predicate.getCondition());
-        }
-
-        query = query + limitString;
-      }
-
-      this.log.info("QUERY:" + query);
-      ByteArrayInputStream bout = new ByteArrayInputStream(query.getBytes(ConfigurationKeys.DEFAULT_CHARSET_ENCODING));
-
-      this.bulkBatchInfo = bulkConnection.createBatchFromStream(this.bulkJob, bout);
+      submitBulkQueryBatch(this.bulkConnection, entity, predicateList);
 
       int retryInterval = 30 + (int) Math.ceil((float) this.getExpectedRecordCount() / 10000) * 2;
       this.log.info("Salesforce bulk api retry interval in seconds:" + retryInterval);
@@ -748,6 +727,124 @@ public class SalesforceExtractor extends RestApiExtractor {
     }
   }
 
+  /**
+   * Create a bulk api query job for the entity and submit the query, with the predicates applied, as its batch
+   * @param connection to create the job through
+   * @param entity/tablename
+   * @param list of all predicate conditions
+   */
+  private void submitBulkQueryBatch(BulkConnection connection, String entity, List<Predicate> predicateList)
+      throws Exception {
+    // Set bulk job attributes
+    this.bulkJob.setObject(entity);
+    this.bulkJob.setOperation(OperationEnum.query);
+    this.bulkJob.setConcurrencyMode(ConcurrencyMode.Parallel);
+
+    // Result type as CSV
+    this.bulkJob.setContentType(ContentType.CSV);
+
+    this.bulkJob = connection.createJob(this.bulkJob);
+    this.bulkJob = connection.getJobStatus(this.bulkJob.getId());
+
+    // Construct query with the predicates
+    String query = this.updatedQuery;
+    if (!isNullPredicate(predicateList)) {
+      String limitString = this.getLimitFromInputQuery(query);
+      query = query.replace(limitString, "");
+
+      Iterator<Predicate> i = predicateList.listIterator();
+      while (i.hasNext()) {
+        Predicate predicate = i.next();
+        query = SqlQueryUtils.addPredicate(query, predicate.getCondition());
+      }
+
+      query = query + limitString;
+    }
+
+    this.log.info("QUERY:" + query);
+    ByteArrayInputStream bout = new ByteArrayInputStream(query.getBytes(ConfigurationKeys.DEFAULT_CHARSET_ENCODING));
+
+    this.bulkBatchInfo = connection.createBatchFromStream(this.bulkJob, bout);
+  }
+
+  /**
+   * Start a PK chunked bulk api job, for which salesforce splits the query into batches by record id ranges
+   * @param entity/tablename
+   * @param list of all predicate conditions
+   * @return fetcher that polls the batches and downloads their result sets in parallel
+   */
+  private SalesforceBulkResultFetcher startPkChunkedBulkJob(String entity, List<Predicate> predicateList)
+      throws Exception {
+    if (!bulkApiLogin()) {
+      throw new IllegalArgumentException("Invalid Login");
+    }
+
+    int chunkSize = this.workUnit.getPropAsInt(
+        SalesforceConfigurationKeys.SOURCE_QUERYBASED_SALESFORCE_BULK_PK_CHUNKING_SIZE,
+        SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_PK_CHUNKING_SIZE);
+    int fetchThreads = this.workUnit.getPropAsInt(
+        SalesforceConfigurationKeys.SOURCE_QUERYBASED_SALESFORCE_BULK_FETCH_THREADS,
+        SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_FETCH_THREADS);
+    long pollInterval = this.workUnit.getPropAsLong(
+        SalesforceConfigurationKeys.SOURCE_QUERYBASED_SALESFORCE_BULK_STATUS_POLL_INTERVAL_SECONDS,
+        SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_STATUS_POLL_INTERVAL_SECONDS);
+
+    try {
+      // Headers stay on a connection for all later requests, so the pk chunked job is created through a dedicated
+      // connection to keep the header off the shared one
+      BulkConnection pkChunkingConnection = new BulkConnection(this.bulkConnection.getConfig());
+      pkChunkingConnection.addHeader(SALESFORCE_PK_CHUNKING_HEADER, "chunkSize=" + chunkSize);
+      submitBulkQueryBatch(pkChunkingConnection, entity, predicateList);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to start pk chunked bulk api job; error - " + e.getMessage(), e);
+    }
+
+    this.log.info("Started pk chunked bulk api job " + this.bulkJob.getId() + " with chunk size " + chunkSize
+        + " and " + fetchThreads + " fetch threads");
+    SalesforceBulkResultFetcher fetcher = new SalesforceBulkResultFetcher(this.bulkConnection, this.bulkJob.getId(),
+        fetchThreads, getBulkFetchSize(), pollInterval);
+    fetcher.start();
+    return fetcher;
+  }
+
+  /**
+   * Get the next chunk of records downloaded by the pk chunked bulk api job
+     * @return record set with each record as a JsonObject
+   */
+  private RecordSet<JsonElement> getPkChunkedBulkData() throws DataRecordException {
+    RecordSetList<JsonElement> rs = new RecordSetList<JsonElement>();
+
+    try {
+      List<JsonElement> chunk = this.bulkResultFetcher.nextChunk();
+      if (chunk == null) {
+        this.log.info("Bulk job is finished");
+        this.setBulkJobFinished(true);
+        return rs;
+      }
+
+      for (JsonElement record : chunk) {
+        rs.add(record);
+      }
+      this.bulkRecordCount += chunk.size();
+      this.log.info("Total number of records processed so far: " + this.bulkRecordCount);
+    } catch (Exception e) {
+      throw new DataRecordException("Failed to get records from salesforce; error - " + e.getMessage(), e);
+    }
+
+    return rs;
+  }
+
+  /**
+   * Get the number of records to return in each record set, from the fetch size in the .pull file
+   */
+  private int getBulkFetchSize() {
+    int batchSize = Utils.getAsInt(this.workUnit.getProp(ConfigurationKeys.SOURCE_QUERYBASED_FETCH_SIZE));
+    if (batchSize == 0) {
+      batchSize = ConfigurationKeys.DEFAULT_SOURCE_FETCH_SIZE;
+    }
+    return batchSize;
+  }
+
   /**
    * Get data from the bulk api input stream
      * @return record set with each record as a JsonObject
@@ -780,10 +877,7 @@ public class SalesforceExtractor extends RestApiExtractor {
       // if Buffer stream has data then process the same
 
       // Get batch size from .pull file
-      int batchSize = Utils.getAsInt(this.workUnit.getProp(ConfigurationKeys.SOURCE_QUERYBASED_FETCH_SIZE));
-      if (batchSize == 0) {
-        batchSize = ConfigurationKeys.DEFAULT_SOURCE_FETCH_SIZE;
-      }
+      int batchSize = getBulkFetchSize();
 
       // Stream the resultset through CSV reader to identify columns in each record
       InputStreamCSVReader reader = new InputStreamCSVReader(this.bulkBufferedReader);
@@ -822,6 +916,9 @@ public class SalesforceExtractor extends RestApiExtractor {
 
   @Override
   public void closeConnection() throws Exception {
+    if (this.bulkResultFetcher != null) {
+      this.bulkResultFetcher.close();
+    }
     if (this.bulkConnection != null
         && !this.bulkConnection.getJobStatus(this.bulkJob.getId()).getState().toString().equals("Closed")) {
       this.log.info("Closing salesforce bulk job connection");
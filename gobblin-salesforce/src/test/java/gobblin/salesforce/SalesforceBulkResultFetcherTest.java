@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.salesforce;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.gson.JsonElement;
+import com.sforce.async.AsyncApiException;
+import com.sforce.async.AsyncExceptionCode;
+import com.sforce.async.BatchInfo;
+import com.sforce.async.BatchInfoList;
+import com.sforce.async.BatchStateEnum;
+import com.sforce.async.BulkConnection;
+import com.sforce.async.QueryResultList;
+
+
+/**
+ * Unit tests for {@link SalesforceBulkResultFetcher}.
+ */
+@Test(groups = { "gobblin.salesforce" })
+public class SalesforceBulkResultFetcherTest {
+
+  private static final String JOB_ID = "job";
+
+  public void testMergeResultSetsOfAllBatches() throws Exception {
+    BulkConnection connection = Mockito.mock(BulkConnection.class);
+    // The original batch of a pk chunked job is not processed, its chunk batches are
+    Mockito.when(connection.getBatchInfoList(JOB_ID)).thenReturn(batchInfoList(
+        batchInfo("original", BatchStateEnum.NotProcessed), batchInfo("batch1", BatchStateEnum.Completed),
+        batchInfo("batch2", BatchStateEnum.Completed)));
+    mockResultSet(connection, "batch1", "result1", "1", "2", "3");
+    mockResultSet(connection, "batch1", "result2", "4");
+    mockResultSet(connection, "batch2", "result3", "5", "6");
+    Mockito.when(connection.getQueryResultList(JOB_ID, "batch1")).thenReturn(queryResultList("result1", "result2"));
+    Mockito.when(connection.getQueryResultList(JOB_ID, "batch2")).thenReturn(queryResultList("result3"));
+
+    try (SalesforceBulkResultFetcher fetcher = new SalesforceBulkResultFetcher(connection, JOB_ID, 2, 2, 1)) {
+      fetcher.start();
+      Assert.assertEquals(fetchIds(fetcher), ImmutableSet.of("1", "2", "3", "4", "5", "6"));
+    }
+    Mockito.verify(connection, Mockito.never()).getQueryResultList(JOB_ID, "original");
+  }
+
+  public void testPollUntilAllBatchesComplete() throws Exception {
+    BulkConnection connection = Mockito.mock(BulkConnection.class);
+    Mockito.when(connection.getBatchInfoList(JOB_ID)).thenReturn(
+        batchInfoList(batchInfo("batch1", BatchStateEnum.Queued), batchInfo("batch2", BatchStateEnum.Completed)),
+        batchInfoList(batchInfo("batch1", BatchStateEnum.InProgress), batchInfo("batch2", BatchStateEnum.Completed)),
+        batchInfoList(batchInfo("batch1", BatchStateEnum.Completed), batchInfo("batch2", BatchStateEnum.Completed)));
+    mockResultSet(connection, "batch1", "result1", "1", "2");
+    mockResultSet(connection, "batch2", "result2", "3");
+    Mockito.when(connection.getQueryResultList(JOB_ID, "batch1")).thenReturn(queryResultList("result1"));
+    Mockito.when(connection.getQueryResultList(JOB_ID, "batch2")).thenReturn(queryResultList("result2"));
+
+    try (SalesforceBulkResultFetcher fetcher = new SalesforceBulkResultFetcher(connection, JOB_ID, 2, 10, 1)) {
+      fetcher.start();
+      Assert.assertEquals(fetchIds(fetcher), ImmutableSet.of("1", "2", "3"));
+    }
+    Mockito.verify(connection, Mockito.times(3)).getBatchInfoList(JOB_ID);
+    // Result sets of a completed batch are downloaded once, however many times the batch is polled
+    Mockito.verify(connection).getQueryResultList(JOB_ID, "batch2");
+    Mockito.verify(connection).getQueryResultStream(JOB_ID, "batch2", "result2");
+  }
+
+  public void testFailedBatch() throws Exception {
+    BulkConnection connection = Mockito.mock(BulkConnection.class);
+    BatchInfo failedBatch = batchInfo("batch2", BatchStateEnum.Failed);
+    failedBatch.setStateMessage("Query timed out");
+    Mockito.when(connection.getBatchInfoList(JOB_ID))
+        .thenReturn(batchInfoList(batchInfo("batch1", BatchStateEnum.InProgress), failedBatch));
+
+    try (SalesforceBulkResultFetcher fetcher = new SalesforceBulkResultFetcher(connection, JOB_ID, 2, 10, 1)) {
+      fetcher.start();
+      fetchIds(fetcher);
+      Assert.fail("Fetching should fail as a batch failed");
+    } catch (IOException ioe) {
+      Assert.assertTrue(ioe.getCause().getMessage().contains("Query timed out"));
+    }
+  }
+
+  public void testFailedDownload() throws Exception {
+    BulkConnection connection = Mockito.mock(BulkConnection.class);
+    Mockito.when(connection.getBatchInfoList(JOB_ID)).thenReturn(batchInfoList(
+        batchInfo("batch1", BatchStateEnum.Completed), batchInfo("batch2", BatchStateEnum.Completed)));
+    mockResultSet(connection, "batch1", "result1", "1");
+    Mockito.when(connection.getQueryResultStream(JOB_ID, "batch2", "result2"))
+        .thenThrow(new AsyncApiException("Connection reset", AsyncExceptionCode.ClientInputError));
+    Mockito.when(connection.getQueryResultList(JOB_ID, "batch1")).thenReturn(queryResultList("result1"));
+    Mockito.when(connection.getQueryResultList(JOB_ID, "batch2")).thenReturn(queryResultList("result2"));
+
+    try (SalesforceBulkResultFetcher fetcher = new SalesforceBulkResultFetcher(connection, JOB_ID, 2, 10, 1)) {
+      fetcher.start();
+      fetchIds(fetcher);
+      Assert.fail("Fetching should fail as a result set could not be downloaded");
+    } catch (IOException ioe) {
+      Assert.assertTrue(ioe.getCause() instanceof AsyncApiException);
+    }
+  }
+
+  /**
+   * Fetch all chunks, checking that none is larger than the chunk size and that no record is fetched twice.
+   */
+  private static Set<String> fetchIds(SalesforceBulkResultFetcher fetcher) throws IOException, InterruptedException {
+    Set<String> ids = Sets.newHashSet();
+    List<JsonElement> chunk;
+    while ((chunk = fetcher.nextChunk()) != null) {
+      Assert.assertFalse(chunk.isEmpty());
+      for (JsonElement record : chunk) {
+        Assert.assertTrue(ids.add(record.getAsJsonObject().get("Id").getAsString()));
+      }
+    }
+    return ids;
+  }
+
+  private static void mockResultSet(BulkConnection connection, String batchId, String resultId, String... ids)
+      throws AsyncApiException {
+    StringBuilder csv = new StringBuilder("\"Id\",\"Name\"\n");
+    for (String id : ids) {
+      csv.append("\"").append(id).append("\",\"name").append(id).append("\"\n");
+    }
+    Mockito.when(connection.getQueryResultStream(JOB_ID, batchId, resultId))
+        .thenReturn(new ByteArrayInputStream(csv.toString().getBytes(Charsets.UTF_8)));
+  }
+
+  private static BatchInfo batchInfo(String id, BatchStateEnum state) {
+    BatchInfo batchInfo = new BatchInfo();
+    batchInfo.setId(id);
+    batchInfo.setJobId(JOB_ID);
+    batchInfo.setState(state);
+    return batchInfo;
+  }
+
+  private static BatchInfoList batchInfoList(BatchInfo... batchInfos) {
+    BatchInfoList batchInfoList = new BatchInfoList();
+    batchInfoList.setBatchInfo(batchInfos);
+    return batchInfoList;
+  }
+
+  private static QueryResultList queryResultList(String... resultIds) {
+    QueryResultList queryResultList = new QueryResultList();
+    queryResultList.setResult(resultIds);
+    return queryResultList;
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.scheduler;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+
+import gobblin.configuration.ConfigurationKeys;
+
+
+/**
+ * A {@link JobAdmissionController} that limits the number of job runs admitted at the same time.
+ *
+ * <p>
+ *   At most {@link ConfigurationKeys#SCHEDULER_MAX_CONCURRENT_JOBS_KEY} runs are admitted at the same time, and
+ *   at most {@link ConfigurationKeys#SCHEDULER_TAG_MAX_CONCURRENT_JOBS_KEY_PREFIX} followed by a tag runs of jobs
+ *   that have the tag in {@link ConfigurationKeys#JOB_ADMISSION_TAGS_KEY}. Runs that cannot be admitted wait, and
+ *   whenever runs can be admitted, the waiting runs are admitted in the order of
+ *   {@link ConfigurationKeys#JOB_ADMISSION_PRIORITY_KEY} and then the order they started waiting in. A waiting run
+ *   that is blocked by the limit of one of its tags does not block runs of jobs without that tag.
+ * </p>
+ *
+ * <p>
+ *   A run of a job is skipped if a previous run of the same job is still running or waiting, so runs of a job
+ *   that takes longer than its schedule do not pile up.
+ * </p>
+ */
+public class ConcurrencyLimitingJobAdmissionController implements JobAdmissionController {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConcurrencyLimitingJobAdmissionController.class);
+
+  private static final Splitter TAG_SPLITTER = Splitter.on(',').omitEmptyStrings().trimResults();
+
+  private final int maxConcurrentJobs;
+
+  // Mapping from tags to the maximum number of runs of jobs with the tags admitted at the same time
+  private final Map<String, Integer> tagMaxConcurrentJobs = Maps.newHashMap();
+
+  // Mapping from names of the jobs whose runs are admitted and not yet released to their tags
+  private final Map<String, Set<String>> runningJobs = Maps.newHashMap();
+
+  // Number of admitted runs of jobs with each tag
+  private final Multiset<String> runningTags = HashMultiset.create();
+
+  // Waiting runs in the order they are to be admitted
+  private final TreeSet<WaitingJob> waitingJobs = new TreeSet<>(new Comparator<WaitingJob>() {
+    @Override
+    public int compare(WaitingJob job1, WaitingJob job2) {
+      if (job1.priority != job2.priority) {
+        return job1.priority > job2.priority ? -1 : 1;
+      }
+      return Long.compare(job1.sequenceNumber, job2.sequenceNumber);
+    }
+  });
+
+  private long nextSequenceNumber = 0;
+
+  public ConcurrencyLimitingJobAdmissionController(Properties properties) {
+    this.maxConcurrentJobs = Integer.parseInt(properties.getProperty(
+        ConfigurationKeys.SCHEDULER_MAX_CONCURRENT_JOBS_KEY,
+        Integer.toString(ConfigurationKeys.DEFAULT_SCHEDULER_MAX_CONCURRENT_JOBS)));
+    Preconditions.checkArgument(this.maxConcurrentJobs > 0,
+        ConfigurationKeys.SCHEDULER_MAX_CONCURRENT_JOBS_KEY + " must be positive");
+
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(ConfigurationKeys.SCHEDULER_TAG_MAX_CONCURRENT_JOBS_KEY_PREFIX)) {
+        int tagMaxConcurrentJobs = Integer.parseInt(properties.getProperty(key));
+        Preconditions.checkArgument(tagMaxConcurrentJobs > 0, key + " must be positive");
+        this.tagMaxConcurrentJobs.put(
+            key.substring(ConfigurationKeys.SCHEDULER_TAG_MAX_CONCURRENT_JOBS_KEY_PREFIX.length()),
+            tagMaxConcurrentJobs);
+      }
+    }
+  }
+
+  @Override
+  public synchronized boolean admit(Properties jobProps)
+      throws InterruptedException {
+    String jobName = jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY);
+    if (this.runningJobs.containsKey(jobName) || isWaiting(jobName)) {
+      LOG.warn(String.format("Skipping a run of job %s since a previous run is still running or waiting", jobName));
+      return false;
+    }
+
+    Set<String> tags =
+        ImmutableSet.copyOf(TAG_SPLITTER.split(jobProps.getProperty(ConfigurationKeys.JOB_ADMISSION_TAGS_KEY, "")));
+    int priority = Integer.parseInt(jobProps.getProperty(ConfigurationKeys.JOB_ADMISSION_PRIORITY_KEY,
+        Integer.toString(ConfigurationKeys.DEFAULT_JOB_ADMISSION_PRIORITY)));
+    WaitingJob waitingJob = new WaitingJob(jobName, tags, priority, this.nextSequenceNumber++);
+    this.waitingJobs.add(waitingJob);
+    try {
+      if (getNextAdmissibleJob() != waitingJob) {
+        LOG.info(String.format("Run of job %s is waiting for admission", jobName));
+        do {
+          wait();
+        } while (getNextAdmissibleJob() != waitingJob);
+      }
+    } finally {
+      this.waitingJobs.remove(waitingJob);
+      // The next waiting run may change whether or not this run is admitted
+      notifyAll();
+    }
+
+    this.runningJobs.put(jobName, waitingJob.tags);
+    this.runningTags.addAll(waitingJob.tags);
+    return true;
+  }
+
+  @Override
+  public synchronized void release(Properties jobProps) {
+    String jobName = jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY);
+    Set<String> tags = this.runningJobs.remove(jobName);
+    if (tags != null) {
+      for (String tag : tags) {
+        this.runningTags.remove(tag);
+      }
+      notifyAll();
+    }
+  }
+
+  private boolean isWaiting(String jobName) {
+    for (WaitingJob waitingJob : this.waitingJobs) {
+      if (waitingJob.jobName.equals(jobName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the first waiting run that can be admitted now, or {@code null} if there is none.
+   */
+  private WaitingJob getNextAdmissibleJob() {
+    if (this.runningJobs.size() >= this.maxConcurrentJobs) {
+      return null;
+    }
+    for (WaitingJob waitingJob : this.waitingJobs) {
+      if (isUnderTagLimits(waitingJob)) {
+        return waitingJob;
+      }
+    }
+    return null;
+  }
+
+  private boolean isUnderTagLimits(WaitingJob waitingJob) {
+    for (String tag : waitingJob.tags) {
+      Integer tagMaxConcurrentJobs = this.tagMaxConcurrentJobs.get(tag);
+      if (tagMaxConcurrentJobs != null && this.runningTags.count(tag) >= tagMaxConcurrentJobs) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A run of a job waiting for admission.
+   */
+  private static class WaitingJob {
+
+    private final String jobName;
+    private final Set<String> tags;
+    private final int priority;
+    private final long sequenceNumber;
+
+    private WaitingJob(String jobName, Set<String> tags, int priority, long sequenceNumber) {
+      this.jobName = jobName;
+      this.tags = tags;
+      this.priority = priority;
+      this.sequenceNumber = sequenceNumber;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.scheduler;
+
+import java.util.Properties;
+
+
+/**
+ * An interface for controllers of the admission of job runs by the {@link JobScheduler}.
+ *
+ * <p>
+ *   The {@link JobScheduler} asks for the admission of each run of a job before it creates the
+ *   {@link gobblin.runtime.JobLauncher} to launch the run, and releases the admission once the run completes.
+ *   Implementations must have a public constructor taking the system configuration {@link Properties}.
+ * </p>
+ */
+public interface JobAdmissionController {
+
+  /**
+   * Wait until a run of a job may be launched.
+   *
+   * @param jobProps job configuration properties
+   * @return {@code true} if the run is admitted, or {@code false} if the run should be skipped
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public boolean admit(Properties jobProps)
+      throws InterruptedException;
+
+  /**
+   * Release the admission of a run of a job that has completed.
+   *
+   * @param jobProps job configuration properties
+   */
+  public void release(Properties jobProps);
+}
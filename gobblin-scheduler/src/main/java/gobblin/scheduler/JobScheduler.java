@@ -21,6 +21,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.io.monitor.FileAlterationListener;
@@ -60,6 +61,7 @@ import gobblin.runtime.JobLauncher;
 import gobblin.runtime.JobLauncherFactory;
 import gobblin.runtime.JobListener;
 import gobblin.runtime.RunOnceJobListener;
+import gobblin.runtime.TaskExecutor;
 import gobblin.util.ExecutorsUtils;
 import gobblin.util.JobLauncherUtils;
 import gobblin.util.SchedulerUtils;
@@ -80,6 +82,19 @@ import gobblin.util.SchedulerUtils;
  *     {@link org.quartz.Trigger} for the job.
  * </p>
  *
+ * <p>
+ *     If {@link ConfigurationKeys#SCHEDULER_SHARED_TASK_EXECUTOR_ENABLED_KEY} is set to {@code true},
+ *     jobs launched locally share a single {@link TaskExecutor} owned by the scheduler, whose task
+ *     threads are shared fairly among the running jobs, instead of each job run creating its own.
+ * </p>
+ *
+ * <p>
+ *     If {@link ConfigurationKeys#SCHEDULER_JOB_ADMISSION_CONTROLLER_CLASS_KEY} is set, each run of a job
+ *     waits to be admitted by the {@link JobAdmissionController} before its {@link JobLauncher} is created,
+ *     and runs that the controller skips are not launched. Scheduled runs that are blocked by a previous
+ *     run of the same job still waiting or running are then not fired once it completes.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class JobScheduler extends AbstractIdleService {
@@ -99,6 +114,12 @@ public class JobScheduler extends AbstractIdleService {
   // A thread pool executor for running jobs without schedules
   protected final ExecutorService jobExecutor;
 
+  // An optional task executor shared by all jobs launched locally
+  private final Optional<TaskExecutor> sharedTaskExecutor;
+
+  // An optional controller of the admission of job runs
+  private final Optional<JobAdmissionController> jobAdmissionController;
+
   // Mapping between jobs to job listeners associated with them
   private final Map<String, JobListener> jobListenerMap = Maps.newHashMap();
 
@@ -123,6 +144,17 @@ public class JobScheduler extends AbstractIdleService {
             Integer.toString(ConfigurationKeys.DEFAULT_JOB_EXECUTOR_THREAD_POOL_SIZE))),
         ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("JobScheduler-%d")));
 
+    this.sharedTaskExecutor = Boolean.parseBoolean(properties.getProperty(
+        ConfigurationKeys.SCHEDULER_SHARED_TASK_EXECUTOR_ENABLED_KEY,
+        ConfigurationKeys.DEFAULT_SCHEDULER_SHARED_TASK_EXECUTOR_ENABLED))
+        ? Optional.of(new TaskExecutor(properties)) : Optional.<TaskExecutor>absent();
+
+    this.jobAdmissionController = properties.containsKey(ConfigurationKeys.SCHEDULER_JOB_ADMISSION_CONTROLLER_CLASS_KEY)
+        ? Optional.of(JobAdmissionController.class.cast(Class.forName(properties.getProperty(
+            ConfigurationKeys.SCHEDULER_JOB_ADMISSION_CONTROLLER_CLASS_KEY)).getConstructor(Properties.class)
+            .newInstance(properties)))
+        : Optional.<JobAdmissionController>absent();
+
     this.jobConfigFileExtensions = Sets.newHashSet(Splitter.on(",").omitEmptyStrings().split(this.properties
         .getProperty(ConfigurationKeys.JOB_CONFIG_FILE_EXTENSIONS_KEY,
             ConfigurationKeys.DEFAULT_JOB_CONFIG_FILE_EXTENSIONS)));
@@ -142,6 +174,9 @@ public class JobScheduler extends AbstractIdleService {
       throws Exception {
     LOG.info("Starting the job scheduler");
 
+    if (this.sharedTaskExecutor.isPresent()) {
+      this.sharedTaskExecutor.get().startAsync().awaitRunning(5, TimeUnit.SECONDS);
+    }
     this.scheduler.start();
     if (this.properties.containsKey(ConfigurationKeys.JOB_CONFIG_FILE_DIR_KEY)) {
       scheduleLocallyConfiguredJobs();
@@ -162,7 +197,13 @@ public class JobScheduler extends AbstractIdleService {
     try {
       ExecutorsUtils.shutdownExecutorService(this.jobExecutor, Optional.of(LOG));
     } finally {
-      this.scheduler.shutdown(this.waitForJobCompletion);
+      try {
+        this.scheduler.shutdown(this.waitForJobCompletion);
+      } finally {
+        if (this.sharedTaskExecutor.isPresent()) {
+          this.sharedTaskExecutor.get().stopAsync().awaitTerminated();
+        }
+      }
     }
   }
 
@@ -285,11 +326,7 @@ public class JobScheduler extends AbstractIdleService {
    */
   public void runJob(Properties jobProps, JobListener jobListener)
       throws JobException {
-    try {
-      runJob(jobProps, jobListener, JobLauncherFactory.newJobLauncher(this.properties, jobProps));
-    } catch (Exception e) {
-      throw new JobException("Failed to run job " + jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY), e);
-    }
+    runJob(jobProps, jobListener, Optional.<JobLauncher>absent());
   }
 
   /**
@@ -312,36 +349,90 @@ public class JobScheduler extends AbstractIdleService {
    */
   public void runJob(Properties jobProps, JobListener jobListener, JobLauncher jobLauncher)
       throws JobException {
+    runJob(jobProps, jobListener, Optional.of(jobLauncher));
+  }
+
+  private void runJob(Properties jobProps, JobListener jobListener, Optional<JobLauncher> jobLauncher)
+      throws JobException {
     Preconditions.checkArgument(jobProps.containsKey(ConfigurationKeys.JOB_NAME_KEY),
         "A job must have a job name specified by job.name");
     String jobName = jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY);
 
-    // Check if the job has been disabled
-    boolean disabled = Boolean.valueOf(jobProps.getProperty(ConfigurationKeys.JOB_DISABLED_KEY, "false"));
-    if (disabled) {
-      LOG.info("Skipping disabled job " + jobName);
-      return;
+    Closer closer = Closer.create();
+    if (jobLauncher.isPresent()) {
+      closer.register(jobLauncher.get());
+    }
+    try {
+      // Check if the job has been disabled
+      boolean disabled = Boolean.valueOf(jobProps.getProperty(ConfigurationKeys.JOB_DISABLED_KEY, "false"));
+      if (disabled) {
+        LOG.info("Skipping disabled job " + jobName);
+        return;
+      }
+
+      // Wait for the run to be admitted before creating the JobLauncher, which may acquire resources
+      if (!admitJob(jobProps)) {
+        return;
+      }
+      try {
+        launchJob(jobProps, jobListener, jobLauncher.isPresent() ? jobLauncher.get()
+            : closer.register(createJobLauncher(jobProps)));
+      } finally {
+        if (this.jobAdmissionController.isPresent()) {
+          this.jobAdmissionController.get().release(jobProps);
+        }
+      }
+    } finally {
+      try {
+        closer.close();
+      } catch (IOException ioe) {
+        LOG.error("Failed to close the JobLauncher for job " + jobName, ioe);
+      }
+    }
+  }
+
+  private boolean admitJob(Properties jobProps)
+      throws JobException {
+    if (!this.jobAdmissionController.isPresent()) {
+      return true;
+    }
+    try {
+      return this.jobAdmissionController.get().admit(jobProps);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new JobException("Interrupted while waiting for the admission of job "
+          + jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY), ie);
+    }
+  }
+
+  private JobLauncher createJobLauncher(Properties jobProps)
+      throws JobException {
+    try {
+      return JobLauncherFactory.newJobLauncher(this.properties, jobProps, this.sharedTaskExecutor);
+    } catch (Exception e) {
+      throw new JobException("Failed to run job " + jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY), e);
     }
+  }
+
+  /**
+   * Launch a job that has been admitted with the given {@link JobLauncher}.
+   */
+  private void launchJob(Properties jobProps, JobListener jobListener, JobLauncher jobLauncher)
+      throws JobException {
+    String jobName = jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY);
 
     // Populate the assigned job ID
     jobProps.setProperty(ConfigurationKeys.JOB_ID_KEY, JobLauncherUtils.newJobId(jobName));
 
-    Closer closer = Closer.create();
     // Launch the job
     try {
-      closer.register(jobLauncher).launchJob(jobListener);
+      jobLauncher.launchJob(jobListener);
       boolean runOnce = Boolean.valueOf(jobProps.getProperty(ConfigurationKeys.JOB_RUN_ONCE_KEY, "false"));
       if (runOnce && this.scheduledJobs.containsKey(jobName)) {
         this.scheduler.deleteJob(this.scheduledJobs.remove(jobName));
       }
     } catch (Throwable t) {
       throw new JobException("Failed to launch and run job " + jobName, t);
-    } finally {
-      try {
-        closer.close();
-      } catch (IOException ioe) {
-        LOG.error("Failed to close the JobLauncher for job " + jobName, ioe);
-      }
     }
   }
 
@@ -485,10 +576,15 @@ public class JobScheduler extends AbstractIdleService {
    */
   private Trigger getTrigger(JobKey jobKey, Properties jobProps) {
     // Build a trigger for the job with the given cron-style schedule
+    CronScheduleBuilder cronScheduleBuilder =
+        CronScheduleBuilder.cronSchedule(jobProps.getProperty(ConfigurationKeys.JOB_SCHEDULE_KEY));
+    if (this.jobAdmissionController.isPresent()) {
+      // Do not fire runs missed while a previous run of the job is waiting for admission or running
+      cronScheduleBuilder = cronScheduleBuilder.withMisfireHandlingInstructionDoNothing();
+    }
     return TriggerBuilder.newTrigger().withIdentity(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY),
         Strings.nullToEmpty(jobProps.getProperty(ConfigurationKeys.JOB_GROUP_KEY))).forJob(jobKey)
-        .withSchedule(CronScheduleBuilder.cronSchedule(jobProps.getProperty(ConfigurationKeys.JOB_SCHEDULE_KEY)))
-        .build();
+        .withSchedule(cronScheduleBuilder).build();
   }
 
   /**
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.scheduler;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.ConfigurationKeys;
+
+
+/**
+ * Unit tests for {@link ConcurrencyLimitingJobAdmissionController}.
+ */
+@Test(groups = {"gobblin.scheduler"})
+public class ConcurrencyLimitingJobAdmissionControllerTest {
+
+  @Test
+  public void testOverlappingRunIsSkipped() throws Exception {
+    JobAdmissionController controller = new ConcurrencyLimitingJobAdmissionController(new Properties());
+    Properties jobProps = jobProps("Job1", "", 0);
+
+    Assert.assertTrue(controller.admit(jobProps));
+    Assert.assertFalse(controller.admit(jobProps));
+    controller.release(jobProps);
+    Assert.assertTrue(controller.admit(jobProps));
+  }
+
+  @Test
+  public void testWaitingRunsAreAdmittedByPriority() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(ConfigurationKeys.SCHEDULER_MAX_CONCURRENT_JOBS_KEY, "1");
+    JobAdmissionController controller = new ConcurrencyLimitingJobAdmissionController(properties);
+
+    Properties runningJobProps = jobProps("Running", "", 0);
+    Assert.assertTrue(controller.admit(runningJobProps));
+
+    List<String> admitted = Lists.newArrayList();
+    CountDownLatch lowPriorityAdmitted = new CountDownLatch(1);
+    CountDownLatch highPriorityAdmitted = new CountDownLatch(1);
+    Thread lowPriorityThread =
+        admitAsync(controller, jobProps("LowPriority", "", 0), admitted, lowPriorityAdmitted);
+    waitForWaitingThread(lowPriorityThread);
+    Thread highPriorityThread =
+        admitAsync(controller, jobProps("HighPriority", "", 1), admitted, highPriorityAdmitted);
+    waitForWaitingThread(highPriorityThread);
+
+    controller.release(runningJobProps);
+    Assert.assertTrue(highPriorityAdmitted.await(10, TimeUnit.SECONDS));
+    Assert.assertFalse(lowPriorityAdmitted.await(100, TimeUnit.MILLISECONDS));
+
+    controller.release(jobProps("HighPriority", "", 1));
+    Assert.assertTrue(lowPriorityAdmitted.await(10, TimeUnit.SECONDS));
+    synchronized (admitted) {
+      Assert.assertEquals(admitted, ImmutableList.of("HighPriority", "LowPriority"));
+    }
+  }
+
+  @Test
+  public void testTagLimitDoesNotBlockOtherJobs() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(ConfigurationKeys.SCHEDULER_TAG_MAX_CONCURRENT_JOBS_KEY_PREFIX + "db", "1");
+    JobAdmissionController controller = new ConcurrencyLimitingJobAdmissionController(properties);
+
+    Properties runningJobProps = jobProps("Running", "db", 0);
+    Assert.assertTrue(controller.admit(runningJobProps));
+
+    List<String> admitted = Lists.newArrayList();
+    CountDownLatch taggedAdmitted = new CountDownLatch(1);
+    Thread taggedThread = admitAsync(controller, jobProps("Tagged", "db, hdfs", 1), admitted, taggedAdmitted);
+    waitForWaitingThread(taggedThread);
+
+    // A job without the tag is admitted even though a job with a higher priority is waiting
+    Assert.assertTrue(controller.admit(jobProps("Untagged", "hdfs", 0)));
+    Assert.assertEquals(taggedAdmitted.getCount(), 1);
+
+    controller.release(runningJobProps);
+    Assert.assertTrue(taggedAdmitted.await(10, TimeUnit.SECONDS));
+  }
+
+  private static Properties jobProps(String jobName, String tags, int priority) {
+    Properties jobProps = new Properties();
+    jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY, jobName);
+    jobProps.setProperty(ConfigurationKeys.JOB_ADMISSION_TAGS_KEY, tags);
+    jobProps.setProperty(ConfigurationKeys.JOB_ADMISSION_PRIORITY_KEY, Integer.toString(priority));
+    return jobProps;
+  }
+
+  private static Thread admitAsync(final JobAdmissionController controller, final Properties jobProps,
+      final List<String> admitted, final CountDownLatch admittedLatch) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (controller.admit(jobProps)) {
+            synchronized (admitted) {
+              admitted.add(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY));
+            }
+            admittedLatch.countDown();
+          }
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  private static void waitForWaitingThread(Thread thread) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(thread.getState(), Thread.State.WAITING);
+  }
+}
@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.Closer;
 
 
 /**
@@ -52,6 +53,23 @@ public class FileListUtils {
     return listFilesRecursivelyHelper(fs, Lists.<FileStatus> newArrayList(), fs.getFileStatus(path), fileFilter);
   }
 
+  /**
+   * Helper method to list out all files under a specified path using a {@link ParallelFileLister} with the given
+   * number of threads. The specified {@link PathFilter} is treated as a file filter, that is it is only applied to
+   * file {@link Path}s.
+   */
+  public static List<FileStatus> listFilesRecursively(FileSystem fs, Path path, PathFilter fileFilter, int threads)
+      throws FileNotFoundException, IOException {
+    Closer closer = Closer.create();
+    try {
+      return closer.register(new ParallelFileLister(fs, threads)).listFilesRecursively(path, fileFilter);
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
   @SuppressWarnings("deprecation")
   private static List<FileStatus> listFilesRecursivelyHelper(FileSystem fs, List<FileStatus> files,
       FileStatus fileStatus, PathFilter fileFilter) throws FileNotFoundException, IOException {
@@ -83,6 +101,23 @@ public class FileListUtils {
         fileFilter);
   }
 
+  /**
+   * Method to list out all files, or directory if no file exists, under a specified path using a
+   * {@link ParallelFileLister} with the given number of threads. The specified {@link PathFilter} is treated as a
+   * file filter, that is it is only applied to file {@link Path}s.
+   */
+  public static List<FileStatus> listMostNestedPathRecursively(FileSystem fs, Path path, PathFilter fileFilter,
+      int threads) throws FileNotFoundException, IOException {
+    Closer closer = Closer.create();
+    try {
+      return closer.register(new ParallelFileLister(fs, threads)).listMostNestedPathRecursively(path, fileFilter);
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
   @SuppressWarnings("deprecation")
   private static List<FileStatus> listMostNestedPathRecursivelyHelper(FileSystem fs, List<FileStatus> files,
       FileStatus fileStatus, PathFilter fileFilter) throws FileNotFoundException, IOException {
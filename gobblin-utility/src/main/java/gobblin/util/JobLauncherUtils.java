@@ -105,6 +105,38 @@ public class JobLauncherUtils {
     return flattenedWorkUnits;
   }
 
+  /**
+   * Flatten a {@link List} of {@link WorkUnit}s like {@link #flattenWorkUnits(List)}, but return copies of the inner
+   * {@link WorkUnit}s of {@link MultiWorkUnit}s, to which the properties set in the {@link MultiWorkUnit}s themselves,
+   * e.g. through {@link MultiWorkUnit#setPropExcludeInnerWorkUnits(String, Object)}, are added if they do not already
+   * have them.
+   *
+   * <p>
+   *   The given {@link WorkUnit}s are left untouched, so properties shared by all inner {@link WorkUnit}s are still
+   *   stored once if the {@link MultiWorkUnit}s are serialized afterwards. This should be used to get the
+   *   {@link WorkUnit}s to run, while {@link #flattenWorkUnits(List)} should be used to update the {@link WorkUnit}s.
+   * </p>
+   *
+   * @param workUnits is a {@link List} containing either {@link WorkUnit}s or {@link MultiWorkUnit}s
+   * @return a {@link List} of flattened {@link WorkUnit}s
+   */
+  public static List<WorkUnit> flattenWorkUnitsWithInheritedProperties(List<WorkUnit> workUnits) {
+    List<WorkUnit> flattenedWorkUnits = Lists.newArrayList();
+    for (WorkUnit workUnit : workUnits) {
+      if (workUnit instanceof MultiWorkUnit) {
+        for (WorkUnit innerWorkUnit : flattenWorkUnitsWithInheritedProperties(
+            ((MultiWorkUnit) workUnit).getWorkUnits())) {
+          WorkUnit inheritingWorkUnit = WorkUnit.copyOf(innerWorkUnit);
+          inheritingWorkUnit.addAllIfNotExist(workUnit);
+          flattenedWorkUnits.add(inheritingWorkUnit);
+        }
+      } else {
+        flattenedWorkUnits.add(workUnit);
+      }
+    }
+    return flattenedWorkUnits;
+  }
+
   /**
    * Cleanup the staging data for a list of Gobblin tasks. This method calls the
    * {@link #cleanTaskStagingData(State, Logger)} method.
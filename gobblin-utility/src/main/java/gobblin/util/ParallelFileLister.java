@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+
+
+/**
+ * A class that lists directory trees on a {@link FileSystem} by listing many directories in parallel.
+ *
+ * <p>
+ *   Every directory found during a walk is listed by a task in a fixed-size thread pool, so at most {@code threads}
+ *   {@link FileSystem#listStatus(Path)} calls are in flight at any time. The results of a walk are returned through
+ *   an {@link java.util.Iterator} as soon as they are found, so callers can start processing files before the walk
+ *   completes. The iterator is backed by a bounded queue, which blocks the listing threads when the caller falls
+ *   behind. Several walks can share the same {@link ParallelFileLister}.
+ * </p>
+ *
+ * <p>
+ *   If listing caching is enabled, the listing of every directory without subdirectories is kept in a cache shared
+ *   by all instances, along with the modification time of the directory. Listings are cached per file system and
+ *   user. A cached listing is only reused if the modification time of the directory has not changed, which means
+ *   new and deleted files are picked up, but changes to existing files are not. Caching should therefore only be used
+ *   for directory trees whose files are immutable. Directories with subdirectories are always listed again, since
+ *   the modification time of a directory does not change with the contents of its subdirectories, and their listing
+ *   is what provides the current modification times of the subdirectories. A walk of a tree whose leaf directories
+ *   have not changed therefore costs one {@link FileSystem#listStatus(Path)} call per directory with subdirectories,
+ *   instead of one per directory.
+ * </p>
+ *
+ * <p>
+ *   Calling {@link #close()} stops the {@link ExecutorService} and aborts walks that are still in progress. Callers
+ *   that stop consuming the results of a walk before it completes must close the {@link ParallelFileLister}, since
+ *   its threads are otherwise blocked on the full result queue.
+ * </p>
+ */
+public class ParallelFileLister implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelFileLister.class);
+
+  public static final String PARALLEL_FILE_LISTER_THREADS_KEY = "parallel.file.lister.threads";
+  public static final int DEFAULT_PARALLEL_FILE_LISTER_THREADS = 10;
+  public static final String PARALLEL_FILE_LISTER_CACHE_ENABLED_KEY = "parallel.file.lister.cache.enabled";
+  public static final boolean DEFAULT_PARALLEL_FILE_LISTER_CACHE_ENABLED = false;
+
+  // Maximum number of file statuses kept in the listing cache
+  private static final long MAX_CACHED_FILE_STATUSES = 1000000;
+  // Maximum number of results of a walk that have not been consumed yet
+  private static final int RESULT_QUEUE_CAPACITY = 10000;
+  private static final long RESULT_QUEUE_TIMEOUT_MILLIS = 1000;
+
+  private static final Cache<ListingKey, CachedListing> LISTING_CACHE = CacheBuilder.newBuilder()
+      .maximumWeight(MAX_CACHED_FILE_STATUSES).weigher(new Weigher<ListingKey, CachedListing>() {
+        @Override
+        public int weigh(ListingKey key, CachedListing listing) {
+          return listing.statuses.length + 1;
+        }
+      }).build();
+
+  // Marks the end of the results of a walk in its result queue
+  private static final FileStatus END_OF_WALK = new FileStatus();
+
+  private final FileSystem fs;
+  private final ExecutorService executor;
+  private final boolean cacheListings;
+  // Name of the user the listings are cached for, only set if listing caching is enabled
+  private final String user;
+
+  public ParallelFileLister(FileSystem fs, int threads) {
+    this(fs, threads, false);
+  }
+
+  public ParallelFileLister(FileSystem fs, int threads, boolean cacheListings) {
+    this.fs = fs;
+    this.executor = Executors.newFixedThreadPool(threads,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOGGER), Optional.of("ParallelFileLister-%d")));
+    this.cacheListings = cacheListings;
+    this.user = cacheListings ? getCurrentUser() : null;
+  }
+
+  /**
+   * List all files under a specified path. The specified {@link PathFilter} is treated as a file filter, that is it
+   * is only applied to file {@link Path}s.
+   *
+   * @see FileListUtils#listFilesRecursively(FileSystem, Path, PathFilter)
+   */
+  public List<FileStatus> listFilesRecursively(Path path, PathFilter fileFilter) throws IOException {
+    return toList(iterateFilesRecursively(path, fileFilter, false));
+  }
+
+  /**
+   * List all files, or directory if no file exists, under a specified path. The specified {@link PathFilter} is
+   * treated as a file filter, that is it is only applied to file {@link Path}s.
+   *
+   * @see FileListUtils#listMostNestedPathRecursively(FileSystem, Path, PathFilter)
+   */
+  public List<FileStatus> listMostNestedPathRecursively(Path path, PathFilter fileFilter) throws IOException {
+    return toList(iterateFilesRecursively(path, fileFilter, true));
+  }
+
+  /**
+   * Start walking the directory tree under a specified path, and return an iterator over the files found so far.
+   * The iterator blocks until more files are found or the walk completes. The order of the files is not defined.
+   *
+   * <p>
+   *   A failure to list a directory ends the walk, and is thrown by the iterator as a {@link RuntimeException} whose
+   *   cause is the {@link IOException}.
+   * </p>
+   *
+   * @param path the root of the walk
+   * @param fileFilter a filter applied to file {@link Path}s
+   * @param includeEmptyDirs whether to also return directories that are empty
+   */
+  public Iterator<FileStatus> iterateFilesRecursively(Path path, PathFilter fileFilter,
+      boolean includeEmptyDirs) throws IOException {
+    Walk walk = new Walk(fileFilter, includeEmptyDirs);
+    walk.visit(this.fs.getFileStatus(path));
+    return walk.iterator();
+  }
+
+  private static List<FileStatus> toList(Iterator<FileStatus> iterator) throws IOException {
+    List<FileStatus> results = Lists.newArrayList();
+    try {
+      while (iterator.hasNext()) {
+        results.add(iterator.next());
+      }
+    } catch (RuntimeException re) {
+      Throwables.propagateIfInstanceOf(re.getCause(), IOException.class);
+      throw re;
+    }
+    return results;
+  }
+
+  @SuppressWarnings("deprecation")
+  private FileStatus[] listStatus(FileStatus dir) throws IOException {
+    if (!this.cacheListings) {
+      return this.fs.listStatus(dir.getPath());
+    }
+
+    ListingKey key = new ListingKey(this.fs.getUri(), this.user, this.fs.makeQualified(dir.getPath()));
+    CachedListing cachedListing = LISTING_CACHE.getIfPresent(key);
+    if (cachedListing != null && cachedListing.modificationTime == dir.getModificationTime()) {
+      return cachedListing.statuses;
+    }
+
+    FileStatus[] statuses = this.fs.listStatus(dir.getPath());
+    if (!hasDirectories(statuses)) {
+      LISTING_CACHE.put(key, new CachedListing(dir.getModificationTime(), statuses));
+    }
+    return statuses;
+  }
+
+  @SuppressWarnings("deprecation")
+  private static boolean hasDirectories(FileStatus[] statuses) {
+    if (statuses != null) {
+      for (FileStatus status : statuses) {
+        if (status.isDir()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String getCurrentUser() {
+    try {
+      return UserGroupInformation.getCurrentUser().getUserName();
+    } catch (IOException ioe) {
+      throw Throwables.propagate(ioe);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * The state of a single walk of a directory tree.
+   */
+  private class Walk {
+
+    private final PathFilter fileFilter;
+    private final boolean includeEmptyDirs;
+    private final BlockingQueue<FileStatus> results = new LinkedBlockingQueue<>(RESULT_QUEUE_CAPACITY);
+    // Number of directories found that have not been completely listed yet
+    private final AtomicInteger pendingDirs = new AtomicInteger();
+    private volatile Throwable failure = null;
+
+    private Walk(PathFilter fileFilter, boolean includeEmptyDirs) {
+      this.fileFilter = fileFilter;
+      this.includeEmptyDirs = includeEmptyDirs;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void visit(FileStatus fileStatus) {
+      if (fileStatus.isDir()) {
+        submit(fileStatus);
+      } else if (this.fileFilter.accept(fileStatus.getPath())) {
+        put(fileStatus);
+      }
+
+      if (!fileStatus.isDir()) {
+        // The root of the walk is a file, so there is nothing else to list
+        put(END_OF_WALK);
+      }
+    }
+
+    private void submit(final FileStatus dir) {
+      this.pendingDirs.incrementAndGet();
+      try {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              list(dir);
+            } catch (Throwable t) {
+              fail(t);
+            } finally {
+              if (pendingDirs.decrementAndGet() == 0) {
+                put(END_OF_WALK);
+              }
+            }
+          }
+        });
+      } catch (RejectedExecutionException ree) {
+        this.pendingDirs.decrementAndGet();
+        fail(ree);
+      }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void list(FileStatus dir) throws IOException {
+      if (this.failure != null) {
+        return;
+      }
+
+      FileStatus[] statuses = listStatus(dir);
+      if (ArrayUtils.isEmpty(statuses)) {
+        if (this.includeEmptyDirs) {
+          put(dir);
+        }
+        return;
+      }
+
+      for (FileStatus status : statuses) {
+        if (status.isDir()) {
+          submit(status);
+        } else if (this.fileFilter.accept(status.getPath())) {
+          put(status);
+        }
+      }
+    }
+
+    private void fail(Throwable t) {
+      if (this.failure == null) {
+        this.failure = t;
+      }
+    }
+
+    private void put(FileStatus fileStatus) {
+      try {
+        while (!this.results.offer(fileStatus, RESULT_QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          if (this.failure != null) {
+            // Nobody is going to consume the results of a failed walk
+            return;
+          }
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        fail(ie);
+      }
+    }
+
+    private Iterator<FileStatus> iterator() {
+      return new AbstractIterator<FileStatus>() {
+        @Override
+        protected FileStatus computeNext() {
+          try {
+            while (true) {
+              FileStatus next = results.poll(RESULT_QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+              if (failure != null) {
+                throw new RuntimeException("Failed to list files", failure);
+              }
+              if (next != null) {
+                return next == END_OF_WALK ? endOfData() : next;
+              }
+              if (executor.isTerminated()) {
+                throw new RuntimeException(new IOException("The file lister was closed before the walk completed"));
+              }
+            }
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ie);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * The key of a cached listing, which is only shared by listers of the same file system for the same user.
+   */
+  private static class ListingKey {
+
+    private final URI fsUri;
+    private final String user;
+    private final Path path;
+
+    private ListingKey(URI fsUri, String user, Path path) {
+      this.fsUri = fsUri;
+      this.user = user;
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof ListingKey)) {
+        return false;
+      }
+      ListingKey other = (ListingKey) object;
+      return this.fsUri.equals(other.fsUri) && this.user.equals(other.user) && this.path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(this.fsUri, this.user, this.path);
+    }
+  }
+
+  private static class CachedListing {
+
+    private final long modificationTime;
+    private final FileStatus[] statuses;
+
+    private CachedListing(long modificationTime, FileStatus[] statuses) {
+      this.modificationTime = modificationTime;
+      this.statuses = statuses;
+    }
+  }
+}
@@ -278,6 +278,21 @@ public class ParallelRunner implements Closeable {
     }));
   }
 
+  /**
+   * Submit a {@link Callable} to be run in parallel with the other submitted tasks.
+   *
+   * <p>
+   *   This method submits the {@link Callable} and returns immediately after it is submitted. Any exception
+   *   it throws is rethrown by {@link #close()}.
+   * </p>
+   *
+   * @param callable the {@link Callable} to be run
+   * @param <T> the type of the result of the {@link Callable}
+   */
+  public <T> void submitCallable(Callable<T> callable) {
+    this.futures.add(this.executor.submit(callable));
+  }
+
   @Override
   public void close() throws IOException {
     try {
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@link FilterOutputStream} that counts the bytes written to the underlying stream. Unlike Guava's
+ * {@link com.google.common.io.CountingOutputStream}, the count can be read from any thread without locking.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+  private final AtomicLong count = new AtomicLong(0);
+
+  public CountingOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  /**
+   * Get the number of bytes written so far.
+   */
+  public long getCount() {
+    return this.count.get();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    this.out.write(b);
+    this.count.incrementAndGet();
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    // FilterOutputStream writes arrays one byte at a time, so write them to the underlying stream directly
+    this.out.write(b, off, len);
+    this.count.addAndGet(len);
+  }
+}
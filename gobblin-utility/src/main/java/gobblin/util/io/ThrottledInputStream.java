@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import gobblin.util.limiter.Limiter;
+
+
+/**
+ * A {@link FilterInputStream} that acquires a permit from a {@link Limiter} for every byte read, blocking the reader
+ * once it exceeds the rate allowed by the {@link Limiter}.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+
+  private final Limiter limiter;
+
+  public ThrottledInputStream(InputStream in, Limiter limiter) {
+    super(in);
+    this.limiter = limiter;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int val = super.read();
+    if (val >= 0) {
+      acquirePermits(1);
+    }
+    return val;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int val = super.read(b, off, len);
+    if (val > 0) {
+      acquirePermits(val);
+    }
+    return val;
+  }
+
+  private void acquirePermits(long permits) throws IOException {
+    try {
+      this.limiter.acquirePermits(permits);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while acquiring bandwidth permits", ie);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import gobblin.util.limiter.Limiter;
+
+
+/**
+ * A {@link FilterOutputStream} that acquires a permit from a {@link Limiter} for every byte written, blocking the
+ * writer once it exceeds the rate allowed by the {@link Limiter}.
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+
+  private final Limiter limiter;
+
+  public ThrottledOutputStream(OutputStream out, Limiter limiter) {
+    super(out);
+    this.limiter = limiter;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    acquirePermits(1);
+    this.out.write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    // FilterOutputStream writes arrays one byte at a time, so write them to the underlying stream directly
+    acquirePermits(len);
+    this.out.write(b, off, len);
+  }
+
+  private void acquirePermits(long permits) throws IOException {
+    try {
+      this.limiter.acquirePermits(permits);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while acquiring bandwidth permits", ie);
+    }
+  }
+}
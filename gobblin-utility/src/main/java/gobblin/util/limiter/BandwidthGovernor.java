@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util.limiter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.RateLimiter;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.util.ExecutorsUtils;
+import gobblin.util.HadoopUtils;
+
+
+/**
+ * Limits the rate at which all tasks of a job read or write bytes, using {@link Limiter}s that are handed out by
+ * {@link #getLimiter(Optional)} and whose permits are bytes.
+ *
+ * <p>
+ *   A job can have a job-wide budget, {@link #BANDWIDTH_LIMIT_KEY}, and a budget for each dataset,
+ *   {@link #DATASET_BANDWIDTH_LIMIT_KEY}, both in bytes per second over all containers of the job. There is a single
+ *   {@link BandwidthGovernor} per job execution, identified by {@link ConfigurationKeys#JOB_ID_KEY}, in each JVM,
+ *   obtained through {@link #getInstance(State)} and shared by all tasks of the job running in the JVM. It is released
+ *   through {@link #close()} once a task is done with it, and at the latest through {@link #release(String)} when the
+ *   job finishes.
+ * </p>
+ *
+ * <p>
+ *   If {@link #BANDWIDTH_LEASE_DIR_KEY} is set, the containers of a job coordinate through lease files in a directory
+ *   of the job execution under that directory. Each {@link BandwidthGovernor} rewrites its lease file every
+ *   {@link #BANDWIDTH_LEASE_REFRESH_INTERVAL_SECONDS_KEY} seconds, and sets its rates to the budgets divided by the
+ *   number of leases that have been rewritten within the last three intervals, so the budgets are shared among the
+ *   containers that are running. Otherwise, the budgets are divided by {@link #BANDWIDTH_NUM_CONTAINERS_KEY}.
+ * </p>
+ *
+ * <p>
+ *   The achieved rates are tracked by {@link Meter}s and logged along with the target rates every refresh interval.
+ * </p>
+ */
+public class BandwidthGovernor implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BandwidthGovernor.class);
+
+  private static final String BANDWIDTH_PREFIX = "gobblin.bandwidth";
+  public static final String BANDWIDTH_LIMIT_KEY = BANDWIDTH_PREFIX + ".limit.bytes.per.second";
+  public static final String DATASET_BANDWIDTH_LIMIT_KEY = BANDWIDTH_PREFIX + ".dataset.limit.bytes.per.second";
+  public static final String BANDWIDTH_LEASE_DIR_KEY = BANDWIDTH_PREFIX + ".lease.dir";
+  public static final String BANDWIDTH_LEASE_REFRESH_INTERVAL_SECONDS_KEY =
+      BANDWIDTH_PREFIX + ".lease.refresh.interval.seconds";
+  public static final long DEFAULT_BANDWIDTH_LEASE_REFRESH_INTERVAL_SECONDS = 30;
+  public static final String BANDWIDTH_NUM_CONTAINERS_KEY = BANDWIDTH_PREFIX + ".num.containers";
+  public static final int DEFAULT_BANDWIDTH_NUM_CONTAINERS = 1;
+
+  // A lease is considered expired if it has not been rewritten for this many refresh intervals
+  private static final int LEASE_EXPIRATION_INTERVALS = 3;
+
+  private static final Map<String, BandwidthGovernor> GOVERNORS = Maps.newHashMap();
+
+  private final String jobId;
+  private final Optional<Long> jobBudget;
+  private final Optional<Long> datasetBudget;
+  private final int numContainers;
+  private final long refreshIntervalMillis;
+  private final Optional<FileSystem> leaseFs;
+  private final Optional<Path> leaseFile;
+  private final ScheduledExecutorService refresher;
+
+  private final Optional<RateLimiter> jobRateLimiter;
+  private final Meter jobMeter = new Meter();
+  private final ConcurrentMap<String, RateLimiter> datasetRateLimiters = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Meter> datasetMeters = Maps.newConcurrentMap();
+
+  private volatile int liveContainers;
+  private int references = 0;
+
+  /**
+   * Whether a bandwidth budget is configured in the given {@link State}.
+   */
+  public static boolean isEnabled(State state) {
+    return state.contains(BANDWIDTH_LIMIT_KEY) || state.contains(DATASET_BANDWIDTH_LIMIT_KEY);
+  }
+
+  /**
+   * Get the {@link BandwidthGovernor} of the job the given {@link State} belongs to, creating it if this is the first
+   * task of the job in this JVM that asks for it. Each call must be matched by a call to {@link #close()}.
+   */
+  public static BandwidthGovernor getInstance(State state) throws IOException {
+    Preconditions.checkArgument(state.contains(ConfigurationKeys.JOB_ID_KEY),
+        "Missing required property " + ConfigurationKeys.JOB_ID_KEY);
+    synchronized (GOVERNORS) {
+      String jobId = state.getProp(ConfigurationKeys.JOB_ID_KEY);
+      BandwidthGovernor governor = GOVERNORS.get(jobId);
+      if (governor == null) {
+        governor = new BandwidthGovernor(jobId, state);
+        GOVERNORS.put(jobId, governor);
+      }
+      governor.references++;
+      return governor;
+    }
+  }
+
+  /**
+   * Release the {@link BandwidthGovernor} of the given job in this JVM, if there is one, even if some tasks of the job
+   * have not closed it. This is called when the job finishes, so that no {@link BandwidthGovernor} outlives its job.
+   */
+  public static void release(String jobId) throws IOException {
+    BandwidthGovernor governor;
+    synchronized (GOVERNORS) {
+      governor = GOVERNORS.remove(jobId);
+    }
+    if (governor != null) {
+      governor.shutDown();
+    }
+  }
+
+  private BandwidthGovernor(String jobId, State state) throws IOException {
+    this.jobId = jobId;
+    this.jobBudget = state.contains(BANDWIDTH_LIMIT_KEY) ?
+        Optional.of(state.getPropAsLong(BANDWIDTH_LIMIT_KEY)) : Optional.<Long> absent();
+    this.datasetBudget = state.contains(DATASET_BANDWIDTH_LIMIT_KEY) ?
+        Optional.of(state.getPropAsLong(DATASET_BANDWIDTH_LIMIT_KEY)) : Optional.<Long> absent();
+    this.numContainers = state.getPropAsInt(BANDWIDTH_NUM_CONTAINERS_KEY, DEFAULT_BANDWIDTH_NUM_CONTAINERS);
+    this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(state.getPropAsLong(
+        BANDWIDTH_LEASE_REFRESH_INTERVAL_SECONDS_KEY, DEFAULT_BANDWIDTH_LEASE_REFRESH_INTERVAL_SECONDS));
+    this.liveContainers = this.numContainers;
+
+    if (state.contains(BANDWIDTH_LEASE_DIR_KEY)) {
+      Path leaseDir = new Path(state.getProp(BANDWIDTH_LEASE_DIR_KEY));
+      this.leaseFs = Optional.of(leaseDir.getFileSystem(HadoopUtils.getConfFromState(state)));
+      this.leaseFile = Optional.of(new Path(new Path(leaseDir, jobId), UUID.randomUUID().toString()));
+    } else {
+      this.leaseFs = Optional.absent();
+      this.leaseFile = Optional.absent();
+    }
+
+    this.jobRateLimiter = this.jobBudget.isPresent() ?
+        Optional.of(RateLimiter.create(getTargetRate(this.jobBudget.get()))) : Optional.<RateLimiter> absent();
+
+    refresh();
+    this.refresher = Executors.newSingleThreadScheduledExecutor(
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("BandwidthGovernor-%d")));
+    this.refresher.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          refresh();
+        } catch (IOException ioe) {
+          LOG.warn("Failed to refresh bandwidth lease of job " + BandwidthGovernor.this.jobId, ioe);
+        }
+      }
+    }, this.refreshIntervalMillis, this.refreshIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Get a {@link Limiter} whose permits are bytes, limited by the job-wide budget and the budget of the given dataset.
+   */
+  public Limiter getLimiter(final Optional<String> dataset) {
+    final Optional<RateLimiter> datasetRateLimiter = dataset.isPresent() && this.datasetBudget.isPresent() ?
+        Optional.of(getDatasetRateLimiter(dataset.get())) : Optional.<RateLimiter> absent();
+    final Optional<Meter> datasetMeter =
+        dataset.isPresent() ? Optional.of(getDatasetMeter(dataset.get())) : Optional.<Meter> absent();
+
+    return new NonRefillableLimiter() {
+      @Override
+      public void start() {
+        // Nothing to do
+      }
+
+      @Override
+      public Closeable acquirePermits(long permits) throws InterruptedException {
+        if (permits <= 0) {
+          return NO_OP_CLOSEABLE;
+        }
+        if (jobRateLimiter.isPresent()) {
+          jobRateLimiter.get().acquire(Ints.checkedCast(permits));
+        }
+        if (datasetRateLimiter.isPresent()) {
+          datasetRateLimiter.get().acquire(Ints.checkedCast(permits));
+        }
+        jobMeter.mark(permits);
+        if (datasetMeter.isPresent()) {
+          datasetMeter.get().mark(permits);
+        }
+        return NO_OP_CLOSEABLE;
+      }
+
+      @Override
+      public void stop() {
+        // Nothing to do
+      }
+    };
+  }
+
+  /**
+   * Get the job-wide rate in bytes per second currently allowed for this container, if a job-wide budget is set.
+   */
+  public Optional<Double> getTargetBytesPerSecond() {
+    return this.jobRateLimiter.isPresent() ?
+        Optional.of(this.jobRateLimiter.get().getRate()) : Optional.<Double> absent();
+  }
+
+  /**
+   * Get the {@link Meter} of the bytes that went through the {@link Limiter}s of this {@link BandwidthGovernor}.
+   */
+  public Meter getMeter() {
+    return this.jobMeter;
+  }
+
+  private RateLimiter getDatasetRateLimiter(String dataset) {
+    RateLimiter rateLimiter = this.datasetRateLimiters.get(dataset);
+    if (rateLimiter == null) {
+      this.datasetRateLimiters.putIfAbsent(dataset, RateLimiter.create(getTargetRate(this.datasetBudget.get())));
+      rateLimiter = this.datasetRateLimiters.get(dataset);
+    }
+    return rateLimiter;
+  }
+
+  private Meter getDatasetMeter(String dataset) {
+    Meter meter = this.datasetMeters.get(dataset);
+    if (meter == null) {
+      this.datasetMeters.putIfAbsent(dataset, new Meter());
+      meter = this.datasetMeters.get(dataset);
+    }
+    return meter;
+  }
+
+  private double getTargetRate(long budget) {
+    return (double) budget / Math.max(1, this.liveContainers);
+  }
+
+  /**
+   * Rewrite the lease file of this container, count the live leases of the job and adjust the rates accordingly.
+   */
+  void refresh() throws IOException {
+    if (this.leaseFile.isPresent()) {
+      this.leaseFs.get().create(this.leaseFile.get(), true).close();
+
+      int live = 0;
+      long now = System.currentTimeMillis();
+      for (FileStatus lease : this.leaseFs.get().listStatus(this.leaseFile.get().getParent())) {
+        if (now - lease.getModificationTime() <= LEASE_EXPIRATION_INTERVALS * this.refreshIntervalMillis) {
+          live++;
+        }
+      }
+      this.liveContainers = live;
+    }
+
+    if (this.jobRateLimiter.isPresent()) {
+      this.jobRateLimiter.get().setRate(getTargetRate(this.jobBudget.get()));
+      LOG.info(String.format("Job %s: achieved %.0f of target %.0f bytes per second with %d containers", this.jobId,
+          this.jobMeter.getOneMinuteRate(), this.jobRateLimiter.get().getRate(), this.liveContainers));
+    }
+    for (Map.Entry<String, RateLimiter> entry : this.datasetRateLimiters.entrySet()) {
+      entry.getValue().setRate(getTargetRate(this.datasetBudget.get()));
+      LOG.info(String.format("Dataset %s of job %s: achieved %.0f of target %.0f bytes per second", entry.getKey(),
+          this.jobId, getDatasetMeter(entry.getKey()).getOneMinuteRate(), entry.getValue().getRate()));
+    }
+  }
+
+  /**
+   * Release this {@link BandwidthGovernor}. Once it has been released by all tasks, its lease file is deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (GOVERNORS) {
+      // Nothing to do if the job already released this governor
+      if (--this.references > 0 || GOVERNORS.get(this.jobId) != this) {
+        return;
+      }
+      GOVERNORS.remove(this.jobId);
+    }
+    shutDown();
+  }
+
+  private void shutDown() throws IOException {
+    this.refresher.shutdownNow();
+    if (this.leaseFile.isPresent()) {
+      this.leaseFs.get().delete(this.leaseFile.get(), false);
+    }
+  }
+}
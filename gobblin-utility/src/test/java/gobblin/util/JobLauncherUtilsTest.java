@@ -12,6 +12,10 @@
 
 package gobblin.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -82,6 +86,51 @@ public class JobLauncherUtilsTest {
     Assert.assertEquals(JobLauncherUtils.flattenWorkUnits(workUnitsAndMultiWorkUnits).size(), 9);
   }
 
+  @Test
+  public void testFlattenWorkUnitsInheritsMultiWorkUnitProperties() {
+    WorkUnit workUnit1 = WorkUnit.createEmpty();
+    WorkUnit workUnit2 = WorkUnit.createEmpty();
+    workUnit2.setProp("key", "inner");
+
+    MultiWorkUnit multiWorkUnit = MultiWorkUnit.createEmpty();
+    multiWorkUnit.addWorkUnits(Arrays.asList(workUnit1, workUnit2));
+    multiWorkUnit.setPropExcludeInnerWorkUnits("key", "outer");
+
+    List<WorkUnit> flattenedWorkUnits =
+        JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(Arrays.<WorkUnit>asList(multiWorkUnit));
+    Assert.assertEquals(flattenedWorkUnits.get(0).getProp("key"), "outer");
+    // Properties of the inner work units take precedence
+    Assert.assertEquals(flattenedWorkUnits.get(1).getProp("key"), "inner");
+  }
+
+  @Test
+  public void testFlattenWorkUnitsDoesNotModifyMultiWorkUnit() throws IOException {
+    WorkUnit workUnit1 = WorkUnit.createEmpty();
+    WorkUnit workUnit2 = WorkUnit.createEmpty();
+
+    MultiWorkUnit multiWorkUnit = MultiWorkUnit.createEmpty();
+    multiWorkUnit.addWorkUnits(Arrays.asList(workUnit1, workUnit2));
+    multiWorkUnit.setPropExcludeInnerWorkUnits("key", "outer");
+
+    JobLauncherUtils.flattenWorkUnits(Arrays.<WorkUnit>asList(multiWorkUnit));
+    JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(Arrays.<WorkUnit>asList(multiWorkUnit));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      multiWorkUnit.write(out);
+    }
+    MultiWorkUnit deserialized = MultiWorkUnit.createEmpty();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      deserialized.readFields(in);
+    }
+
+    Assert.assertEquals(deserialized.getProp("key"), "outer");
+    Assert.assertEquals(deserialized.getWorkUnits().size(), 2);
+    for (WorkUnit innerWorkUnit : deserialized.getWorkUnits()) {
+      Assert.assertFalse(innerWorkUnit.contains("key"));
+    }
+  }
+
   @Test
   public void testDeleteStagingData() throws IOException {
     FileSystem fs = FileSystem.getLocal(new Configuration());
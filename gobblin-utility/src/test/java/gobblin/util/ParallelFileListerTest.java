@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util;
+
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+
+
+/**
+ * Unit tests for {@link ParallelFileLister}.
+ */
+@Test(groups = { "gobblin.util" })
+public class ParallelFileListerTest {
+
+  private static final String TEST_DIR = "gobblin-utility/src/test/resources/parallelFileListerTestDir";
+
+  private FileSystem localFs;
+  private Path baseDir;
+  private Set<String> expectedFiles = Sets.newHashSet();
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.localFs = FileSystem.getLocal(new Configuration());
+    this.baseDir = new Path(TEST_DIR);
+    if (this.localFs.exists(this.baseDir)) {
+      this.localFs.delete(this.baseDir, true);
+    }
+
+    // Build a tree that is both deep and wide
+    for (int i = 0; i < 5; i++) {
+      Path dir = new Path(this.baseDir, "dir" + i);
+      for (int j = 0; j < 5; j++) {
+        Path subDir = new Path(dir, "subDir" + j);
+        for (int k = 0; k < 3; k++) {
+          String fileName = String.format("file_%d_%d_%d", i, j, k);
+          this.localFs.create(new Path(subDir, fileName)).close();
+          this.expectedFiles.add(fileName);
+        }
+      }
+    }
+    this.localFs.mkdirs(new Path(this.baseDir, "emptyDir"));
+  }
+
+  @Test
+  public void testListFilesRecursively() throws IOException {
+    try (ParallelFileLister lister = new ParallelFileLister(this.localFs, 4)) {
+      Assert.assertEquals(getNames(lister.listFilesRecursively(this.baseDir, FileListUtils.NO_OP_PATH_FILTER)),
+          this.expectedFiles);
+
+      List<FileStatus> filtered = lister.listFilesRecursively(this.baseDir, new PathFilter() {
+        @Override
+        public boolean accept(Path path) {
+          return path.getName().startsWith("file_0_");
+        }
+      });
+      Assert.assertEquals(filtered.size(), 15);
+    }
+  }
+
+  @Test
+  public void testListMostNestedPathRecursively() throws IOException {
+    Set<String> expected = Sets.newHashSet(this.expectedFiles);
+    expected.add("emptyDir");
+    Assert.assertEquals(getNames(FileListUtils.listMostNestedPathRecursively(this.localFs, this.baseDir,
+        FileListUtils.NO_OP_PATH_FILTER, 3)), expected);
+  }
+
+  @Test
+  public void testIterateWithCache() throws IOException {
+    try (ParallelFileLister lister = new ParallelFileLister(this.localFs, 2, true)) {
+      for (int run = 0; run < 2; run++) {
+        Set<String> names = Sets.newHashSet();
+        Iterator<FileStatus> iterator =
+            lister.iterateFilesRecursively(this.baseDir, FileListUtils.NO_OP_PATH_FILTER, false);
+        while (iterator.hasNext()) {
+          names.add(iterator.next().getPath().getName());
+        }
+        Assert.assertEquals(names, this.expectedFiles);
+      }
+    }
+  }
+
+  @Test
+  public void testCachedListingPicksUpFilesInSubDirs() throws IOException {
+    Path dir = new Path(TEST_DIR + "_cache");
+    Path subDir = new Path(dir, "a/b");
+    this.localFs.delete(dir, true);
+    try (ParallelFileLister lister = new ParallelFileLister(this.localFs, 2, true)) {
+      this.localFs.create(new Path(subDir, "file1")).close();
+      this.localFs.setTimes(subDir, 1000, -1);
+      Assert.assertEquals(getNames(lister.listFilesRecursively(dir, FileListUtils.NO_OP_PATH_FILTER)),
+          Sets.newHashSet("file1"));
+
+      // Only the modification time of the innermost directory changes
+      this.localFs.create(new Path(subDir, "file2")).close();
+      this.localFs.setTimes(subDir, 2000, -1);
+      Assert.assertEquals(getNames(lister.listFilesRecursively(dir, FileListUtils.NO_OP_PATH_FILTER)),
+          Sets.newHashSet("file1", "file2"));
+    } finally {
+      this.localFs.delete(dir, true);
+    }
+  }
+
+  @Test
+  public void testCachedListingsOfLeafDirsOnly() throws IOException {
+    Path dir = new Path(TEST_DIR + "_leaf");
+    this.localFs.delete(dir, true);
+    try {
+      for (int i = 0; i < 3; i++) {
+        for (int j = 0; j < 4; j++) {
+          this.localFs.create(new Path(dir, String.format("dir%d/subDir%d/file", i, j))).close();
+        }
+      }
+
+      // The first walk lists all 16 directories, later walks only the 4 directories with subdirectories
+      FileSystem fs = Mockito.spy(this.localFs);
+      try (ParallelFileLister lister = new ParallelFileLister(fs, 2, true)) {
+        Assert.assertEquals(lister.listFilesRecursively(dir, FileListUtils.NO_OP_PATH_FILTER).size(), 12);
+        Mockito.verify(fs, Mockito.times(16)).listStatus(Mockito.any(Path.class));
+
+        Mockito.reset(fs);
+        Assert.assertEquals(lister.listFilesRecursively(dir, FileListUtils.NO_OP_PATH_FILTER).size(), 12);
+        Mockito.verify(fs, Mockito.times(4)).listStatus(Mockito.any(Path.class));
+        Mockito.verify(fs, Mockito.times(1)).getFileStatus(Mockito.any(Path.class));
+      }
+    } finally {
+      this.localFs.delete(dir, true);
+    }
+  }
+
+  @Test
+  public void testCachedListingsNotSharedAcrossUsers() throws Exception {
+    final Path dir = new Path(TEST_DIR + "_users");
+    Path subDir = new Path(dir, "a");
+    this.localFs.delete(dir, true);
+    try {
+      this.localFs.create(new Path(subDir, "file1")).close();
+      this.localFs.setTimes(subDir, 1000, -1);
+      try (ParallelFileLister lister = new ParallelFileLister(this.localFs, 2, true)) {
+        Assert.assertEquals(getNames(lister.listFilesRecursively(dir, FileListUtils.NO_OP_PATH_FILTER)),
+            Sets.newHashSet("file1"));
+      }
+
+      this.localFs.create(new Path(subDir, "file2")).close();
+      this.localFs.setTimes(subDir, 1000, -1);
+      List<FileStatus> statuses = UserGroupInformation.createRemoteUser("otherUser").doAs(
+          new PrivilegedExceptionAction<List<FileStatus>>() {
+            @Override
+            public List<FileStatus> run() throws IOException {
+              try (ParallelFileLister lister = new ParallelFileLister(localFs, 2, true)) {
+                return lister.listFilesRecursively(dir, FileListUtils.NO_OP_PATH_FILTER);
+              }
+            }
+          });
+      Assert.assertEquals(getNames(statuses), Sets.newHashSet("file1", "file2"));
+    } finally {
+      this.localFs.delete(dir, true);
+    }
+  }
+
+  @Test
+  public void testListSingleFile() throws IOException {
+    try (ParallelFileLister lister = new ParallelFileLister(this.localFs, 2)) {
+      Path file = new Path(this.baseDir, "dir0/subDir0/file_0_0_0");
+      Assert.assertEquals(getNames(lister.listFilesRecursively(file, FileListUtils.NO_OP_PATH_FILTER)),
+          Sets.newHashSet("file_0_0_0"));
+    }
+  }
+
+  private static Set<String> getNames(List<FileStatus> statuses) {
+    Set<String> names = Sets.newHashSet();
+    for (FileStatus status : statuses) {
+      names.add(status.getPath().getName());
+    }
+    return names;
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    this.localFs.delete(this.baseDir, true);
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2014-2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util.limiter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.util.io.ThrottledInputStream;
+
+
+/**
+ * Unit tests for {@link BandwidthGovernor}.
+ */
+@Test(groups = { "gobblin.util.limiter" })
+public class BandwidthGovernorTest {
+
+  private static final Path LEASE_DIR = new Path("gobblin-test/bandwidth-governor-test");
+
+  private FileSystem fs;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.fs.delete(LEASE_DIR, true);
+  }
+
+  @Test
+  public void testThrottling() throws Exception {
+    State state = new State();
+    state.setProp(ConfigurationKeys.JOB_ID_KEY, "job_testThrottling_1");
+    state.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 10000);
+
+    BandwidthGovernor governor = BandwidthGovernor.getInstance(state);
+    try {
+      InputStream in = new ThrottledInputStream(new ByteArrayInputStream(new byte[30000]),
+          governor.getLimiter(Optional.<String> absent()));
+      long startTime = System.currentTimeMillis();
+      Assert.assertEquals(ByteStreams.toByteArray(in).length, 30000);
+      // The first permits are granted immediately, the remaining 20000 bytes take two seconds
+      Assert.assertTrue(System.currentTimeMillis() - startTime >= 1500);
+      Assert.assertEquals(governor.getMeter().getCount(), 30000);
+    } finally {
+      governor.close();
+    }
+  }
+
+  @Test
+  public void testSharedInstance() throws Exception {
+    State state = new State();
+    state.setProp(ConfigurationKeys.JOB_ID_KEY, "job_testSharedInstance_1");
+    state.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 1000);
+
+    BandwidthGovernor governor1 = BandwidthGovernor.getInstance(state);
+    BandwidthGovernor governor2 = BandwidthGovernor.getInstance(state);
+    Assert.assertSame(governor1, governor2);
+    governor1.close();
+    governor2.close();
+
+    BandwidthGovernor governor3 = BandwidthGovernor.getInstance(state);
+    Assert.assertNotSame(governor3, governor1);
+    governor3.close();
+  }
+
+  @Test
+  public void testInstancePerJobExecution() throws Exception {
+    State state1 = new State();
+    state1.setProp(ConfigurationKeys.JOB_NAME_KEY, "testInstancePerJobExecution");
+    state1.setProp(ConfigurationKeys.JOB_ID_KEY, "job_testInstancePerJobExecution_1");
+    state1.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 1000);
+    State state2 = new State();
+    state2.addAll(state1);
+    state2.setProp(ConfigurationKeys.JOB_ID_KEY, "job_testInstancePerJobExecution_2");
+    state2.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 2000);
+
+    BandwidthGovernor governor1 = BandwidthGovernor.getInstance(state1);
+    BandwidthGovernor governor2 = BandwidthGovernor.getInstance(state2);
+    Assert.assertNotSame(governor1, governor2);
+    Assert.assertEquals(governor1.getTargetBytesPerSecond().get(), 1000d, 0.1);
+    Assert.assertEquals(governor2.getTargetBytesPerSecond().get(), 2000d, 0.1);
+    governor1.close();
+    governor2.close();
+  }
+
+  @Test
+  public void testRelease() throws Exception {
+    State state = new State();
+    state.setProp(ConfigurationKeys.JOB_ID_KEY, "job_testRelease_1");
+    state.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 1000);
+    state.setProp(BandwidthGovernor.BANDWIDTH_LEASE_DIR_KEY, LEASE_DIR.toString());
+
+    // The job finishes before one of its tasks closed the governor
+    BandwidthGovernor governor = BandwidthGovernor.getInstance(state);
+    BandwidthGovernor.release("job_testRelease_1");
+    Assert.assertEquals(this.fs.listStatus(new Path(LEASE_DIR, "job_testRelease_1")).length, 0);
+
+    BandwidthGovernor newGovernor = BandwidthGovernor.getInstance(state);
+    Assert.assertNotSame(newGovernor, governor);
+    // Closing the released governor late leaves the new one alone
+    governor.close();
+    Assert.assertSame(BandwidthGovernor.getInstance(state), newGovernor);
+    newGovernor.close();
+    newGovernor.close();
+
+    // Releasing a job without a governor is a no-op
+    BandwidthGovernor.release("job_testRelease_1");
+  }
+
+  @Test
+  public void testLeases() throws Exception {
+    State state = new State();
+    state.setProp(ConfigurationKeys.JOB_ID_KEY, "job_testLeases_1");
+    state.setProp(BandwidthGovernor.BANDWIDTH_LIMIT_KEY, 1000);
+    state.setProp(BandwidthGovernor.BANDWIDTH_LEASE_DIR_KEY, LEASE_DIR.toString());
+
+    BandwidthGovernor governor = BandwidthGovernor.getInstance(state);
+    try {
+      Assert.assertEquals(governor.getTargetBytesPerSecond().get(), 1000d, 0.1);
+
+      // Another container of the job takes a lease, and an expired lease is ignored
+      Path jobLeaseDir = new Path(LEASE_DIR, "job_testLeases_1");
+      this.fs.create(new Path(jobLeaseDir, "other"), true).close();
+      Path expiredLease = new Path(jobLeaseDir, "expired");
+      this.fs.create(expiredLease, true).close();
+      this.fs.setTimes(expiredLease, 0, -1);
+
+      governor.refresh();
+      Assert.assertEquals(governor.getTargetBytesPerSecond().get(), 500d, 0.1);
+    } finally {
+      governor.close();
+    }
+    Assert.assertEquals(this.fs.listStatus(new Path(LEASE_DIR, "job_testLeases_1")).length, 2);
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    this.fs.delete(LEASE_DIR, true);
+  }
+}
@@ -123,7 +123,7 @@ public class GobblinHelixTask implements Task {
       if (workUnit instanceof MultiWorkUnit) {
         // Flatten the MultiWorkUnit so the job configuration properties can be added to each individual WorkUnits
         List<WorkUnit> flattenedWorkUnits =
-            JobLauncherUtils.flattenWorkUnits(((MultiWorkUnit) workUnit).getWorkUnits());
+            JobLauncherUtils.flattenWorkUnitsWithInheritedProperties(Lists.newArrayList(workUnit));
         for (WorkUnit flattenedWorkUnit : flattenedWorkUnits) {
           flattenedWorkUnit.addAllIfNotExist(this.jobState);
         }